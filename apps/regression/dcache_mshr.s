@@ -0,0 +1,35 @@
+# ------------------------------------------------------------------
+# Regression program for the non-blocking data cache.
+# Stores to both words of consecutive lines: the first store of a line
+# misses and takes a miss status holding register, the second one is
+# merged into it. Back to back misses fill all registers.
+# ------------------------------------------------------------------
+
+        .data
+arr:    .space 128
+
+        .text
+        .global main
+main:
+        add     t0, zero, 0             # byte offset into arr
+        add     t1, zero, 128           # size of arr
+        add     t2, zero, 1             # value stored
+store:
+        add     t4, t0, 4               # offset of the second word
+        sw      t2, arr(t0)
+        sw      t2, arr(t4)
+        add     t2, t2, 1
+        add     t0, t0, 8
+        blt     t0, t1, store
+
+        add     t0, zero, 0
+        add     s0, zero, 0             # s0= sum of arr
+load:
+        lw      t3, arr(t0)
+        add     s0, s0, t3
+        add     t0, t0, 4
+        blt     t0, t1, load
+
+        add     a0, zero, 0             # exit code 0
+        add     a7, zero, 93            # syscall 93: exit
+        scall
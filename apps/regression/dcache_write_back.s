@@ -0,0 +1,32 @@
+# ------------------------------------------------------------------
+# Regression program for the write-back, write-allocate data cache.
+# Stores to an array four times the size of the data cache and reads
+# it back, so that dirty lines are evicted and written back.
+# ------------------------------------------------------------------
+
+        .data
+arr:    .space 256
+
+        .text
+        .global main
+main:
+        add     t0, zero, 0             # byte offset into arr
+        add     t1, zero, 256           # size of arr
+        add     t2, zero, 0             # value stored
+store:
+        sw      t2, arr(t0)
+        add     t2, t2, 1
+        add     t0, t0, 4
+        blt     t0, t1, store
+
+        add     t0, zero, 0
+        add     s0, zero, 0             # s0= sum of arr
+load:
+        lw      t3, arr(t0)
+        add     s0, s0, t3
+        add     t0, t0, 4
+        blt     t0, t1, load
+
+        add     a0, zero, 0             # exit code 0
+        add     a7, zero, 93            # syscall 93: exit
+        scall
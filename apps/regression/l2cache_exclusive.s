@@ -0,0 +1,31 @@
+# ------------------------------------------------------------------
+# Regression program for the exclusive second level cache.
+# Reads an array twice that is larger than the data cache but fits
+# into the L2 cache. The lines evicted from the data cache are moved
+# into the L2 cache, so the second pass misses in the data cache and
+# hits in the L2 cache.
+# ------------------------------------------------------------------
+
+        .data
+arr:    .word 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16
+        .word 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32
+
+        .text
+        .global main
+main:
+        add     s0, zero, 0             # s0= sum of both passes
+        add     t1, zero, 128           # size of arr
+        add     t4, zero, 2             # number of passes
+pass:
+        add     t0, zero, 0             # byte offset into arr
+load:
+        lw      t3, arr(t0)
+        add     s0, s0, t3
+        add     t0, t0, 4
+        blt     t0, t1, load
+        add     t4, t4, -1
+        bne     t4, zero, pass
+
+        add     a0, zero, 0             # exit code 0
+        add     a7, zero, 93            # syscall 93: exit
+        scall
@@ -0,0 +1,39 @@
+# ------------------------------------------------------------------
+# Regression program for the prefetchers.
+# Reads every fourth word of an array, i.e. every second line of the
+# data cache, which the stride prefetcher learns after a few accesses.
+# The straight line code between the loops is fetched by the next line
+# prefetcher of the instruction cache.
+# ------------------------------------------------------------------
+
+        .data
+arr:    .space 512
+
+        .text
+        .global main
+main:
+        add     t0, zero, 0             # byte offset into arr
+        add     t1, zero, 512           # size of arr
+        add     t2, zero, 0             # value stored
+store:
+        sw      t2, arr(t0)
+        add     t2, t2, 1
+        add     t0, t0, 16
+        blt     t0, t1, store
+
+        add     t0, zero, 0
+        add     s0, zero, 0             # s0= sum of arr
+        add     s1, zero, 0             # straight line code for the icache
+        add     s2, zero, 0
+        add     s3, zero, 0
+        add     s4, zero, 0
+        add     s5, zero, 0
+load:
+        lw      t3, arr(t0)
+        add     s0, s0, t3
+        add     t0, t0, 16
+        blt     t0, t1, load
+
+        add     a0, zero, 0             # exit code 0
+        add     a7, zero, 93            # syscall 93: exit
+        scall
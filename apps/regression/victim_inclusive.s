@@ -0,0 +1,39 @@
+# ------------------------------------------------------------------
+# Regression program for the victim cache and the inclusive L2 cache.
+# Alternates between two words that map to the same line of the direct
+# mapped data cache, the line evicted by one is found in the victim
+# cache by the other. A pass over a larger array then evicts lines
+# from the small L2 cache that are still held by the data cache.
+# ------------------------------------------------------------------
+
+        .data
+arr:    .space 1024
+
+        .text
+        .global main
+main:
+        add     t0, zero, 0             # offset of the first word
+        add     t1, zero, 32            # offset of the second word
+        add     t4, zero, 16            # number of iterations
+        add     s0, zero, 0
+conflict:
+        lw      t3, arr(t0)
+        add     s0, s0, t3
+        lw      t3, arr(t1)
+        add     s0, s0, t3
+        add     s0, s0, 1
+        add     t4, t4, -1
+        bne     t4, zero, conflict
+
+        add     t0, zero, 0             # byte offset into arr
+        add     t1, zero, 1024          # size of arr
+sweep:
+        lw      t3, arr(t0)
+        add     s0, s0, t3
+        add     s0, s0, 1
+        add     t0, t0, 8
+        blt     t0, t1, sweep
+
+        add     a0, zero, 0             # exit code 0
+        add     a7, zero, 93            # syscall 93: exit
+        scall
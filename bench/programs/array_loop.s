@@ -0,0 +1,27 @@
+        .data
+arr:    .space 4096
+        .text
+        .global main
+main:
+        add     s0, zero, 0
+        add     s1, zero, 20
+outer:
+        add     t0, zero, 0
+        add     t1, zero, 1024
+inner:
+        sll     t2, t0, 2
+        lw      t3, arr(t2)
+        add     t3, t3, t0
+        sw      t3, arr(t2)
+        add     s0, s0, t3
+        add     t0, t0, 1
+        blt     t0, t1, inner
+        jal     func
+        add     s1, s1, -1
+        bne     s1, zero, outer
+        add     a0, zero, 0
+        add     a7, zero, 93
+        scall
+func:
+        add     s2, s2, 1
+        ret
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.bench;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import riscVivid.asm.DLXAssembler;
+import riscVivid.asm.MemoryBuffer;
+
+/**
+ * End-to-end assembly (tokenizer, parser, label resolution) of a generated
+ * source with the given number of instructions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssemblerBenchmark
+{
+	// instructions per generated block
+	private static final int BLOCK = 8;
+
+	@Param({ "1000", "20000" })
+	public int instructions;
+
+	private String source;
+
+	@Setup(Level.Trial)
+	public void generate()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append("        .data\n");
+		sb.append("buf:    .space 64\n");
+		sb.append("        .align 2\n");
+		sb.append("value:  .word 1234567890\n");
+		sb.append("        .text\n");
+		sb.append("        .global main\n");
+		sb.append("main:\n");
+		for (int i = 0; i < instructions / BLOCK; i++)
+		{
+			sb.append("l").append(i).append(":\n");
+			sb.append("        add     t0, t0, ").append(i & 0x7ff).append("      # comment\n");
+			sb.append("        sll     t1, t0, 2\n");
+			sb.append("        lw      t2, value(zero)\n");
+			sb.append("        sw      t2, buf(t1)\n");
+			sb.append("        and     t3, t2, t0\n");
+			sb.append("        sub     t4, t3, t1\n");
+			sb.append("        blt     t4, t0, l").append(i).append("\n");
+			sb.append("        jal     l").append((i * 31) % (instructions / BLOCK)).append("\n");
+		}
+		sb.append("        add     a0, zero, 0\n");
+		sb.append("        add     a7, zero, 93\n");
+		sb.append("        scall\n");
+		source = sb.toString();
+	}
+
+	@Benchmark
+	public MemoryBuffer assemble() throws Exception
+	{
+		return new DLXAssembler().assemble(new BufferedReader(new StringReader(source)));
+	}
+}
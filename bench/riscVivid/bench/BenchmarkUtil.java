@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.apache.log4j.Level;
+
+import riscVivid.asm.AsmFileLoader;
+import riscVivid.util.LoggerConfigurator;
+
+/**
+ * Helpers shared by the benchmarks: assembling programs into a temporary
+ * directory, creating raw memory images and silencing the simulator's output.
+ */
+final class BenchmarkUtil
+{
+	private static PrintStream stdout = null;
+
+	private BenchmarkUtil()
+	{
+	}
+
+	/**
+	 * Assembles a source file into a temporary directory, so the generated
+	 * binary and config file do not end up next to the source.
+	 *
+	 * @param source the .s file
+	 * @param extraConfig lines appended to the generated config file, they
+	 *          override the defaults written by AsmFileLoader
+	 * @return the path of the generated config file
+	 */
+	static String assemble(String source, String... extraConfig) throws Exception
+	{
+		File dir = Files.createTempDirectory("riscVivid_bench").toFile();
+		dir.deleteOnExit();
+		File copy = new File(dir, new File(source).getName());
+		Files.copy(new File(source).toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+		File config = new AsmFileLoader(copy.getPath()).createConfigFile();
+		try (PrintWriter out = new PrintWriter(new FileWriter(config, true)))
+		{
+			for (String line : extraConfig)
+			{
+				out.println(line);
+			}
+		}
+		for (File f : dir.listFiles())
+		{
+			f.deleteOnExit();
+		}
+		return config.getPath();
+	}
+
+	/**
+	 * @return the path of a temporary file of size bytes, all zero, usable as
+	 *          the program image of a MainMemory
+	 */
+	static String zeroImage(int size) throws IOException
+	{
+		File f = File.createTempFile("riscVivid_bench", ".bin");
+		f.deleteOnExit();
+		try (OutputStream out = new FileOutputStream(f))
+		{
+			out.write(new byte[size]);
+		}
+		return f.getPath();
+	}
+
+	/**
+	 * Logs only warnings and discards stdout. The simulator prints its
+	 * configuration on every construction and the simulated programs print
+	 * their output, which would otherwise flood the benchmark output.
+	 */
+	static void quiet()
+	{
+		LoggerConfigurator.getInstance().configureLogger("/riscVivid/log4j_warn.properties", null);
+		LoggerConfigurator.getInstance().setLogLevel(Level.WARN);
+		if (stdout == null)
+		{
+			stdout = System.out;
+			System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		}
+	}
+
+	static void restoreStdout()
+	{
+		if (stdout != null)
+		{
+			System.setOut(stdout);
+			stdout = null;
+		}
+	}
+}
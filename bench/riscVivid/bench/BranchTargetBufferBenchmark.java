@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import riscVivid.branchPrediction.BranchTargetBuffer;
+import riscVivid.datatypes.BranchPredictorState;
+import riscVivid.datatypes.BranchPredictorType;
+import riscVivid.datatypes.BranchTargetBufferLookupResult;
+import riscVivid.exception.BranchPredictionException;
+
+/**
+ * Lookups and updates of the branch target buffer. The branch pcs are spread
+ * over four times as many addresses as the buffer has entries, so both hits
+ * and conflict misses occur.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BranchTargetBufferBenchmark
+{
+	private static final int BRANCHES = 1024;
+
+	@Param({ "D_1BIT", "D_2BIT_SATURATION", "D_2BIT_HYSTERESIS", "S_BACKWARD_TAKEN", "D_GSHARE", "D_TOURNAMENT", "D_TAGE" })
+	public String predictor;
+
+	@Param({ "64", "256" })
+	public int size;
+
+	@Param({ "1", "4" })
+	public int associativity;
+
+	private BranchTargetBuffer btb;
+	private int[] pcs;
+	private int[] targets;
+	private boolean[] taken;
+	private int index = 0;
+
+	@Setup(Level.Trial)
+	public void createBuffer() throws BranchPredictionException
+	{
+		BranchPredictorType type = BranchPredictorType.valueOf(predictor);
+		// the 1-bit predictor has no weak states
+		BranchPredictorState state = (type == BranchPredictorType.D_1BIT)
+				? BranchPredictorState.PREDICT_NOT_TAKEN : BranchPredictorState.PREDICT_WEAKLY_NOT_TAKEN;
+		btb = new BranchTargetBuffer(size, associativity, type, state, false,
+				BranchTargetBuffer.DEFAULT_PREDICTOR_TABLE_SIZE, 0);
+		pcs = new int[BRANCHES];
+		targets = new int[BRANCHES];
+		taken = new boolean[BRANCHES];
+		for (int i = 0; i < BRANCHES; i++)
+		{
+			int pc = 0x4000 + 4 * ((i * 7) % (4 * size));
+			pcs[i] = pc;
+			targets[i] = pc - 64;
+			// mostly taken, like loop branches
+			taken[i] = (i % 8) != 0;
+		}
+	}
+
+	private int next()
+	{
+		index = (index + 1) & (BRANCHES - 1);
+		return index;
+	}
+
+	@Benchmark
+	public BranchTargetBufferLookupResult lookup()
+	{
+		return btb.lookupBranch(pcs[next()]);
+	}
+
+	@Benchmark
+	public boolean lookupAndUpdate() throws BranchPredictionException
+	{
+		int i = next();
+		btb.predictBranch(pcs[i]);
+		boolean correct = btb.checkPrediction(pcs[i], targets[i], taken[i]);
+		btb.updateOnBranch(pcs[i], targets[i], taken[i]);
+		return correct;
+	}
+}
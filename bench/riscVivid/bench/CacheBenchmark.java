@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import riscVivid.datatypes.CacheType;
+import riscVivid.datatypes.DCacheWritePolicy;
+import riscVivid.exception.MemoryException;
+import riscVivid.memory.Cache;
+import riscVivid.memory.CacheBitPLRU;
+import riscVivid.memory.CacheDirectMapped;
+import riscVivid.memory.CacheFIFO;
+import riscVivid.memory.CacheLRU;
+import riscVivid.memory.CacheLRUMatrix;
+import riscVivid.memory.CacheRandom;
+import riscVivid.memory.CacheTreePLRU;
+import riscVivid.memory.MainMemory;
+import riscVivid.util.Statistics;
+
+/**
+ * Hit and miss paths of the data cache implementations. The cache has 64
+ * lines of 16 bytes; the hit benchmarks stay within 512 bytes, the miss
+ * benchmarks walk through 1 MB with a stride of one line.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheBenchmark
+{
+	private static final int LINE_SIZE = 16;
+	private static final int LINE_NO = 64;
+	private static final int MEMORY_SIZE = 1 << 20;
+	private static final int HIT_WORKING_SET = 512;
+
+	@Param({ "DIRECT_MAPPED", "FIFO", "LRU", "LRU_MATRIX", "TREE_PLRU", "BIT_PLRU", "RANDOM" })
+	public String policy;
+
+	// ignored for DIRECT_MAPPED
+	@Param({ "4", "16" })
+	public int ways;
+
+	@Param({ "WRITE_THROUGH", "WRITE_BACK" })
+	public String writePolicy;
+
+	private Cache cache;
+	private int hitAddr = 0;
+	private int missAddr = 0;
+
+	@Setup(Level.Trial)
+	public void createCache() throws Exception
+	{
+		BenchmarkUtil.quiet();
+		MainMemory mem = new MainMemory(BenchmarkUtil.zeroImage(MEMORY_SIZE), 0, (short) 0);
+		Statistics stat = new Statistics();
+		DCacheWritePolicy wpol = DCacheWritePolicy.valueOf(writePolicy);
+		switch (policy)
+		{
+		case "FIFO":
+			cache = new CacheFIFO(CacheType.DCACHE, LINE_SIZE, LINE_NO, ways, wpol, mem, stat);
+			break;
+		case "LRU":
+			cache = new CacheLRU(CacheType.DCACHE, LINE_SIZE, LINE_NO, ways, wpol, mem, stat);
+			break;
+		case "LRU_MATRIX":
+			cache = new CacheLRUMatrix(CacheType.DCACHE, LINE_SIZE, LINE_NO, ways, wpol, mem, stat);
+			break;
+		case "TREE_PLRU":
+			cache = new CacheTreePLRU(CacheType.DCACHE, LINE_SIZE, LINE_NO, ways, wpol, mem, stat);
+			break;
+		case "BIT_PLRU":
+			cache = new CacheBitPLRU(CacheType.DCACHE, LINE_SIZE, LINE_NO, ways, wpol, mem, stat);
+			break;
+		case "RANDOM":
+			cache = new CacheRandom(CacheType.DCACHE, LINE_SIZE, LINE_NO, ways, wpol, mem, stat);
+			break;
+		default:
+			cache = new CacheDirectMapped(CacheType.DCACHE, LINE_SIZE, LINE_NO, 1, wpol, mem, stat);
+		}
+		// fill all lines, only the steady state is measured
+		for (int addr = MEMORY_SIZE / 2; addr < MEMORY_SIZE / 2 + 2 * LINE_NO * LINE_SIZE; addr += LINE_SIZE)
+		{
+			cache.read_u32(addr, false);
+		}
+	}
+
+	private int nextHitAddr()
+	{
+		hitAddr = (hitAddr + 4) & (HIT_WORKING_SET - 1);
+		return hitAddr;
+	}
+
+	private int nextMissAddr()
+	{
+		missAddr = (missAddr + LINE_SIZE) & (MEMORY_SIZE - 1);
+		return missAddr;
+	}
+
+	@Benchmark
+	public int readHit() throws MemoryException
+	{
+		return cache.read_u32(nextHitAddr(), false);
+	}
+
+	@Benchmark
+	public int readMiss() throws MemoryException
+	{
+		return cache.read_u32(nextMissAddr(), false);
+	}
+
+	@Benchmark
+	public void writeHit() throws MemoryException
+	{
+		int addr = nextHitAddr();
+		cache.write_u32(addr, addr);
+	}
+
+	@Benchmark
+	public void writeMiss() throws MemoryException
+	{
+		int addr = nextMissAddr();
+		cache.write_u32(addr, addr);
+	}
+}
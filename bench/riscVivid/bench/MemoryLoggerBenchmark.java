@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import riscVivid.memory.MemoryLogger;
+
+/**
+ * Reserved memory checks as done by the fetch stage for every instruction:
+ * sequential words within one segment, and random words across all segments.
+ * The segments are 128 bytes with gaps of 128 bytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryLoggerBenchmark
+{
+	private static final int SEGMENT_SIZE = 128;
+	private static final int RANDOM_ADDRESSES = 1 << 12;
+
+	@Param({ "2", "256" })
+	public int segments;
+
+	private MemoryLogger logger;
+	private int[] randomAddrs;
+	private int seqAddr = 0;
+	private int randomIndex = 0;
+
+	@Setup(Level.Trial)
+	public void createLogger()
+	{
+		logger = new MemoryLogger();
+		for (int i = 0; i < segments; i++)
+		{
+			logger.add(2 * i * SEGMENT_SIZE, (2 * i + 1) * SEGMENT_SIZE);
+		}
+		Random random = new Random(42);
+		randomAddrs = new int[RANDOM_ADDRESSES];
+		for (int i = 0; i < RANDOM_ADDRESSES; i++)
+		{
+			randomAddrs[i] = random.nextInt(2 * segments * SEGMENT_SIZE) & ~3;
+		}
+	}
+
+	@Benchmark
+	public boolean checkSequential()
+	{
+		seqAddr = (seqAddr + 4) & (SEGMENT_SIZE - 1);
+		return logger.checkBytes(seqAddr, 4);
+	}
+
+	@Benchmark
+	public boolean checkRandom()
+	{
+		randomIndex = (randomIndex + 1) & (RANDOM_ADDRESSES - 1);
+		return logger.checkBytes(randomAddrs[randomIndex], 4);
+	}
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import riscVivid.exception.MemoryException;
+import riscVivid.util.Page;
+import riscVivid.util.PagedMemory;
+
+/**
+ * Access patterns on the paged backing store of the main memory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PagedMemoryBenchmark
+{
+	private static final int MEMORY_SIZE = 1 << 22;
+	private static final int RANDOM_ADDRESSES = 1 << 16;
+	private static final int BLOCK_SIZE = 32;
+
+	private PagedMemory memory;
+	private int[] randomAddrs;
+	private byte[] block;
+	private int seqAddr = 0;
+	private int randomIndex = 0;
+	private int pageCrossing = 0;
+
+	@Setup(Level.Trial)
+	public void fill() throws MemoryException
+	{
+		memory = new PagedMemory();
+		for (int addr = 0; addr < MEMORY_SIZE; addr += 4)
+		{
+			memory.writeWord(addr, addr);
+		}
+		Random random = new Random(42);
+		randomAddrs = new int[RANDOM_ADDRESSES];
+		for (int i = 0; i < RANDOM_ADDRESSES; i++)
+		{
+			randomAddrs[i] = random.nextInt(MEMORY_SIZE) & ~3;
+		}
+		block = new byte[BLOCK_SIZE];
+	}
+
+	private int nextSeqAddr()
+	{
+		seqAddr = (seqAddr + 4) & (MEMORY_SIZE - 1);
+		return seqAddr;
+	}
+
+	@Benchmark
+	public int readWordSequential() throws MemoryException
+	{
+		return memory.readWord(nextSeqAddr());
+	}
+
+	@Benchmark
+	public int readWordRandom() throws MemoryException
+	{
+		randomIndex = (randomIndex + 1) & (RANDOM_ADDRESSES - 1);
+		return memory.readWord(randomAddrs[randomIndex]);
+	}
+
+	@Benchmark
+	public byte readByteSequential() throws MemoryException
+	{
+		return memory.readByte(nextSeqAddr());
+	}
+
+	@Benchmark
+	public void writeWordSequential() throws MemoryException
+	{
+		int addr = nextSeqAddr();
+		memory.writeWord(addr, addr);
+	}
+
+	@Benchmark
+	public long readDWordPageCrossing() throws MemoryException
+	{
+		pageCrossing = (pageCrossing + Page.page_size) & (MEMORY_SIZE - 1);
+		return memory.readDWord(pageCrossing + Page.page_size - 4);
+	}
+
+	@Benchmark
+	public byte[] readBlock() throws MemoryException
+	{
+		int addr = (nextSeqAddr() * 8) & (MEMORY_SIZE - 1);
+		memory.readBlock(addr, block, 0, BLOCK_SIZE);
+		return block;
+	}
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import riscVivid.RiscVividSimulator;
+import riscVivid.exception.PipelineException;
+
+/**
+ * Runs complete programs through the pipeline. The score is the number of
+ * program runs per second; the auxiliary "cycles" counter gives the simulated
+ * clock cycles per second. Creating the simulator is not measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulatorBenchmark
+{
+	// all programs must run to their exit syscall, example_2_instr_memory.s
+	// is left out because it accesses unreserved memory
+	@Param({ "apps/examples/example_1_instr_simple.s",
+			"apps/examples/example_3_labels.s",
+			"apps/examples/example_4_output_text.s",
+			"apps/examples/example_5_output_integer.s",
+			"apps/regression/dcache_write_back.s",
+			"bench/programs/array_loop.s" })
+	public String program;
+
+	@Param({ "0", "1" })
+	public String caches;
+
+	private String configFile;
+	private RiscVividSimulator sim;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Cycles
+	{
+		public long cycles;
+
+		@Setup(Level.Iteration)
+		public void reset()
+		{
+			cycles = 0;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void assemble() throws Exception
+	{
+		BenchmarkUtil.quiet();
+		configFile = BenchmarkUtil.assemble(program, "cycles=100000000",
+				"icache_use=" + caches, "dcache_use=" + caches);
+	}
+
+	@Setup(Level.Invocation)
+	public void createSimulator() throws PipelineException
+	{
+		sim = new RiscVividSimulator(configFile, true, false);
+	}
+
+	@TearDown(Level.Trial)
+	public void restore()
+	{
+		BenchmarkUtil.restoreStdout();
+	}
+
+	@Benchmark
+	public int run(Cycles counter)
+	{
+		while (!sim.isFinished())
+		{
+			try
+			{
+				sim.step();
+			}
+			catch (PipelineException e)
+			{
+				// same as the command line version: stop at the first exception
+				sim.stopSimulation(true);
+			}
+		}
+		int cycles = sim.getContext().getStatistics().getCycles();
+		counter.cycles += cycles;
+		return cycles;
+	}
+}
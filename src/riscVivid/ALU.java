@@ -26,12 +26,14 @@ import org.apache.log4j.Logger;
 import riscVivid.datatypes.*;
 import riscVivid.exception.ExecuteStageException;
 import riscVivid.exception.PipelineException;
+import riscVivid.util.CalculationHelper;
 import riscVivid.util.DLXTrapHandler;
 
 public class ALU
 {
 	private static Logger logger = Logger.getLogger("EXECUTE/ALU");
 	private DLXTrapHandler trap_handler=null;
+	private int resultHI;
 	
 	public ALU()
 	{
@@ -41,378 +43,413 @@ public class ALU
 	
 	/* calculates result of ALU operation. If a 32bit result is calculated, it is available to both 32bit outputs. 
 	 * For a 64bit result, the result is split into a lower and upper 32bit results.
+	 * The lower result is returned, the upper one is available through getResultHI() until the next operation.
 	 */
-	public uint32[] doOperation(ALUFunction operation, uint32 A, uint32 B) throws PipelineException
+	public int doOperation(ALUFunction operation, int A, int B) throws PipelineException
 	{
-		uint32 resultLO = new uint32(0);
-		uint32 resultHI = new uint32(0);
+		int resultLO = 0;
+		int resultHI = 0;
 		
 		switch(operation)
 		{
 		case ADD:
 			// TODO missing trap on overflow
 		case ADDU:
-			resultLO.setValue(A.getValue() + B.getValue());
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " + " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			resultLO = A + B;
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " + " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case AND:
-			resultLO.setValue(A.getValue() & B.getValue());
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " & " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			resultLO = A & B;
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " & " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case BA:
-			resultLO.setValue((A.getValue()&0xF0000000)|((int)B.getValue()<<2));
-			logger.debug("(" + B.getValue() + "(" + B.getValueAsHexString() + ")" + " << 2) + " + (A.getValue()&0xF0000000) + "(" + Integer.toHexString(A.getValue()&0xF0000000) + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			resultLO = (A&0xF0000000)|((int)B<<2);
+			if (logger.isDebugEnabled())
+				logger.debug("(" + B + "(" + CalculationHelper.toHexString(B) + ")" + " << 2) + " + (A&0xF0000000) + "(" + Integer.toHexString(A&0xF0000000) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case BR:
-			short tgt_offset = (short)B.getValue();
-			resultLO.setValue(A.getValue()+(int)(tgt_offset << 2));
-			logger.debug("(" + B.getValue() + "(" + B.getValueAsHexString() + ")" + " << 2) + " + A.getValue() + "(" + A.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			short tgt_offset = (short)B;
+			resultLO = A+(int)(tgt_offset << 2);
+			if (logger.isDebugEnabled())
+				logger.debug("(" + B + "(" + CalculationHelper.toHexString(B) + ")" + " << 2) + " + A + "(" + CalculationHelper.toHexString(A) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case DIV:
 		{	
-			if(B.getValue() == 0)
+			if(B == 0)
 			{
 				throw new ExecuteStageException("Division by zero.");
 			}
 			// takes usually multiple cycles (3 according to the isa)
-			int q = A.getValue() / B.getValue();
-			int r = A.getValue() % B.getValue();
-			resultLO.setValue(q);
-			resultHI.setValue(r);
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " / " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " =  LO (q): " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")" + " HI (r): " + resultHI.getValue() + "(" + resultHI.getValueAsHexString() + ")");
+			int q = A / B;
+			int r = A % B;
+			resultLO = q;
+			resultHI = r;
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " / " + B + "(" + CalculationHelper.toHexString(B) + ")" + " =  LO (q): " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")" + " HI (r): " + resultHI + "(" + CalculationHelper.toHexString(resultHI) + ")");
 			break;
 		}
 		case DIVU:
 		{	
-			if(B.getValue() == 0)
+			if(B == 0)
 			{
 				throw new ExecuteStageException("Division by zero.");
 			}
 			// takes usually multiple cycles (3 according to the isa)
-			long q = ((long)A.getValue()&0xffffffffL) / ((long)B.getValue()&0xffffffffL);
-			long r = ((long)A.getValue()&0xffffffffL) % ((long)B.getValue()&0xffffffffL);
-			resultLO.setValue((int)q);
-			resultHI.setValue((int)r);
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " / " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " =  LO (q): " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")" + " HI (r): " + resultHI.getValue() + "(" + resultHI.getValueAsHexString() + ")");
+			long q = ((long)A&0xffffffffL) / ((long)B&0xffffffffL);
+			long r = ((long)A&0xffffffffL) % ((long)B&0xffffffffL);
+			resultLO = (int)q;
+			resultHI = (int)r;
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " / " + B + "(" + CalculationHelper.toHexString(B) + ")" + " =  LO (q): " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")" + " HI (r): " + resultHI + "(" + CalculationHelper.toHexString(resultHI) + ")");
 			break;
 		}
 		case REM:
 		{	
-			if(B.getValue() == 0)
+			if(B == 0)
 			{
 				throw new ExecuteStageException("Division by zero.");
 			}
 			// takes usually multiple cycles (3 according to the isa)
-			int r = A.getValue() % B.getValue();
-			resultLO.setValue(r);
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " / " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " =  LO (q): " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")" + " HI (r): " + resultHI.getValue() + "(" + resultHI.getValueAsHexString() + ")");
+			int r = A % B;
+			resultLO = r;
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " / " + B + "(" + CalculationHelper.toHexString(B) + ")" + " =  LO (q): " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")" + " HI (r): " + resultHI + "(" + CalculationHelper.toHexString(resultHI) + ")");
 			break;
 		}
 		case REMU:
 		{	
-			if(B.getValue() == 0)
+			if(B == 0)
 			{
 				throw new ExecuteStageException("Division by zero.");
 			}
-			long r = ((long)A.getValue()&0xffffffffL) % ((long)B.getValue()&0xffffffffL);
-			resultLO.setValue((int)r);
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " / " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " =  LO (q): " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")" + " HI (r): " + resultHI.getValue() + "(" + resultHI.getValueAsHexString() + ")");
+			long r = ((long)A&0xffffffffL) % ((long)B&0xffffffffL);
+			resultLO = (int)r;
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " / " + B + "(" + CalculationHelper.toHexString(B) + ")" + " =  LO (q): " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")" + " HI (r): " + resultHI + "(" + CalculationHelper.toHexString(resultHI) + ")");
 			break;
 		}
 		case LUI:
-			resultLO.setValue(((int)B.getValue() << 16));
-			logger.debug(B.getValue() + "(" + B.getValueAsHexString() + ")" + " << " + 16 + "(0x10)" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			resultLO = ((int)B << 16);
+			if (logger.isDebugEnabled())
+				logger.debug(B + "(" + CalculationHelper.toHexString(B) + ")" + " << " + 16 + "(0x10)" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case MULT:
 		{
 			// takes usually multiple cycles (3 according to the isa)
-			long mult = (long)A.getValue() * (long)B.getValue();
-			resultLO.setValue((int)mult);
-			resultHI.setValue((int)(mult >>> 32));
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " * " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + mult + " HI: " + resultHI.getValue() + "(" + resultHI.getValueAsHexString() + ")" + " LO: " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			long mult = (long)A * (long)B;
+			resultLO = (int)mult;
+			resultHI = (int)(mult >>> 32);
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " * " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + mult + " HI: " + resultHI + "(" + CalculationHelper.toHexString(resultHI) + ")" + " LO: " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			break;
 		}
 		case MULTU:
 		{
 			// takes usually multiple cycles (3 according to the isa)
-			long mult = ((long)A.getValue()&0xFFFFFFFFL) * ((long)B.getValue()&0xFFFFFFFFL);
-			resultLO.setValue((int)(mult & 0xFFFFFFFFL));
-			resultHI.setValue((int)((mult >>> 32) & 0xFFFFFFFFL));
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " * " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + mult + " HI: " + resultHI.getValue() + "(" + resultHI.getValueAsHexString() + ")" + " LO: " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			long mult = ((long)A&0xFFFFFFFFL) * ((long)B&0xFFFFFFFFL);
+			resultLO = (int)(mult & 0xFFFFFFFFL);
+			resultHI = (int)((mult >>> 32) & 0xFFFFFFFFL);
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " * " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + mult + " HI: " + resultHI + "(" + CalculationHelper.toHexString(resultHI) + ")" + " LO: " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			break;
 		}
 		case MULH:
 		{
-			long mult = (long)A.getValue() * (long)B.getValue();
-			resultLO.setValue((int)((mult >>> 32) & 0xFFFFFFFF));
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() 
-				+ ") * " + B.getValue() + "(" + B.getValueAsHexString() 
-				+ ")>>32= " + resultLO.getValue() + '(' + resultLO.getValueAsHexString() + ")");
+			long mult = (long)A * (long)B;
+			resultLO = (int)((mult >>> 32) & 0xFFFFFFFF);
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) 
+					+ ") * " + B + "(" + CalculationHelper.toHexString(B) 
+					+ ")>>32= " + resultLO + '(' + CalculationHelper.toHexString(resultLO) + ")");
 			break;
 		}
 		case MULHU:
 		{
-			BigInteger biga = BigInteger.valueOf(((long)A.getValue()) & 0xffffffffL);
-			BigInteger bigb = BigInteger.valueOf(((long)B.getValue()) & 0xffffffffL);
-			resultLO.setValue((int)biga.multiply(bigb).shiftRight(32).longValue());
-			logger.debug(biga.longValue() + "(" + String.format("0x%08x", biga.longValue())  
-				+ ") * " + bigb.longValue() + "(" + String.format("0x%08x", bigb.longValue())  
-				+ ")>>32= " + resultLO.getValue() + '(' + resultLO.getValueAsHexString() + ")");
+			BigInteger biga = BigInteger.valueOf(((long)A) & 0xffffffffL);
+			BigInteger bigb = BigInteger.valueOf(((long)B) & 0xffffffffL);
+			resultLO = (int)biga.multiply(bigb).shiftRight(32).longValue();
+			if (logger.isDebugEnabled())
+				logger.debug(biga.longValue() + "(" + String.format("0x%08x", biga.longValue())  
+					+ ") * " + bigb.longValue() + "(" + String.format("0x%08x", bigb.longValue())  
+					+ ")>>32= " + resultLO + '(' + CalculationHelper.toHexString(resultLO) + ")");
 			break;
 		}
 		case MULHSU:
 		{
-			BigInteger biga = BigInteger.valueOf((long)A.getValue());
-			BigInteger bigb = BigInteger.valueOf((long)B.getValue() & 0xffffffffL);
-			resultLO.setValue((int)biga.multiply(bigb).shiftRight(32).longValue());
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() 
-				+ ") * " + B.getValue() + "(" + B.getValueAsHexString() 
-				+ ")>>32= " + resultLO.getValue() + '(' + resultLO.getValueAsHexString() + ")");
+			BigInteger biga = BigInteger.valueOf((long)A);
+			BigInteger bigb = BigInteger.valueOf((long)B & 0xffffffffL);
+			resultLO = (int)biga.multiply(bigb).shiftRight(32).longValue();
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) 
+					+ ") * " + B + "(" + CalculationHelper.toHexString(B) 
+					+ ")>>32= " + resultLO + '(' + CalculationHelper.toHexString(resultLO) + ")");
 			break;
 		}
 
 		
 		
 		case OR:
-			resultLO.setValue(A.getValue() | B.getValue());
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " | " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			resultLO = A | B;
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " | " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case NOR:
-			resultLO.setValue(~(A.getValue() | B.getValue()));
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " NOR " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			resultLO = ~(A | B);
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " NOR " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case SLL:
 		{
-			short s = (short) (B.getValue() & 0x1F);
-			resultLO.setValue(A.getValue() << s);
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " << " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			short s = (short) (B & 0x1F);
+			resultLO = A << s;
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " << " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		}
 		case SLLV:
 		{
-			short s = (short) (A.getValue() & 0x1F);
-			resultLO.setValue(B.getValue() << s);
-			logger.debug(B.getValue() + "(" + B.getValueAsHexString() + ")" + " << " + A.getValue() + "(" + A.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			short s = (short) (A & 0x1F);
+			resultLO = B << s;
+			if (logger.isDebugEnabled())
+				logger.debug(B + "(" + CalculationHelper.toHexString(B) + ")" + " << " + A + "(" + CalculationHelper.toHexString(A) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		}
 		case SEQ:
 			// NOTICE: this ALU function is only needed for the DLX ISA
-			if(A.getValue() == B.getValue())
+			if(A == B)
 			{
-				resultLO.setValue(1);
+				resultLO = 1;
 			}
 			else
 			{
-				resultLO.setValue(0);
+				resultLO = 0;
 			}
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " SEQ " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " SEQ " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case SEQU:
 			// NOTICE: this ALU function is only needed for the DLX ISA
 			// chop off sign bit
-			if((A.getValue()&0x7FFFFFFF) == (B.getValue()&0x7FFFFFFF))
+			if((A&0x7FFFFFFF) == (B&0x7FFFFFFF))
 			{
-				resultLO.setValue(1);
+				resultLO = 1;
 			}
 			else
 			{
-				resultLO.setValue(0);
+				resultLO = 0;
 			}
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " SEQU " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " SEQU " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case SNE:
 			// NOTICE: this ALU function is only needed for the DLX ISA
-			if(A.getValue() != B.getValue())
+			if(A != B)
 			{
-				resultLO.setValue(1);
+				resultLO = 1;
 			}
 			else
 			{
-				resultLO.setValue(0);
+				resultLO = 0;
 			}
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " SNE " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " SNE " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case SNEU:
 			// NOTICE: this ALU function is only needed for the DLX ISA
 			// chop off sign bit
-			if((A.getValue()&0x7FFFFFFF) != (B.getValue()&0x7FFFFFFF))
+			if((A&0x7FFFFFFF) != (B&0x7FFFFFFF))
 			{
-				resultLO.setValue(1);
+				resultLO = 1;
 			}
 			else
 			{
-				resultLO.setValue(0);
+				resultLO = 0;
 			}
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " SNEU " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " SNEU " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case SGE:
 			// NOTICE: this ALU function is only needed for the DLX ISA
-			if(A.getValue() >= B.getValue())
+			if(A >= B)
 			{
-				resultLO.setValue(1);
+				resultLO = 1;
 			}
 			else
 			{
-				resultLO.setValue(0);
+				resultLO = 0;
 			}
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " SGE " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " SGE " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case SGEU:
 			// NOTICE: this ALU function is only needed for the DLX ISA
-			if(((long)A.getValue()&0xFFFFFFFFL) >= ((long)B.getValue()&0xFFFFFFFFL))
+			if(((long)A&0xFFFFFFFFL) >= ((long)B&0xFFFFFFFFL))
 			{
-				resultLO.setValue(1);
+				resultLO = 1;
 			}
 			else
 			{
-				resultLO.setValue(0);
+				resultLO = 0;
 			}
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " SGEU " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " SGEU " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case SGT:
 			// NOTICE: this ALU function is only needed for the DLX ISA
-			if(A.getValue() > B.getValue())
+			if(A > B)
 			{
-				resultLO.setValue(1);
+				resultLO = 1;
 			}
 			else
 			{
-				resultLO.setValue(0);
+				resultLO = 0;
 			}
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " SGT " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " SGT " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case SGTU:
 			// NOTICE: this ALU function is only needed for the DLX ISA
-			if(((long)A.getValue()&0xFFFFFFFFL) > ((long)B.getValue()&0xFFFFFFFFL))
+			if(((long)A&0xFFFFFFFFL) > ((long)B&0xFFFFFFFFL))
 			{
-				resultLO.setValue(1);
+				resultLO = 1;
 			}
 			else
 			{
-				resultLO.setValue(0);
+				resultLO = 0;
 			}
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " SGT " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " SGT " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case SLE:
 			// NOTICE: this ALU function is only needed for the DLX ISA
-			if(A.getValue() <= B.getValue())
+			if(A <= B)
 			{
-				resultLO.setValue(1);
+				resultLO = 1;
 			}
 			else
 			{
-				resultLO.setValue(0);
+				resultLO = 0;
 			}
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " SLE " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " SLE " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case SLEU:
 			// NOTICE: this ALU function is only needed for the DLX ISA
-			if(((long)A.getValue()&0xFFFFFFFFL) <= ((long)B.getValue()&0xFFFFFFFFL))
+			if(((long)A&0xFFFFFFFFL) <= ((long)B&0xFFFFFFFFL))
 			{
-				resultLO.setValue(1);
+				resultLO = 1;
 			}
 			else
 			{
-				resultLO.setValue(0);
+				resultLO = 0;
 			}
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " SLEU " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " SLEU " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case SLT:
-			if(A.getValue() < B.getValue())
+			if(A < B)
 			{
-				resultLO.setValue(1);
+				resultLO = 1;
 			}
 			else
 			{
-				resultLO.setValue(0);
+				resultLO = 0;
 			}
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " SLT " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " SLT " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case SLTU:
-			if( ((long)A.getValue()&0xFFFFFFFFL) < ((long)B.getValue()&0xFFFFFFFFL) )
+			if( ((long)A&0xFFFFFFFFL) < ((long)B&0xFFFFFFFFL) )
 			{
-				resultLO.setValue(1);
+				resultLO = 1;
 			}
 			else
 			{
-				resultLO.setValue(0);
+				resultLO = 0;
 			}
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " SLT " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " SLT " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case SRL:
 		{
-			short s = (short) (B.getValue() & 0x1F);
-			resultLO.setValue(A.getValue() >>> s);
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " >>> " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			short s = (short) (B & 0x1F);
+			resultLO = A >>> s;
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " >>> " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		}
 		case SRA:
 		{
-			short s = (short) (B.getValue() & 0x1F);
-			resultLO.setValue(A.getValue() >> s);
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " >> " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			short s = (short) (B & 0x1F);
+			resultLO = A >> s;
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " >> " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		}
 		case SRLV:
 		{
-			short s = (short) (A.getValue() & 0x1F);
-			resultLO.setValue(B.getValue() >>> s);
-			logger.debug(B.getValue() + "(" + B.getValueAsHexString() + ")" + " >>> " + A.getValue() + "(" + A.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			short s = (short) (A & 0x1F);
+			resultLO = B >>> s;
+			if (logger.isDebugEnabled())
+				logger.debug(B + "(" + CalculationHelper.toHexString(B) + ")" + " >>> " + A + "(" + CalculationHelper.toHexString(A) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		}
 		case SRAV:
 		{
-			short s = (short) (A.getValue() & 0x1F);
-			resultLO.setValue(B.getValue() >> s);
-			logger.debug(B.getValue() + "(" + B.getValueAsHexString() + ")" + " >> " + A.getValue() + "(" + A.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			short s = (short) (A & 0x1F);
+			resultLO = B >> s;
+			if (logger.isDebugEnabled())
+				logger.debug(B + "(" + CalculationHelper.toHexString(B) + ")" + " >> " + A + "(" + CalculationHelper.toHexString(A) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
@@ -420,99 +457,100 @@ public class ALU
 		case SUB:
 			// TODO missing trap on overflow
 		case SUBU:
-			resultLO.setValue(A.getValue() - B.getValue());
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " - " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			resultLO = A - B;
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " - " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case XOR:
-			resultLO.setValue(A.getValue() ^ B.getValue());
-			logger.debug(A.getValue() + "(" + A.getValueAsHexString() + ")" + " XOR " + B.getValue() + "(" + B.getValueAsHexString() + ")" + " = " + resultLO.getValue() + "(" + resultLO.getValueAsHexString() + ")");
+			resultLO = A ^ B;
+			if (logger.isDebugEnabled())
+				logger.debug(A + "(" + CalculationHelper.toHexString(A) + ")" + " XOR " + B + "(" + CalculationHelper.toHexString(B) + ")" + " = " + resultLO + "(" + CalculationHelper.toHexString(resultLO) + ")");
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case NOP:
-			resultLO.setValue(0);
+			resultLO = 0;
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case SYSCALL:
 /*
 			// NOTICE: this ALU function is only needed for the MIPS ISA
-			doSyscall(A.getValue(),B.getValue());
+			doSyscall(A,B);
 			riscvSyscall();
 			
-			resultLO.setValue(0);
+			resultLO = 0;
 			// duplicate results
 			resultHI = resultLO;
 */
-			logger.debug("syscall: handled in write back stage");
+			if (logger.isDebugEnabled())
+				logger.debug("syscall: handled in write back stage");
 			break;
 		case TRAP:
 			// NOTICE: this ALU function is only needed for the DLX ISA
-			uint32 trapResult = doDLXTrap(B.getValue(),A.getValue());
-			
-			resultLO.setValue(trapResult);
+			resultLO = doDLXTrap(B, A);
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case TEQ:
-			if(A.getValue() == B.getValue())
+			if(A == B)
 			{
 				doTrap();
 			}
 			
-			resultLO.setValue(0);
+			resultLO = 0;
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case TGE:
-			if(A.getValue() >= B.getValue())
+			if(A >= B)
 			{
 				doTrap();
 			}
 			
-			resultLO.setValue(0);
+			resultLO = 0;
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case TGEU:
-			if(((long)A.getValue()&0xFFFFFFFFL) >= ((long)B.getValue()&0xFFFFFFFFL))
+			if(((long)A&0xFFFFFFFFL) >= ((long)B&0xFFFFFFFFL))
 			{
 				doTrap();
 			}
 			
-			resultLO.setValue(0);
+			resultLO = 0;
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case TLT:
-			if(A.getValue() < B.getValue())
+			if(A < B)
 			{
 				doTrap();
 			}
 			
-			resultLO.setValue(0);
+			resultLO = 0;
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case TLTU:
-			if(((long)A.getValue()&0xFFFFFFFFL) < ((long)B.getValue()&0xFFFFFFFFL))
+			if(((long)A&0xFFFFFFFFL) < ((long)B&0xFFFFFFFFL))
 			{
 				doTrap();
 			}
 			
-			resultLO.setValue(0);
+			resultLO = 0;
 			// duplicate results
 			resultHI = resultLO;
 			break;
 		case TNE:
-			if(A.getValue() != B.getValue())
+			if(A != B)
 			{
 				doTrap();
 			}
 			
-			resultLO.setValue(0);
+			resultLO = 0;
 			// duplicate results
 			resultHI = resultLO;
 			break;
@@ -520,15 +558,18 @@ public class ALU
 			throw new ExecuteStageException("Unknown ALU operation");
 		}
 		
-		uint32[] results = new uint32[2];
-		results[0] = resultLO;
-		results[1] = resultHI;
-		return results;
+		this.resultHI = resultHI;
+		return resultLO;
+	}
+	
+	public int getResultHI()
+	{
+		return resultHI;
 	}
 	
-	private uint32 doDLXTrap(int trap_id, int parameter) throws PipelineException 
+	private int doDLXTrap(int trap_id, int parameter) throws PipelineException 
 	{
-		uint32 return_result = new uint32(trap_id);
+		int return_result = trap_id;
 		
 		switch(trap_id)
 		{
@@ -539,25 +580,28 @@ public class ALU
 		}
 		case PipelineConstants.DLX_TRAP_OPEN:
 		{
-			logger.debug("TRAP " + trap_id + ": parameter: " + parameter);
+			if (logger.isDebugEnabled())
+				logger.debug("TRAP " + trap_id + ": parameter: " + parameter);
 			trap_handler.open(parameter);
 			break;
 		}
 		case PipelineConstants.DLX_TRAP_CLOSE:
 		{
-			logger.debug("TRAP " + trap_id + ": parameter: " + parameter);
+			if (logger.isDebugEnabled())
+				logger.debug("TRAP " + trap_id + ": parameter: " + parameter);
 			trap_handler.close(parameter);
 			break;
 		}
 		case PipelineConstants.DLX_TRAP_READ:
 		{
 			uint32 trap_result = trap_handler.read(parameter);
-			return_result.setValue(trap_result);
+			return_result = trap_result.getValue();
 			break;
 		}
 		case PipelineConstants.DLX_TRAP_WRITE:
 		{
-			logger.debug("TRAP " + trap_id + ": parameter: " + parameter);
+			if (logger.isDebugEnabled())
+				logger.debug("TRAP " + trap_id + ": parameter: " + parameter);
 			trap_handler.write(parameter);
 			break;
 		}
@@ -572,10 +616,10 @@ public class ALU
 		return return_result;
 	}
 
-	private void doTrap()
+	private void doTrap() throws PipelineException
 	{
 		logger.warn("Catched Trap  ... don't know what to do maybe divition by zero occured. Stopping simulation.");
-		System.exit(1);
+		throw new ExecuteStageException("Conditional trap raised. Stopping simulation.");
 	}
 
 }
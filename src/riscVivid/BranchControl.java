@@ -88,7 +88,7 @@ public class BranchControl
 		default:
 			jump = false;
 		}
-		if(inst.getBranch())
+		if(inst.getBranch() && logger.isDebugEnabled())
 			logger.debug("A: " + A + " " + inst.getBranchCondition() + " B: " + B + " jump: " + jump);
 		return jump;
 	}
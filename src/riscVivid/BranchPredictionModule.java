@@ -21,12 +21,12 @@
 package riscVivid;
 
 import java.util.Properties;
-import java.util.Queue;
 
 import org.apache.log4j.Logger;
 
 import riscVivid.branchPrediction.BranchTargetBuffer;
-import riscVivid.datatypes.ArchCfg;
+import riscVivid.branchPrediction.ReturnAddressStack;
+import riscVivid.datatypes.ArchitectureConfig;
 import riscVivid.datatypes.BranchPredictionModuleExecuteData;
 import riscVivid.datatypes.BranchPredictionModuleFetchData;
 import riscVivid.datatypes.BranchPredictionModuleOutputData;
@@ -36,9 +36,9 @@ import riscVivid.datatypes.BranchTargetBufferLookupResult;
 import riscVivid.datatypes.ExecuteBranchPredictionData;
 import riscVivid.datatypes.FetchDecodeData;
 import riscVivid.datatypes.Instruction;
-import riscVivid.datatypes.uint32;
 import riscVivid.exception.BranchPredictionException;
 import riscVivid.exception.PipelineException;
+import riscVivid.util.CalculationHelper;
 import riscVivid.util.Statistics;
 
 import static riscVivid.datatypes.BranchPredictorType.UNKNOWN;
@@ -50,42 +50,68 @@ public class BranchPredictionModule
 {
 	/// Logging facility
 	private static Logger logger = Logger.getLogger("BP_MODULE");
+	/// Number of the link register ra
+	private static final int REG_RA = 1;
 	/// The actual branch target buffer with branch predictors 
 	private BranchTargetBuffer btb;
 	/// Central module for simulation statistics 
 	private Statistics stat;
 	/// Input latch for the branch predictor module (table update part)
-	private Queue<ExecuteBranchPredictionData> execute_branchprediction_latch;
+	private PipelineLatch<ExecuteBranchPredictionData> execute_branchprediction_latch;
 	/// Input latch for the branch predictor module (table lookup part)
-	private Queue<FetchDecodeData> fetch_branchprediction_latch;
+	private PipelineLatch<FetchDecodeData> fetch_branchprediction_latch;
+	private PipelineLatch<BranchPredictionModuleFetchData> branchprediction_fetch_latch;
+	private PipelineLatch<BranchPredictionModuleExecuteData> branchprediction_execute_latch;
+	/// The output of lookupTables(), reused in every cycle
+	private final BranchPredictionModuleOutputData output = new BranchPredictionModuleOutputData();
+	/// Set after a speculative jump until the instruction fetched behind the branch has passed the lookup
+	private boolean speculative_jump_pending = false;
+	/// Pc and target of the last speculative jump
+	private int speculative_jump_pc;
+	private int speculative_jump_tgt;
+	/// The latch entry of the last lookup, it is looked up again if the fetch stage was stalled
+	private FetchDecodeData last_lookup;
+	private boolean last_do_speculative_jump;
+	private int last_branch_tgt;
+	/// Return address stack updated on the lookup of calls and returns, null if disabled
+	private ReturnAddressStack ras = null;
+	/// Return address stack of the resolved calls and returns, restores the speculative one after a misprediction
+	private ReturnAddressStack resolved_ras = null;
 
 	/**
 	 * @brief Constructor
 	 * @param config Configuration object, containing the branch predictor configuration.
 	 * Currently the configuration entries:\n
 	 * - btb_size - determine the size of the branch target buffer
+	 * - btb_associativity - number of entries per set of the branch target buffer, 1 (the default) selects the direct-mapped organization
 	 * - btb_predictor - set the used predictor type (BranchPredictorType)
 	 * - btb_predictor_initial_state - defines the initial state of the predictors (BranchPredictorState)
-	 * - btb_predictor_reset_on_overwrite - defines the behavior on overwriting a branch target buffer entry by another branch (if true, which is not recommended, the predictor is reset to the initial state on branch target buffer miss)\n
+	 * - btb_predictor_reset_on_overwrite - defines the behavior on overwriting a branch target buffer entry by another branch (if true, which is not recommended, the predictor is reset to the initial state on branch target buffer miss)
+	 * - btb_predictor_table_size - number of entries of the tables of the global-history predictors (D_GSHARE, D_TOURNAMENT, D_TAGE)
+	 * - btb_predictor_history_length - history length of the global-history predictors, 0 selects the default of the predictor
+	 * - btb_ras_size - number of entries of the return address stack that predicts the targets of returns, 0 disables it\n
 	 * are supported.
 	 * \sa BranchPredictorType, BranchPredictorState
+	 * @param context the simulation the module belongs to, provides the
+	 * architecture configuration and the statistics
 	 * @throws PipelineException 
 	 */
-	public BranchPredictionModule(Properties config) throws PipelineException
+	public BranchPredictionModule(Properties config, SimulationContext context) throws PipelineException
 	{
+		ArchitectureConfig arch_cfg = context.getArchCfg();
 		// obtain settings for the BTB
-		int btb_size = ArchCfg.getBranchPredictorTableSize();
+		int btb_size = arch_cfg.getBranchPredictorTableSize();
 
 		// get the predictor type, default value is S_ALWAYS_NOT_TAKEN
 		BranchPredictorType btb_predictor = BranchPredictorType.S_ALWAYS_NOT_TAKEN;
-		if (ArchCfg.getBranchPredictorType() != UNKNOWN)
-			btb_predictor = ArchCfg.getBranchPredictorType();
+		if (arch_cfg.getBranchPredictorType() != UNKNOWN)
+			btb_predictor = arch_cfg.getBranchPredictorType();
 
 		// get the predictor initial state, default value is PREDICT_NOT_TAKEN
 		// Notice each predictor may have a different set of supported predictor states. 
 		BranchPredictorState btb_predictor_initial_state = BranchPredictorState.PREDICT_NOT_TAKEN;
-		if (ArchCfg.getBranchPredictorInitialState() != BranchPredictorState.UNKNOWN)
-			btb_predictor_initial_state = ArchCfg.getBranchPredictorInitialState();
+		if (arch_cfg.getBranchPredictorInitialState() != BranchPredictorState.UNKNOWN)
+			btb_predictor_initial_state = arch_cfg.getBranchPredictorInitialState();
 
 		// get the behavior if a btb entry is overwritten, the recommended default is false 
 		boolean btb_predictor_reset_on_overwrite = false;
@@ -101,11 +127,26 @@ public class BranchPredictionModule
 			}
 		}
 		
-		btb = new BranchTargetBuffer(btb_size, btb_predictor, btb_predictor_initial_state, btb_predictor_reset_on_overwrite);
+		int btb_predictor_table_size = Integer.decode(config.getProperty("btb_predictor_table_size",
+				String.valueOf(BranchTargetBuffer.DEFAULT_PREDICTOR_TABLE_SIZE)));
+		int btb_predictor_history_length = Integer.decode(config.getProperty("btb_predictor_history_length", "0"));
+		
+		int btb_associativity = Integer.decode(config.getProperty("btb_associativity", "1"));
+		
+		btb = new BranchTargetBuffer(btb_size, btb_associativity, btb_predictor, btb_predictor_initial_state, btb_predictor_reset_on_overwrite,
+				btb_predictor_table_size, btb_predictor_history_length);
 		
 		// get statistics object and set btb config
-		stat = Statistics.getInstance();
-		stat.setBTBConfig(btb_size, btb_predictor);
+		stat = context.getStatistics();
+		stat.setBTBConfig(btb_size, btb_associativity, btb_predictor);
+		
+		int ras_size = Integer.decode(config.getProperty("btb_ras_size", "0"));
+		if(ras_size > 0)
+		{
+			ras = new ReturnAddressStack(ras_size);
+			resolved_ras = new ReturnAddressStack(ras_size);
+			stat.setRASSize(ras_size);
+		}
 	}
 
 	/**
@@ -113,20 +154,36 @@ public class BranchPredictionModule
 	 * @param executeBranchpredictionLatch The input latch containing all necessary information for the update part of the branch prediction (altering the predictors) 
 	 * @param fetchBranchPredictionLatch The input latch containing the necessary information for the lookup part of the branch prediction (predicting jumps)
 	 */
-	public void setInputLatches(Queue<ExecuteBranchPredictionData> executeBranchpredictionLatch, Queue<FetchDecodeData> fetchBranchPredictionLatch)
+	public void setInputLatches(PipelineLatch<ExecuteBranchPredictionData> executeBranchpredictionLatch, PipelineLatch<FetchDecodeData> fetchBranchPredictionLatch)
 	{
 		execute_branchprediction_latch = executeBranchpredictionLatch;
 		fetch_branchprediction_latch = fetchBranchPredictionLatch;
 	}
 
-	public BranchPredictionModuleOutputData doCycle() throws BranchPredictionException
+	/**
+	 * Sets the output latches the predictions are written to
+	 * @param branchpredictionFetchLatch The latch to the fetch stage, which performs the speculative jump
+	 * @param branchpredictionExecuteLatch The latch to the execute stage, which checks the prediction
+	 */
+	public void setOutputLatches(PipelineLatch<BranchPredictionModuleFetchData> branchpredictionFetchLatch, PipelineLatch<BranchPredictionModuleExecuteData> branchpredictionExecuteLatch)
+	{
+		branchprediction_fetch_latch = branchpredictionFetchLatch;
+		branchprediction_execute_latch = branchpredictionExecuteLatch;
+	}
+
+	/**
+	 * @param updateFlushed True if the instruction that left the execute stage in the last cycle is
+	 * flushed from the memory stage in this cycle, it is on a wrong path and must not update the tables
+	 */
+	public BranchPredictionModuleOutputData doCycle(boolean updateFlushed) throws BranchPredictionException
 	{
 
 		// lookup for jump target
 		BranchPredictionModuleOutputData bpmod = lookupTables();
 		
 		// update prediction tables
-		updateTables();
+		if(!updateFlushed)
+			updateTables();
 		
 		return bpmod;
 	}
@@ -139,48 +196,169 @@ public class BranchPredictionModule
 	{
 		ExecuteBranchPredictionData ebd = execute_branchprediction_latch.element();
 		Instruction inst = ebd.getInst();
-		uint32 branch_pc = ebd.getBranchPc();
-		uint32 branch_tgt = ebd.getBranchTgt();
+		int branch_pc = ebd.getBranchPc();
+		int branch_tgt = ebd.getBranchTgt();
 		boolean jump = ebd.getJumpTaken();
 		
 		if(inst.getBranch())
 		{
-			logger.info("Jump from " + branch_pc.getValueAsHexString() + " to " + branch_tgt.getValueAsHexString() + " that is |" + ((jump)?("taken"):("not taken")) + "| was predicted: |" + ((btb.checkPrediction(branch_pc, branch_tgt, jump)?("correctly"):("not correctly"))) + "| BTB said: |" + btb.lookupBranch(branch_pc) + "| BTB entry: |" + btb.getIndexForBranchPc(branch_pc) + "| predictor state: |" + btb.getPredictorState(branch_pc) + "|");
-			stat.countBranchInformation(branch_pc, btb.getIndexForBranchPc(branch_pc), branch_tgt, jump, btb.lookupBranch(branch_pc), btb.checkPrediction(branch_pc, branch_tgt, jump));
-			stat.countPredictions(btb.checkPrediction(branch_pc, branch_tgt, jump));
+			boolean correct = btb.checkPrediction(branch_pc, branch_tgt, jump);
+			if((ras != null) && isReturn(inst.getInstr().getValue()))
+			{
+				// the target of a return was predicted by the return address stack
+				correct = !ebd.getMispredictedBranch();
+			}
+			if (logger.isInfoEnabled())
+				logger.info("Jump from " + CalculationHelper.toHexString(branch_pc) + " to " + CalculationHelper.toHexString(branch_tgt) + " that is |" + ((jump)?("taken"):("not taken")) + "| was predicted: |" + ((correct?("correctly"):("not correctly"))) + "| BTB said: |" + btb.lookupBranch(branch_pc) + "| BTB entry: |" + btb.getIndexForBranchPc(branch_pc) + "| predictor state: |" + btb.getPredictorState(branch_pc) + "|");
+			stat.countBranchInformation(branch_pc, btb.getIndexForBranchPc(branch_pc), branch_tgt, jump, correct);
+			stat.countPredictions(correct);
 			stat.countBTBAccesses(btb.lookupBranch(branch_pc));
-			btb.updateOnBranch(branch_pc, branch_tgt, jump);
+			stat.countBTBUpdate(btb.updateOnBranch(branch_pc, branch_tgt, jump));
+			if(ras != null)
+			{
+				updateReturnAddressStack(inst.getInstr().getValue(), branch_pc, ebd.getMispredictedBranch());
+			}
+		}
+	}
+	
+	private void updateReturnAddressStack(int instr, int pc, boolean mispredicted)
+	{
+		if(isReturn(instr))
+		{
+			stat.countRASPrediction(!mispredicted);
+			if(!resolved_ras.isEmpty())
+			{
+				resolved_ras.pop();
+			}
+		}
+		else if(isCall(instr))
+		{
+			resolved_ras.push(pc + 4);
+		}
+		
+		if(mispredicted)
+		{
+			// all calls and returns looked up after the branch are on the wrong path
+			ras.copyFrom(resolved_ras);
 		}
 	}
 	
+	/**
+	 * @return True if the instruction is a jal or jalr that writes the return address to ra
+	 */
+	private static boolean isCall(int instr)
+	{
+		int opcode = instr & 0x7f;
+		int rd = (instr >>> 7) & 0x1f;
+		return ((opcode == Decode.OPCODE_JAL) || (opcode == Decode.OPCODE_JALR)) && (rd == REG_RA);
+	}
+	
+	/**
+	 * @return True if the instruction is a jalr to ra that discards the link, i.e. a ret
+	 */
+	private static boolean isReturn(int instr)
+	{
+		int opcode = instr & 0x7f;
+		int rd = (instr >>> 7) & 0x1f;
+		int rs1 = (instr >>> 15) & 0x1f;
+		return (opcode == Decode.OPCODE_JALR) && (rd == 0) && (rs1 == REG_RA);
+	}
+	
 	public BranchPredictionModuleOutputData lookupTables()
 	{
 		FetchDecodeData fdd = fetch_branchprediction_latch.element();
 		
-		uint32 pc = fdd.getPc();
+		int pc = fdd.getPc();
 		boolean do_speculative_jump = false;
-		uint32 branch_tgt = new uint32(0);
+		int branch_tgt = 0;
 		
-		BranchTargetBufferLookupResult result = btb.lookupBranch(pc);
+		if(fdd == last_lookup)
+		{
+			// the latch was not advanced because of a stall, repeat the prediction
+			// without recording the lookup in the predictor a second time
+			BranchPredictionModuleFetchData bpmfd = branchprediction_fetch_latch.next();
+			bpmfd.set(last_do_speculative_jump, pc, last_branch_tgt);
+			BranchPredictionModuleExecuteData bpmed = branchprediction_execute_latch.next();
+			bpmed.set(last_do_speculative_jump, pc, last_branch_tgt);
+			output.set(bpmfd, bpmed);
+			return output;
+		}
+		last_lookup = fdd;
 		
-		if(result == BranchTargetBufferLookupResult.HIT_PREDICT_TAKEN)
+		boolean wrong_path = false;
+		if(speculative_jump_pending && (pc != speculative_jump_pc))
+		{
+			speculative_jump_pending = false;
+			// an instruction fetched behind a branch predicted taken in the last cycle
+			// is on the wrong path and must not redirect the fetch stage
+			wrong_path = (pc == speculative_jump_pc + 4) && (pc != speculative_jump_tgt);
+		}
+		
+		BranchTargetBufferLookupResult result = BranchTargetBufferLookupResult.MISS;
+		boolean predicted_return = false;
+		if(wrong_path)
+		{
+			if (logger.isDebugEnabled())
+				logger.debug("instruction at: " + CalculationHelper.toHexString(pc) + " follows a speculative jump, no lookup");
+		}
+		else if(pc == PipelineConstants.PIPELINE_BUBBLE_ADDR.getValue())
+		{
+			// bubbles are not looked up, a partial tag of the btb might match their address
+		}
+		else
+		{
+			result = btb.predictBranch(pc);
+			if(ras != null)
+			{
+				int instr = fdd.getInstr();
+				if(isReturn(instr) && !ras.isEmpty())
+				{
+					// the return address stack overrides the target of the btb
+					predicted_return = true;
+					do_speculative_jump = true;
+					branch_tgt = ras.pop();
+					if (logger.isDebugEnabled())
+						logger.debug("return at: " + CalculationHelper.toHexString(pc) + " is predicted to addr: " + CalculationHelper.toHexString(branch_tgt));
+				}
+				else if(isCall(instr))
+				{
+					ras.push(pc + 4);
+				}
+			}
+		}
+		
+		if(!predicted_return && (result == BranchTargetBufferLookupResult.HIT_PREDICT_TAKEN))
 		{
 			do_speculative_jump = true;
 			branch_tgt = btb.getBranchTarget(pc);
 		}
 		
+		if(do_speculative_jump)
+		{
+			speculative_jump_pending = true;
+			speculative_jump_pc = pc;
+			speculative_jump_tgt = branch_tgt;
+		}
+		
 		if((result == BranchTargetBufferLookupResult.HIT_PREDICT_NOT_TAKEN) || (result == BranchTargetBufferLookupResult.HIT_PREDICT_TAKEN))
 		{
-			logger.debug("instruction at: " + pc.getValueAsHexString() + " found in BTB and is predicted as " + ((do_speculative_jump)?("taken to addr: " + branch_tgt.getValueAsHexString()):("not taken")));
+			if (logger.isDebugEnabled())
+				logger.debug("instruction at: " + CalculationHelper.toHexString(pc) + " found in BTB and is predicted as " + ((do_speculative_jump)?("taken to addr: " + CalculationHelper.toHexString(branch_tgt)):("not taken")));
 		}
-		else if(result == BranchTargetBufferLookupResult.MISS)
+		else if(!wrong_path)
 		{
-			logger.debug("instruction at: " + pc.getValueAsHexString() + " was not found in BTB");
+			if (logger.isDebugEnabled())
+				logger.debug("instruction at: " + CalculationHelper.toHexString(pc) + " was not found in BTB");
 		}
 		
-		BranchPredictionModuleFetchData bpmfd = new BranchPredictionModuleFetchData(do_speculative_jump, pc, branch_tgt);
-		BranchPredictionModuleExecuteData bpmed = new BranchPredictionModuleExecuteData(do_speculative_jump, pc, branch_tgt);
-		return new BranchPredictionModuleOutputData(bpmfd, bpmed);
+		last_do_speculative_jump = do_speculative_jump;
+		last_branch_tgt = branch_tgt;
+		BranchPredictionModuleFetchData bpmfd = branchprediction_fetch_latch.next();
+		bpmfd.set(do_speculative_jump, pc, branch_tgt);
+		BranchPredictionModuleExecuteData bpmed = branchprediction_execute_latch.next();
+		bpmed.set(do_speculative_jump, pc, branch_tgt);
+		output.set(bpmfd, bpmed);
+		return output;
 	}
 
 }
@@ -21,13 +21,13 @@
 package riscVivid;
 
 import java.util.Hashtable;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.Properties;
 
 import org.apache.log4j.Logger;
 
 import riscVivid.datatypes.*;
 import riscVivid.exception.*;
+import riscVivid.util.CalculationHelper;
 
 public class Decode
 {
@@ -50,14 +50,38 @@ public class Decode
 	private static Logger logger = Logger.getLogger("DECODE");
 	private Instruction current_inst;
 	private RegisterSet reg_set;
-	private Queue<FetchDecodeData> fetch_decode_latch;
-
-	private LinkedList<uint8> forwardedRegs = new LinkedList<uint8>();
-	private int cyclesSinceLastBranch = ArchCfg.getNumBranchDelaySlots();
+	private PipelineLatch<FetchDecodeData> fetch_decode_latch;
+	private PipelineLatch<DecodeExecuteData> decode_execute_latch;
+
+	// ring buffer of the last three registers written with forwarding, -1 marks an empty slot
+	private final int[] forwardedRegs = {-1, -1, -1};
+	private int forwardedRegsNext = 0;
+	private ArchitectureConfig arch_cfg;
+	private int cyclesSinceLastBranch;
+	// null if decoded instructions are not cached
+	private DecodeCache decode_cache = null;
+	// the output of doCycle(), reused in every cycle
+	private final DecodeOutputData output = new DecodeOutputData();
 	
-	public Decode(RegisterSet reg_set)
+	/**
+	 * @param context the config key decode_cache_size sets the number of
+	 *          entries of the decoded-instruction cache, 0 disables it
+	 */
+	public Decode(RegisterSet reg_set, SimulationContext context)
 	{
 		this.reg_set = reg_set;
+		arch_cfg = context.getArchCfg();
+		cyclesSinceLastBranch = arch_cfg.getNumBranchDelaySlots();
+		Properties config = context.getConfig();
+		int size = 0;
+		if (config.getProperty("decode_cache_size") != null)
+		{
+			size = Integer.decode(config.getProperty("decode_cache_size"));
+		}
+		if (size > 0)
+		{
+			decode_cache = new DecodeCache(size, context.getStatistics());
+		}
 	}
 
 	Instruction decodeInstr(uint32 instr) throws UnknownInstructionException, CacheException, PipelineDataTypeException
@@ -73,7 +97,8 @@ public class Decode
 			current_inst.setALUFunction(ALUFunction.NOP);
 			current_inst.setALUPortA(ALUPort.ZERO);
 			current_inst.setALUPortB(ALUPort.ZERO);
-			logger.debug("Empty instruction");
+			if (logger.isDebugEnabled())
+				logger.debug("Empty instruction");
 			return current_inst;
 		}
 		
@@ -508,67 +533,86 @@ public class Decode
 	}
 
 	
-	public void setInputLatch(Queue<FetchDecodeData> fetchDecodeLatch)
+	public void setInputLatch(PipelineLatch<FetchDecodeData> fetchDecodeLatch)
 	{
 		fetch_decode_latch = fetchDecodeLatch;
 	}
 
+	public void setOutputLatch(PipelineLatch<DecodeExecuteData> decodeExecuteLatch)
+	{
+		decode_execute_latch = decodeExecuteLatch;
+	}
+
 	public DecodeOutputData doCycle() throws DecodeStageException, CacheException, PipelineDataTypeException 
 	{
-		uint32 alu_in_a;
-		uint32 alu_in_b;
+		int alu_in_a;
+		int alu_in_b;
 		FetchDecodeData fdd = fetch_decode_latch.element();
-		uint32 decode_instr = fdd.getInstr();
-		uint32 pc = fdd.getPc();
-		Instruction inst;
-		try {
-			inst = decodeInstr(decode_instr);
-		} catch (UnknownInstructionException e) {
-			e.setInstructionAddress(pc);
-			throw e;
+		int decode_instr = fdd.getInstr();
+		int pc = fdd.getPc();
+		// the later stages and the GUI recognize bubbles by the identity of PIPELINE_BUBBLE_INSTR
+		boolean bubble = (pc == PipelineConstants.PIPELINE_BUBBLE_ADDR.getValue());
+		Instruction inst = null;
+		if (decode_cache != null)
+		{
+			inst = decode_cache.lookup(pc, decode_instr);
+		}
+		if (inst == null)
+		{
+			try {
+				inst = decodeInstr(bubble ? PipelineConstants.PIPELINE_BUBBLE_INSTR : new uint32(decode_instr));
+			} catch (UnknownInstructionException e) {
+				e.setInstructionAddress(new uint32(pc));
+				throw e;
+			}
+			if (decode_cache != null)
+			{
+				decode_cache.insert(pc, decode_instr, inst);
+			}
 		}
-		logger.debug("PC: " + pc.getValueAsHexString()
-				+ " instruction decoded as " + inst.getString());
+		if (logger.isDebugEnabled())
+			logger.debug("PC: " + CalculationHelper.toHexString(pc)
+					+ " instruction decoded as " + inst.getString());
 
 		// determination of input for ALU port A
 		switch (inst.getALUPortA())
 		{
 		case RS:
-			alu_in_a = reg_set.read(inst.getRs());
+			alu_in_a = reg_set.read(inst.getRs().getValue());
 			break;
 		case RT:
-			alu_in_a = reg_set.read(inst.getRt());
+			alu_in_a = reg_set.read(inst.getRt().getValue());
 			break;
 		case LO:
-			alu_in_a = reg_set.read_SP(SpecialRegisters.LO);
+			alu_in_a = reg_set.read_SP_value(SpecialRegisters.LO);
 			break;
 		case HI:
-			alu_in_a = reg_set.read_SP(SpecialRegisters.HI);
+			alu_in_a = reg_set.read_SP_value(SpecialRegisters.HI);
 			break;
 		case PC:
 			// for MIPS/DLX: increment the pc by 4, because relative jumps assume the pc of the next instruction
 			// for RISCV: no increment necessary
-			alu_in_a = new uint32(pc.getValue());
+			alu_in_a = pc;
 			break;
 		case ZERO:
-			alu_in_a = new uint32(0);
+			alu_in_a = 0;
 			break;
 		default:
-			alu_in_a = new uint32(0);
-			throw new DecodeStageException("Wrong ALU Port A", pc);
+			alu_in_a = 0;
+			throw new DecodeStageException("Wrong ALU Port A", new uint32(pc));
 		}
 
 		// determination of input for ALU port B
 		switch (inst.getALUPortB())
 		{
 		case RT:
-			alu_in_b = reg_set.read(inst.getRt());
+			alu_in_b = reg_set.read(inst.getRt().getValue());
 			break;
 		case IDX:
-			alu_in_b = new uint32(inst.getInstrIndex().getValue());
+			alu_in_b = inst.getInstrIndex().getValue();
 			break;
 		case IMM:
-			alu_in_b = new uint32(inst.getImm());
+			alu_in_b = inst.getImm();
 /*
 			if(inst.getImmExtend()==ImmExtend.ZERO)
 			{
@@ -578,70 +622,70 @@ public class Decode
 			{
 				alu_in_b = new uint32((inst.getOffset().getValue()));
 			}
-			else if((ArchCfg.isa_type == ISAType.DLX) && (inst.getOpSpecial() == OpcodeSPECIAL.TRAP))
+			else if((arch_cfg.getISAType() == ISAType.DLX) && (inst.getOpSpecial() == OpcodeSPECIAL.TRAP))
 			{
 				alu_in_b = new uint32(inst.getRs().getValue());
 			}
 			else
 			{
 				alu_in_b = new uint32(0);
-				throw new DecodeStageException("Wrong IMM at ALU Port B", pc);
+				throw new DecodeStageException("Wrong IMM at ALU Port B", new uint32(pc));
 			}
 */
 			break;
 		case SA:
-			alu_in_b = new uint32(inst.getSa().getValue());
+			alu_in_b = inst.getSa().getValue();
 			break;
 		case ZERO:
-			alu_in_b = new uint32(0);
+			alu_in_b = 0;
 			break;
 		default:
-			alu_in_b = new uint32(0);
-			throw new DecodeStageException("Wrong ALU Port B", pc);
+			alu_in_b = 0;
+			throw new DecodeStageException("Wrong ALU Port B", new uint32(pc));
 		}
 
-		uint32 branch_ctrl_in_a;
-		uint32 branch_ctrl_in_b;
+		int branch_ctrl_in_a;
+		int branch_ctrl_in_b;
 		// determination of input for BRANCH CONTROL port A
 		switch(inst.getBrachControlPortA())
 		{
 		case RS:
-			branch_ctrl_in_a = reg_set.read(inst.getRs());
+			branch_ctrl_in_a = reg_set.read(inst.getRs().getValue());
 			break;
 		case ZERO:
-			branch_ctrl_in_a = new uint32(0);
+			branch_ctrl_in_a = 0;
 			break;
 		default:
-			branch_ctrl_in_a = new uint32(0);
-			throw new DecodeStageException("Wrong Branch Port A", pc);
+			branch_ctrl_in_a = 0;
+			throw new DecodeStageException("Wrong Branch Port A", new uint32(pc));
 		}
 
 		// determination of input for BRANCH CONTROL port B
 		switch(inst.getBrachControlPortB())
 		{
 		case RT:
-			branch_ctrl_in_b = reg_set.read(inst.getRt());
+			branch_ctrl_in_b = reg_set.read(inst.getRt().getValue());
 			break;
 		case ZERO:
-			branch_ctrl_in_b = new uint32(0);
+			branch_ctrl_in_b = 0;
 			break;
 		default:
-			branch_ctrl_in_b = new uint32(0);
-			throw new DecodeStageException("Wrong Branch Port B", pc);
+			branch_ctrl_in_b = 0;
+			throw new DecodeStageException("Wrong Branch Port B", new uint32(pc));
 		}
 
 		// determination of the store value
-		uint32 store_value = new uint32(0);
+		int store_value = 0;
 		if (inst.getStore())
 		{
-			store_value = reg_set.read(inst.getRt());
+			store_value = reg_set.read(inst.getRt().getValue());
 		}
 
 
 
 		// Detection system for uninitialized registers
 		PipelineException decodeException = null;
-		if (ArchCfg.ignoreBranchDelaySlots()) {
+		if (arch_cfg.ignoreBranchDelaySlots()) {
 			if (inst.getBranch())
 				cyclesSinceLastBranch = 0;
 			else
@@ -649,30 +693,43 @@ public class Decode
 		}
 		// if branch instructions were executed before, don't check for initialization,
 		// as the instruction might be ignored as a branch delay slot
-		if (!ArchCfg.ignoreBranchDelaySlots() || cyclesSinceLastBranch > ArchCfg.getNumBranchDelaySlots() - 1) {
+		if (!arch_cfg.ignoreBranchDelaySlots() || cyclesSinceLastBranch > arch_cfg.getNumBranchDelaySlots() - 1) {
 			if (inst.getReadRs() && !reg_set.isRegisterInitialized(inst.getRs())) {
-				if (!forwardedRegs.contains(inst.getRs())) {
-					decodeException = new UninitializedRegisterException(inst.getRs(), pc);
+				if (!isForwarded(inst.getRs())) {
+					decodeException = new UninitializedRegisterException(inst.getRs(), new uint32(pc));
 				}
 			} else if (inst.getReadRt() && !reg_set.isRegisterInitialized(inst.getRt())) {
-				if (!forwardedRegs.contains(inst.getRt())) {
-					decodeException = new UninitializedRegisterException(inst.getRt(), pc);
+				if (!isForwarded(inst.getRt())) {
+					decodeException = new UninitializedRegisterException(inst.getRt(), new uint32(pc));
 				}
 			}
 		}
 		// add register that was written into the forwardedRegs AFTER checking the instruction for initialization
-		if (ArchCfg.useForwarding()) {
+		if (arch_cfg.useForwarding()) {
 			if (inst.getWriteRd())
-				forwardedRegs.add(inst.getRd());
+				addForwarded(inst.getRd());
 			if (inst.getWriteRt())
-				forwardedRegs.add(inst.getRt());
-			while (forwardedRegs.size() > 3) // use forwardedRegs as ring buffer of size 3
-				forwardedRegs.pop();
+				addForwarded(inst.getRt());
 		}
 
-		DecodeExecuteData ded = new DecodeExecuteData(inst, pc, alu_in_a, alu_in_b, branch_ctrl_in_a, branch_ctrl_in_b, store_value);
+		DecodeExecuteData ded = decode_execute_latch.next();
+		ded.set(inst, pc, alu_in_a, alu_in_b, branch_ctrl_in_a, branch_ctrl_in_b, store_value);
+
+		output.set(ded, decodeException);
+		return output;
+	}
 
-		return new DecodeOutputData(ded, decodeException);
+	private boolean isForwarded(uint8 reg)
+	{
+		int r = reg.getValue();
+		return forwardedRegs[0] == r || forwardedRegs[1] == r || forwardedRegs[2] == r;
+	}
+
+	// overwrites the oldest of the three entries
+	private void addForwarded(uint8 reg)
+	{
+		forwardedRegs[forwardedRegsNext] = reg.getValue();
+		forwardedRegsNext = (forwardedRegsNext + 1) % forwardedRegs.length;
 	}
 
 }
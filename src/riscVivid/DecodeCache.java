@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid;
+
+import java.util.Arrays;
+
+import riscVivid.datatypes.Instruction;
+import riscVivid.util.Statistics;
+
+/**
+ * Direct mapped cache for decoded instructions.
+ *
+ * The entries are indexed by the word address of the instruction and tagged
+ * with its PC and its raw encoding. Comparing the encoding on every lookup
+ * makes stores to the code area (self-modifying programs, the GUI memory
+ * editor) visible without an explicit invalidation.
+ *
+ * The cached Instruction objects are shared between all pipeline stages and
+ * cycles, they must not be modified after they were decoded.
+ */
+public class DecodeCache
+{
+	private final int[] pcs;
+	private final int[] encodings;
+	private final Instruction[] entries;
+	private final int index_mask;
+
+	private Statistics stat;
+
+	/**
+	 * @param size number of entries, has to be a power of two
+	 */
+	public DecodeCache(int size, Statistics stat)
+	{
+		if (size <= 0 || Integer.bitCount(size) != 1)
+		{
+			throw new IllegalArgumentException("The decode cache size has to be a power of two: " + size);
+		}
+		pcs = new int[size];
+		encodings = new int[size];
+		entries = new Instruction[size];
+		index_mask = size - 1;
+		this.stat = stat;
+		stat.setDecodeCacheSize(size);
+	}
+
+	/**
+	 * @return the decoded instruction or null if there is no entry for this
+	 *          pc and encoding
+	 */
+	public Instruction lookup(int pc, int encoding)
+	{
+		int idx = (pc >>> 2) & index_mask;
+		Instruction inst = entries[idx];
+		if (inst != null && pcs[idx] == pc && encodings[idx] == encoding)
+		{
+			stat.countDecodeCacheHit();
+			return inst;
+		}
+		stat.countDecodeCacheMiss();
+		return null;
+	}
+
+	public void insert(int pc, int encoding, Instruction inst)
+	{
+		int idx = (pc >>> 2) & index_mask;
+		pcs[idx] = pc;
+		encodings[idx] = encoding;
+		entries[idx] = inst;
+	}
+
+	public void clear()
+	{
+		Arrays.fill(entries, null);
+	}
+
+	public int getSize()
+	{
+		return entries.length;
+	}
+}
@@ -20,51 +20,65 @@
  ******************************************************************************/
 package riscVivid;
 
-import java.util.Queue;
-
 import org.apache.log4j.Logger;
 
 import riscVivid.datatypes.*;
 import riscVivid.exception.ExecuteStageException;
 import riscVivid.exception.PipelineException;
+import riscVivid.util.CalculationHelper;
 import riscVivid.util.Statistics;
 
 public class Execute
 {
 	private static Logger logger = Logger.getLogger("EXECUTE");
-	private Statistics stat = Statistics.getInstance(); 
+	private Statistics stat;
+	private ArchitectureConfig arch_cfg;
 	private ALU alu;
 	private BranchControl branch_control;
-	private Queue<DecodeExecuteData> decode_execute_latch;
-	private Queue<BranchPredictionModuleExecuteData> branchprediction_execute_latch;
-	private Queue<ExecuteMemoryData> fw_eml;
-	private Queue<MemoryWritebackData> fw_mwl;
-	private Queue<WriteBackData> fw_wbl;
-
-	public Execute()
+	private PipelineLatch<DecodeExecuteData> decode_execute_latch;
+	private PipelineLatch<BranchPredictionModuleExecuteData> branchprediction_execute_latch;
+	private PipelineLatch<ExecuteMemoryData> fw_eml;
+	private PipelineLatch<MemoryWritebackData> fw_mwl;
+	private PipelineLatch<WriteBackData> fw_wbl;
+	private PipelineLatch<ExecuteMemoryData> execute_memory_latch;
+	private PipelineLatch<ExecuteFetchData> execute_fetch_latch;
+	private PipelineLatch<ExecuteBranchPredictionData> execute_branchprediction_latch;
+	// the output of doCycle(), reused in every cycle
+	private final boolean[] stall_out = new boolean[PipelineConstants.STAGES];
+	private final ExecuteOutputData output = new ExecuteOutputData();
+
+	public Execute(SimulationContext context)
 	{
+		stat = context.getStatistics();
+		arch_cfg = context.getArchCfg();
 		// TODO handle ISA DLX/MIPS flavour
 		alu = new ALU();
 		branch_control = new BranchControl();
 	}
 
-	public void setInputLatches(Queue<DecodeExecuteData> decodeExecuteLatch, Queue<BranchPredictionModuleExecuteData> branchpredictionExecuteLatch)
+	public void setInputLatches(PipelineLatch<DecodeExecuteData> decodeExecuteLatch, PipelineLatch<BranchPredictionModuleExecuteData> branchpredictionExecuteLatch)
 	{
 		decode_execute_latch = decodeExecuteLatch;
 		branchprediction_execute_latch = branchpredictionExecuteLatch;
 	}
 
-	public void setForwardingLatches(Queue<ExecuteMemoryData> executeMemoryLatch, Queue<MemoryWritebackData> memoryWritebackLatch, Queue<WriteBackData> writebackLatch)
+	public void setForwardingLatches(PipelineLatch<ExecuteMemoryData> executeMemoryLatch, PipelineLatch<MemoryWritebackData> memoryWritebackLatch, PipelineLatch<WriteBackData> writebackLatch)
 	{
 		fw_eml = executeMemoryLatch;
 		fw_mwl = memoryWritebackLatch;
 		fw_wbl = writebackLatch;
 	}
+
+	public void setOutputLatches(PipelineLatch<ExecuteMemoryData> executeMemoryLatch, PipelineLatch<ExecuteFetchData> executeFetchLatch, PipelineLatch<ExecuteBranchPredictionData> executeBranchpredictionLatch)
+	{
+		execute_memory_latch = executeMemoryLatch;
+		execute_fetch_latch = executeFetchLatch;
+		execute_branchprediction_latch = executeBranchpredictionLatch;
+	}
 	
 	public ExecuteOutputData doCycle() throws PipelineException
 	{
 		
-		boolean[] stall_out = new boolean[PipelineConstants.STAGES];
 		for(byte i = 0; i < PipelineConstants.STAGES; i++)
 		{
 			stall_out[i] = false;
@@ -72,34 +86,37 @@ public class Execute
 
 		DecodeExecuteData ded = decode_execute_latch.element();
 		Instruction inst = ded.getInst();
-		uint32 alu_in_a = ded.getAluInA();
-		uint32 alu_in_b = ded.getAluInB();
-		uint32 branch_ctrl_in_a = ded.getBranchCtrlInA();
-		uint32 branch_ctrl_in_b = ded.getBranchCtrlInB();
-		uint32 pc = ded.getPc();
-		uint32 store_value = ded.getStoreValue();
+		int alu_in_a = ded.getAluInA();
+		int alu_in_b = ded.getAluInB();
+		int branch_ctrl_in_a = ded.getBranchCtrlInA();
+		int branch_ctrl_in_b = ded.getBranchCtrlInB();
+		int pc = ded.getPc();
+		int store_value = ded.getStoreValue();
 
 		// STRUCTURE ALLOCATION FOR DATA FORWARDING
 
 		// FROM EXECUTE TO MEM STAGE 
 		ExecuteMemoryData fw_emd = fw_eml.element();
 		Instruction fw_emd_inst = fw_emd.getInst();
-		uint32[] fw_emd_alu_result = fw_emd.getAluOut();
-		uint32 fw_emd_ld_result = new uint32(0); // cannot be forwarded due to stall of the pipeline
+		int fw_emd_alu_result_lo = fw_emd.getAluOutLO();
+		int fw_emd_alu_result_hi = fw_emd.getAluOutHI();
+		int fw_emd_ld_result = 0; // cannot be forwarded due to stall of the pipeline
 
 		// FROM MEM TO WRITE BACK STAGE
 		MemoryWritebackData fw_mwd = fw_mwl.element();
 		Instruction fw_mwd_inst = fw_mwd.getInst();
-		uint32[] fw_mwd_alu_result = fw_mwd.getAluOut();
-		uint32 fw_mwd_ld_result = fw_mwd.getLdResult();
+		int fw_mwd_alu_result_lo = fw_mwd.getAluOutLO();
+		int fw_mwd_alu_result_hi = fw_mwd.getAluOutHI();
+		int fw_mwd_ld_result = fw_mwd.getLdResult();
 
 		// FROM WRITE BACK OUT STAGE
 		WriteBackData fw_wbd = fw_wbl.element();
 		Instruction fw_wbd_inst = fw_wbd.getInst();
-		uint32[] fw_wbd_alu_result = fw_wbd.getAluOut();
-		uint32 fw_wbd_ld_result = fw_wbd.getLdResult();
+		int fw_wbd_alu_result_lo = fw_wbd.getAluOutLO();
+		int fw_wbd_alu_result_hi = fw_wbd.getAluOutHI();
+		int fw_wbd_ld_result = fw_wbd.getLdResult();
 
-		if(ArchCfg.useForwarding())
+		if(arch_cfg.useForwarding())
 		{
 			// DATA FORWARDING
 			
@@ -107,50 +124,50 @@ public class Execute
 			// the EX stage
 
 			// for ALU PORT A 
-			int old_alu_in_a = alu_in_a.getValue();
+			int old_alu_in_a = alu_in_a;
 			switch (inst.getALUPortA())
 			{
 			case RS:
 			{
-				forwarding(inst.getRs(), alu_in_a, fw_wbd_alu_result[0], fw_wbd_ld_result, fw_wbd_inst);
-				boolean fw_wb = (old_alu_in_a != alu_in_a.getValue()) ? true : false;
-				forwarding(inst.getRs(), alu_in_a, fw_mwd_alu_result[0], fw_mwd_ld_result, fw_mwd_inst);
-				boolean fw_mem = (old_alu_in_a != alu_in_a.getValue()) ? true : false;
-				forwarding(inst.getRs(), alu_in_a, fw_emd_alu_result[0], fw_emd_ld_result, fw_emd_inst);
-				boolean fw_ex = (old_alu_in_a != alu_in_a.getValue()) ? true : false;
+				alu_in_a = forwarding(inst.getRs(), alu_in_a, fw_wbd_alu_result_lo, fw_wbd_ld_result, fw_wbd_inst);
+				boolean fw_wb = (old_alu_in_a != alu_in_a) ? true : false;
+				alu_in_a = forwarding(inst.getRs(), alu_in_a, fw_mwd_alu_result_lo, fw_mwd_ld_result, fw_mwd_inst);
+				boolean fw_mem = (old_alu_in_a != alu_in_a) ? true : false;
+				alu_in_a = forwarding(inst.getRs(), alu_in_a, fw_emd_alu_result_lo, fw_emd_ld_result, fw_emd_inst);
+				boolean fw_ex = (old_alu_in_a != alu_in_a) ? true : false;
 				stat.countALUForward(fw_ex, fw_mem, fw_wb);
 				break;
 			}
 			case RT:
 			{
-				forwarding(inst.getRt(), alu_in_a, fw_wbd_alu_result[0], fw_wbd_ld_result, fw_wbd_inst);
-				boolean fw_wb = (old_alu_in_a != alu_in_a.getValue()) ? true : false;
-				forwarding(inst.getRt(), alu_in_a, fw_mwd_alu_result[0], fw_mwd_ld_result, fw_mwd_inst);
-				boolean fw_mem = (old_alu_in_a != alu_in_a.getValue()) ? true : false;
-				forwarding(inst.getRt(), alu_in_a, fw_emd_alu_result[0], fw_emd_ld_result, fw_emd_inst);
-				boolean fw_ex = (old_alu_in_a != alu_in_a.getValue()) ? true : false;
+				alu_in_a = forwarding(inst.getRt(), alu_in_a, fw_wbd_alu_result_lo, fw_wbd_ld_result, fw_wbd_inst);
+				boolean fw_wb = (old_alu_in_a != alu_in_a) ? true : false;
+				alu_in_a = forwarding(inst.getRt(), alu_in_a, fw_mwd_alu_result_lo, fw_mwd_ld_result, fw_mwd_inst);
+				boolean fw_mem = (old_alu_in_a != alu_in_a) ? true : false;
+				alu_in_a = forwarding(inst.getRt(), alu_in_a, fw_emd_alu_result_lo, fw_emd_ld_result, fw_emd_inst);
+				boolean fw_ex = (old_alu_in_a != alu_in_a) ? true : false;
 				stat.countALUForward(fw_ex, fw_mem, fw_wb);
 				break;
 			}
 			case LO:
 			{
-				forwarding(SpecialRegisters.LO, alu_in_a, fw_wbd_alu_result, fw_wbd_inst);
-				boolean fw_wb = (old_alu_in_a != alu_in_a.getValue()) ? true : false;
-				forwarding(SpecialRegisters.LO, alu_in_a, fw_mwd_alu_result, fw_mwd_inst);
-				boolean fw_mem = (old_alu_in_a != alu_in_a.getValue()) ? true : false;
-				forwarding(SpecialRegisters.LO, alu_in_a, fw_emd_alu_result, fw_emd_inst);
-				boolean fw_ex = (old_alu_in_a != alu_in_a.getValue()) ? true : false;
+				alu_in_a = forwarding(SpecialRegisters.LO, alu_in_a, fw_wbd_alu_result_lo, fw_wbd_alu_result_hi, fw_wbd_inst);
+				boolean fw_wb = (old_alu_in_a != alu_in_a) ? true : false;
+				alu_in_a = forwarding(SpecialRegisters.LO, alu_in_a, fw_mwd_alu_result_lo, fw_mwd_alu_result_hi, fw_mwd_inst);
+				boolean fw_mem = (old_alu_in_a != alu_in_a) ? true : false;
+				alu_in_a = forwarding(SpecialRegisters.LO, alu_in_a, fw_emd_alu_result_lo, fw_emd_alu_result_hi, fw_emd_inst);
+				boolean fw_ex = (old_alu_in_a != alu_in_a) ? true : false;
 				stat.countALUForward(fw_ex, fw_mem, fw_wb);
 				break;
 			}
 			case HI:
 			{
-				forwarding(SpecialRegisters.HI, alu_in_a, fw_wbd_alu_result, fw_wbd_inst);
-				boolean fw_wb = (old_alu_in_a != alu_in_a.getValue()) ? true : false;
-				forwarding(SpecialRegisters.HI, alu_in_a, fw_mwd_alu_result, fw_mwd_inst);
-				boolean fw_mem = (old_alu_in_a != alu_in_a.getValue()) ? true : false;
-				forwarding(SpecialRegisters.HI, alu_in_a, fw_emd_alu_result, fw_emd_inst);
-				boolean fw_ex = (old_alu_in_a != alu_in_a.getValue()) ? true : false;
+				alu_in_a = forwarding(SpecialRegisters.HI, alu_in_a, fw_wbd_alu_result_lo, fw_wbd_alu_result_hi, fw_wbd_inst);
+				boolean fw_wb = (old_alu_in_a != alu_in_a) ? true : false;
+				alu_in_a = forwarding(SpecialRegisters.HI, alu_in_a, fw_mwd_alu_result_lo, fw_mwd_alu_result_hi, fw_mwd_inst);
+				boolean fw_mem = (old_alu_in_a != alu_in_a) ? true : false;
+				alu_in_a = forwarding(SpecialRegisters.HI, alu_in_a, fw_emd_alu_result_lo, fw_emd_alu_result_hi, fw_emd_inst);
+				boolean fw_ex = (old_alu_in_a != alu_in_a) ? true : false;
 				stat.countALUForward(fw_ex, fw_mem, fw_wb);
 				break;
 			}
@@ -159,46 +176,48 @@ public class Execute
 			}
 
 
-			if(old_alu_in_a != alu_in_a.getValue())
+			if(old_alu_in_a != alu_in_a)
 			{
-				logger.debug("{FW} PC: " + pc.getValueAsHexString() + " forwarding changed value for ALU port A " + inst.getALUPortA() + " from: 0x" + Integer.toHexString(old_alu_in_a) + " to: " + alu_in_a.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("{FW} PC: " + CalculationHelper.toHexString(pc) + " forwarding changed value for ALU port A " + inst.getALUPortA() + " from: 0x" + Integer.toHexString(old_alu_in_a) + " to: " + CalculationHelper.toHexString(alu_in_a));
 			}
 
 			// for ALU PORT B 
-			int old_alu_in_b = alu_in_b.getValue();
+			int old_alu_in_b = alu_in_b;
 			switch (inst.getALUPortB())
 			{
 			case RT:
 			{
-				forwarding(inst.getRt(), alu_in_b, fw_wbd_alu_result[0], fw_wbd_ld_result, fw_wbd_inst);
-				boolean fw_wb = (old_alu_in_b != alu_in_b.getValue())?true:false;
-				forwarding(inst.getRt(), alu_in_b, fw_mwd_alu_result[0], fw_mwd_ld_result, fw_mwd_inst);
-				boolean fw_mem = (old_alu_in_b != alu_in_b.getValue())?true:false;
-				forwarding(inst.getRt(), alu_in_b, fw_emd_alu_result[0], fw_emd_ld_result, fw_emd_inst);
-				boolean fw_ex = (old_alu_in_b != alu_in_b.getValue())?true:false;
+				alu_in_b = forwarding(inst.getRt(), alu_in_b, fw_wbd_alu_result_lo, fw_wbd_ld_result, fw_wbd_inst);
+				boolean fw_wb = (old_alu_in_b != alu_in_b)?true:false;
+				alu_in_b = forwarding(inst.getRt(), alu_in_b, fw_mwd_alu_result_lo, fw_mwd_ld_result, fw_mwd_inst);
+				boolean fw_mem = (old_alu_in_b != alu_in_b)?true:false;
+				alu_in_b = forwarding(inst.getRt(), alu_in_b, fw_emd_alu_result_lo, fw_emd_ld_result, fw_emd_inst);
+				boolean fw_ex = (old_alu_in_b != alu_in_b)?true:false;
 				stat.countALUForward(fw_ex, fw_mem, fw_wb);
 				break;
 			}
 			default:
 				// do nothing
 			}
-			if(old_alu_in_b != alu_in_b.getValue())
+			if(old_alu_in_b != alu_in_b)
 			{
-				logger.debug("{FW} PC: " + pc.getValueAsHexString() + " forwarding changed value for ALU port B " + inst.getALUPortB() + " from: 0x" + Integer.toHexString(old_alu_in_b) + " to: " + alu_in_b.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("{FW} PC: " + CalculationHelper.toHexString(pc) + " forwarding changed value for ALU port B " + inst.getALUPortB() + " from: 0x" + Integer.toHexString(old_alu_in_b) + " to: " + CalculationHelper.toHexString(alu_in_b));
 			}
 
 			// for BRANCH CONTROL PORT A
-			int old_branch_ctrl_in_a = branch_ctrl_in_a.getValue();
+			int old_branch_ctrl_in_a = branch_ctrl_in_a;
 			switch(inst.getBrachControlPortA())
 			{
 			case RS:
 			{
-				forwarding(inst.getRs(), branch_ctrl_in_a, fw_wbd_alu_result[0], fw_wbd_ld_result, fw_wbd_inst);
-				boolean fw_wb = (old_branch_ctrl_in_a != branch_ctrl_in_a.getValue())?true:false;
-				forwarding(inst.getRs(), branch_ctrl_in_a, fw_mwd_alu_result[0], fw_mwd_ld_result, fw_mwd_inst);
-				boolean fw_mem = (old_branch_ctrl_in_a != branch_ctrl_in_a.getValue())?true:false;
-				forwarding(inst.getRs(), branch_ctrl_in_a, fw_emd_alu_result[0], fw_emd_ld_result, fw_emd_inst);
-				boolean fw_ex = (old_branch_ctrl_in_a != branch_ctrl_in_a.getValue())?true:false;
+				branch_ctrl_in_a = forwarding(inst.getRs(), branch_ctrl_in_a, fw_wbd_alu_result_lo, fw_wbd_ld_result, fw_wbd_inst);
+				boolean fw_wb = (old_branch_ctrl_in_a != branch_ctrl_in_a)?true:false;
+				branch_ctrl_in_a = forwarding(inst.getRs(), branch_ctrl_in_a, fw_mwd_alu_result_lo, fw_mwd_ld_result, fw_mwd_inst);
+				boolean fw_mem = (old_branch_ctrl_in_a != branch_ctrl_in_a)?true:false;
+				branch_ctrl_in_a = forwarding(inst.getRs(), branch_ctrl_in_a, fw_emd_alu_result_lo, fw_emd_ld_result, fw_emd_inst);
+				boolean fw_ex = (old_branch_ctrl_in_a != branch_ctrl_in_a)?true:false;
 				stat.countBCRTLForward(fw_ex, fw_mem, fw_wb);
 				break;
 			}
@@ -206,51 +225,58 @@ public class Execute
 				// do nothing
 			}
 
-			if(old_branch_ctrl_in_a != branch_ctrl_in_a.getValue())
+			if(old_branch_ctrl_in_a != branch_ctrl_in_a)
 			{
-				logger.debug("{FW} PC: " + pc.getValueAsHexString() + " forwarding changed value for BCTRL port A " + inst.getBrachControlPortA() + " from: 0x" + Integer.toHexString(old_branch_ctrl_in_a) + " to: " + branch_ctrl_in_a.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("{FW} PC: " + CalculationHelper.toHexString(pc) + " forwarding changed value for BCTRL port A " + inst.getBrachControlPortA() + " from: 0x" + Integer.toHexString(old_branch_ctrl_in_a) + " to: " + CalculationHelper.toHexString(branch_ctrl_in_a));
 			}
 
 			// for BRANCH CONTROL PORT B
-			int old_branch_ctrl_in_b = branch_ctrl_in_b.getValue();
+			int old_branch_ctrl_in_b = branch_ctrl_in_b;
 			switch(inst.getBrachControlPortB())
 			{
 			case RT:
-				forwarding(inst.getRt(), branch_ctrl_in_b, fw_wbd_alu_result[0], fw_wbd_ld_result, fw_wbd_inst);
-				boolean fw_wb = (old_branch_ctrl_in_b != branch_ctrl_in_b.getValue())?true:false;
-				forwarding(inst.getRt(), branch_ctrl_in_b, fw_mwd_alu_result[0], fw_mwd_ld_result, fw_mwd_inst);
-				boolean fw_mem = (old_branch_ctrl_in_b != branch_ctrl_in_b.getValue())?true:false;
-				forwarding(inst.getRt(), branch_ctrl_in_b, fw_emd_alu_result[0], fw_emd_ld_result, fw_emd_inst);
-				boolean fw_ex = (old_branch_ctrl_in_b != branch_ctrl_in_b.getValue())?true:false;
+				branch_ctrl_in_b = forwarding(inst.getRt(), branch_ctrl_in_b, fw_wbd_alu_result_lo, fw_wbd_ld_result, fw_wbd_inst);
+				boolean fw_wb = (old_branch_ctrl_in_b != branch_ctrl_in_b)?true:false;
+				branch_ctrl_in_b = forwarding(inst.getRt(), branch_ctrl_in_b, fw_mwd_alu_result_lo, fw_mwd_ld_result, fw_mwd_inst);
+				boolean fw_mem = (old_branch_ctrl_in_b != branch_ctrl_in_b)?true:false;
+				branch_ctrl_in_b = forwarding(inst.getRt(), branch_ctrl_in_b, fw_emd_alu_result_lo, fw_emd_ld_result, fw_emd_inst);
+				boolean fw_ex = (old_branch_ctrl_in_b != branch_ctrl_in_b)?true:false;
 				stat.countBCRTLForward(fw_ex, fw_mem, fw_wb);
 				break;
 			default:
 				// do nothing
 			}
 
-			if(old_branch_ctrl_in_b != branch_ctrl_in_b.getValue())
+			if(old_branch_ctrl_in_b != branch_ctrl_in_b)
 			{
-				logger.debug("{FW} PC: " + pc.getValueAsHexString() + " forwarding changed value for BCTRL port B " + inst.getBrachControlPortB() + " from: 0x" + Integer.toHexString(old_branch_ctrl_in_b) + " to: " + branch_ctrl_in_b.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("{FW} PC: " + CalculationHelper.toHexString(pc) + " forwarding changed value for BCTRL port B " + inst.getBrachControlPortB() + " from: 0x" + Integer.toHexString(old_branch_ctrl_in_b) + " to: " + CalculationHelper.toHexString(branch_ctrl_in_b));
 			}
 
 			// for STORE value
-			int old_store_value = store_value.getValue();
+			int old_store_value = store_value;
 			if (inst.getStore())
 			{
-				forwarding(inst.getRt(), store_value, fw_wbd_alu_result[0], fw_wbd_ld_result, fw_wbd_inst);
-				boolean fw_wb = (old_store_value != store_value.getValue())?true:false;
-				forwarding(inst.getRt(), store_value, fw_mwd_alu_result[0], fw_mwd_ld_result, fw_mwd_inst);
-				boolean fw_mem = (old_store_value != store_value.getValue())?true:false;
-				forwarding(inst.getRt(), store_value, fw_emd_alu_result[0], fw_emd_ld_result, fw_emd_inst);
-				boolean fw_ex = (old_store_value != store_value.getValue())?true:false;
+				store_value = forwarding(inst.getRt(), store_value, fw_wbd_alu_result_lo, fw_wbd_ld_result, fw_wbd_inst);
+				boolean fw_wb = (old_store_value != store_value)?true:false;
+				store_value = forwarding(inst.getRt(), store_value, fw_mwd_alu_result_lo, fw_mwd_ld_result, fw_mwd_inst);
+				boolean fw_mem = (old_store_value != store_value)?true:false;
+				store_value = forwarding(inst.getRt(), store_value, fw_emd_alu_result_lo, fw_emd_ld_result, fw_emd_inst);
+				boolean fw_ex = (old_store_value != store_value)?true:false;
 				stat.countSTOREForward(fw_ex, fw_mem, fw_wb);
 			}
 
-			if(old_store_value != store_value.getValue())
+			if(old_store_value != store_value)
 			{
-				logger.debug("{FW} PC: " + pc.getValueAsHexString() + " forwarding changed store_value for RT from: 0x" + Integer.toHexString(old_store_value) + " to: " + store_value.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("{FW} PC: " + CalculationHelper.toHexString(pc) + " forwarding changed store_value for RT from: 0x" + Integer.toHexString(old_store_value) + " to: " + CalculationHelper.toHexString(store_value));
 			}
 
+			// the forwarded values replace the register values read in decode,
+			// they have to be kept if the stage is stalled
+			ded.set(inst, pc, alu_in_a, alu_in_b, branch_ctrl_in_a, branch_ctrl_in_b, store_value);
+
 			// DATA FORWARDING END
 		}
 		else
@@ -271,27 +297,27 @@ public class Execute
 			// forward already calculated results from the WB stage
 
 			// for ALU PORT A 
-			int old_alu_in_a = alu_in_a.getValue();
+			int old_alu_in_a = alu_in_a;
 			switch (inst.getALUPortA())
 			{
 			case RS:
 			{
-				forwarding(inst.getRs(), alu_in_a, fw_wbd_alu_result[0], fw_wbd_ld_result, fw_wbd_inst);
+				alu_in_a = forwarding(inst.getRs(), alu_in_a, fw_wbd_alu_result_lo, fw_wbd_ld_result, fw_wbd_inst);
 				break;
 			}
 			case RT:
 			{
-				forwarding(inst.getRt(), alu_in_a, fw_wbd_alu_result[0], fw_wbd_ld_result, fw_wbd_inst);
+				alu_in_a = forwarding(inst.getRt(), alu_in_a, fw_wbd_alu_result_lo, fw_wbd_ld_result, fw_wbd_inst);
 				break;
 			}
 			case LO:
 			{
-				forwarding(SpecialRegisters.LO, alu_in_a, fw_wbd_alu_result, fw_wbd_inst);
+				alu_in_a = forwarding(SpecialRegisters.LO, alu_in_a, fw_wbd_alu_result_lo, fw_wbd_alu_result_hi, fw_wbd_inst);
 				break;
 			}
 			case HI:
 			{
-				forwarding(SpecialRegisters.HI, alu_in_a, fw_wbd_alu_result, fw_wbd_inst);
+				alu_in_a = forwarding(SpecialRegisters.HI, alu_in_a, fw_wbd_alu_result_lo, fw_wbd_alu_result_hi, fw_wbd_inst);
 				break;
 			}
 			default:
@@ -299,72 +325,77 @@ public class Execute
 			}
 
 
-			if(old_alu_in_a != alu_in_a.getValue())
+			if(old_alu_in_a != alu_in_a)
 			{
-				logger.debug("{RS/WB-FW} PC: " + pc.getValueAsHexString() + " forwarding changed value for ALU port A " + inst.getALUPortA() + " from: 0x" + Integer.toHexString(old_alu_in_a) + " to: " + alu_in_a.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("{RS/WB-FW} PC: " + CalculationHelper.toHexString(pc) + " forwarding changed value for ALU port A " + inst.getALUPortA() + " from: 0x" + Integer.toHexString(old_alu_in_a) + " to: " + CalculationHelper.toHexString(alu_in_a));
 			}
 
 			// for ALU PORT B 
-			int old_alu_in_b = alu_in_b.getValue();
+			int old_alu_in_b = alu_in_b;
 			switch (inst.getALUPortB())
 			{
 			case RT:
 			{
-				forwarding(inst.getRt(), alu_in_b, fw_wbd_alu_result[0], fw_wbd_ld_result, fw_wbd_inst);
+				alu_in_b = forwarding(inst.getRt(), alu_in_b, fw_wbd_alu_result_lo, fw_wbd_ld_result, fw_wbd_inst);
 				break;
 			}
 			default:
 				// do nothing
 			}
-			if(old_alu_in_b != alu_in_b.getValue())
+			if(old_alu_in_b != alu_in_b)
 			{
-				logger.debug("{RS/WB-FW} PC: " + pc.getValueAsHexString() + " forwarding changed value for ALU port B " + inst.getALUPortB() + " from: 0x" + Integer.toHexString(old_alu_in_b) + " to: " + alu_in_b.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("{RS/WB-FW} PC: " + CalculationHelper.toHexString(pc) + " forwarding changed value for ALU port B " + inst.getALUPortB() + " from: 0x" + Integer.toHexString(old_alu_in_b) + " to: " + CalculationHelper.toHexString(alu_in_b));
 			}
 
 			// for BRANCH CONTROL PORT A
-			int old_branch_ctrl_in_a = branch_ctrl_in_a.getValue();
+			int old_branch_ctrl_in_a = branch_ctrl_in_a;
 			switch(inst.getBrachControlPortA())
 			{
 			case RS:
 			{
-				forwarding(inst.getRs(), branch_ctrl_in_a, fw_wbd_alu_result[0], fw_wbd_ld_result, fw_wbd_inst);
+				branch_ctrl_in_a = forwarding(inst.getRs(), branch_ctrl_in_a, fw_wbd_alu_result_lo, fw_wbd_ld_result, fw_wbd_inst);
 				break;
 			}
 			default:
 				// do nothing
 			}
 
-			if(old_branch_ctrl_in_a != branch_ctrl_in_a.getValue())
+			if(old_branch_ctrl_in_a != branch_ctrl_in_a)
 			{
-				logger.debug("{RS/WB-FW} PC: " + pc.getValueAsHexString() + " forwarding changed value for BCTRL port A " + inst.getBrachControlPortA() + " from: 0x" + Integer.toHexString(old_branch_ctrl_in_a) + " to: " + branch_ctrl_in_a.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("{RS/WB-FW} PC: " + CalculationHelper.toHexString(pc) + " forwarding changed value for BCTRL port A " + inst.getBrachControlPortA() + " from: 0x" + Integer.toHexString(old_branch_ctrl_in_a) + " to: " + CalculationHelper.toHexString(branch_ctrl_in_a));
 			}
 
 			// for BRANCH CONTROL PORT B
-			int old_branch_ctrl_in_b = branch_ctrl_in_b.getValue();
+			int old_branch_ctrl_in_b = branch_ctrl_in_b;
 			switch(inst.getBrachControlPortB())
 			{
 			case RT:
-				forwarding(inst.getRt(), branch_ctrl_in_b, fw_wbd_alu_result[0], fw_wbd_ld_result, fw_wbd_inst);
+				branch_ctrl_in_b = forwarding(inst.getRt(), branch_ctrl_in_b, fw_wbd_alu_result_lo, fw_wbd_ld_result, fw_wbd_inst);
 				break;
 			default:
 				// do nothing
 			}
 
-			if(old_branch_ctrl_in_b != branch_ctrl_in_b.getValue())
+			if(old_branch_ctrl_in_b != branch_ctrl_in_b)
 			{
-				logger.debug("{RS/WB-FW} PC: " + pc.getValueAsHexString() + " forwarding changed value for BCTRL port B " + inst.getBrachControlPortB() + " from: 0x" + Integer.toHexString(old_branch_ctrl_in_b) + " to: " + branch_ctrl_in_b.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("{RS/WB-FW} PC: " + CalculationHelper.toHexString(pc) + " forwarding changed value for BCTRL port B " + inst.getBrachControlPortB() + " from: 0x" + Integer.toHexString(old_branch_ctrl_in_b) + " to: " + CalculationHelper.toHexString(branch_ctrl_in_b));
 			}
 
 			// for STORE value
-			int old_store_value = store_value.getValue();
+			int old_store_value = store_value;
 			if (inst.getStore())
 			{
-				forwarding(inst.getRt(), store_value, fw_wbd_alu_result[0], fw_wbd_ld_result, fw_wbd_inst);
+				store_value = forwarding(inst.getRt(), store_value, fw_wbd_alu_result_lo, fw_wbd_ld_result, fw_wbd_inst);
 			}
 
-			if(old_store_value != store_value.getValue())
+			if(old_store_value != store_value)
 			{
-				logger.debug("{RS/WB-FW} PC: " + pc.getValueAsHexString() + " forwarding changed store_value for RT from: 0x" + Integer.toHexString(old_store_value) + " to: " + store_value.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("{RS/WB-FW} PC: " + CalculationHelper.toHexString(pc) + " forwarding changed store_value for RT from: 0x" + Integer.toHexString(old_store_value) + " to: " + CalculationHelper.toHexString(store_value));
 			}
 
 			// DATA FORWARDING END
@@ -372,28 +403,28 @@ public class Execute
 		}
 
 		// ALU OPERATION BEGIN
-		uint32[] alu_out;
+		int alu_outLO;
 		try {
-			alu_out = alu.doOperation(inst.getALUFunction(),
+			alu_outLO = alu.doOperation(inst.getALUFunction(),
 					alu_in_a, alu_in_b);
 		} catch (PipelineException e) {
-			e.setInstructionAddress(pc);
+			e.setInstructionAddress(new uint32(pc));
 			throw e;
 		}
-		uint32 alu_outLO = alu_out[0];
-		// uint32 alu_outHI = alu_out[1];
+		int alu_outHI = alu.getResultHI();
 
-		logger.debug("PC: " + pc.getValueAsHexString() + " ALU calculated: "
-				+ alu_outLO.getValue() + "(" + alu_outLO.getValueAsHexString()
-				+ ") by: " + alu_in_a.getValue() + "("
-				+ alu_in_a.getValueAsHexString() + ") " + inst.getALUFunction()
-				+ " " + alu_in_b.getValue() + "(" + alu_in_b.getValueAsHexString()
-				+ ")");
+		if (logger.isDebugEnabled())
+			logger.debug("PC: " + CalculationHelper.toHexString(pc) + " ALU calculated: "
+					+ alu_outLO + "(" + CalculationHelper.toHexString(alu_outLO)
+					+ ") by: " + alu_in_a + "("
+					+ CalculationHelper.toHexString(alu_in_a) + ") " + inst.getALUFunction()
+					+ " " + alu_in_b + "(" + CalculationHelper.toHexString(alu_in_b)
+					+ ")");
 
 		// ALU OPERATION END
 
 		// BRANCH CONTROL
-		boolean jump = branch_control.checkBranch(inst, branch_ctrl_in_a.getValue(), branch_ctrl_in_b.getValue());
+		boolean jump = branch_control.checkBranch(inst, branch_ctrl_in_a, branch_ctrl_in_b);
 		// BRANCH CONTROL END
 
 		// count the jumps if there is a branch
@@ -422,30 +453,39 @@ public class Execute
 		boolean mispredicted_branch = false;
 		if(inst.getBranch()== true)
 		{
-			if(bpmed.getPc().getValue() != pc.getValue())
+			if(bpmed.getPc() != pc)
 			{
-				throw new ExecuteStageException("Wrong PC :" + bpmed.getPc().getValueAsHexString() + " != " + pc.getValueAsHexString());
+				throw new ExecuteStageException("Wrong PC :" + CalculationHelper.toHexString(bpmed.getPc()) + " != " + CalculationHelper.toHexString(pc));
 			}
 			
 			// either the branch direction was falsely predicted 
 			// or the branch target is wrong (but only if the jump is respectively was predicted to be taken)
-			if((bpmed.getDoSpeculativeJump() != jump) || ((jump == true) && (bpmed.getDoSpeculativeJump() == true) && (bpmed.getBranchTgt().getValue() != alu_outLO.getValue())))
+			if((bpmed.getDoSpeculativeJump() != jump) || ((jump == true) && (bpmed.getDoSpeculativeJump() == true) && (bpmed.getBranchTgt() != alu_outLO)))
 			{
 				mispredicted_branch = true;
 			}
 			
 		}
+		else if(bpmed.getDoSpeculativeJump() && (bpmed.getPc() == pc))
+		{
+			// the partial tag of a set-associative btb matched an instruction that is no branch,
+			// the fetch stage recovers as from a branch that was falsely predicted taken
+			mispredicted_branch = true;
+		}
 		
 		// to MEM STAGE
-		ExecuteMemoryData emd = new ExecuteMemoryData(inst, pc, alu_out, store_value, jump);
+		ExecuteMemoryData emd = execute_memory_latch.next();
+		emd.set(inst, pc, alu_outLO, alu_outHI, store_value, jump);
 
 		// to FETCH STAGE
-		ExecuteFetchData efd = new ExecuteFetchData(inst, pc, alu_outLO, jump, mispredicted_branch);
+		ExecuteFetchData efd = execute_fetch_latch.next();
+		efd.set(inst, pc, alu_outLO, jump, mispredicted_branch);
 		
 		// to BRANCH PREDICTION MODULE
-		ExecuteBranchPredictionData ebd = new ExecuteBranchPredictionData(inst, pc, alu_outLO, jump);
+		ExecuteBranchPredictionData ebd = execute_branchprediction_latch.next();
+		ebd.set(inst, pc, alu_outLO, jump, mispredicted_branch);
 	
-		if (ArchCfg.useLoadStallBubble())
+		if (arch_cfg.useLoadStallBubble())
 		{
 			// check if the instruction before was a load that writes into a src register,
 			// if so the fetch, decode, and execute stages have to be stalled for 1 cycle to let this instruction enter the memory stage 
@@ -485,28 +525,32 @@ public class Execute
 			}
 		}
 		
-		return new ExecuteOutputData(emd, efd, ebd, stall_out);
+		output.set(emd, efd, ebd, stall_out);
+		return output;
 
 	}
 
-	private void forwarding(SpecialRegisters reg_read, uint32 alu_in, uint32[] old_alu_result, Instruction old_inst)
+	private int forwarding(SpecialRegisters reg_read, int alu_in, int old_alu_result_lo, int old_alu_result_hi, Instruction old_inst)
 	{
 
 		if (old_inst.getWriteLO() && (reg_read == SpecialRegisters.LO))
 		{
-			logger.debug("{FW} using " + old_alu_result[0].getValueAsHexString() + " for register " + reg_read + " instead of value: " + alu_in.getValueAsHexString());
-			alu_in.setValue(old_alu_result[0]);
+			if (logger.isDebugEnabled())
+				logger.debug("{FW} using " + CalculationHelper.toHexString(old_alu_result_lo) + " for register " + reg_read + " instead of value: " + CalculationHelper.toHexString(alu_in));
+			alu_in = old_alu_result_lo;
 		}
 
 		if (old_inst.getWriteHI() && (reg_read == SpecialRegisters.HI))
 		{
-			logger.debug("{FW} using " + old_alu_result[1].getValueAsHexString() + " for register " + reg_read + " instead of value: " + alu_in.getValueAsHexString());
-			alu_in.setValue(old_alu_result[1]);
+			if (logger.isDebugEnabled())
+				logger.debug("{FW} using " + CalculationHelper.toHexString(old_alu_result_hi) + " for register " + reg_read + " instead of value: " + CalculationHelper.toHexString(alu_in));
+			alu_in = old_alu_result_hi;
 		}
 
+		return alu_in;
 	}
 
-	private void forwarding(uint8 reg_read, uint32 alu_in, uint32 old_alu_result, uint32 old_ld_result, Instruction old_inst)
+	private int forwarding(uint8 reg_read, int alu_in, int old_alu_result, int old_ld_result, Instruction old_inst)
 	{
 
 		if (old_inst.getWriteRd() && (reg_read.getValue() == old_inst.getRd().getValue()))
@@ -515,18 +559,21 @@ public class Execute
 			{
 				if(old_inst.getLoad())
 				{
-					logger.debug("{FW} using LD result " + old_ld_result.getValueAsHexString() + " for register " + reg_read.getValue() + "/" + ArchCfg.getRegisterDescription(reg_read.getValue()) + " instead of value: " + alu_in.getValueAsHexString());
-					alu_in.setValue(old_ld_result);
+					if (logger.isDebugEnabled())
+						logger.debug("{FW} using LD result " + CalculationHelper.toHexString(old_ld_result) + " for register " + reg_read.getValue() + "/" + ArchCfg.getRegisterDescription(reg_read.getValue()) + " instead of value: " + CalculationHelper.toHexString(alu_in));
+					alu_in = old_ld_result;
 				}
 				else
 				{
-					logger.debug("{FW} using ALU result " + old_alu_result.getValueAsHexString() + " for register " + reg_read.getValue() + "/" + ArchCfg.getRegisterDescription(reg_read.getValue()) + " instead of value: " + alu_in.getValueAsHexString());
-					alu_in.setValue(old_alu_result);
+					if (logger.isDebugEnabled())
+						logger.debug("{FW} using ALU result " + CalculationHelper.toHexString(old_alu_result) + " for register " + reg_read.getValue() + "/" + ArchCfg.getRegisterDescription(reg_read.getValue()) + " instead of value: " + CalculationHelper.toHexString(alu_in));
+					alu_in = old_alu_result;
 				}
 			}
 			else
 			{
-				logger.debug("{FW} suppressing forwarding of register 0/" + ArchCfg.getRegisterDescription(0));
+				if (logger.isDebugEnabled())
+					logger.debug("{FW} suppressing forwarding of register 0/" + ArchCfg.getRegisterDescription(0));
 			}
 		}
 
@@ -536,20 +583,25 @@ public class Execute
 			{
 				if(old_inst.getLoad())
 				{
-					logger.debug("{FW} using LD result " + old_ld_result.getValueAsHexString() + " for register " + reg_read.getValue() + "/" + ArchCfg.getRegisterDescription(reg_read.getValue()) + " instead of value: " + alu_in.getValueAsHexString());
-					alu_in.setValue(old_ld_result);
+					if (logger.isDebugEnabled())
+						logger.debug("{FW} using LD result " + CalculationHelper.toHexString(old_ld_result) + " for register " + reg_read.getValue() + "/" + ArchCfg.getRegisterDescription(reg_read.getValue()) + " instead of value: " + CalculationHelper.toHexString(alu_in));
+					alu_in = old_ld_result;
 				}
 				else
 				{
-					logger.debug("{FW} using ALU result " + old_alu_result.getValueAsHexString() + " for register " + reg_read.getValue() + "/" + ArchCfg.getRegisterDescription(reg_read.getValue()) + " instead of value: " + alu_in.getValueAsHexString());
-					alu_in.setValue(old_alu_result);
+					if (logger.isDebugEnabled())
+						logger.debug("{FW} using ALU result " + CalculationHelper.toHexString(old_alu_result) + " for register " + reg_read.getValue() + "/" + ArchCfg.getRegisterDescription(reg_read.getValue()) + " instead of value: " + CalculationHelper.toHexString(alu_in));
+					alu_in = old_alu_result;
 				}
 			}
 			else
 			{
-				logger.debug("{FW} suppressing forwarding of register 0/" + ArchCfg.getRegisterDescription(0));
+				if (logger.isDebugEnabled())
+					logger.debug("{FW} suppressing forwarding of register 0/" + ArchCfg.getRegisterDescription(0));
 			}
 		}
+
+		return alu_in;
 	}
 
 }
@@ -21,7 +21,6 @@
 package riscVivid;
 
 import java.util.Arrays;
-import java.util.Queue;
 
 import org.apache.log4j.Logger;
 
@@ -31,31 +30,62 @@ import riscVivid.exception.PipelineException;
 import riscVivid.exception.UnreservedMemoryAccessException;
 import riscVivid.gui.Preference;
 import riscVivid.memory.InstructionMemory;
+import riscVivid.util.CalculationHelper;
 import riscVivid.util.Statistics;
 
 public class Fetch {
 
 
 	private static Logger logger = Logger.getLogger("FETCH");
-	private Statistics stat = Statistics.getInstance();
+	private Statistics stat;
+	private ArchitectureConfig arch_cfg;
 	
-	private uint32 program_counter;
+	private int program_counter;
 	private InstructionMemory imem;
-	private Queue<ExecuteFetchData> execute_fetch_latch;
-	private Queue<BranchPredictionModuleFetchData> branchprediction_fetch_latch;
+	private PipelineLatch<ExecuteFetchData> execute_fetch_latch;
+	private PipelineLatch<BranchPredictionModuleFetchData> branchprediction_fetch_latch;
+	private PipelineLatch<FetchDecodeData> fetch_decode_latch;
 	private final int numBranchDelaySlots;
 	
-	public Fetch(uint32 init_pc, InstructionMemory imem, int numBranchDelaySlots)
+	// outstanding request to the instruction memory: the pc it was issued for
+	// and the cycles left until the instruction is delivered
+	private boolean request_pending = false;
+	private int request_pc;
+	private int request_delay;
+	// the instruction delivered by the last request, it is reused if the fetch
+	// is repeated because the pipeline was stalled
+	private int buffered_pc = PipelineConstants.PIPELINE_BUBBLE_ADDR.getValue();
+	private int buffered_instr;
+	// the instruction read by the last successful doFetch()
+	private int fetched_instr;
+	// the output of doCycle(), reused in every cycle
+	private final boolean[] flush = new boolean[PipelineConstants.STAGES];
+	private final FetchOutputData output = new FetchOutputData();
+	// set if no instruction was fetched in the last cycle
+	private boolean stalled = false;
+	// the branch predicted taken whose fall-through instruction was not fetched
+	// before the jump to the predicted target
+	private int missing_fall_through_pc = PipelineConstants.PIPELINE_BUBBLE_ADDR.getValue();
+	
+	public Fetch(uint32 init_pc, InstructionMemory imem, SimulationContext context)
 	{
-		program_counter = new uint32(init_pc);
+		program_counter = init_pc.getValue();
 		this.imem = imem;
-		this.numBranchDelaySlots = numBranchDelaySlots;
+		stat = context.getStatistics();
+		arch_cfg = context.getArchCfg();
+		numBranchDelaySlots = arch_cfg.getNumBranchDelaySlots();
 	}
 	
 	public void setPc(uint32 pc)
 	{
-		program_counter.setValue(pc.getValue());
-		logger.debug("Set Pc to: " + program_counter.getValueAsHexString());
+		setPc(pc.getValue());
+	}
+	
+	public void setPc(int pc)
+	{
+		program_counter = pc;
+		if (logger.isDebugEnabled())
+			logger.debug("Set Pc to: " + CalculationHelper.toHexString(program_counter));
 	}
 	
 	public uint32 getPc()
@@ -63,51 +93,112 @@ public class Fetch {
 		return new uint32(program_counter);
 	}
 	
-	private uint32 doFetch() throws MemoryException
+	/**
+	 * Reads the instruction at the pc into fetched_instr. If the instruction
+	 * memory has a delay the request stays outstanding for that many cycles,
+	 * a request for another pc is dropped when the pc is changed by a jump.
+	 * 
+	 * @return false while the request is outstanding
+	 */
+	private boolean doFetch() throws MemoryException
 	{
-		uint32 instr = null;
-		if(imem.getRequestDelay(program_counter)==0)
+		int pc = program_counter;
+		if(!request_pending || (request_pc != pc))
 		{
-			instr = imem.read_u32(program_counter);
-			stat.countFetch();
+			request_pending = false;
+			int delay = imem.getRequestDelay(pc);
+			if(delay == 0)
+			{
+				stat.countFetch();
+				fetched_instr = imem.read_u32(pc);
+				return true;
+			}
+			if(pc == buffered_pc)
+			{
+				fetched_instr = buffered_instr;
+				return true;
+			}
+			request_pending = true;
+			request_pc = pc;
+			request_delay = delay;
 		}
-		return new uint32(instr);
+		if(request_delay > 0)
+		{
+			request_delay--;
+			stat.countStall(StallCause.INSTRUCTION_FETCH);
+			return false;
+		}
+		request_pending = false;
+		buffered_instr = imem.read_u32(pc);
+		buffered_pc = pc;
+		stat.countFetch();
+		fetched_instr = buffered_instr;
+		return true;
 	}
 	
 	public void increasePC()
 	{
-		program_counter.setValue(program_counter.getValue()+4);
-		logger.debug("Pc is now at: " + program_counter.getValueAsHexString());
+		buffered_pc = PipelineConstants.PIPELINE_BUBBLE_ADDR.getValue();
+		program_counter += 4;
+		if (logger.isDebugEnabled())
+			logger.debug("Pc is now at: " + CalculationHelper.toHexString(program_counter));
 	}
 
-	public void setInputLatches(Queue<ExecuteFetchData> executeFetchLatch, Queue<BranchPredictionModuleFetchData> branchpredictionFetchLatch)
+	public void setInputLatches(PipelineLatch<ExecuteFetchData> executeFetchLatch, PipelineLatch<BranchPredictionModuleFetchData> branchpredictionFetchLatch)
 	{
 		execute_fetch_latch = executeFetchLatch;
 		branchprediction_fetch_latch = branchpredictionFetchLatch;
 	}
 
+	public void setOutputLatch(PipelineLatch<FetchDecodeData> fetchDecodeLatch)
+	{
+		fetch_decode_latch = fetchDecodeLatch;
+	}
+
+	/**
+	 * @return true if the instruction entering the memory stage in this cycle
+	 *         is flushed because of the branch resolved in the last cycle
+	 */
+	public boolean flushesMemoryStage()
+	{
+		ExecuteFetchData efd = execute_fetch_latch.element();
+		Instruction inst = efd.getInst();
+		if ((numBranchDelaySlots <= 2) || !inst.getBranch())
+			return false;
+		// a likely branch that is not taken nullifies its delay slots,
+		// a taken branch flushes the instruction fetched behind it
+		return (!efd.getJump() && inst.getBranchLikely())
+				|| (efd.getJump() && arch_cfg.ignoreBranchDelaySlots());
+	}
+
 	public FetchOutputData doCycle() throws MemoryException
 	{
 		ExecuteFetchData efd = execute_fetch_latch.element();
 		BranchPredictionModuleFetchData bpmfd = branchprediction_fetch_latch.element();
 		
-		boolean[] flush = new boolean[PipelineConstants.STAGES];
 		Arrays.fill(flush, false);
 
+		// the branch falsely predicted taken has to continue behind itself
+		// if its fall-through instruction was not fetched before the jump
+		boolean fall_through_missing = (efd.getPc() == missing_fall_through_pc);
+
 		if(bpmfd.getDoSpeculativeJump())
 		{
-			logger.debug("speculatively jumping from " + bpmfd.getPc().getValueAsHexString() + " to " + bpmfd.getBranchTgt().getValueAsHexString());
+			missing_fall_through_pc = stalled ? bpmfd.getPc() : PipelineConstants.PIPELINE_BUBBLE_ADDR.getValue();
+			if (logger.isDebugEnabled())
+				logger.debug("speculatively jumping from " + CalculationHelper.toHexString(bpmfd.getPc()) + " to " + CalculationHelper.toHexString(bpmfd.getBranchTgt()));
 			// the branch predictor predicted a branch, set the pc to the predicted target
 			setPc(bpmfd.getBranchTgt());
 		}
 
 		if (efd.getMispredictedBranch()) {
-			logger.debug("mispredicted branch at pc "
-					+ efd.getPc().getValueAsHexString()
-					+ " the branch was actually " + ((efd.getJump())
-					? ("taken to " + efd.getNewPc().getValueAsHexString())
-					: ("not taken next instr is " + new uint32(efd.getPc().getValue()+8).getValueAsHexString())));
-			if (ArchCfg.getISAType() == ISAType.MIPS)
+			if (logger.isDebugEnabled())
+				logger.debug("mispredicted branch at pc "
+						+ CalculationHelper.toHexString(efd.getPc())
+						+ " the branch was actually " + ((efd.getJump())
+						? ("taken to " + CalculationHelper.toHexString(efd.getNewPc()))
+						: ("not taken next instr is " + CalculationHelper.toHexString(efd.getPc()+8))));
+			if (arch_cfg.getISAType() == ISAType.MIPS)
 			{
 				// according to the MIPS specification one instruction is executed in the branch delay
 				// slot, this instruction will be already in the execute stage (i.e. in the latch before the execute stage).
@@ -116,48 +207,71 @@ public class Fetch {
 			}
 			if (efd.getJump()) {
 				setPc(efd.getNewPc());
+			} else if (arch_cfg.ignoreBranchDelaySlots()) {
+				// the branch was falsely predicted taken: the instruction fetched behind the branch
+				// is kept, the ones fetched from the predicted target are flushed
+				flush[PipelineConstants.DECODE_STAGE] = true;
+				if (numBranchDelaySlots > 2)
+					flush[PipelineConstants.EXECUTE_STAGE] = true;
+				setPc(efd.getPc() + (fall_through_missing ? 4 : 8));
 			} else {
-				setPc(new uint32(efd.getPc().getValue() + 4 * numBranchDelaySlots));
+				setPc(efd.getPc() + 4 * numBranchDelaySlots);
 			}
 		}
 
 		if((efd.getInst().getBranch()) && (efd.getJump() == false) && (efd.getInst().getBranchLikely()))
 		{
-			logger.debug("likely branch was not taken, flushing branch delay slot");
+			if (logger.isDebugEnabled())
+				logger.debug("likely branch was not taken, flushing branch delay slot");
 			// for likely branches if they are not taken the instruction in the branch delay slot hat to be nullified, e.g. by flushing it.
 			// notice: this is independent of the branch prediction
 			flush[PipelineConstants.EXECUTE_STAGE] = true;
-			if (numBranchDelaySlots > 2)
-				flush[PipelineConstants.MEMORY_STAGE] = true;
 		}
 
 		// flush branch delay slot on taken branch
-		if(efd.getInst().getBranch() && efd.getJump() && ArchCfg.ignoreBranchDelaySlots())
+		if(efd.getInst().getBranch() && efd.getJump() && arch_cfg.ignoreBranchDelaySlots())
 		{
-			logger.debug("branch was taken, flushing branch delay slots");
-			flush[PipelineConstants.DECODE_STAGE] = true;
-			flush[PipelineConstants.EXECUTE_STAGE] = true;
-			if (numBranchDelaySlots > 2)
-				flush[PipelineConstants.MEMORY_STAGE] = true;
+			if (efd.getMispredictedBranch())
+			{
+				if (logger.isDebugEnabled())
+					logger.debug("branch was taken, flushing branch delay slots");
+				flush[PipelineConstants.DECODE_STAGE] = true;
+				flush[PipelineConstants.EXECUTE_STAGE] = true;
+			}
+			else
+			{
+				// the branch was predicted taken and the fetch continued at the target one cycle
+				// after the branch, only the instruction fetched behind the branch has to be flushed
+				if (logger.isDebugEnabled())
+					logger.debug("branch was taken as predicted, flushing the instruction behind the branch");
+				if (numBranchDelaySlots <= 2)
+					flush[PipelineConstants.EXECUTE_STAGE] = true;
+			}
 		}
+		// with three delay slots the instruction behind the branch is about to enter the memory stage
+		flush[PipelineConstants.MEMORY_STAGE] = flushesMemoryStage();
 		
-		uint32 instr = doFetch();
-		if(instr != null)
+		stalled = !doFetch();
+		FetchDecodeData fdd = fetch_decode_latch.next();
+		PipelineException fetchEx = null;
+		if(!stalled)
 		{
-			logger.debug("PC: " + getPc().getValueAsHexString() + " fetched instruction " + instr.getValueAsHexString());
+			if (logger.isDebugEnabled())
+				logger.debug("PC: " + CalculationHelper.toHexString(program_counter) + " fetched instruction " + CalculationHelper.toHexString(fetched_instr));
+			if (Preference.isMemoryWarningsEnabled() && !imem.isReserved(program_counter, 4))
+				fetchEx = new UnreservedMemoryAccessException(getPc(), 4, UnreservedMemoryAccessException.Stage.FETCH, getPc());
+			fdd.set(fetched_instr, program_counter);
 		}
 		else
 		{
-			// stalling
+			// stalling, a bubble is passed to the decode and the pc is kept
+			if (logger.isDebugEnabled())
+				logger.debug("PC: " + CalculationHelper.toHexString(program_counter) + " waiting for the instruction memory");
+			fdd.flush();
 		}
-
-		PipelineException fetchEx = null;
-		if (Preference.isMemoryWarningsEnabled() && !imem.isReserved(program_counter, 4))
-			fetchEx = new UnreservedMemoryAccessException(new uint32(getPc()), 4, UnreservedMemoryAccessException.Stage.FETCH, getPc());
-		
-		FetchDecodeData fdd = new FetchDecodeData(instr, getPc());
 		
-		return new FetchOutputData(fdd, flush, fetchEx);
+		output.set(fdd, flush, fetchEx, stalled);
+		return output;
 	}
         
         
@@ -20,7 +20,6 @@
  ******************************************************************************/
 package riscVivid;
 
-import java.util.Queue;
 
 
 import org.apache.log4j.Logger;
@@ -29,75 +28,128 @@ import riscVivid.datatypes.*;
 import riscVivid.exception.*;
 import riscVivid.gui.Preference;
 import riscVivid.memory.DataMemory;
+import riscVivid.util.CalculationHelper;
 import riscVivid.util.Statistics;
 
 public class Memory
 {
 	private static Logger logger = Logger.getLogger("MEMORY");
-	private Statistics stat = Statistics.getInstance(); 
+	private Statistics stat;
 	private DataMemory dmem;
-	private Queue<ExecuteMemoryData> execute_memory_latch;
+	private PipelineLatch<ExecuteMemoryData> execute_memory_latch;
+	private PipelineLatch<MemoryWritebackData> memory_writeback_latch;
+	// the output of doCycle(), reused in every cycle
+	private final MemoryOutputData output = new MemoryOutputData();
+	// outstanding request of the instruction in the stage and the cycles left until it is served
+	private boolean request_pending = false;
+	private int request_delay;
+	private StallCause request_cause;
+	// the first cycles of the delay are spent waiting for a free miss status holding register
+	private int request_mshr_wait;
 
 
-	public Memory(DataMemory dmem)
+	public Memory(DataMemory dmem, SimulationContext context)
 	{
 		this.dmem = dmem;
+		stat = context.getStatistics();
 	}
 
-	public void setInputLatch(Queue<ExecuteMemoryData> executeMemoryLatch)
+	public void setInputLatch(PipelineLatch<ExecuteMemoryData> executeMemoryLatch)
 	{
 		execute_memory_latch = executeMemoryLatch;
 	}
 
+	public void setOutputLatch(PipelineLatch<MemoryWritebackData> memoryWritebackLatch)
+	{
+		memory_writeback_latch = memoryWritebackLatch;
+	}
+
+	/**
+	 * Checks whether the load or store entering the stage has to wait for the
+	 * data memory. The delay is requested once when the instruction enters the
+	 * stage, the pipeline is stalled until it has passed and the access is done
+	 * by doCycle() afterwards.
+	 * 
+	 * @param flushed true if the instruction is flushed in this cycle and does no access
+	 * @return true if the pipeline has to be stalled in this cycle
+	 */
+	public boolean waitForRequest(boolean flushed) throws MemoryException
+	{
+		if (!request_pending)
+		{
+			ExecuteMemoryData emd = execute_memory_latch.element();
+			Instruction inst = emd.getInst();
+			if (flushed || !(inst.getLoad() || inst.getStore()))
+				return false;
+			// the store of an atomic operation finds the line loaded by its read
+			RequestType type = inst.getLoad() ? RequestType.DATA_RD : RequestType.DATA_WR;
+			request_delay = dmem.getRequestDelay(type, emd.getAluOutLO());
+			request_mshr_wait = dmem.getMSHRWait(type, emd.getAluOutLO());
+			request_cause = inst.getLoad() ? StallCause.DATA_LOAD : StallCause.DATA_STORE;
+			request_pending = true;
+		}
+		if (request_delay > 0)
+		{
+			request_delay--;
+			if (request_mshr_wait > 0) {
+				request_mshr_wait--;
+				stat.countStall(StallCause.MSHR_FULL);
+			} else {
+				stat.countStall(request_cause);
+			}
+			return true;
+		}
+		request_pending = false;
+		return false;
+	}
+
 	public MemoryOutputData doCycle() throws MemoryStageException, MemoryException, UnknownInstructionException
 	{
 		ExecuteMemoryData emd = execute_memory_latch.element();
-		uint32[] alu_out = emd.getAluOut();
-		uint32 alu_outLO = alu_out[0];
-		// uint32 alu_outHI = alu_out[1];
+		int alu_outLO = emd.getAluOutLO();
+		int alu_outHI = emd.getAluOutHI();
 //		uint32 store_value = emd.getStoreValue();
-		uint64 sv = new uint64(emd.getStoreValue().getValue());
+		long sv = emd.getStoreValue();
 		Instruction inst = emd.getInst();
-		uint32 pc = emd.getPc();
+		int pc = emd.getPc();
 		boolean jump = emd.getJump();
 
 		long lv=0;
 		try {
+			dmem.setAccessPC(pc);
 			if (inst.getLoad()) {
-				if (dmem.getRequestDelay(RequestType.DATA_RD, alu_outLO) == 0) {
-					switch (inst.getMemoryWidth()) {
-						case BYTE:
-							lv = dmem.read_u8(alu_outLO, true).getValue();
-							break;
-						case UBYTE:
-							lv = (long) dmem.read_u8(alu_outLO, true).getValue() & 0xff;
-							break;
-						case HWORD:
-							lv = dmem.read_u16(alu_outLO, true).getValue();
-							break;
-						case UHWORD:
-							lv = (long) dmem.read_u16(alu_outLO, true).getValue() & 0xffff;
-							break;
-						case WORD:
-							lv = dmem.read_u32(alu_outLO, true).getValue();
-							break;
-						case UWORD:
-							lv = (long) dmem.read_u32(alu_outLO, true).getValue() & 0xffffffffL;
-							break;
-						case DWORD:
-						case UDWORD:
-							lv = dmem.read_u64(alu_outLO, true).getValue();
-							break;
-						default:
-							logger.error("wrong memory width: " + inst.getMemoryWidth());
-							throw new MemoryStageException("Wrong memory width: " + inst.getMemoryWidth(), pc);
-					}
-					logger.debug("PC: " + pc.getValueAsHexString()
-							+ " load from addr: " + alu_outLO.getValueAsHexString()
-							+ " value: 0x" + Long.toHexString(lv));
-					stat.countMemRead();
+				switch (inst.getMemoryWidth()) {
+					case BYTE:
+						lv = dmem.read_u8(alu_outLO, true);
+						break;
+					case UBYTE:
+						lv = (long) dmem.read_u8(alu_outLO, true) & 0xff;
+						break;
+					case HWORD:
+						lv = dmem.read_u16(alu_outLO, true);
+						break;
+					case UHWORD:
+						lv = (long) dmem.read_u16(alu_outLO, true) & 0xffff;
+						break;
+					case WORD:
+						lv = dmem.read_u32(alu_outLO, true);
+						break;
+					case UWORD:
+						lv = (long) dmem.read_u32(alu_outLO, true) & 0xffffffffL;
+						break;
+					case DWORD:
+					case UDWORD:
+						lv = dmem.read_u64(alu_outLO, true);
+						break;
+					default:
+						logger.error("wrong memory width: " + inst.getMemoryWidth());
+						throw new MemoryStageException("Wrong memory width: " + inst.getMemoryWidth(), new uint32(pc));
 				}
-				// else stall
+				if (logger.isDebugEnabled())
+					logger.debug("PC: " + CalculationHelper.toHexString(pc)
+							+ " load from addr: " + CalculationHelper.toHexString(alu_outLO)
+							+ " value: 0x" + Long.toHexString(lv));
+				stat.countMemRead();
 			} 
 
 			// If atomic instruction, execute atomic operation here
@@ -107,28 +159,28 @@ public class Memory
 						// sv is already correct
 						break;
 					case AMOADD:
-						sv = new uint64(sv.getValue() + lv);
+						sv = sv + lv;
 						break;
 					case AMOXOR:
-						sv = new uint64(sv.getValue() ^ lv);
+						sv = sv ^ lv;
 						break;
 					case AMOAND:
-						sv = new uint64(sv.getValue() & lv);
+						sv = sv & lv;
 						break;
 					case AMOOR:
-						sv = new uint64(sv.getValue() | lv);
+						sv = sv | lv;
 						break;
 					case AMOMIN:
-						sv =  new uint64((sv.getValue() < lv)  ? sv.getValue() : lv);
+						sv = (sv < lv)  ? sv : lv;
 						break;
 					case AMOMAX:
-						sv = new uint64(sv.getValue() > lv ? sv.getValue() : lv);
+						sv = sv > lv ? sv : lv;
 						break;
 					case AMOMINU:
-						sv = new uint64((0xffffffffL & sv.getValue()) < (0xffffffffL & lv) ? sv.getValue() : lv);
+						sv = (0xffffffffL & sv) < (0xffffffffL & lv) ? sv : lv;
 						break;
 					case AMOMAXU:
-						sv = new uint64((0xffffffffL & sv.getValue()) > (0xffffffffL & lv) ? sv.getValue() : lv);
+						sv = (0xffffffffL & sv) > (0xffffffffL & lv) ? sv : lv;
 						break;
 					case AMOLR:
 					case AMOSC:
@@ -141,145 +193,144 @@ public class Memory
 			}
 			
 			if (inst.getStore()) {
-				if (dmem.getRequestDelay(RequestType.DATA_WR, alu_outLO) == 0) {
-					logger.debug("PC: " + pc.getValueAsHexString()
-							+ " store value: " + sv.getValueAsHexString()
-							+ " to addr: " + alu_outLO.getValueAsHexString());
-					switch (inst.getMemoryWidth()) {
-						case BYTE:
-						case UBYTE:
-							dmem.write_u8(alu_outLO, new uint8((byte) sv.getValue()));
-							break;
-						case HWORD:
-						case UHWORD:
-							dmem.write_u16(alu_outLO, new uint16((short) sv.getValue()));
-							break;
-						case WORD:
-						case UWORD:
-							dmem.write_u32(alu_outLO, new uint32((int) sv.getValue()));
-							break;
-						case DWORD:
-						case UDWORD:
-							dmem.write_u64(alu_outLO, sv);
-							break;
-/*
-				case WORD_RIGHT_PART:
-					// refer to page A-153 of the MIPS IV Instruction Set Rev. 3.2
-					switch(alu_outLO.getValue()&0x3)
-					{
-					case 0:
-						dmem.write_u32(alu_outLO, store_value);
-						
-						logger.warn("Verify operation of SWR (0)!");
-						if(throwExceptionForUntestedAccesses)
-						{
-							throw new MemoryStageException("Verify operation of SWR (0)!", pc);
-						}
+				if (logger.isDebugEnabled())
+					logger.debug("PC: " + CalculationHelper.toHexString(pc)
+							+ " store value: " + CalculationHelper.toHexString(sv)
+							+ " to addr: " + CalculationHelper.toHexString(alu_outLO));
+				switch (inst.getMemoryWidth()) {
+					case BYTE:
+					case UBYTE:
+						dmem.write_u8(alu_outLO, (byte) sv);
 						break;
-					case 1:
-						dmem.write_u8(alu_outLO, new uint8((store_value.getValue())&0xFF));
-						dmem.write_u8(new uint32(alu_outLO.getValue()+1), new uint8((store_value.getValue()>>8)&0xFF));
-						dmem.write_u8(new uint32(alu_outLO.getValue()+2), new uint8((store_value.getValue()>>16)&0xFF));
-						
-						logger.warn("Verify operation of SWR (1)!");
-						if(throwExceptionForUntestedAccesses)
-						{
-							throw new MemoryStageException("Verify operation of SWR (1)!", pc);
-						}
+					case HWORD:
+					case UHWORD:
+						dmem.write_u16(alu_outLO, (short) sv);
 						break;
-					case 2:
-						dmem.write_u8(alu_outLO, new uint8((store_value.getValue())&0xFF));
-						dmem.write_u8(new uint32(alu_outLO.getValue()+1), new uint8((store_value.getValue()>>8)&0xFF));
-						
-						logger.warn("Verify operation of SWR (3)!");
-						if(throwExceptionForUntestedAccesses)
-						{
-							throw new MemoryStageException("Verify operation of SWR (2)!", pc);
-						}
+					case WORD:
+					case UWORD:
+						dmem.write_u32(alu_outLO, (int) sv);
 						break;
-					case 3:
-						dmem.write_u8(alu_outLO, new uint8((store_value.getValue())&0xFF));
-						
-						logger.warn("Verify operation of SWR (3)!");
-						if(throwExceptionForUntestedAccesses)
-						{
-							throw new MemoryStageException("Verify operation of SWR (3)!", pc);
-						}
+					case DWORD:
+					case UDWORD:
+						dmem.write_u64(alu_outLO, sv);
 						break;
+/*
+			case WORD_RIGHT_PART:
+				// refer to page A-153 of the MIPS IV Instruction Set Rev. 3.2
+				switch(alu_outLO.getValue()&0x3)
+				{
+				case 0:
+					dmem.write_u32(alu_outLO, store_value);
+					
+					logger.warn("Verify operation of SWR (0)!");
+					if(throwExceptionForUntestedAccesses)
+					{
+						throw new MemoryStageException("Verify operation of SWR (0)!", new uint32(pc));
 					}
 					break;
-				case WORD_LEFT_PART:
-					// refer to page A-150 of the MIPS IV Instruction Set Rev. 3.2
-					switch(alu_outLO.getValue()&0x3)
+				case 1:
+					dmem.write_u8(alu_outLO, new uint8((store_value.getValue())&0xFF));
+					dmem.write_u8(new uint32(alu_outLO.getValue()+1), new uint8((store_value.getValue()>>8)&0xFF));
+					dmem.write_u8(new uint32(alu_outLO.getValue()+2), new uint8((store_value.getValue()>>16)&0xFF));
+					
+					logger.warn("Verify operation of SWR (1)!");
+					if(throwExceptionForUntestedAccesses)
 					{
-					case 0:
-						dmem.write_u8(alu_outLO, new uint8((store_value.getValue()>>24)&0xFF));
-						
-						logger.warn("Verify operation of SWL (0)!");
-						if(throwExceptionForUntestedAccesses)
-						{
-							throw new MemoryStageException("Verify operation of SWR (0)!", pc);
-						}
-						break;
-					case 1:
-						dmem.write_u8(alu_outLO, new uint8((store_value.getValue()>>24)&0xFF));
-						dmem.write_u8(new uint32(alu_outLO.getValue()-1), new uint8((store_value.getValue()>>16)&0xFF));
-						
-						logger.warn("Verify operation of SWL (1)!");
-						if(throwExceptionForUntestedAccesses)
-						{
-							throw new MemoryStageException("Verify operation of SWR (1)!", pc);
-						}
-						break;
-					case 2:
-						dmem.write_u8(alu_outLO, new uint8((store_value.getValue()>>24)&0xFF));
-						dmem.write_u8(new uint32(alu_outLO.getValue()-1), new uint8((store_value.getValue()>>16)&0xFF));
-						dmem.write_u8(new uint32(alu_outLO.getValue()-2), new uint8((store_value.getValue()>>8)&0xFF));
-						
-						logger.warn("Verify operation of SWL (2)!");
-						if(throwExceptionForUntestedAccesses)
-						{
-							throw new MemoryStageException("Verify operation of SWR (2)!", pc);
-						}
-						break;
-					case 3:
-						dmem.write_u32(new uint32(alu_outLO.getValue()-3), store_value);
-						
-						logger.warn("Verify operation of SWL (3)!");
-						if(throwExceptionForUntestedAccesses)
-						{
-							throw new MemoryStageException("Verify operation of SWR (2)!", pc);
-						}
-						break;
+						throw new MemoryStageException("Verify operation of SWR (1)!", new uint32(pc));
 					}
 					break;
-*/
-						default:
-							logger.error("Wrong memory width: " + inst.getMemoryWidth());
-							throw new MemoryStageException("Wrong memory width: " + inst.getMemoryWidth(), pc);
+				case 2:
+					dmem.write_u8(alu_outLO, new uint8((store_value.getValue())&0xFF));
+					dmem.write_u8(new uint32(alu_outLO.getValue()+1), new uint8((store_value.getValue()>>8)&0xFF));
+					
+					logger.warn("Verify operation of SWR (3)!");
+					if(throwExceptionForUntestedAccesses)
+					{
+						throw new MemoryStageException("Verify operation of SWR (2)!", new uint32(pc));
 					}
-					stat.countMemWrite();
-				} else {
-					// stall
+					break;
+				case 3:
+					dmem.write_u8(alu_outLO, new uint8((store_value.getValue())&0xFF));
+					
+					logger.warn("Verify operation of SWR (3)!");
+					if(throwExceptionForUntestedAccesses)
+					{
+						throw new MemoryStageException("Verify operation of SWR (3)!", new uint32(pc));
+					}
+					break;
+				}
+				break;
+			case WORD_LEFT_PART:
+				// refer to page A-150 of the MIPS IV Instruction Set Rev. 3.2
+				switch(alu_outLO.getValue()&0x3)
+				{
+				case 0:
+					dmem.write_u8(alu_outLO, new uint8((store_value.getValue()>>24)&0xFF));
+					
+					logger.warn("Verify operation of SWL (0)!");
+					if(throwExceptionForUntestedAccesses)
+					{
+						throw new MemoryStageException("Verify operation of SWR (0)!", new uint32(pc));
+					}
+					break;
+				case 1:
+					dmem.write_u8(alu_outLO, new uint8((store_value.getValue()>>24)&0xFF));
+					dmem.write_u8(new uint32(alu_outLO.getValue()-1), new uint8((store_value.getValue()>>16)&0xFF));
+					
+					logger.warn("Verify operation of SWL (1)!");
+					if(throwExceptionForUntestedAccesses)
+					{
+						throw new MemoryStageException("Verify operation of SWR (1)!", new uint32(pc));
+					}
+					break;
+				case 2:
+					dmem.write_u8(alu_outLO, new uint8((store_value.getValue()>>24)&0xFF));
+					dmem.write_u8(new uint32(alu_outLO.getValue()-1), new uint8((store_value.getValue()>>16)&0xFF));
+					dmem.write_u8(new uint32(alu_outLO.getValue()-2), new uint8((store_value.getValue()>>8)&0xFF));
+					
+					logger.warn("Verify operation of SWL (2)!");
+					if(throwExceptionForUntestedAccesses)
+					{
+						throw new MemoryStageException("Verify operation of SWR (2)!", new uint32(pc));
+					}
+					break;
+				case 3:
+					dmem.write_u32(new uint32(alu_outLO.getValue()-3), store_value);
+					
+					logger.warn("Verify operation of SWL (3)!");
+					if(throwExceptionForUntestedAccesses)
+					{
+						throw new MemoryStageException("Verify operation of SWR (2)!", new uint32(pc));
+					}
+					break;
+				}
+				break;
+*/
+					default:
+						logger.error("Wrong memory width: " + inst.getMemoryWidth());
+						throw new MemoryStageException("Wrong memory width: " + inst.getMemoryWidth(), new uint32(pc));
 				}
+				stat.countMemWrite();
 			} else {
-				logger.debug("PC: " + pc.getValueAsHexString() + " nothing to do");
+				if (logger.isDebugEnabled())
+					logger.debug("PC: " + CalculationHelper.toHexString(pc) + " nothing to do");
 			}
 		} catch (MemoryException | MemoryStageException e) {
-			e.setInstructionAddress(pc);
+			e.setInstructionAddress(new uint32(pc));
 			throw e;
 		}
 		
 		PipelineException memEx = null;
 		if ((inst.getStore() || inst.getLoad()) && Preference.isMemoryWarningsEnabled()) {
-			uint32 addr = alu_outLO;
 			int byteLen = inst.getMemoryWidth().getByteWidth();
-			if (!dmem.isReserved(addr,  byteLen))
-				 memEx = new UnreservedMemoryAccessException(addr, byteLen, UnreservedMemoryAccessException.Stage.MEMORY, pc);
+			if (!dmem.isReserved(alu_outLO,  byteLen))
+				 memEx = new UnreservedMemoryAccessException(new uint32(alu_outLO), byteLen, UnreservedMemoryAccessException.Stage.MEMORY, new uint32(pc));
 		}
 
-		MemoryWritebackData mwd = new MemoryWritebackData(inst, pc, alu_out, new uint32((int)lv), jump);
+		MemoryWritebackData mwd = memory_writeback_latch.next();
+		mwd.set(inst, pc, alu_outLO, alu_outHI, (int)lv, jump);
 
-		return new MemoryOutputData(mwd, memEx);
+		output.set(mwd, memEx);
+		return output;
 	}
 }
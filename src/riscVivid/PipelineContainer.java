@@ -20,8 +20,6 @@
  ******************************************************************************/
 package riscVivid;
 
-import java.util.Queue;
-
 import riscVivid.datatypes.*;
 import riscVivid.exception.PipelineException;
 import riscVivid.memory.DataMemory;
@@ -29,6 +27,7 @@ import riscVivid.memory.InstructionMemory;
 import riscVivid.memory.MainMemory;
 
 public class PipelineContainer {
+	private final SimulationContext context;
 	private MainMemory mem;
 	private InstructionMemory imem;
 	private DataMemory dmem;
@@ -39,17 +38,28 @@ public class PipelineContainer {
 	private BranchPredictionModule branch_prediction_module;
 	private Memory memory;
 	private WriteBack writeback;
-	private Queue<FetchDecodeData> fetch_decode_latch;
-	private Queue<DecodeExecuteData> decode_execute_latch;
-	private Queue<BranchPredictionModuleFetchData> branchprediction_fetch_latch;
-	private Queue<BranchPredictionModuleExecuteData> branchprediction_execute_latch;
-	private Queue<ExecuteMemoryData> execute_memory_latch;
-	private Queue<ExecuteFetchData> execute_fetch_latch;
-	private Queue<ExecuteBranchPredictionData> execute_branchprediction_latch;
-	private Queue<MemoryWritebackData> memory_writeback_latch;
-	private Queue<WriteBackData> writeback_latch;
+	private PipelineLatch<FetchDecodeData> fetch_decode_latch;
+	private PipelineLatch<DecodeExecuteData> decode_execute_latch;
+	private PipelineLatch<BranchPredictionModuleFetchData> branchprediction_fetch_latch;
+	private PipelineLatch<BranchPredictionModuleExecuteData> branchprediction_execute_latch;
+	private PipelineLatch<ExecuteMemoryData> execute_memory_latch;
+	private PipelineLatch<ExecuteFetchData> execute_fetch_latch;
+	private PipelineLatch<ExecuteBranchPredictionData> execute_branchprediction_latch;
+	private PipelineLatch<MemoryWritebackData> memory_writeback_latch;
+	private PipelineLatch<WriteBackData> writeback_latch;
 	
 	private PipelineException lastException = null;
+
+	public PipelineContainer(SimulationContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * @return the state of the simulation the pipeline belongs to
+	 */
+	public SimulationContext getContext() {
+		return context;
+	}
 	
 	public MainMemory getMainMemory() {
 		return mem;
@@ -111,61 +121,61 @@ public class PipelineContainer {
 	public void setWriteBackStage(WriteBack writeback) {
 		this.writeback = writeback;
 	}
-	public Queue<FetchDecodeData> getFetchDecodeLatch() {
+	public PipelineLatch<FetchDecodeData> getFetchDecodeLatch() {
 		return fetch_decode_latch;
 	}
-	public void setFetchDecodeLatch(Queue<FetchDecodeData> fetch_decode_latch) {
+	public void setFetchDecodeLatch(PipelineLatch<FetchDecodeData> fetch_decode_latch) {
 		this.fetch_decode_latch = fetch_decode_latch;
 	}
-	public Queue<DecodeExecuteData> getDecodeExecuteLatch() {
+	public PipelineLatch<DecodeExecuteData> getDecodeExecuteLatch() {
 		return decode_execute_latch;
 	}
-	public void setDecodeExecuteLatch(Queue<DecodeExecuteData> decode_execute_latch) {
+	public void setDecodeExecuteLatch(PipelineLatch<DecodeExecuteData> decode_execute_latch) {
 		this.decode_execute_latch = decode_execute_latch;
 	}
-	public Queue<BranchPredictionModuleFetchData> getBranchPredictionFetchLatch() {
+	public PipelineLatch<BranchPredictionModuleFetchData> getBranchPredictionFetchLatch() {
 		return branchprediction_fetch_latch;
 	}
 	public void setBranchPredictionFetchLatch(
-			Queue<BranchPredictionModuleFetchData> branchprediction_fetch_latch) {
+			PipelineLatch<BranchPredictionModuleFetchData> branchprediction_fetch_latch) {
 		this.branchprediction_fetch_latch = branchprediction_fetch_latch;
 	}
-	public Queue<BranchPredictionModuleExecuteData> getBranchPredictionExecuteLatch() {
+	public PipelineLatch<BranchPredictionModuleExecuteData> getBranchPredictionExecuteLatch() {
 		return branchprediction_execute_latch;
 	}
 	public void setBranchPredictionExecuteLatch(
-			Queue<BranchPredictionModuleExecuteData> branchprediction_execute_latch) {
+			PipelineLatch<BranchPredictionModuleExecuteData> branchprediction_execute_latch) {
 		this.branchprediction_execute_latch = branchprediction_execute_latch;
 	}
-	public Queue<ExecuteMemoryData> getExecuteMemoryLatch() {
+	public PipelineLatch<ExecuteMemoryData> getExecuteMemoryLatch() {
 		return execute_memory_latch;
 	}
-	public void setExecuteMemoryLatch(Queue<ExecuteMemoryData> execute_memory_latch) {
+	public void setExecuteMemoryLatch(PipelineLatch<ExecuteMemoryData> execute_memory_latch) {
 		this.execute_memory_latch = execute_memory_latch;
 	}
-	public Queue<ExecuteFetchData> getExecuteFetchLatch() {
+	public PipelineLatch<ExecuteFetchData> getExecuteFetchLatch() {
 		return execute_fetch_latch;
 	}
-	public void setExecuteFetchLatch(Queue<ExecuteFetchData> execute_fetch_latch) {
+	public void setExecuteFetchLatch(PipelineLatch<ExecuteFetchData> execute_fetch_latch) {
 		this.execute_fetch_latch = execute_fetch_latch;
 	}
-	public Queue<ExecuteBranchPredictionData> getExecuteBranchPredictionLatch() {
+	public PipelineLatch<ExecuteBranchPredictionData> getExecuteBranchPredictionLatch() {
 		return execute_branchprediction_latch;
 	}
 	public void setExecuteBranchPredictionLatch(
-			Queue<ExecuteBranchPredictionData> execute_branchprediction_latch) {
+			PipelineLatch<ExecuteBranchPredictionData> execute_branchprediction_latch) {
 		this.execute_branchprediction_latch = execute_branchprediction_latch;
 	}
-	public Queue<MemoryWritebackData> getMemoryWriteBackLatch() {
+	public PipelineLatch<MemoryWritebackData> getMemoryWriteBackLatch() {
 		return memory_writeback_latch;
 	}
-	public void setMemoryWriteBackLatch(Queue<MemoryWritebackData> memory_writeback_latch) {
+	public void setMemoryWriteBackLatch(PipelineLatch<MemoryWritebackData> memory_writeback_latch) {
 		this.memory_writeback_latch = memory_writeback_latch;
 	}
-	public Queue<WriteBackData> getWriteBackLatch() {
+	public PipelineLatch<WriteBackData> getWriteBackLatch() {
 		return writeback_latch;
 	}
-	public void setWriteBackLatch(Queue<WriteBackData> writeback_latch) {
+	public void setWriteBackLatch(PipelineLatch<WriteBackData> writeback_latch) {
 		this.writeback_latch = writeback_latch;
 	}
 	
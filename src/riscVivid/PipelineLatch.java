@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A pipeline latch with a fixed number of entries between two stages.
+ *
+ * All entries are preallocated: the consuming stage reads the current entries
+ * (element(), get(i)), while the producing stage writes its output in place
+ * into the entry returned by next(). At the end of the cycle advance() makes
+ * the next entry the newest one and reuses the oldest entry as the next one,
+ * so no objects are allocated while the pipeline is running.
+ *
+ * A latch with depth 1 is a double buffer (current/next).
+ */
+public class PipelineLatch<T> implements Iterable<T>
+{
+	private final T[] slots;
+	private final int depth;
+	// index of the oldest entry, i.e. the one returned by element()
+	private int head = 0;
+
+	/**
+	 * @param slots the preallocated entries; the latch holds slots.length - 1
+	 *          entries, the remaining slot is used as write buffer
+	 */
+	public PipelineLatch(T[] slots)
+	{
+		if (slots.length < 2)
+		{
+			throw new IllegalArgumentException("A pipeline latch needs at least two slots");
+		}
+		this.slots = slots;
+		this.depth = slots.length - 1;
+	}
+
+	/**
+	 * @return the oldest entry, i.e. the input of the consuming stage
+	 */
+	public T element()
+	{
+		return slots[head];
+	}
+
+	/**
+	 * @param i position of the entry, 0 is the oldest entry
+	 */
+	public T get(int i)
+	{
+		if (i < 0 || i >= depth)
+		{
+			throw new IndexOutOfBoundsException("Latch entry " + i + " out of range, size is " + depth);
+		}
+		return slots[(head + i) % slots.length];
+	}
+
+	/**
+	 * @return the write buffer the producing stage fills in the current cycle
+	 */
+	public T next()
+	{
+		return slots[(head + depth) % slots.length];
+	}
+
+	/**
+	 * Drops the oldest entry and appends the write buffer.
+	 */
+	public void advance()
+	{
+		head = (head + 1) % slots.length;
+	}
+
+	public int size()
+	{
+		return depth;
+	}
+
+	public Iterator<T> iterator()
+	{
+		return new Iterator<T>()
+		{
+			private int i = 0;
+
+			public boolean hasNext()
+			{
+				return i < depth;
+			}
+
+			public T next()
+			{
+				if (i >= depth)
+				{
+					throw new NoSuchElementException();
+				}
+				return get(i++);
+			}
+
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+}
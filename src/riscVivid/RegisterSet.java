@@ -29,34 +29,44 @@ import org.apache.log4j.Logger;
 import riscVivid.asm.instruction.Registers;
 import riscVivid.datatypes.*;
 import riscVivid.gui.Preference;
+import riscVivid.util.CalculationHelper;
 
 public class RegisterSet
 {
 	private static Logger logger = Logger.getLogger("REGISTERSET");
 	private final byte register_count = 32;
-	private uint32[] gp_registers;
-	private uint32 HI;
-	private uint32 LO;
+	private int[] gp_registers;
+	private int HI;
+	private int LO;
 
 	private boolean isRegisterInitialized[] = new boolean[register_count];
-	private uint8 lastRegisterReadUninitialized = null;
+	private int lastRegisterReadUninitialized = -1;
 
 	public RegisterSet()
 	{
-		gp_registers = new uint32[register_count];
-		HI = new uint32();
-		LO = new uint32();
+		gp_registers = new int[register_count];
 		initRegisters();
 	}
 	
 	public uint32 read(uint8 reg)
 	{
-		return new uint32(gp_registers[reg.getValue()].getValue());
+		return new uint32(gp_registers[reg.getValue()]);
 	}
 	public uint32 read(uint8 reg, boolean checkInit) {
-		if (checkInit && !isRegisterInitialized[reg.getValue()])
+		return new uint32(read(reg.getValue(), checkInit));
+	}
+
+	/**
+	 * Reads a register without wrapping the value, used by the pipeline stages.
+	 */
+	public int read(int reg)
+	{
+		return gp_registers[reg];
+	}
+	public int read(int reg, boolean checkInit) {
+		if (checkInit && !isRegisterInitialized[reg])
 			lastRegisterReadUninitialized = reg;
-		return read(reg);
+		return gp_registers[reg];
 	}
 
 	public void write(uint8 reg, uint32 value, boolean setInitialized) {
@@ -68,41 +78,53 @@ public class RegisterSet
 
 	public void write(uint8 reg, uint32 value)
 	{
-		if(reg.getValue() == 0)
+		write(reg.getValue(), value.getValue());
+	}
+
+	public void write(int reg, int value)
+	{
+		if(reg == 0)
 		{
 			logger.error("Cannot write register 0");
 		}
 		else
 		{
-			gp_registers[reg.getValue()].setValue(value);
-			isRegisterInitialized[reg.getValue()] = true;
+			gp_registers[reg] = value;
+			isRegisterInitialized[reg] = true;
 		}
 	}
 	
 	public uint32 read_SP(SpecialRegisters reg)
 	{
-		uint32 value = new uint32();
+		return new uint32(read_SP_value(reg));
+	}
+
+	public int read_SP_value(SpecialRegisters reg)
+	{
 		switch(reg)
 		{
 		case HI:
-			value.setValue(HI);
-			break;
+			return HI;
 		case LO:
-			value.setValue(LO);
-			break;
+			return LO;
 		}
-		return value;
+		return 0;
 	}
 	
 	public void write_SP(SpecialRegisters reg, uint32 value)
+	{
+		write_SP(reg, value.getValue());
+	}
+
+	public void write_SP(SpecialRegisters reg, int value)
 	{
 		switch(reg)
 		{
 		case HI:
-			HI.setValue(value);
+			HI = value;
 			break;
 		case LO:
-			LO.setValue(value);
+			LO = value;
 			break;
 		}
 	}
@@ -119,27 +141,28 @@ public class RegisterSet
         }
         for(byte i = 0; i < register_count; i++)
         {
-        	uint32 val = new uint32(random ? rand.nextInt() : init);
-        	gp_registers[i] = val;
+        	gp_registers[i] = random ? rand.nextInt() : init;
         }
-        HI = new uint32(random ? rand.nextInt() : init);
-        LO = new uint32(random ? rand.nextInt() : init);
+        HI = random ? rand.nextInt() : init;
+        LO = random ? rand.nextInt() : init;
         
         // Initialize zero register with 0
         int zeroIndex = Registers.instance().getInteger("zero"); 
-        gp_registers[zeroIndex] = new uint32(0);
+        gp_registers[zeroIndex] = 0;
         isRegisterInitialized[zeroIndex] = true;
 	}
 
 	public void printContent()
 	{
+		if (!logger.isDebugEnabled())
+			return;
 		logger.debug("   |  0             1             2             3             4             5             6             7            |");
 		logger.debug("---+-----------------------------------------------------------------------------------------------------------------+");
-		logger.debug(" 0 | " + ArchCfg.getRegisterDescription(0) + " " + gp_registers[0].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(1) + " " + gp_registers[1].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(2) + " " + gp_registers[2].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(3) + " " + gp_registers[3].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(4) + " " + gp_registers[4].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(5) + " " + gp_registers[5].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(6) + " " + gp_registers[6].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(7) + " " + gp_registers[7].getValueAsHexString() + " |");
-		logger.debug(" 8 | " + ArchCfg.getRegisterDescription(8) + " " + gp_registers[8].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(9) + " " + gp_registers[9].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(10) + " " + gp_registers[10].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(11) + " " + gp_registers[11].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(12) + " " + gp_registers[12].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(13) + " " + gp_registers[13].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(14) + " " + gp_registers[14].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(15) + " " + gp_registers[15].getValueAsHexString() + " |");
-		logger.debug("16 | " + ArchCfg.getRegisterDescription(16) + " " + gp_registers[16].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(17) + " " + gp_registers[17].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(18) + " " + gp_registers[18].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(19) + " " + gp_registers[19].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(20) + " " + gp_registers[20].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(21) + " " + gp_registers[21].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(22) + " " + gp_registers[22].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(23) + " " + gp_registers[23].getValueAsHexString() + " |");
-		logger.debug("24 | " + ArchCfg.getRegisterDescription(24) + " " + gp_registers[24].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(25) + " " + gp_registers[25].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(26) + " " + gp_registers[26].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(27) + " " + gp_registers[27].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(28) + " " + gp_registers[28].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(29) + " " + gp_registers[29].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(30) + " " + gp_registers[30].getValueAsHexString() + " " + ArchCfg.getRegisterDescription(31) + " " + gp_registers[31].getValueAsHexString() + " |");
-		logger.debug("SP | HI " + HI.getValueAsHexString() + " LO " + LO.getValueAsHexString() + "                                                                                     |");
+		logger.debug(" 0 | " + ArchCfg.getRegisterDescription(0) + " " + CalculationHelper.toHexString(gp_registers[0]) + " " + ArchCfg.getRegisterDescription(1) + " " + CalculationHelper.toHexString(gp_registers[1]) + " " + ArchCfg.getRegisterDescription(2) + " " + CalculationHelper.toHexString(gp_registers[2]) + " " + ArchCfg.getRegisterDescription(3) + " " + CalculationHelper.toHexString(gp_registers[3]) + " " + ArchCfg.getRegisterDescription(4) + " " + CalculationHelper.toHexString(gp_registers[4]) + " " + ArchCfg.getRegisterDescription(5) + " " + CalculationHelper.toHexString(gp_registers[5]) + " " + ArchCfg.getRegisterDescription(6) + " " + CalculationHelper.toHexString(gp_registers[6]) + " " + ArchCfg.getRegisterDescription(7) + " " + CalculationHelper.toHexString(gp_registers[7]) + " |");
+		logger.debug(" 8 | " + ArchCfg.getRegisterDescription(8) + " " + CalculationHelper.toHexString(gp_registers[8]) + " " + ArchCfg.getRegisterDescription(9) + " " + CalculationHelper.toHexString(gp_registers[9]) + " " + ArchCfg.getRegisterDescription(10) + " " + CalculationHelper.toHexString(gp_registers[10]) + " " + ArchCfg.getRegisterDescription(11) + " " + CalculationHelper.toHexString(gp_registers[11]) + " " + ArchCfg.getRegisterDescription(12) + " " + CalculationHelper.toHexString(gp_registers[12]) + " " + ArchCfg.getRegisterDescription(13) + " " + CalculationHelper.toHexString(gp_registers[13]) + " " + ArchCfg.getRegisterDescription(14) + " " + CalculationHelper.toHexString(gp_registers[14]) + " " + ArchCfg.getRegisterDescription(15) + " " + CalculationHelper.toHexString(gp_registers[15]) + " |");
+		logger.debug("16 | " + ArchCfg.getRegisterDescription(16) + " " + CalculationHelper.toHexString(gp_registers[16]) + " " + ArchCfg.getRegisterDescription(17) + " " + CalculationHelper.toHexString(gp_registers[17]) + " " + ArchCfg.getRegisterDescription(18) + " " + CalculationHelper.toHexString(gp_registers[18]) + " " + ArchCfg.getRegisterDescription(19) + " " + CalculationHelper.toHexString(gp_registers[19]) + " " + ArchCfg.getRegisterDescription(20) + " " + CalculationHelper.toHexString(gp_registers[20]) + " " + ArchCfg.getRegisterDescription(21) + " " + CalculationHelper.toHexString(gp_registers[21]) + " " + ArchCfg.getRegisterDescription(22) + " " + CalculationHelper.toHexString(gp_registers[22]) + " " + ArchCfg.getRegisterDescription(23) + " " + CalculationHelper.toHexString(gp_registers[23]) + " |");
+		logger.debug("24 | " + ArchCfg.getRegisterDescription(24) + " " + CalculationHelper.toHexString(gp_registers[24]) + " " + ArchCfg.getRegisterDescription(25) + " " + CalculationHelper.toHexString(gp_registers[25]) + " " + ArchCfg.getRegisterDescription(26) + " " + CalculationHelper.toHexString(gp_registers[26]) + " " + ArchCfg.getRegisterDescription(27) + " " + CalculationHelper.toHexString(gp_registers[27]) + " " + ArchCfg.getRegisterDescription(28) + " " + CalculationHelper.toHexString(gp_registers[28]) + " " + ArchCfg.getRegisterDescription(29) + " " + CalculationHelper.toHexString(gp_registers[29]) + " " + ArchCfg.getRegisterDescription(30) + " " + CalculationHelper.toHexString(gp_registers[30]) + " " + ArchCfg.getRegisterDescription(31) + " " + CalculationHelper.toHexString(gp_registers[31]) + " |");
+		logger.debug("SP | HI " + CalculationHelper.toHexString(HI) + " LO " + CalculationHelper.toHexString(LO) + "                                                                                     |");
 		logger.debug("---+-----------------------------------------------------------------------------------------------------------------+");
 	}
 	
@@ -155,15 +178,17 @@ public class RegisterSet
 	public void setStackPointer(uint32 sp)
 	{
 		int spIndex = Registers.instance().getInteger("sp");
-		gp_registers[spIndex] = sp;
+		gp_registers[spIndex] = sp.getValue();
 	}
 
 	public boolean isRegisterInitialized(uint8 reg) {
 		return isRegisterInitialized[reg.getValue()];
 	}
 	public uint8 popLastRegisterReadUninitialized() {
-		uint8 reg = this.lastRegisterReadUninitialized;
-		this.lastRegisterReadUninitialized = null;
+		if (lastRegisterReadUninitialized < 0)
+			return null;
+		uint8 reg = new uint8(lastRegisterReadUninitialized);
+		this.lastRegisterReadUninitialized = -1;
 		return reg;
 	}
 }
@@ -24,6 +24,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.*;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.Map.Entry;
@@ -49,8 +50,10 @@ import riscVivid.datatypes.FetchOutputData;
 import riscVivid.datatypes.ISAType;
 import riscVivid.datatypes.Instruction;
 import riscVivid.datatypes.MemoryOutputData;
+import riscVivid.datatypes.MemoryTraceFormat;
 import riscVivid.datatypes.MemoryWritebackData;
 import riscVivid.datatypes.SpecialRegisters;
+import riscVivid.datatypes.StallCause;
 import riscVivid.datatypes.WriteBackData;
 import riscVivid.datatypes.WritebackOutputData;
 import riscVivid.datatypes.uint32;
@@ -59,12 +62,17 @@ import riscVivid.exception.*;
 import riscVivid.exception.UnreservedMemoryAccessException.Area;
 import riscVivid.gui.GUI_CONST;
 import riscVivid.gui.Preference;
+import riscVivid.datatypes.CacheType;
+import riscVivid.memory.AddressTraceWriter;
+import riscVivid.memory.Cache;
 import riscVivid.memory.DataMemory;
 import riscVivid.memory.InstructionMemory;
 import riscVivid.memory.MainMemory;
+import riscVivid.memory.MemoryInterface;
+import riscVivid.memory.MemoryTracer;
+import riscVivid.util.CalculationHelper;
 import riscVivid.util.ClockCycleLog;
 import riscVivid.util.LoggerConfigurator;
-import riscVivid.util.RISCVSyscallHandler;
 import riscVivid.util.Statistics;
 
 public class RiscVividSimulator
@@ -73,14 +81,23 @@ public class RiscVividSimulator
     private static Logger logger = Logger.getLogger("riscVivid");
     private PipelineContainer pipeline;
     private Properties config;
+    private SimulationContext context;
     private Statistics stat;
     private boolean caught_break = false;
     private int clock_cycle;
     private int sim_cycles;
     private boolean finished = false;
+    // headless mode: no clock cycle log and no debug output
+    private boolean fast_run = false;
+    private boolean standalone = true;
+    private int checked_assertions = 0;
+    private int failed_assertions = 0;
+    // null if the address stream is not recorded
+    private AddressTraceWriter address_trace = null;
 
     public void riscVividCmdl_main()
     {
+        long start_time = System.nanoTime();
 
         while (!finished)
         {
@@ -94,11 +111,56 @@ public class RiscVividSimulator
                 stopSimulation(true);
             }
         }
+
+        if (fast_run)
+        {
+            double seconds = (System.nanoTime() - start_time) / 1e9;
+            context.getOut().println(String.format("Simulated %d cycles in %.3f s (%.0f cycles/s)",
+                    stat.getCycles(), seconds, stat.getCycles() / seconds));
+        }
     }
 
 
     public RiscVividSimulator(String configfile) throws PipelineException
     {
+        this(configfile, false);
+    }
+
+    /**
+     * @param configfile the configuration file of the simulation
+     * @param fastRun if true, the simulator runs headless: the clock cycle log
+     *          for the GUI is not recorded and debug logging is disabled. Can
+     *          also be enabled with the config key fast_run=1.
+     */
+    public RiscVividSimulator(String configfile, boolean fastRun) throws PipelineException
+    {
+        this(configfile, fastRun, true);
+    }
+
+    /**
+     * @param configfile the configuration file of the simulation
+     * @param fastRun see {@link #RiscVividSimulator(String, boolean)}
+     * @param standalone if false, the simulator shares the JVM with other
+     *          simulations (see BatchRunner): it neither configures log4j nor
+     *          changes the global log level and does not print its progress
+     *          to stdout.
+     */
+    public RiscVividSimulator(String configfile, boolean fastRun, boolean standalone) throws PipelineException
+    {
+        this(configfile, fastRun, standalone, System.out);
+    }
+
+    /**
+     * @param configfile the configuration file of the simulation
+     * @param fastRun see {@link #RiscVividSimulator(String, boolean)}
+     * @param standalone see {@link #RiscVividSimulator(String, boolean, boolean)}
+     * @param out the stream the simulator and the simulated program print to
+     *          instead of System.out
+     */
+    public RiscVividSimulator(String configfile, boolean fastRun, boolean standalone, PrintStream out)
+            throws PipelineException
+    {
+        this.standalone = standalone;
         config = new Properties();
 
         try
@@ -119,11 +181,23 @@ public class RiscVividSimulator
             // CAUTION: if no config file exists, asm.AsmFileLoader.saveToFile()
             // creates a config file and uses different default values
 
-        ArchCfg.registerArchitectureConfig(config);
+        context = new SimulationContext(config, out);
+        stat = context.getStatistics();
+
+        fast_run = fastRun || config.getProperty("fast_run").equalsIgnoreCase("true")
+                || config.getProperty("fast_run").equals("1");
 
-        System.out.println("Configuration is: " + config.toString());
+        if (standalone)
+        {
+            context.getOut().println("Configuration is: " + config.toString());
 
-        LoggerConfigurator.getInstance().configureLogger(config.getProperty("log4j"), config.getProperty("log_file"));
+            LoggerConfigurator.getInstance().configureLogger(config.getProperty("log4j"), config.getProperty("log_file"));
+
+            if (fast_run)
+            {
+                LoggerConfigurator.getInstance().setLogLevel(Level.WARN);
+            }
+        }
 
         logger.info("Configuration is: " + config.toString());
         logger.info("loading:" + config.getProperty("file"));
@@ -131,19 +205,20 @@ public class RiscVividSimulator
 
         sim_cycles = Integer.parseInt(config.getProperty("cycles"));
 
-        pipeline = new PipelineContainer();
+        pipeline = new PipelineContainer(context);
         pipeline.setMainMemory(new MainMemory(config.getProperty("file"), stringToUint32(config.getProperty("code_start_addr")).getValue(),
         		(short) stringToUint32(config.getProperty("memory_latency")).getValue()));
-        pipeline.setInstructionMemory(new InstructionMemory(pipeline.getMainMemory(), config));
-        pipeline.setDataMemory(new DataMemory(pipeline.getMainMemory(), config));
+        MemoryInterface next_level = createL2Cache(pipeline.getMainMemory());
+        pipeline.setInstructionMemory(new InstructionMemory(next_level, config, stat));
+        pipeline.setDataMemory(new DataMemory(next_level, config, stat));
         pipeline.setFetchStage(new Fetch(new uint32(stringToUint32(config.getProperty("entry_point"))), pipeline.getInstructionMemory(),
-                ArchCfg.getNumBranchDelaySlots()));
+                context));
         pipeline.setRegisterSet(new RegisterSet());
-        pipeline.setDecodeStage(new Decode(pipeline.getRegisterSet()));
-        pipeline.setExecuteStage(new Execute());
-        pipeline.setBranchPredictionModule(new BranchPredictionModule(config));
-        pipeline.setMemoryStage(new Memory(pipeline.getDataMemory()));
-        pipeline.setWriteBackStage(new WriteBack(pipeline.getRegisterSet()));
+        pipeline.setDecodeStage(new Decode(pipeline.getRegisterSet(), context));
+        pipeline.setExecuteStage(new Execute(context));
+        pipeline.setBranchPredictionModule(new BranchPredictionModule(config, context));
+        pipeline.setMemoryStage(new Memory(pipeline.getDataMemory(), context));
+        pipeline.setWriteBackStage(new WriteBack(pipeline.getRegisterSet(), context));
 
 /*
         if (ArchCfg.isa_type == ISAType.MIPS)
@@ -162,42 +237,46 @@ public class RiscVividSimulator
             //trap_handler.setOutFileName(config.getProperty("print_file"));
         }
 */
-		RISCVSyscallHandler syscall_handler = RISCVSyscallHandler.getInstance();
-        syscall_handler.setMemory(pipeline.getDataMemory());
+        context.getSyscallHandler().setMemory(pipeline.getDataMemory());
 
-        // Obtain the statistics object
-        stat = Statistics.getInstance();
-        stat.setConfig(config);
+        if (config.containsKey("memory_trace_file"))
+        {
+            MemoryTraceFormat trace_format = MemoryTracer.getMemoryTraceFormatFromString(config.getProperty("memory_trace_format"));
+            pipeline.getMainMemory().setTracer(new MemoryTracer(config.getProperty("memory_trace_file"), trace_format, stat));
+        }
+
+        if (config.containsKey("address_trace_file"))
+        {
+            address_trace = new AddressTraceWriter(config.getProperty("address_trace_file"));
+            pipeline.getInstructionMemory().setAddressTrace(address_trace);
+            pipeline.getDataMemory().setAddressTrace(address_trace);
+        }
 
         // Latches:
-        pipeline.setFetchDecodeLatch(new LinkedList<FetchDecodeData>());
-        pipeline.setDecodeExecuteLatch(new LinkedList<DecodeExecuteData>());
-        pipeline.setBranchPredictionFetchLatch(new LinkedList<BranchPredictionModuleFetchData>());
-        pipeline.setBranchPredictionExecuteLatch(new LinkedList<BranchPredictionModuleExecuteData>());
-        pipeline.setExecuteMemoryLatch(new LinkedList<ExecuteMemoryData>());
-        pipeline.setExecuteFetchLatch(new LinkedList<ExecuteFetchData>());
-        pipeline.setExecuteBranchPredictionLatch(new LinkedList<ExecuteBranchPredictionData>());
-        pipeline.setMemoryWriteBackLatch(new LinkedList<MemoryWritebackData>());
-        pipeline.setWriteBackLatch(new LinkedList<WriteBackData>());
+        initializePipelineLatches();
 
         pipeline.getFetchStage().setInputLatches(pipeline.getExecuteFetchLatch(), pipeline.getBranchPredictionFetchLatch());
+        pipeline.getFetchStage().setOutputLatch(pipeline.getFetchDecodeLatch());
 
         pipeline.getDecodeStage().setInputLatch(pipeline.getFetchDecodeLatch());
+        pipeline.getDecodeStage().setOutputLatch(pipeline.getDecodeExecuteLatch());
 
         pipeline.getExecuteStage().setInputLatches(pipeline.getDecodeExecuteLatch(), pipeline.getBranchPredictionExecuteLatch());
         pipeline.getExecuteStage().setForwardingLatches(pipeline.getExecuteMemoryLatch(), pipeline.getMemoryWriteBackLatch(), pipeline.getWriteBackLatch());
+        pipeline.getExecuteStage().setOutputLatches(pipeline.getExecuteMemoryLatch(), pipeline.getExecuteFetchLatch(), pipeline.getExecuteBranchPredictionLatch());
 
         pipeline.getBranchPredictionModule().setInputLatches(pipeline.getExecuteBranchPredictionLatch(), pipeline.getFetchDecodeLatch());
+        pipeline.getBranchPredictionModule().setOutputLatches(pipeline.getBranchPredictionFetchLatch(), pipeline.getBranchPredictionExecuteLatch());
 
         pipeline.getMemoryStage().setInputLatch(pipeline.getExecuteMemoryLatch());
+        pipeline.getMemoryStage().setOutputLatch(pipeline.getMemoryWriteBackLatch());
 
         pipeline.getWriteBackStage().setInputLatch(pipeline.getMemoryWriteBackLatch());
+        pipeline.getWriteBackStage().setOutputLatch(pipeline.getWriteBackLatch());
 
         pipeline.getRegisterSet().setStackPointer(new uint32(0));
 
-        initializePipelineLatches();
-        ClockCycleLog.log.clear();
-        ClockCycleLog.code.clear();
+        context.getClockCycleLog().clear();
     }
 
     public RiscVividSimulator(File args) throws PipelineException
@@ -209,40 +288,41 @@ public class RiscVividSimulator
     {
         if (clock_cycle < sim_cycles && !caught_break)
         {
-            logger.debug("-------------------");
-            logger.debug("Cycle " + clock_cycle + " start");
-            logger.debug("-------------------");
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("-------------------");
+                logger.debug("Cycle " + clock_cycle + " start");
+                logger.debug("-------------------");
+            }
 
             caught_break = simulateCycle();
 
-            logger.debug("-------------------");
-            logger.debug("Cycle " + clock_cycle + " end");
-            logger.debug("-------------------");
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("-------------------");
+                logger.debug("Cycle " + clock_cycle + " end");
+                logger.debug("-------------------");
+            }
             stat.countCycle();
 
-            ArrayList<Entry<String, uint32>> list = new ArrayList<>();
-            PipelineContainer p = getPipeline();
-
-            if (p.getFetchDecodeLatch().element().getInstr() != PipelineConstants.PIPELINE_BUBBLE_INSTR)
-                list.add(new SimpleEntry<>(GUI_CONST.FETCH, getPipeline().getFetchDecodeLatch().element().getPc()));
-            if (p.getDecodeExecuteLatch().element().getInst().getInstr()  != PipelineConstants.PIPELINE_BUBBLE_INSTR)
-                list.add(new SimpleEntry<>(GUI_CONST.DECODE, getPipeline().getDecodeExecuteLatch().element().getPc()));
-            if (p.getExecuteMemoryLatch().element().getInst().getInstr()  != PipelineConstants.PIPELINE_BUBBLE_INSTR)
-                list.add(new SimpleEntry<>(GUI_CONST.EXECUTE, getPipeline().getExecuteMemoryLatch().element().getPc()));
-            if (p.getMemoryWriteBackLatch().element().getInst().getInstr()  != PipelineConstants.PIPELINE_BUBBLE_INSTR)
-                list.add(new SimpleEntry<>(GUI_CONST.MEMORY, getPipeline().getMemoryWriteBackLatch().element().getPc()));
-            if (p.getWriteBackLatch().element().getInst().getInstr()  != PipelineConstants.PIPELINE_BUBBLE_INSTR)
-                list.add(new SimpleEntry<>(GUI_CONST.WRITEBACK, getPipeline().getWriteBackLatch().element().getPc()));
-            ClockCycleLog.log.add(list);
-            ClockCycleLog.code.add(getPipeline().getFetchDecodeLatch().element().getPc());
-            
+            // the clock cycle log is only read by the GUI, skip it in fast run mode
+            if (!fast_run)
+            {
+                logClockCycle();
+            }
         }
         else if (caught_break)
         {
-            LoggerConfigurator.getInstance().setLogLevel(Level.DEBUG);
+            if (standalone)
+            {
+                LoggerConfigurator.getInstance().setLogLevel(Level.DEBUG);
+            }
 
             logger.info("Caught break instruction - stopping simulation.");
-            System.out.println("Caught break instruction after " + stat.getCycles() + " cycles. Stopped simulation.");
+            if (standalone)
+            {
+                context.getOut().println("Caught break instruction after " + stat.getCycles() + " cycles. Stopped simulation.");
+            }
 
             // -print out selected memory
             // -check assumptions of configuration file
@@ -251,10 +331,16 @@ public class RiscVividSimulator
         }
         else
         {
-            LoggerConfigurator.getInstance().setLogLevel(Level.DEBUG);
+            if (standalone)
+            {
+                LoggerConfigurator.getInstance().setLogLevel(Level.DEBUG);
+            }
 
             logger.info("Run to maximum cycle count ("+sim_cycles+")- stopping.");
-            System.out.println("Run to maximum cycle count (" + sim_cycles + ") stopping.");
+            if (standalone)
+            {
+                context.getOut().println("Run to maximum cycle count (" + sim_cycles + ") stopping.");
+            }
 
             finalizeSimulation(config, stat);
             finished = true;
@@ -276,6 +362,34 @@ public class RiscVividSimulator
         }
     }
 
+    /**
+     * Records the pipeline occupation of the current cycle for the clock cycle
+     * diagram of the GUI.
+     */
+    private void logClockCycle()
+    {
+        ArrayList<Entry<String, uint32>> list = new ArrayList<>();
+        PipelineContainer p = getPipeline();
+        // the GUI recognizes bubbles by the identity of PIPELINE_BUBBLE_ADDR
+        int fetch_pc = p.getFetchDecodeLatch().element().getPc();
+        uint32 fetch_addr = (fetch_pc == PipelineConstants.PIPELINE_BUBBLE_ADDR.getValue())
+                ? PipelineConstants.PIPELINE_BUBBLE_ADDR : new uint32(fetch_pc);
+
+        if (fetch_addr != PipelineConstants.PIPELINE_BUBBLE_ADDR)
+            list.add(new SimpleEntry<>(GUI_CONST.FETCH, fetch_addr));
+        if (p.getDecodeExecuteLatch().element().getInst().getInstr()  != PipelineConstants.PIPELINE_BUBBLE_INSTR)
+            list.add(new SimpleEntry<>(GUI_CONST.DECODE, new uint32(getPipeline().getDecodeExecuteLatch().element().getPc())));
+        if (p.getExecuteMemoryLatch().element().getInst().getInstr()  != PipelineConstants.PIPELINE_BUBBLE_INSTR)
+            list.add(new SimpleEntry<>(GUI_CONST.EXECUTE, new uint32(getPipeline().getExecuteMemoryLatch().element().getPc())));
+        if (p.getMemoryWriteBackLatch().element().getInst().getInstr()  != PipelineConstants.PIPELINE_BUBBLE_INSTR)
+            list.add(new SimpleEntry<>(GUI_CONST.MEMORY, new uint32(getPipeline().getMemoryWriteBackLatch().element().getPc())));
+        if (p.getWriteBackLatch().element().getInst().getInstr()  != PipelineConstants.PIPELINE_BUBBLE_INSTR)
+            list.add(new SimpleEntry<>(GUI_CONST.WRITEBACK, new uint32(getPipeline().getWriteBackLatch().element().getPc())));
+        ClockCycleLog clock_cycle_log = context.getClockCycleLog();
+        clock_cycle_log.log.add(list);
+        clock_cycle_log.code.add(fetch_addr);
+    }
+
     /**
      * Simulates one cycle of the pipeline
      *
@@ -287,15 +401,15 @@ public class RiscVividSimulator
     {
         boolean caught_break = false;
 
-        Queue<FetchDecodeData> fetch_decode_latch = pipeline.getFetchDecodeLatch();
-        Queue<DecodeExecuteData> decode_execute_latch = pipeline.getDecodeExecuteLatch();
-        Queue<BranchPredictionModuleFetchData> branchprediction_fetch_latch = pipeline.getBranchPredictionFetchLatch();
-        Queue<BranchPredictionModuleExecuteData> branchprediction_execute_latch = pipeline.getBranchPredictionExecuteLatch();
-        Queue<ExecuteMemoryData> execute_memory_latch = pipeline.getExecuteMemoryLatch();
-        Queue<ExecuteFetchData> execute_fetch_latch = pipeline.getExecuteFetchLatch();
-        Queue<ExecuteBranchPredictionData> execute_branchprediction_latch = pipeline.getExecuteBranchPredictionLatch();
-        Queue<MemoryWritebackData> memory_writeback_latch = pipeline.getMemoryWriteBackLatch();
-        Queue<WriteBackData> writeback_latch = pipeline.getWriteBackLatch();
+        PipelineLatch<FetchDecodeData> fetch_decode_latch = pipeline.getFetchDecodeLatch();
+        PipelineLatch<DecodeExecuteData> decode_execute_latch = pipeline.getDecodeExecuteLatch();
+        PipelineLatch<BranchPredictionModuleFetchData> branchprediction_fetch_latch = pipeline.getBranchPredictionFetchLatch();
+        PipelineLatch<BranchPredictionModuleExecuteData> branchprediction_execute_latch = pipeline.getBranchPredictionExecuteLatch();
+        PipelineLatch<ExecuteMemoryData> execute_memory_latch = pipeline.getExecuteMemoryLatch();
+        PipelineLatch<ExecuteFetchData> execute_fetch_latch = pipeline.getExecuteFetchLatch();
+        PipelineLatch<ExecuteBranchPredictionData> execute_branchprediction_latch = pipeline.getExecuteBranchPredictionLatch();
+        PipelineLatch<MemoryWritebackData> memory_writeback_latch = pipeline.getMemoryWriteBackLatch();
+        PipelineLatch<WriteBackData> writeback_latch = pipeline.getWriteBackLatch();
 
         // Pipeline stage output data objects:
         FetchOutputData fod;
@@ -305,48 +419,23 @@ public class RiscVividSimulator
         MemoryOutputData mod;
         WritebackOutputData wod;
 
-        // there is only one entry in the latch!
-        if (fetch_decode_latch.size() != 1)
-        {
-            throw new PipelineException("Wrong number of entries in fetch/decode latch: " + fetch_decode_latch.size());
-        }
-        if (decode_execute_latch.size() != 1)
-        {
-            throw new PipelineException("Wrong number of entries in decode/execute latch: " + decode_execute_latch.size());
-        }
-        if (branchprediction_fetch_latch.size() != 1)
-        {
-            throw new PipelineException("Wrong number of entries in branchprediction/fetch latch: " + branchprediction_fetch_latch.size());
-        }
-        if (branchprediction_execute_latch.size() != 1)
-        {
-            throw new PipelineException("Wrong number of entries in branchprediction/execute latch: " + branchprediction_execute_latch.size());
-        }
-        if (execute_memory_latch.size() != 1)
-        {
-            throw new PipelineException("Wrong number of entries in execute/memory latch: " + execute_memory_latch.size());
-        }
 
-        if (execute_fetch_latch.size() != ArchCfg.getNumBranchDelaySlots() - 1)
-        {
-            throw new PipelineException("Wrong number of entries in execute/fetch latch: " + execute_fetch_latch.size());
-        }
+        boolean stall = false;
 
-        if (execute_branchprediction_latch.size() != 1)
-        {
-            throw new PipelineException("Wrong number of entries in execute/branchprediction latch: " + execute_branchprediction_latch.size());
-        }
-        if (memory_writeback_latch.size() != 1)
-        {
-            throw new PipelineException("Wrong number of entries in memory/writeback latch: " + memory_writeback_latch.size());
-        }
-        if (writeback_latch.size() != 1)
+        // the outstanding misses and prefetches of the caches proceed in every cycle
+        pipeline.getInstructionMemory().doCycle();
+        pipeline.getDataMemory().doCycle();
+
+        // MEMORY STAGE
+        // a load or store waiting for the data memory stalls the whole pipeline
+        if (pipeline.getMemoryStage().waitForRequest(pipeline.getFetchStage().flushesMemoryStage()))
         {
-            throw new PipelineException("Wrong number of entries in writeback latch: " + writeback_latch.size());
+            if (logger.isDebugEnabled())
+                logger.debug("Stalling the pipeline, MEMORY waits for the data memory for PC: "
+                        + CalculationHelper.toHexString(execute_memory_latch.element().getPc()));
+            return caught_break;
         }
-
-        boolean stall = false;
-
+        // MEMORY STAGE
 
         // FETCH STAGE
         // flush the decode on jump
@@ -363,8 +452,9 @@ public class RiscVividSimulator
 
         // Interrupt handling: flush the pipeline, start from the instruction subsequent to the scall
         if (wod.getInterruptOccured()) {
-            logger.debug("INTERRUPT: pipeline is being flushed, restarting the subsequent instruction at " +
-                    execute_memory_latch.element().getPc() + " in the next cycle");
+            if (logger.isDebugEnabled())
+                logger.debug("INTERRUPT: pipeline is being flushed, restarting the subsequent instruction at " +
+                        CalculationHelper.toHexString(execute_memory_latch.element().getPc()) + " in the next cycle");
 
             // flush stages
             fetch_decode_latch.element().flush();
@@ -380,9 +470,10 @@ public class RiscVividSimulator
         // LATCH
         if (fod.getFlush()[PipelineConstants.DECODE_STAGE])
         {
-            logger.debug("Flushed DECODE PC: " 
-            	+ fetch_decode_latch.element().getPc().getValueAsHexString() + " " 
-            	+ fetch_decode_latch.element().getInstr().getValueAsHexString());
+            if (logger.isDebugEnabled())
+                logger.debug("Flushed DECODE PC: " 
+                	+ CalculationHelper.toHexString(fetch_decode_latch.element().getPc()) + " " 
+                	+ CalculationHelper.toHexString(fetch_decode_latch.element().getInstr()));
             fetch_decode_latch.element().flush();
         }
 
@@ -393,28 +484,48 @@ public class RiscVividSimulator
         // LATCH
         if (fod.getFlush()[PipelineConstants.EXECUTE_STAGE])
         {
-            logger.debug("Flushed EXECUTE PC: "
-            	+ decode_execute_latch.element().getPc().getValueAsHexString() + " "
-            	+ decode_execute_latch.element().getInst().getString());
+            if (logger.isDebugEnabled())
+                logger.debug("Flushed EXECUTE PC: "
+                	+ CalculationHelper.toHexString(decode_execute_latch.element().getPc()) + " "
+                	+ decode_execute_latch.element().getInst().getString());
             decode_execute_latch.element().flush();
         }
 
+        // LATCH
+        // the memory stage is flushed before the execute stage, so no value is forwarded from the flushed instruction
+        if (fod.getFlush()[PipelineConstants.MEMORY_STAGE])
+        {
+            if (logger.isDebugEnabled())
+                logger.debug("Flushed MEMORY PC: "
+                        + CalculationHelper.toHexString(execute_memory_latch.element().getPc()) + " "
+                        + execute_memory_latch.element().getInst().getString());
+            execute_memory_latch.element().flush();
+            for (ExecuteFetchData efd : execute_fetch_latch)
+                efd.flush();
+        }
+
         // EXECUTE STAGE
         try
         {
             eod = pipeline.getExecuteStage().doCycle();
         }
         catch (ExecuteStageException e) {
-            if ( ArchCfg.getNumBranchDelaySlots() > 2 && ArchCfg.ignoreBranchDelaySlots() &&
-                ((ExecuteFetchData)execute_fetch_latch.toArray()[1]).getJump() ) {
-                    logger.debug("Ignoring Exception \"" + e.getMessage() + "\" in EXECUTE as the causing instruction is flushed in the next cycle");
+            if ( context.getArchCfg().getNumBranchDelaySlots() > 2 && context.getArchCfg().ignoreBranchDelaySlots() &&
+                execute_fetch_latch.get(1).getJump() ) {
+                    if (logger.isDebugEnabled())
+                        logger.debug("Ignoring Exception \"" + e.getMessage() + "\" in EXECUTE as the causing instruction is flushed in the next cycle");
                     // create dummy ExecuteOutputData
                     DecodeExecuteData ded = decode_execute_latch.element();
                     ExecuteFetchData old_efd = execute_fetch_latch.element();
                     old_efd.flush();
-                    ExecuteMemoryData flushData = new ExecuteMemoryData(ded.getInst(),ded.getPc(), new uint32[2],  new uint32(),false);
-                    eod = new ExecuteOutputData(flushData, old_efd, execute_branchprediction_latch.element(),
-                            new boolean[PipelineConstants.STAGES]);
+                    ExecuteMemoryData flushData = execute_memory_latch.next();
+                    flushData.set(ded.getInst(),ded.getPc(), 0, 0, 0, false);
+                    ExecuteFetchData efd = execute_fetch_latch.next();
+                    efd.set(old_efd.getInst(), old_efd.getPc(), old_efd.getNewPc(), old_efd.getJump(), old_efd.getMispredictedBranch());
+                    ExecuteBranchPredictionData old_ebd = execute_branchprediction_latch.element();
+                    ExecuteBranchPredictionData ebd = execute_branchprediction_latch.next();
+                    ebd.set(old_ebd.getInst(), old_ebd.getBranchPc(), old_ebd.getBranchTgt(), old_ebd.getJumpTaken(), old_ebd.getMispredictedBranch());
+                    eod = new ExecuteOutputData(flushData, efd, ebd, new boolean[PipelineConstants.STAGES]);
             }  else {
                 throw e;
             }
@@ -424,19 +535,9 @@ public class RiscVividSimulator
         // LATCH
 
         // BRANCH PREDICTOR MODULE: lookup for jump target and update prediction tables
-        bpmod = pipeline.getBranchPredictionModule().doCycle();
+        bpmod = pipeline.getBranchPredictionModule().doCycle(fod.getFlush()[PipelineConstants.MEMORY_STAGE]);
         // BRANCH PREDICTOR MODULE: lookup for jump target and update prediction tables
 
-        // LATCH
-        if (fod.getFlush()[PipelineConstants.MEMORY_STAGE])
-        {
-            logger.debug("Flushed MEMORY PC: "
-                    + execute_memory_latch.element().getPc().getValueAsHexString() + " "
-                    + execute_memory_latch.element().getInst().getString());
-            execute_memory_latch.element().flush();
-            for (ExecuteFetchData efd : execute_fetch_latch)
-                efd.flush();
-        }
         // MEMORY STAGE
         mod = pipeline.getMemoryStage().doCycle();
         // MEMORY STAGE
@@ -453,46 +554,37 @@ public class RiscVividSimulator
             	&& eod.getStall()[PipelineConstants.DECODE_STAGE]
             	&& eod.getStall()[PipelineConstants.EXECUTE_STAGE])
             {
-                logger.debug("Stalling IF, ID, and EX because of load dependency for PC: "
-                	+ decode_execute_latch.element().getPc().getValueAsHexString());
+                if (logger.isDebugEnabled())
+                    logger.debug("Stalling IF, ID, and EX because of load dependency for PC: "
+                    	+ CalculationHelper.toHexString(decode_execute_latch.element().getPc()));
                 // leave FETCH, DECODE, and EXECUTE untouched
 
                 // let the other latches running
-                memory_writeback_latch.remove();
-                writeback_latch.remove();
-
-                memory_writeback_latch.add(mod.getMwd());
-                writeback_latch.add(wod.getWbd());
+                memory_writeback_latch.advance();
+                writeback_latch.advance();
 
                 // kick out the memory load instruction (since it was executed)
                 execute_memory_latch.element().flush();
+                stat.countStall(StallCause.LOAD_USE);
             }
             else
             {
-                // remove input from latches
-                fetch_decode_latch.remove();
-                decode_execute_latch.remove();
-                branchprediction_fetch_latch.remove();
-                branchprediction_execute_latch.remove();
-                execute_memory_latch.remove();
-                execute_fetch_latch.remove();
-                execute_branchprediction_latch.remove();
-                memory_writeback_latch.remove();
-                writeback_latch.remove();
-
-                // push output into latches
-                fetch_decode_latch.add(fod.getFdd());
-                decode_execute_latch.add(dod.getDed());
-                branchprediction_fetch_latch.add(bpmod.getBpmfd());
-                branchprediction_execute_latch.add(bpmod.getBpmed());
-                execute_memory_latch.add(eod.getEmd());
-                execute_fetch_latch.add(eod.getEfd());
-                execute_branchprediction_latch.add(eod.getEbd());
-                memory_writeback_latch.add(mod.getMwd());
-                writeback_latch.add(wod.getWbd());
-
-                // increase PC synchronously and if only if the FETCH is not stalled
-                pipeline.getFetchStage().increasePC();
+                // the stages wrote their output in place into the latches,
+                // make it the input of the next cycle
+                fetch_decode_latch.advance();
+                decode_execute_latch.advance();
+                branchprediction_fetch_latch.advance();
+                branchprediction_execute_latch.advance();
+                execute_memory_latch.advance();
+                execute_fetch_latch.advance();
+                execute_branchprediction_latch.advance();
+                memory_writeback_latch.advance();
+                writeback_latch.advance();
+
+                // increase PC synchronously and if only if the FETCH is not stalled,
+                // after an interrupt the fetch restarts behind the scall in any case
+                if (!fod.getStall() || wod.getInterruptOccured())
+                    pipeline.getFetchStage().increasePC();
             }
         }
         
@@ -530,26 +622,11 @@ public class RiscVividSimulator
 
     private void initializePipelineLatches()
     {
-        Queue<ExecuteFetchData> efl = pipeline.getExecuteFetchLatch();
-        Queue<FetchDecodeData> fdl = pipeline.getFetchDecodeLatch();
-        Queue<DecodeExecuteData> del = pipeline.getDecodeExecuteLatch();
-        Queue<BranchPredictionModuleFetchData> bpmfl = pipeline.getBranchPredictionFetchLatch();
-        Queue<BranchPredictionModuleExecuteData> bpmel = pipeline.getBranchPredictionExecuteLatch();
-        Queue<ExecuteMemoryData> eml = pipeline.getExecuteMemoryLatch();
-        Queue<ExecuteBranchPredictionData> ebl = pipeline.getExecuteBranchPredictionLatch();
-        Queue<MemoryWritebackData> mwl = pipeline.getMemoryWriteBackLatch();
-        Queue<WriteBackData> wbl = pipeline.getWriteBackLatch();
-
-        Decode d = new Decode(null);
-
         uint32 zero = new uint32(0x0);
-        uint32[] zeros = new uint32[2];
-        zeros[0] = zero;
-        zeros[1] = zero;
         Instruction bubble;
         try
         {
-            bubble = d.decodeInstr(PipelineConstants.PIPELINE_BUBBLE_INSTR);
+            bubble = pipeline.getDecodeStage().decodeInstr(PipelineConstants.PIPELINE_BUBBLE_INSTR);
         }
         catch (PipelineException e)
         {
@@ -557,57 +634,61 @@ public class RiscVividSimulator
             bubble = new Instruction(zero);
         }
 
-        // add 1 bubbles into fetch stage (used for jumps)
-        ExecuteFetchData efd = new ExecuteFetchData(bubble, zero, zero, false, false);
+        // every latch holds one entry plus the write buffer for the output of the current cycle,
+        // all of them are filled with bubbles
 
-        for (int i = 0; i < ArchCfg.getNumBranchDelaySlots() - 1; ++i)
-            efl.add(efd);
+        // add 1 bubbles into fetch stage (used for jumps)
+        ExecuteFetchData[] efd = new ExecuteFetchData[context.getArchCfg().getNumBranchDelaySlots()];
+        for (int i = 0; i < efd.length; ++i)
+            efd[i] = new ExecuteFetchData(bubble, 0, 0, false, false);
+        pipeline.setExecuteFetchLatch(new PipelineLatch<ExecuteFetchData>(efd));
 
         // add 1 bubble into decode stage
-        FetchDecodeData fdd = new FetchDecodeData();
-
-        fdl.add(fdd);
+        pipeline.setFetchDecodeLatch(new PipelineLatch<FetchDecodeData>(new FetchDecodeData[] {
+                new FetchDecodeData(), new FetchDecodeData() }));
 
         // add 1 bubble into execute stage
-        DecodeExecuteData ded = new DecodeExecuteData(bubble, zero, zero, zero, zero, zero, zero);
-
-        del.add(ded);
+        pipeline.setDecodeExecuteLatch(new PipelineLatch<DecodeExecuteData>(new DecodeExecuteData[] {
+                new DecodeExecuteData(bubble, 0, 0, 0, 0, 0, 0),
+                new DecodeExecuteData(bubble, 0, 0, 0, 0, 0, 0) }));
 
         // add 1 bubble into branch predictor decision
-        BranchPredictionModuleFetchData bpmfd = new BranchPredictionModuleFetchData(false, zero, zero);
-
-        bpmfl.add(bpmfd);
+        pipeline.setBranchPredictionFetchLatch(new PipelineLatch<BranchPredictionModuleFetchData>(new BranchPredictionModuleFetchData[] {
+                new BranchPredictionModuleFetchData(false, 0, 0),
+                new BranchPredictionModuleFetchData(false, 0, 0) }));
 
         // add 1 bubble into branch predictor decision
-        BranchPredictionModuleExecuteData bpmed = new BranchPredictionModuleExecuteData(false, zero, zero);
-
-        bpmel.add(bpmed);
+        pipeline.setBranchPredictionExecuteLatch(new PipelineLatch<BranchPredictionModuleExecuteData>(new BranchPredictionModuleExecuteData[] {
+                new BranchPredictionModuleExecuteData(false, 0, 0),
+                new BranchPredictionModuleExecuteData(false, 0, 0) }));
 
         // add 1 bubble into memory stage
-        ExecuteMemoryData emd = new ExecuteMemoryData(bubble, zero, zeros, zero, false);
-
-        eml.add(emd);
+        pipeline.setExecuteMemoryLatch(new PipelineLatch<ExecuteMemoryData>(new ExecuteMemoryData[] {
+                new ExecuteMemoryData(bubble, 0, 0, 0, 0, false),
+                new ExecuteMemoryData(bubble, 0, 0, 0, 0, false) }));
 
         // add 1 bubble into the branch prediction module
-        ExecuteBranchPredictionData ebd = new ExecuteBranchPredictionData(bubble, zero, zero, false);
-
-        ebl.add(ebd);
+        pipeline.setExecuteBranchPredictionLatch(new PipelineLatch<ExecuteBranchPredictionData>(new ExecuteBranchPredictionData[] {
+                new ExecuteBranchPredictionData(bubble, 0, 0, false, false),
+                new ExecuteBranchPredictionData(bubble, 0, 0, false, false) }));
 
         // add 1 bubble into write back stage
-        MemoryWritebackData mwd = new MemoryWritebackData(bubble, zero, zeros, zero, false);
-
-        mwl.add(mwd);
+        pipeline.setMemoryWriteBackLatch(new PipelineLatch<MemoryWritebackData>(new MemoryWritebackData[] {
+                new MemoryWritebackData(bubble, 0, 0, 0, 0, false),
+                new MemoryWritebackData(bubble, 0, 0, 0, 0, false) }));
 
         // add 1 bubble into write back out buffer stage
-        WriteBackData wbd = new WriteBackData(bubble, zero, zeros, zero);
-
-        wbl.add(wbd);
+        pipeline.setWriteBackLatch(new PipelineLatch<WriteBackData>(new WriteBackData[] {
+                new WriteBackData(bubble, 0, 0, 0, 0),
+                new WriteBackData(bubble, 0, 0, 0, 0) }));
     }
 
     private void finalizeSimulation(Properties config, Statistics stat)
     {
         // TODO specify in config what is actually to be checked after simulation
 
+        flushDataCache();
+
         if (config.containsKey("dump_memory_start") && config.containsKey("dump_memory_end"))
         {
             try
@@ -632,8 +713,72 @@ public class RiscVividSimulator
 
         checkSpecialRegisterValues(config, pipeline.getRegisterSet());
 
+        checkStatisticValues(config, stat);
+
         // print out the stats from the simulation run
         stat.printStats();
+
+        if (config.containsKey("branch_profile_file"))
+        {
+            try
+            {
+                stat.getBranchProfile().writeCSV(config.getProperty("branch_profile_file"));
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+
+        closeMemoryTrace();
+    }
+
+    /**
+     * Creates the unified L2 cache shared by the instruction and data cache
+     * if l2cache_use is set.
+     *
+     * @return the L2 cache or the main memory if no L2 cache is used
+     */
+    private MemoryInterface createL2Cache(MainMemory mem) throws PipelineException
+    {
+        if (Integer.decode(config.getProperty("l2cache_use", "0")) == 0)
+        {
+            return mem;
+        }
+        return Cache.createFromConfig(CacheType.L2CACHE, config, mem, stat);
+    }
+
+    /**
+     * Writes back the dirty lines of the write back caches, so the main memory
+     * holds the final values for dumps, assertions and the GUI.
+     */
+    private void flushDataCache()
+    {
+        try
+        {
+            pipeline.getDataMemory().flush();
+        }
+        catch (MemoryException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    private void closeMemoryTrace()
+    {
+        MemoryTracer tracer = pipeline.getMainMemory().getTracer();
+        if (tracer != null)
+        {
+            tracer.close();
+            pipeline.getMainMemory().setTracer(null);
+        }
+        if (address_trace != null)
+        {
+            address_trace.close();
+            pipeline.getInstructionMemory().setAddressTrace(null);
+            pipeline.getDataMemory().setAddressTrace(null);
+            address_trace = null;
+        }
     }
 
     private void setDefaultConfigParameters(Properties config) throws PipelineException
@@ -714,6 +859,21 @@ public class RiscVividSimulator
             }
         }
 
+        if (!config.containsKey("fast_run"))
+        {
+            config.setProperty("fast_run", "0");
+        }
+
+        if (!config.containsKey("memory_trace_format"))
+        {
+            config.setProperty("memory_trace_format", "CSV");
+        }
+
+        if (!config.containsKey("decode_cache_size"))
+        {
+            config.setProperty("decode_cache_size", "1024");
+        }
+
         if (!config.containsKey("no_branch_delay_slot"))
         	config.setProperty("no_branch_delay_slot", "TRUE");
         	
@@ -723,8 +883,10 @@ public class RiscVividSimulator
     {
         if (config.containsKey("assert_reg_" + i + "_value"))
         {
+            checked_assertions++;
             if (stringToUint32(config.getProperty("assert_reg_" + i + "_value")).getValue() != reg_set.read(new uint8(i)).getValue())
             {
+                failed_assertions++;
                 logger.warn("Register " + i + " does not has the expected value: " + stringToUint32(config.getProperty("assert_reg_" + i + "_value")).getValueAsHexString() + " != " + reg_set.read(new uint8(i)).getValueAsHexString());
             }
             else
@@ -738,8 +900,10 @@ public class RiscVividSimulator
     {
         if (config.containsKey("assert_reg_LO_value"))
         {
+            checked_assertions++;
             if (stringToUint32(config.getProperty("assert_reg_LO_value")).getValue() != reg_set.read_SP(SpecialRegisters.LO).getValue())
             {
+                failed_assertions++;
                 logger.warn("Register LO does not has the expected value: " + stringToUint32(config.getProperty("assert_reg_LO_value")).getValueAsHexString() + " != " + reg_set.read_SP(SpecialRegisters.LO).getValueAsHexString());
             }
             else
@@ -750,8 +914,10 @@ public class RiscVividSimulator
 
         if (config.containsKey("assert_reg_HI_value"))
         {
+            checked_assertions++;
             if (stringToUint32(config.getProperty("assert_reg_HI_value")).getValue() != reg_set.read_SP(SpecialRegisters.HI).getValue())
             {
+                failed_assertions++;
                 logger.warn("Register HI does not has the expected value: " + stringToUint32(config.getProperty("assert_reg_HI_value")).getValueAsHexString() + " != " + reg_set.read_SP(SpecialRegisters.HI).getValueAsHexString());
             }
             else
@@ -761,6 +927,40 @@ public class RiscVividSimulator
         }
     }
 
+    /**
+     * Checks the keys assert_stat_&lt;counter&gt;_value, see
+     * Statistics.getCounter(). They pin the cycle count and the cache
+     * statistics of the regression programs in apps/regression.
+     */
+    private void checkStatisticValues(Properties config, Statistics stat)
+    {
+        for (String key : config.stringPropertyNames())
+        {
+            if (!key.startsWith("assert_stat_") || !key.endsWith("_value"))
+            {
+                continue;
+            }
+            String counter = key.substring("assert_stat_".length(), key.length() - "_value".length());
+            int expected = stringToUint32(config.getProperty(key)).getValue();
+            Integer value = stat.getCounter(counter);
+            checked_assertions++;
+            if (value == null)
+            {
+                failed_assertions++;
+                logger.warn("Unknown statistic counter in " + key);
+            }
+            else if (value != expected)
+            {
+                failed_assertions++;
+                logger.warn("Statistic " + counter + " does not has the expected value: " + expected + " != " + value);
+            }
+            else
+            {
+                logger.info("Statistic " + counter + " has the expected value: " + expected + " == " + value);
+            }
+        }
+    }
+
     /**
      * Converts a string (hex or decimal) into a uint32 i.e. only the lowest
      * 32bit are used It is needed, because the hex string 0xffffffff cannot be
@@ -790,6 +990,29 @@ public class RiscVividSimulator
         return config;
     }
 
+    public SimulationContext getContext()
+    {
+        return context;
+    }
+
+    /**
+     * @return the number of assert_reg_*_value and assert_stat_*_value
+     *          entries of the config that were checked at the end of the
+     *          simulation
+     */
+    public int getCheckedAssertions()
+    {
+        return checked_assertions;
+    }
+
+    /**
+     * @return the number of checked assertions that did not hold
+     */
+    public int getFailedAssertions()
+    {
+        return failed_assertions;
+    }
+
     public void stopSimulation(boolean error)
     {
         if (error)
@@ -800,12 +1023,14 @@ public class RiscVividSimulator
         {
             logger.info("Simulation stopped by user.");
         }
+        flushDataCache();
+        closeMemoryTrace();
         finished = true;
     }
 
     public Integer getExitCode() {
         if (caught_break) {
-            return RISCVSyscallHandler.getInstance().getLastExitCode();
+            return context.getSyscallHandler().getLastExitCode();
         } else {
             return null;
         }
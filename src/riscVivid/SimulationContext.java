@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid;
+
+import java.io.PrintStream;
+import java.util.Properties;
+
+import riscVivid.datatypes.ArchitectureConfig;
+import riscVivid.util.ClockCycleLog;
+import riscVivid.util.RISCVSyscallHandler;
+import riscVivid.util.Statistics;
+
+/**
+ * State that belongs to one simulation run: its configuration, statistics,
+ * syscall handler, clock cycle log and the stream the simulator and the
+ * simulated program print to.
+ *
+ * Every RiscVividSimulator creates its own context and hands it to the
+ * pipeline stages through the PipelineContainer, so simulations running in
+ * the same JVM do not share any state.
+ */
+public class SimulationContext
+{
+	private final Properties config;
+	private final ArchitectureConfig arch_cfg;
+	private final Statistics stat;
+	private final RISCVSyscallHandler syscall_handler;
+	private final ClockCycleLog clock_cycle_log;
+	private final PrintStream out;
+
+	public SimulationContext(Properties config)
+	{
+		this(config, System.out);
+	}
+
+	public SimulationContext(Properties config, PrintStream out)
+	{
+		this.config = config;
+		this.out = out;
+		arch_cfg = new ArchitectureConfig(config);
+		stat = new Statistics();
+		stat.setConfig(config);
+		syscall_handler = new RISCVSyscallHandler(out);
+		clock_cycle_log = new ClockCycleLog();
+	}
+
+	public Properties getConfig()
+	{
+		return config;
+	}
+
+	public ArchitectureConfig getArchCfg()
+	{
+		return arch_cfg;
+	}
+
+	public Statistics getStatistics()
+	{
+		return stat;
+	}
+
+	public RISCVSyscallHandler getSyscallHandler()
+	{
+		return syscall_handler;
+	}
+
+	public ClockCycleLog getClockCycleLog()
+	{
+		return clock_cycle_log;
+	}
+
+	public PrintStream getOut()
+	{
+		return out;
+	}
+}
@@ -20,7 +20,6 @@
  ******************************************************************************/
 package riscVivid;
 
-import java.util.Queue;
 
 
 import org.apache.log4j.Logger;
@@ -29,46 +28,59 @@ import riscVivid.asm.instruction.Registers;
 import riscVivid.datatypes.*;
 import riscVivid.exception.PipelineException;
 import riscVivid.exception.UninitializedRegisterException;
+import riscVivid.util.CalculationHelper;
 import riscVivid.util.RISCVSyscallHandler;
 import riscVivid.util.Statistics;
 
 public class WriteBack
 {
 	private static Logger logger = Logger.getLogger("WRITEBACK");
-	private Statistics stat = Statistics.getInstance();
+	private Statistics stat;
+	private ArchitectureConfig arch_cfg;
+	private RISCVSyscallHandler syscall_handler;
 	private RegisterSet reg_set;
-	private Queue<MemoryWritebackData> memory_writeback_latch;
+	private PipelineLatch<MemoryWritebackData> memory_writeback_latch;
+	private PipelineLatch<WriteBackData> writeback_latch;
+	// the output of doCycle(), reused in every cycle
+	private final WritebackOutputData output = new WritebackOutputData();
 
-	public WriteBack(RegisterSet reg_set)
+	public WriteBack(RegisterSet reg_set, SimulationContext context)
 	{
 		this.reg_set = reg_set;
+		stat = context.getStatistics();
+		arch_cfg = context.getArchCfg();
+		syscall_handler = context.getSyscallHandler();
 	}
 
-	public void setInputLatch(Queue<MemoryWritebackData> memoryWritebackLatch)
+	public void setInputLatch(PipelineLatch<MemoryWritebackData> memoryWritebackLatch)
 	{
 		memory_writeback_latch = memoryWritebackLatch;
 	}
 
+	public void setOutputLatch(PipelineLatch<WriteBackData> writebackLatch)
+	{
+		writeback_latch = writebackLatch;
+	}
+
 	public WritebackOutputData doCycle()
 	{
 		MemoryWritebackData mwd = memory_writeback_latch.element();
-		uint32[] alu_out = mwd.getAluOut();
-		uint32 alu_outLO = alu_out[0];
-		uint32 alu_outHI = alu_out[1];
-		uint32 ld_result = mwd.getLdResult();
+		int alu_outLO = mwd.getAluOutLO();
+		int alu_outHI = mwd.getAluOutHI();
+		int ld_result = mwd.getLdResult();
 		Instruction inst = mwd.getInst();
-		uint32 pc = mwd.getPc();
+		int pc = mwd.getPc();
 		boolean jump = mwd.getJump();
 		boolean caught_break = false;
 		boolean interrupt_occured = false;
 
 /*
-		if((ArchCfg.getISAType() == ISAType.MIPS) && (inst.getOpNormal() == OpcodeNORMAL.SPECIAL) && (inst.getOpSpecial() == OpcodeSPECIAL.BREAK))
+		if((arch_cfg.getISAType() == ISAType.MIPS) && (inst.getOpNormal() == OpcodeNORMAL.SPECIAL) && (inst.getOpSpecial() == OpcodeSPECIAL.BREAK))
 		{
 			logger.info("Caught BREAK instruction - finishing simulation.");
 			caught_break = true;
 		}
-		if((ArchCfg.getISAType() == ISAType.DLX) && (inst.getOpNormal() == OpcodeNORMAL.SPECIAL) && (inst.getOpSpecial() == OpcodeSPECIAL.TRAP) && (alu_outLO.getValue() == PipelineConstants.DLX_TRAP_STOP))
+		if((arch_cfg.getISAType() == ISAType.DLX) && (inst.getOpNormal() == OpcodeNORMAL.SPECIAL) && (inst.getOpSpecial() == OpcodeSPECIAL.TRAP) && (alu_outLO.getValue() == PipelineConstants.DLX_TRAP_STOP))
 		{
 			logger.info("Caught TRAP 0 - finishing simulation.");
 			caught_break = true;
@@ -77,10 +89,10 @@ public class WriteBack
 
 		
 		boolean regWrite = false;
-		uint8 regWriteSelect = new uint8(0);
-		uint32 regWriteValue = new uint32(0);
+		int regWriteSelect = 0;
+		int regWriteValue = 0;
 
-//		logger.info("PC: " + pc.getValueAsHexString());
+//		logger.info("PC: " + CalculationHelper.toHexString(pc));
 		if (inst.getLoad())
 		{
 			// write load result into the register
@@ -92,7 +104,8 @@ public class WriteBack
 			// for MIPS/DLX +8 is correct, for RISCV +4
 			// Completely replace the ALU results, otherwise forwarding won't
 			// work for the first instruction after the two branch delay slots 
-			regWriteValue = alu_outLO = alu_out[0] = new uint32(pc.getValue() + 4);
+			regWriteValue = alu_outLO = pc + 4;
+			mwd.set(inst, pc, alu_outLO, alu_outHI, ld_result, jump);
 		}
 		else
 		{
@@ -108,26 +121,28 @@ public class WriteBack
 			if((!inst.getBranchAndLink()) || (inst.getBranchAndLink() && jump))
 			{
 				regWrite = true;
-				regWriteSelect = inst.getRd();
+				regWriteSelect = inst.getRd().getValue();
 			}
 		}
 		else if (inst.getWriteRt())
 		{
 			// write the register RD (only for non branches)
 			regWrite = true;
-			regWriteSelect = inst.getRt();
+			regWriteSelect = inst.getRt().getValue();
 		}
 
 		if (regWrite)
 		{
-			if(regWriteSelect.getValue() != 0)
+			if(regWriteSelect != 0)
 			{
-				logger.debug("writing: " + regWriteValue.getValueAsHexString() + " to register " + regWriteSelect.getValue() + "/" + ArchCfg.getRegisterDescription(regWriteSelect.getValue()));
+				if (logger.isDebugEnabled())
+					logger.debug("writing: " + CalculationHelper.toHexString(regWriteValue) + " to register " + regWriteSelect + "/" + ArchCfg.getRegisterDescription(regWriteSelect));
 				reg_set.write(regWriteSelect, regWriteValue);
 			}
 			else
 			{
-				logger.debug("suppressing writing of register 0/" + ArchCfg.getRegisterDescription(0) + " with value: " + regWriteValue.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("suppressing writing of register 0/" + ArchCfg.getRegisterDescription(0) + " with value: " + CalculationHelper.toHexString(regWriteValue));
 			}
 		}
 
@@ -136,13 +151,15 @@ public class WriteBack
 			regWrite = true;
 			if (inst.getWriteLO())
 			{
-				logger.debug("writing: " + alu_outLO.getValueAsHexString() + " to register " + SpecialRegisters.LO);
+				if (logger.isDebugEnabled())
+					logger.debug("writing: " + CalculationHelper.toHexString(alu_outLO) + " to register " + SpecialRegisters.LO);
 				reg_set.write_SP(SpecialRegisters.LO, alu_outLO);
 			}
 
 			if (inst.getWriteHI())
 			{
-				logger.debug("writing: " + alu_outHI.getValueAsHexString() + " to register " + SpecialRegisters.HI);
+				if (logger.isDebugEnabled())
+					logger.debug("writing: " + CalculationHelper.toHexString(alu_outHI) + " to register " + SpecialRegisters.HI);
 				reg_set.write_SP(SpecialRegisters.HI, alu_outHI);
 			}
 		}
@@ -154,10 +171,10 @@ public class WriteBack
 			caught_break = true;
 		} else if(isSyscall(inst)) {
 			interrupt_occured = true;
-			caught_break = RISCVSyscallHandler.getInstance().doSyscall(reg_set);
+			caught_break = syscall_handler.doSyscall(reg_set);
 			uint8 regNotInitialized = reg_set.popLastRegisterReadUninitialized();
 			if (regNotInitialized != null)
-				wbException = new UninitializedRegisterException(regNotInitialized, pc);
+				wbException = new UninitializedRegisterException(regNotInitialized, new uint32(pc));
 		}
 		
 		if (regWrite)
@@ -172,9 +189,11 @@ public class WriteBack
 			stat.countInstruction();
 		}
 		
-		WriteBackData wbd = new WriteBackData(inst, pc, alu_out, ld_result);
+		WriteBackData wbd = writeback_latch.next();
+		wbd.set(inst, pc, alu_outLO, alu_outHI, ld_result);
 		
-		return new WritebackOutputData(wbd, caught_break, interrupt_occured, wbException);
+		output.set(wbd, caught_break, interrupt_occured, wbException);
+		return output;
 
 	}
 	
@@ -30,18 +30,31 @@ import java.io.PrintWriter;
 import riscVivid.asm.instruction.Instruction;
 import riscVivid.datatypes.ArchCfg;
 import riscVivid.datatypes.BranchPredictorType;
+import riscVivid.datatypes.ISAType;
+import riscVivid.util.BreakpointManager;
 
 public class AsmFileLoader
 {
 
     private String path = null;
     private static final String BINARY = "_riscVivivFile.bin";
-    private static final String CONFIG = "_riscVividFile.cfg";
+    public static final String CONFIG = "_riscVividFile.cfg";
     private static final boolean printDebugOutput = false;
+    // if true, the global label table and breakpoint manager of the GUI are
+    // left untouched, nothing is printed and the architecture settings of the
+    // config file do not depend on the GUI preferences, so several loaders
+    // can run concurrently and reproducibly, e.g. in batch mode
+    private final boolean headless;
 
     public AsmFileLoader(String path)
+    {
+        this(path, false);
+    }
+
+    public AsmFileLoader(String path, boolean headless)
     {
         this.path = path;
+        this.headless = headless;
     }
 
     public File createConfigFile() throws Exception
@@ -58,7 +71,11 @@ public class AsmFileLoader
     {
         DLXAssembler asm = new DLXAssembler();
         MemoryBuffer mb = asm.assemble(new BufferedReader(new FileReader(new File(path))));
-        Labels.labels = asm.getLabels();
+        if (!headless)
+        {
+            Labels.labels = asm.getLabels();
+            BreakpointManager.getInstance().setAddressToLineTable(asm.getAddressToLineTable());
+        }
         return mb;
     }
 
@@ -84,7 +101,10 @@ public class AsmFileLoader
     {
         //binary        
         String parts = path.substring(0, path.lastIndexOf(46));
-        System.out.println(parts);
+        if (!headless)
+        {
+            System.out.println(parts);
+        }
         FileOutputStream binOut = new FileOutputStream(new File(parts + BINARY));
         binOut.write(memory.toByteArray());
         binOut.close();
@@ -105,6 +125,23 @@ public class AsmFileLoader
         textOut.println("print_file=" + parts + ".out");
         textOut.println("log_file=" + parts + ".log");
         textOut.println("log4j=log4j.properties");
+        if (headless)
+        {
+            saveDefaultArchitecture(textOut);
+        }
+        else
+        {
+            saveArchitecture(textOut);
+        }
+        textOut.close();
+        return configFile;
+    }
+
+    /**
+     * Writes the architecture settings of the GUI preferences, see ArchCfg.
+     */
+    private void saveArchitecture(PrintWriter textOut)
+    {
         textOut.println("isa_type=" + ArchCfg.getISAType());
         textOut.println("use_forwarding=" + ArchCfg.useForwarding());
         textOut.println("use_load_stall_bubble=" + ArchCfg.useLoadStallBubble());
@@ -117,7 +154,19 @@ public class AsmFileLoader
         	textOut.println("btb_size=" + ArchCfg.getBranchPredictorTableSize());
         }
         textOut.println("cycles=" + ArchCfg.getMaxCycles());
-        textOut.close();
-        return configFile;
+    }
+
+    /**
+     * Writes the architecture settings ArchCfg falls back to if no
+     * preferences are stored.
+     */
+    private void saveDefaultArchitecture(PrintWriter textOut)
+    {
+        textOut.println("isa_type=" + ISAType.DLX);
+        textOut.println("use_forwarding=true");
+        textOut.println("use_load_stall_bubble=true");
+        textOut.println("no_branch_delay_slot=true");
+        textOut.println("num_branch_delay_slots=3");
+        textOut.println("cycles=1000");
     }
 }
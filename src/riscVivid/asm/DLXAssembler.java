@@ -30,7 +30,7 @@ import riscVivid.asm.instruction.Instruction;
 import riscVivid.asm.instruction.Instructions;
 import riscVivid.asm.parser.Parser;
 import riscVivid.asm.parser.UnresolvedInstruction;
-import riscVivid.util.BreakpointManager;
+import riscVivid.datatypes.uint32;
 
 public class DLXAssembler implements AssemblerInterface {
 	private static int defaultDataStart = 0x100;
@@ -67,8 +67,6 @@ public class DLXAssembler implements AssemblerInterface {
 		else
 			throw new AssemblerException("no entry point 'main' found!\nPlease specify 'main:'.");
 
-		BreakpointManager.getInstance().setAddressToLineTable(parser.getAddressToLineTable());
-
 		return memory;
 	}
 
@@ -85,4 +83,8 @@ public class DLXAssembler implements AssemblerInterface {
 		return globalLabels;
 	}
 
+	public Hashtable<uint32, Integer> getAddressToLineTable() {
+		return parser.getAddressToLineTable();
+	}
+
 }
@@ -32,7 +32,7 @@ public class Instructions {
 	private Hashtable<String, String> str2desc_;
 	private Hashtable<String, ParseType> str2type_;
 
-	public static Instructions instance() {
+	public static synchronized Instructions instance() {
 		if (instance_ == null)
 			instance_ = new Instructions();
 		return instance_;
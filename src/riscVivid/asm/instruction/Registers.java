@@ -42,7 +42,7 @@ public class Registers {
 
 	private static Registers instance_;
 
-	public static Registers instance() {
+	public static synchronized Registers instance() {
 		if (instance_ == null)
 			instance_ = new Registers();
 		return instance_;
@@ -25,11 +25,21 @@ import org.apache.log4j.Logger;
 import riscVivid.datatypes.BranchPredictorState;
 import riscVivid.datatypes.BranchPredictorType;
 import riscVivid.datatypes.BranchTargetBufferLookupResult;
+import riscVivid.datatypes.BranchTargetBufferUpdateResult;
 import riscVivid.datatypes.uint32;
 import riscVivid.exception.BranchPredictionException;
 
 /**
- * Direct-mapped branch target buffer
+ * Direct-mapped or set-associative branch target buffer
+ *
+ * The direct-mapped buffer is indexed by the low bits of the branch pc and
+ * compares the full pc. The set-associative buffer is indexed by the low bits
+ * of the word address, compares partial tags of PARTIAL_TAG_BITS bits and
+ * replaces the least recently updated entry of a set.
+ *
+ * The direction of a branch that hits in the buffer is predicted either by a
+ * predictor per entry or, for the global-history predictor types, by one
+ * GlobalBranchPredictor shared by all entries.
  */
 public class BranchTargetBuffer
 {
@@ -37,6 +47,10 @@ public class BranchTargetBuffer
 	private static Logger logger = Logger.getLogger("BTB");
 	/// Number of entries of the branch target buffer
 	private int btb_size;
+	/// Number of entries per set, 1 for the direct-mapped organization
+	private int associativity;
+	/// Number of sets
+	private int btb_sets;
 	/// Configuration that defines the behavior on overwriting a branch target buffer entry by another branch (if true, which is not recommended, the predictor is reset to the initial state on branch target buffer miss)
 	private boolean reset_predictor_on_overwrite;
 	/// The type of the used branch predictor
@@ -45,16 +59,27 @@ public class BranchTargetBuffer
 	private BranchPredictorState predictor_initial_state;
 	/// Determines if a branch target buffer entry was already used and thus contains a branch address, branch target, and a prediction (encoded by the predictors internal state)
 	private boolean branch_entry_valid[];
-	/// Holds the branch address (the pc of the branch instruction) for each branch target buffer entry (if branch_entry_valid is false the entry was not used yet and thus is invalid)
-	private uint32 branch_addresses[];
+	/// Holds the tag of the branch address (the pc of the branch instruction) for each branch target buffer entry, see getTag() (if branch_entry_valid is false the entry was not used yet and thus is invalid)
+	private int branch_tags[];
+	/// Age of each entry within its set, 0 for the most recently updated entry
+	private int lru_counters[];
 	/// Contains the branch target address of each branch target buffer entry (each branch has at least one branch target, which is calculated by the ALU during the execution stage) 
 	/// Register-indirect jumps may jump to different addresses (like for a returning jump at the end of the function), thus on branch prediction the the predicted target has also be taken into account to decide if a branch was correctly predicted.  
 	private uint32 branch_targets[];
 	/// The branch predictors per entry of the branch target buffer
 	private BranchPredictor branch_predictors[];
-	
-	private final boolean throwExceptionForUntestedFeatures = true;
+	/// The predictor shared by all entries for the global-history predictor types, else null
+	private GlobalBranchPredictor global_predictor;
+	/// Number of entries of the tables of the global-history predictors
+	private int predictor_table_size;
+	/// History length of the global-history predictors, 0 for the default of the predictor
+	private int predictor_history_length;
 
+	/// Default number of entries of the tables of the global-history predictors
+	public static final int DEFAULT_PREDICTOR_TABLE_SIZE = 1024;
+	/// Number of bits of the tags of the set-associative organization
+	public static final int PARTIAL_TAG_BITS = 16;
+	
 	/**
 	 * Constructor
 	 * @param size Number of entries of the branch target buffer
@@ -64,6 +89,22 @@ public class BranchTargetBuffer
 	 * @throws BranchPredictionException 
 	 */
 	public BranchTargetBuffer(int size, BranchPredictorType bp_type, BranchPredictorState bp_init_state, boolean resetPredictorOnOverwrite) throws BranchPredictionException
+	{
+		this(size, 1, bp_type, bp_init_state, resetPredictorOnOverwrite, DEFAULT_PREDICTOR_TABLE_SIZE, 0);
+	}
+
+	/**
+	 * Constructor
+	 * @param size Number of entries of the branch target buffer
+	 * @param associativity Number of entries per set, 1 for a direct-mapped buffer
+	 * @param bp_type Type of the used predictors
+	 * @param bp_init_state Initial state of the predictors
+	 * @param resetPredictorOnOverwrite Boolean that defines the behavior on overwriting a branch target buffer entry by another branch
+	 * @param predictorTableSize Number of entries of the tables of the global-history predictors (D_GSHARE, D_TOURNAMENT, D_TAGE)
+	 * @param predictorHistoryLength History length of the global-history predictors, 0 for the default of the predictor
+	 * @throws BranchPredictionException
+	 */
+	public BranchTargetBuffer(int size, int associativity, BranchPredictorType bp_type, BranchPredictorState bp_init_state, boolean resetPredictorOnOverwrite, int predictorTableSize, int predictorHistoryLength) throws BranchPredictionException
 	{
 		// enforce that the BTB size is a power of two
 		if(Integer.bitCount(size)!=1)
@@ -71,15 +112,24 @@ public class BranchTargetBuffer
 			throw new BranchPredictionException("The BTB size has to be a power of two!");
 		}
 		
+		if((Integer.bitCount(associativity)!=1) || (associativity > size))
+		{
+			throw new BranchPredictionException("The BTB associativity has to be a power of two not larger than the BTB size!");
+		}
+		
 		if(bp_type == BranchPredictorType.UNKNOWN)
 		{
 			throw new BranchPredictionException("Unknown branch prediction type: " + bp_type);
 		}
 		
 		btb_size = size;
+		this.associativity = associativity;
+		btb_sets = size / associativity;
 		reset_predictor_on_overwrite = resetPredictorOnOverwrite;
 		predictor_type = bp_type;
 		predictor_initial_state = bp_init_state;
+		predictor_table_size = predictorTableSize;
+		predictor_history_length = predictorHistoryLength;
 		
 		initialize();
 	}
@@ -92,16 +142,33 @@ public class BranchTargetBuffer
 	private void initialize() throws BranchPredictionException
 	{
 		branch_entry_valid = new boolean[btb_size];
-		branch_addresses = new uint32[btb_size];
+		branch_tags = new int[btb_size];
+		lru_counters = new int[btb_size];
 		branch_targets = new uint32[btb_size];
 		branch_predictors = new BranchPredictor[btb_size];
 		
 		logger.info("Initialising the predictors with: " + predictor_initial_state);
 		
+		switch(predictor_type)
+		{
+		case D_GSHARE:
+			global_predictor = new GShareBranchPredictor(predictor_table_size, predictor_history_length, predictor_initial_state);
+			break;
+		case D_TOURNAMENT:
+			global_predictor = new TournamentBranchPredictor(predictor_table_size, predictor_history_length, predictor_initial_state);
+			break;
+		case D_TAGE:
+			global_predictor = new TageBranchPredictor(predictor_table_size, predictor_history_length, predictor_initial_state);
+			break;
+		default:
+			global_predictor = null;
+		}
+		
 		for(int i = 0; i < btb_size; i++)
 		{
 			branch_entry_valid[i] = false;
-			branch_addresses[i] = new uint32(0);
+			branch_tags[i] = 0;
+			lru_counters[i] = i % associativity;
 			branch_targets[i] = new uint32(0);
 			switch(predictor_type)
 			{
@@ -112,11 +179,8 @@ public class BranchTargetBuffer
 				branch_predictors[i] = new StaticBranchPredictor(true);
 				break;
 			case S_BACKWARD_TAKEN:
-				logger.error("Branch predictor S_BACKWARD_TAKEN currently not implemented.");
-				if(throwExceptionForUntestedFeatures)
-				{
-					throw new BranchPredictionException("Branch predictor S_BACKWARD_TAKEN currently not implemented.");
-				}
+				// the direction is derived from the stored target, see predictsTaken()
+				branch_predictors[i] = new StaticBranchPredictor(true);
 				break;
 			case D_1BIT:
 				branch_predictors[i] = new OneBitBranchPredictor(predictor_initial_state);
@@ -127,6 +191,12 @@ public class BranchTargetBuffer
 			case D_2BIT_HYSTERESIS:
 				branch_predictors[i] = new TwoBitBranchPredictorHysteresis(predictor_initial_state);
 				break;
+			case D_GSHARE:
+			case D_TOURNAMENT:
+			case D_TAGE:
+				// placeholder, the shared global predictor decides
+				branch_predictors[i] = new StaticBranchPredictor(false);
+				break;
 			default:
 				logger.error("Unsupported type of branch predictor.");
 			}
@@ -138,33 +208,52 @@ public class BranchTargetBuffer
 	 * @param branch_pc The program counter of the branch instruction 
 	 * @param branch_tgt The calculated target address of the branch
 	 * @param taken True if the BranchControl module decided that the branch is taken, false otherwise
+	 * @return How the entry of the branch was found or allocated
 	 * @throws BranchPredictionException 
 	 */
-	public void updateOnBranch(uint32 branch_pc, uint32 branch_tgt, boolean taken) throws BranchPredictionException
+	public BranchTargetBufferUpdateResult updateOnBranch(int branch_pc, int branch_tgt, boolean taken) throws BranchPredictionException
 	{
-		int branch_idx = getIndexForBranchPc(branch_pc);
+		int branch_idx = findEntry(branch_pc);
+		BranchTargetBufferUpdateResult result;
+		
+		if(global_predictor != null)
+		{
+			// the global history is updated by all branches, hit or not
+			global_predictor.update(branch_pc, taken, !checkPrediction(branch_pc, branch_tgt, taken));
+		}
 		
-		if((branch_entry_valid[branch_idx]) && (branch_addresses[branch_idx].getValue() == branch_pc.getValue()) && (branch_targets[branch_idx].getValue() == branch_tgt.getValue()))
+		if((branch_idx >= 0) && (branch_targets[branch_idx].getValue() == branch_tgt))
 		{
 			// BTB hit
 			// just update the predictor
-			branch_predictors[branch_idx].updateState(taken);
+			result = BranchTargetBufferUpdateResult.HIT;
 		}
 		else
 		{
 			// BTB miss
 			// caused by: (1) access of unused entry, (2) access an entry of another branch, or (3) access of the entry of the very same branch but with another target
 			// create new BTB entry (eventually overwrite the old one)
+			if(branch_idx >= 0)
+			{
+				result = BranchTargetBufferUpdateResult.TARGET_CHANGE;
+			}
+			else
+			{
+				branch_idx = getEntryForReplacement(getSet(branch_pc));
+				result = branch_entry_valid[branch_idx] ? BranchTargetBufferUpdateResult.CONFLICT_EVICTION : BranchTargetBufferUpdateResult.COLD_MISS;
+			}
 			branch_entry_valid[branch_idx] = true;
-			branch_addresses[branch_idx].setValue(branch_pc);
+			branch_tags[branch_idx] = getTag(branch_pc);
 			branch_targets[branch_idx].setValue(branch_tgt);
 			if(reset_predictor_on_overwrite)
 			{
 				branch_predictors[branch_idx].reset();
 			}
-			// update the predictor
-			branch_predictors[branch_idx].updateState(taken);
 		}
+		// update the predictor
+		branch_predictors[branch_idx].updateState(taken);
+		updateLRU(branch_idx);
+		return result;
 	}
 	
 	/**
@@ -175,12 +264,17 @@ public class BranchTargetBuffer
 	 */
 	public BranchTargetBufferLookupResult lookupBranch(uint32 branch_pc)
 	{
-		int branch_idx = getIndexForBranchPc(branch_pc);
+		return lookupBranch(branch_pc.getValue());
+	}
+
+	public BranchTargetBufferLookupResult lookupBranch(int branch_pc)
+	{
+		int branch_idx = findEntry(branch_pc);
 		
-		if((branch_entry_valid[branch_idx]) && (branch_addresses[branch_idx].getValue() == branch_pc.getValue()))
+		if(branch_idx >= 0)
 		{
 			// BTB hit
-			if(branch_predictors[branch_idx].predictsTaken())
+			if(predictsTaken(branch_idx, branch_pc))
 			{
 				// predictor says taken
 				return BranchTargetBufferLookupResult.HIT_PREDICT_TAKEN;
@@ -194,18 +288,55 @@ public class BranchTargetBuffer
 		else
 		{
 			// BTB miss
-			if(branch_entry_valid[branch_idx])
-			{
-				// capacity miss
-			}
-			else
-			{
-				// cold / compulsory miss
-			}
 			return BranchTargetBufferLookupResult.MISS;
 		}
 	}
 	
+	/**
+	 * Looks up the prediction for a branch at the time it is fetched. For the
+	 * global-history predictors the current history is kept until the
+	 * branch is resolved, so that the later calls of lookupBranch() and
+	 * checkPrediction() return this prediction.
+	 * @param branch_pc The pc of the fetched instruction
+	 * @return Returns the result of the lookup, see lookupBranch()
+	 */
+	public BranchTargetBufferLookupResult predictBranch(uint32 branch_pc)
+	{
+		return predictBranch(branch_pc.getValue());
+	}
+
+	public BranchTargetBufferLookupResult predictBranch(int branch_pc)
+	{
+		if(global_predictor == null)
+		{
+			return lookupBranch(branch_pc);
+		}
+		
+		if(findEntry(branch_pc) >= 0)
+		{
+			return global_predictor.predictOnLookup(branch_pc) ? BranchTargetBufferLookupResult.HIT_PREDICT_TAKEN : BranchTargetBufferLookupResult.HIT_PREDICT_NOT_TAKEN;
+		}
+		return BranchTargetBufferLookupResult.MISS;
+	}
+	
+	/**
+	 * Returns the direction predicted for the branch stored in an entry
+	 */
+	private boolean predictsTaken(int branch_idx, int branch_pc)
+	{
+		switch(predictor_type)
+		{
+		case S_BACKWARD_TAKEN:
+			return Integer.compareUnsigned(branch_targets[branch_idx].getValue(), branch_pc) < 0;
+		case D_GSHARE:
+		case D_TOURNAMENT:
+		case D_TAGE:
+			return global_predictor.predictsTaken(branch_pc);
+		default:
+			return branch_predictors[branch_idx].predictsTaken();
+		}
+	}
+	
 	/**
 	 * Checks if a prediction was performed correctly. The check has to be performed _before_ the branch target buffer is updated for the specific branch (by updateOnBranch())
 	 * - Notice: that a jump that is predicted taken, but to another jump target, HAS to be considered as mispredicted.
@@ -213,13 +344,13 @@ public class BranchTargetBuffer
 	 * @throws BranchPredictionException 
 	 * @returns True if the prediction direction and if jumping the branch target is similar for the given branch, else false.
 	 */ 
-	public boolean checkPrediction(uint32 branch_pc, uint32 branch_tgt, boolean jumped) throws BranchPredictionException
+	public boolean checkPrediction(int branch_pc, int branch_tgt, boolean jumped) throws BranchPredictionException
 	{
 		boolean result = false;
 		switch(lookupBranch(branch_pc))
 		{
 		case HIT_PREDICT_TAKEN:
-			result = ((jumped == true) && (branch_tgt.getValue() == getStoredBranchTarget(branch_pc).getValue()));
+			result = ((jumped == true) && (branch_tgt == getStoredBranchTarget(branch_pc)));
 			break;
 		case HIT_PREDICT_NOT_TAKEN:
 			result = (jumped == false);
@@ -243,9 +374,9 @@ public class BranchTargetBuffer
 	 * @param branch_pc The program counter of the branch 
 	 * @return The branch target of a branch stored in the branch target buffer
 	 */
-	private uint32 getStoredBranchTarget(uint32 branch_pc)
+	private int getStoredBranchTarget(int branch_pc)
 	{
-		return branch_targets[getIndexForBranchPc(branch_pc)];
+		return branch_targets[findEntry(branch_pc)].getValue();
 	}
 	
 	/**
@@ -253,19 +384,116 @@ public class BranchTargetBuffer
 	 * @param branch_pc The program counter of the branch 
 	 * @return the predictor state of the selected predictor for a branch in the branch target buffer
 	 */
-	public BranchPredictorState getPredictorState(uint32 branch_pc)
+	public BranchPredictorState getPredictorState(int branch_pc)
 	{
-		return branch_predictors[getIndexForBranchPc(branch_pc)].getState();
+		int branch_idx = getIndexForBranchPc(branch_pc);
+		if(global_predictor != null)
+		{
+			return global_predictor.getState(branch_pc);
+		}
+		if(predictor_type == BranchPredictorType.S_BACKWARD_TAKEN)
+		{
+			return predictsTaken(branch_idx, branch_pc) ? BranchPredictorState.PREDICT_TAKEN : BranchPredictorState.PREDICT_NOT_TAKEN;
+		}
+		return branch_predictors[branch_idx].getState();
 	}
 
 	/**
-	 * Returns the index where a branch is stored in the branch target buffer
-	 * Implements the direct-mapped organization of the branch target buffer
+	 * Returns the index where a branch is stored in the branch target buffer,
+	 * or the index of the entry it would replace if it is not stored
 	 * @return the index where a branch is stored in the branch target buffer
 	 */
-	public int getIndexForBranchPc(uint32 branch_pc)
+	public int getIndexForBranchPc(int branch_pc)
+	{
+		int branch_idx = findEntry(branch_pc);
+		if(branch_idx < 0)
+		{
+			branch_idx = getEntryForReplacement(getSet(branch_pc));
+		}
+		return branch_idx;
+	}
+	
+	/**
+	 * @return the index of the entry that holds the branch, -1 on a miss
+	 */
+	private int findEntry(int branch_pc)
 	{
-		return branch_pc.getValue() & (btb_size - 1);
+		int first = getSet(branch_pc) * associativity;
+		int tag = getTag(branch_pc);
+		for(int i = first; i < first + associativity; i++)
+		{
+			if(branch_entry_valid[i] && (branch_tags[i] == tag))
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * The direct-mapped organization keeps the original indexing by the low
+	 * bits of the pc, the set-associative one skips the two bits that are
+	 * zero for aligned instructions.
+	 */
+	private int getSet(int branch_pc)
+	{
+		if(associativity == 1)
+		{
+			return branch_pc & (btb_size - 1);
+		}
+		return (branch_pc >>> 2) & (btb_sets - 1);
+	}
+	
+	/**
+	 * Returns the full pc for the direct-mapped organization, else the
+	 * PARTIAL_TAG_BITS bits of the pc above the set index. Different branches
+	 * with the same partial tag share an entry.
+	 */
+	private int getTag(int branch_pc)
+	{
+		if(associativity == 1)
+		{
+			return branch_pc;
+		}
+		return (branch_pc >>> (2 + Integer.numberOfTrailingZeros(btb_sets))) & ((1 << PARTIAL_TAG_BITS) - 1);
+	}
+	
+	/**
+	 * @return an unused entry of the set or else the least recently updated one
+	 */
+	private int getEntryForReplacement(int set)
+	{
+		int first = set * associativity;
+		int victim = first;
+		for(int i = first; i < first + associativity; i++)
+		{
+			if(!branch_entry_valid[i])
+			{
+				return i;
+			}
+			if(lru_counters[i] > lru_counters[victim])
+			{
+				victim = i;
+			}
+		}
+		return victim;
+	}
+	
+	/**
+	 * Makes an entry the most recently used one of its set
+	 */
+	private void updateLRU(int branch_idx)
+	{
+		int first = (branch_idx / associativity) * associativity;
+		int age = lru_counters[branch_idx];
+		for(int i = first; i < first + associativity; i++)
+		{
+			if(lru_counters[i] < age)
+			{
+				lru_counters[i]++;
+			}
+		}
+		lru_counters[branch_idx] = 0;
 	}
 	
 	/**
@@ -275,7 +503,12 @@ public class BranchTargetBuffer
 	 */
 	public uint32 getBranchTarget(uint32 branch_pc)
 	{
-		return new uint32(branch_targets[getIndexForBranchPc(branch_pc)]);
+		return new uint32(getBranchTarget(branch_pc.getValue()));
+	}
+
+	public int getBranchTarget(int branch_pc)
+	{
+		return branch_targets[getIndexForBranchPc(branch_pc)].getValue();
 	}
 	
 }
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.branchPrediction;
+
+import java.util.Arrays;
+
+import riscVivid.datatypes.BranchPredictorState;
+import riscVivid.exception.BranchPredictionException;
+
+/**
+ * Gshare: a table of 2-bit counters indexed by the xor of the branch pc and
+ * the global history.
+ */
+public class GShareBranchPredictor extends GlobalBranchPredictor
+{
+	private final byte counters[];
+	private final int mask;
+	private final int history_length;
+
+	/**
+	 * @param tableSize Number of counters, a power of two
+	 * @param historyLength Number of history bits, 0 uses as many bits as
+	 *          the table index has
+	 */
+	public GShareBranchPredictor(int tableSize, int historyLength, BranchPredictorState initialState) throws BranchPredictionException
+	{
+		super(initialState);
+		int index_bits = getIndexBits(tableSize, "gshare table");
+		if(historyLength < 0 || historyLength > Long.SIZE)
+		{
+			throw new BranchPredictionException("Invalid gshare history length: " + historyLength);
+		}
+		counters = new byte[tableSize];
+		mask = tableSize - 1;
+		history_length = (historyLength == 0) ? index_bits : historyLength;
+		clear();
+	}
+
+	private int getIndex(int pc, long hist)
+	{
+		// histories longer than the index are folded into it
+		return ((pc >>> 2) ^ foldHistory(hist, history_length, Integer.bitCount(mask))) & mask;
+	}
+
+	protected boolean predict(int pc, long hist)
+	{
+		return counterPredictsTaken(counters[getIndex(pc, hist)]);
+	}
+
+	protected BranchPredictorState getState(int pc, long hist)
+	{
+		return getStateForCounter(counters[getIndex(pc, hist)]);
+	}
+
+	protected void train(int pc, long hist, boolean taken)
+	{
+		int i = getIndex(pc, hist);
+		counters[i] = updateCounter(counters[i], taken);
+	}
+
+	protected void clear()
+	{
+		Arrays.fill(counters, initial_counter);
+	}
+}
@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.branchPrediction;
+
+import riscVivid.datatypes.BranchPredictorState;
+import riscVivid.exception.BranchPredictionException;
+
+/**
+ * Base class of the predictors that use the global branch history. In
+ * contrast to the BranchPredictor implementations, there is one instance for
+ * the whole branch target buffer which is indexed by the branch pc.
+ *
+ * The global history register is updated when a branch is resolved, so a
+ * branch sees the outcomes of all branches resolved before it was fetched.
+ * The history used for a prediction is kept in a small queue of checkpoints
+ * until the branch is resolved, so the check and the training of the
+ * prediction use the same table entries as the lookup did.
+ */
+public abstract class GlobalBranchPredictor
+{
+	/// Number of predictions that may be in flight between lookup and update
+	private static final int CHECKPOINTS = 16;
+
+	/// Global history, the outcome of the last resolved branch is bit 0
+	private long history;
+	private final int checkpoint_pcs[] = new int[CHECKPOINTS];
+	private final long checkpoint_histories[] = new long[CHECKPOINTS];
+	/// Position of the oldest checkpoint
+	private int checkpoint_head;
+	private int checkpoint_count;
+
+	/// Value of the 2-bit counters after a reset
+	protected final byte initial_counter;
+
+	public GlobalBranchPredictor(BranchPredictorState initialState) throws BranchPredictionException
+	{
+		initial_counter = getCounterForState(initialState);
+	}
+
+	/**
+	 * Predicts a branch at the time it is fetched and keeps the current
+	 * history until the branch is resolved.
+	 * @param pc The program counter of the branch
+	 * @return True if the branch is predicted taken
+	 */
+	public boolean predictOnLookup(int pc)
+	{
+		if(checkpoint_count == CHECKPOINTS)
+		{
+			// the oldest checkpoint belongs to a branch that was never resolved
+			dropCheckpoints(1);
+		}
+		int i = (checkpoint_head + checkpoint_count) % CHECKPOINTS;
+		checkpoint_pcs[i] = pc;
+		checkpoint_histories[i] = history;
+		checkpoint_count++;
+		return predict(pc, history);
+	}
+
+	/**
+	 * Returns the prediction that was made on the lookup of a branch that is
+	 * not resolved yet. Without a lookup, the current history is used.
+	 */
+	public boolean predictsTaken(int pc)
+	{
+		return predict(pc, getHistoryForBranch(pc));
+	}
+
+	public BranchPredictorState getState(int pc)
+	{
+		return getState(pc, getHistoryForBranch(pc));
+	}
+
+	/**
+	 * Trains the predictor with the outcome of a branch and shifts the outcome
+	 * into the global history.
+	 * @param pc The program counter of the branch
+	 * @param taken True if the branch was taken
+	 * @param mispredicted True if the instructions fetched after the branch
+	 *          are squashed, their checkpoints are dropped then
+	 */
+	public void update(int pc, boolean taken, boolean mispredicted)
+	{
+		int n = findCheckpoint(pc);
+		long hist = (n < 0) ? history : checkpoint_histories[(checkpoint_head + n) % CHECKPOINTS];
+		train(pc, hist, taken);
+		if(mispredicted)
+		{
+			dropCheckpoints(checkpoint_count);
+		}
+		else if(n >= 0)
+		{
+			// older checkpoints belong to branches on a squashed path
+			dropCheckpoints(n + 1);
+		}
+		history = (history << 1) | (taken ? 1 : 0);
+	}
+
+	public void reset()
+	{
+		history = 0;
+		dropCheckpoints(checkpoint_count);
+		clear();
+	}
+
+	private long getHistoryForBranch(int pc)
+	{
+		int n = findCheckpoint(pc);
+		return (n < 0) ? history : checkpoint_histories[(checkpoint_head + n) % CHECKPOINTS];
+	}
+
+	/**
+	 * @return position of the oldest checkpoint of the branch relative to the
+	 *          head of the queue, or -1
+	 */
+	private int findCheckpoint(int pc)
+	{
+		for(int n = 0; n < checkpoint_count; n++)
+		{
+			if(checkpoint_pcs[(checkpoint_head + n) % CHECKPOINTS] == pc)
+			{
+				return n;
+			}
+		}
+		return -1;
+	}
+
+	private void dropCheckpoints(int n)
+	{
+		checkpoint_head = (checkpoint_head + n) % CHECKPOINTS;
+		checkpoint_count -= n;
+	}
+
+	protected abstract boolean predict(int pc, long hist);
+
+	protected abstract BranchPredictorState getState(int pc, long hist);
+
+	protected abstract void train(int pc, long hist, boolean taken);
+
+	/**
+	 * Sets all tables to their initial state.
+	 */
+	protected abstract void clear();
+
+	/**
+	 * @return the lowest length bits of the history
+	 */
+	protected static long getHistoryBits(long hist, int length)
+	{
+		return (length >= Long.SIZE) ? hist : (hist & ((1L << length) - 1));
+	}
+
+	/**
+	 * Folds the lowest length bits of the history into bits bits by xor-ing
+	 * the chunks.
+	 */
+	protected static int foldHistory(long hist, int length, int bits)
+	{
+		if(bits == 0)
+		{
+			return 0;
+		}
+		long h = getHistoryBits(hist, length);
+		int folded = 0;
+		for(int i = 0; i < length; i += bits)
+		{
+			folded ^= (int)(h >>> i);
+		}
+		return folded & ((1 << bits) - 1);
+	}
+
+	protected static boolean counterPredictsTaken(byte counter)
+	{
+		return counter >= 2;
+	}
+
+	protected static byte updateCounter(byte counter, boolean taken)
+	{
+		if(taken)
+		{
+			return (counter < 3) ? (byte)(counter + 1) : counter;
+		}
+		return (counter > 0) ? (byte)(counter - 1) : counter;
+	}
+
+	protected static BranchPredictorState getStateForCounter(byte counter)
+	{
+		switch(counter)
+		{
+		case 0:
+			return BranchPredictorState.PREDICT_STRONGLY_NOT_TAKEN;
+		case 1:
+			return BranchPredictorState.PREDICT_WEAKLY_NOT_TAKEN;
+		case 2:
+			return BranchPredictorState.PREDICT_WEAKLY_TAKEN;
+		default:
+			return BranchPredictorState.PREDICT_STRONGLY_TAKEN;
+		}
+	}
+
+	/**
+	 * Maps the initial state to a 2-bit counter, the states of the 1-bit
+	 * predictor are mapped to the weak states.
+	 */
+	private static byte getCounterForState(BranchPredictorState state) throws BranchPredictionException
+	{
+		switch(state)
+		{
+		case PREDICT_STRONGLY_NOT_TAKEN:
+			return 0;
+		case PREDICT_NOT_TAKEN:
+		case PREDICT_WEAKLY_NOT_TAKEN:
+			return 1;
+		case PREDICT_TAKEN:
+		case PREDICT_WEAKLY_TAKEN:
+			return 2;
+		case PREDICT_STRONGLY_TAKEN:
+			return 3;
+		default:
+			throw new BranchPredictionException("Invalid initial state of branch predictor: " + state);
+		}
+	}
+
+	/**
+	 * @return the number of bits needed to index a table of the given size
+	 */
+	protected static int getIndexBits(int size, String table) throws BranchPredictionException
+	{
+		if(Integer.bitCount(size) != 1)
+		{
+			throw new BranchPredictionException("The size of the " + table + " has to be a power of two!");
+		}
+		return Integer.numberOfTrailingZeros(size);
+	}
+}
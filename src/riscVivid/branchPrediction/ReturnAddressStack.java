@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.branchPrediction;
+
+import riscVivid.exception.BranchPredictionException;
+
+/**
+ * A return address stack with a fixed number of entries. Calls push the
+ * address of the instruction behind the call, returns pop it. If the stack is
+ * full, a push overwrites the oldest entry, so only the innermost calls are
+ * predicted correctly after a deep recursion.
+ */
+public class ReturnAddressStack
+{
+	private final int addresses[];
+	/// Position of the top entry
+	private int top;
+	private int count;
+
+	public ReturnAddressStack(int size) throws BranchPredictionException
+	{
+		if(size <= 0)
+		{
+			throw new BranchPredictionException("Size of the return address stack must be positive: " + size);
+		}
+		addresses = new int[size];
+		reset();
+	}
+
+	public void push(int returnAddress)
+	{
+		top = (top + 1) % addresses.length;
+		addresses[top] = returnAddress;
+		if(count < addresses.length)
+		{
+			count++;
+		}
+	}
+
+	/**
+	 * @return The address on top of the stack, the stack must not be empty
+	 */
+	public int pop()
+	{
+		int address = addresses[top];
+		top = (top + addresses.length - 1) % addresses.length;
+		count--;
+		return address;
+	}
+
+	public boolean isEmpty()
+	{
+		return count == 0;
+	}
+
+	/**
+	 * Replaces the content by a copy of the given stack of the same size.
+	 */
+	public void copyFrom(ReturnAddressStack other)
+	{
+		System.arraycopy(other.addresses, 0, addresses, 0, addresses.length);
+		top = other.top;
+		count = other.count;
+	}
+
+	public void reset()
+	{
+		top = addresses.length - 1;
+		count = 0;
+	}
+}
@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.branchPrediction;
+
+import java.util.Arrays;
+
+import riscVivid.datatypes.BranchPredictorState;
+import riscVivid.exception.BranchPredictionException;
+
+/**
+ * A small TAGE predictor: a bimodal table of 2-bit counters and TAGGED_TABLES
+ * tagged tables indexed by the pc hashed with geometrically growing parts of
+ * the global history. The tagged table with the longest matching history
+ * provides the prediction, the bimodal table is used if no tag matches.
+ *
+ * Entries of the tagged tables have a 3-bit signed counter and a 2-bit
+ * usefulness counter. On a misprediction an entry in a table with a longer
+ * history than the provider is allocated, the usefulness counters are halved
+ * periodically so that stale entries can be replaced.
+ */
+public class TageBranchPredictor extends GlobalBranchPredictor
+{
+	public static final int TAGGED_TABLES = 4;
+	/// Default length of the longest history, the others are 16, 8 and 4
+	public static final int DEFAULT_HISTORY_LENGTH = 32;
+	private static final int TAG_BITS = 8;
+	private static final int NO_TAG = -1;
+	/// The usefulness counters are halved after this many updates per table entry
+	private static final int USEFUL_RESET_PERIOD = 16;
+
+	private final byte base_counters[];
+	private final int base_mask;
+	/// Per table: tag of each entry or NO_TAG
+	private final short tags[][];
+	/// Per table: signed counter in -4..3, values >= 0 predict taken
+	private final byte counters[][];
+	/// Per table: usefulness counter in 0..3
+	private final byte useful[][];
+	private final int history_lengths[] = new int[TAGGED_TABLES];
+	private final int index_bits;
+	private final int useful_reset_period;
+	private int updates_since_reset;
+
+	/**
+	 * @param tableSize Number of entries of the bimodal table and of each
+	 *          tagged table, a power of two
+	 * @param historyLength Length of the longest history, 0 uses
+	 *          DEFAULT_HISTORY_LENGTH
+	 */
+	public TageBranchPredictor(int tableSize, int historyLength, BranchPredictorState initialState) throws BranchPredictionException
+	{
+		super(initialState);
+		index_bits = getIndexBits(tableSize, "TAGE tables");
+		int longest = (historyLength == 0) ? DEFAULT_HISTORY_LENGTH : historyLength;
+		if(longest < TAGGED_TABLES || longest > Long.SIZE)
+		{
+			throw new BranchPredictionException("The TAGE history length has to be between " + TAGGED_TABLES + " and " + Long.SIZE + ": " + historyLength);
+		}
+		for(int t = TAGGED_TABLES - 1; t >= 0; t--)
+		{
+			history_lengths[t] = longest;
+			longest = Math.max(1, longest / 2);
+		}
+		base_counters = new byte[tableSize];
+		base_mask = tableSize - 1;
+		tags = new short[TAGGED_TABLES][tableSize];
+		counters = new byte[TAGGED_TABLES][tableSize];
+		useful = new byte[TAGGED_TABLES][tableSize];
+		useful_reset_period = USEFUL_RESET_PERIOD * tableSize;
+		clear();
+	}
+
+	private int getIndex(int table, int pc, long hist)
+	{
+		int p = pc >>> 2;
+		return (p ^ (p >>> index_bits) ^ foldHistory(hist, history_lengths[table], index_bits)) & base_mask;
+	}
+
+	private short getTag(int table, int pc, long hist)
+	{
+		int len = history_lengths[table];
+		int tag = (pc >>> 2) ^ foldHistory(hist, len, TAG_BITS) ^ (foldHistory(hist, len, TAG_BITS - 1) << 1);
+		return (short)(tag & ((1 << TAG_BITS) - 1));
+	}
+
+	/**
+	 * @return the table with the longest history that has a matching entry,
+	 *          or -1 if the bimodal table provides the prediction
+	 */
+	private int findProvider(int pc, long hist, int below)
+	{
+		for(int t = below - 1; t >= 0; t--)
+		{
+			if(tags[t][getIndex(t, pc, hist)] == getTag(t, pc, hist))
+			{
+				return t;
+			}
+		}
+		return -1;
+	}
+
+	private boolean predictWith(int table, int pc, long hist)
+	{
+		if(table < 0)
+		{
+			return counterPredictsTaken(base_counters[pc >>> 2 & base_mask]);
+		}
+		return counters[table][getIndex(table, pc, hist)] >= 0;
+	}
+
+	protected boolean predict(int pc, long hist)
+	{
+		return predictWith(findProvider(pc, hist, TAGGED_TABLES), pc, hist);
+	}
+
+	protected BranchPredictorState getState(int pc, long hist)
+	{
+		int t = findProvider(pc, hist, TAGGED_TABLES);
+		if(t < 0)
+		{
+			return getStateForCounter(base_counters[pc >>> 2 & base_mask]);
+		}
+		// map the 3-bit counter to the states of a 2-bit counter
+		return getStateForCounter((byte)((counters[t][getIndex(t, pc, hist)] + 4) >> 1));
+	}
+
+	protected void train(int pc, long hist, boolean taken)
+	{
+		int provider = findProvider(pc, hist, TAGGED_TABLES);
+		boolean prediction = predictWith(provider, pc, hist);
+
+		if(provider < 0)
+		{
+			int i = pc >>> 2 & base_mask;
+			base_counters[i] = updateCounter(base_counters[i], taken);
+		}
+		else
+		{
+			int i = getIndex(provider, pc, hist);
+			byte ctr = counters[provider][i];
+			if(taken && ctr < 3)
+			{
+				counters[provider][i] = (byte)(ctr + 1);
+			}
+			else if(!taken && ctr > -4)
+			{
+				counters[provider][i] = (byte)(ctr - 1);
+			}
+			// the entry is useful if it was right where the next shorter history was wrong
+			boolean alternative = predictWith(findProvider(pc, hist, provider), pc, hist);
+			if(alternative != prediction)
+			{
+				byte u = useful[provider][i];
+				if(prediction == taken && u < 3)
+				{
+					useful[provider][i] = (byte)(u + 1);
+				}
+				else if(prediction != taken && u > 0)
+				{
+					useful[provider][i] = (byte)(u - 1);
+				}
+			}
+		}
+
+		if(prediction != taken)
+		{
+			allocate(provider + 1, pc, hist, taken);
+		}
+
+		if(++updates_since_reset == useful_reset_period)
+		{
+			updates_since_reset = 0;
+			for(byte u[] : useful)
+			{
+				for(int i = 0; i < u.length; i++)
+				{
+					u[i] >>= 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Allocates an entry in the first table from the given one on whose
+	 * entry is not useful. If there is none, the usefulness of the entries
+	 * is decremented instead.
+	 */
+	private void allocate(int first, int pc, long hist, boolean taken)
+	{
+		for(int t = first; t < TAGGED_TABLES; t++)
+		{
+			int i = getIndex(t, pc, hist);
+			if(useful[t][i] == 0)
+			{
+				tags[t][i] = getTag(t, pc, hist);
+				counters[t][i] = (byte)(taken ? 0 : -1);
+				return;
+			}
+		}
+		for(int t = first; t < TAGGED_TABLES; t++)
+		{
+			int i = getIndex(t, pc, hist);
+			useful[t][i]--;
+		}
+	}
+
+	protected void clear()
+	{
+		Arrays.fill(base_counters, initial_counter);
+		for(int t = 0; t < TAGGED_TABLES; t++)
+		{
+			Arrays.fill(tags[t], (short)NO_TAG);
+			Arrays.fill(counters[t], (byte)0);
+			Arrays.fill(useful[t], (byte)0);
+		}
+		updates_since_reset = 0;
+	}
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.branchPrediction;
+
+import java.util.Arrays;
+
+import riscVivid.datatypes.BranchPredictorState;
+import riscVivid.exception.BranchPredictionException;
+
+/**
+ * Tournament predictor in the style of the Alpha 21264: a local predictor
+ * (per-branch history selecting a 2-bit counter) and a global predictor
+ * (2-bit counters indexed by the global history) compete, a table of 2-bit
+ * choosers indexed by the global history selects the one to use.
+ *
+ * Unlike the global history, the local histories are not kept in the
+ * checkpoints, they are read when the prediction is checked.
+ */
+public class TournamentBranchPredictor extends GlobalBranchPredictor
+{
+	/// Default number of bits of the local histories
+	public static final int DEFAULT_LOCAL_HISTORY_LENGTH = 10;
+	/// Maximum number of bits of the local histories, limits the local counter table to 64K entries
+	public static final int MAX_LOCAL_HISTORY_LENGTH = 16;
+
+	private final short local_histories[];
+	private final byte local_counters[];
+	private final byte global_counters[];
+	/// 2-bit counters, values >= 2 select the global predictor
+	private final byte choosers[];
+	private final int local_mask;
+	private final int local_history_mask;
+	private final int global_bits;
+
+	/**
+	 * @param tableSize Number of local histories, global counters and
+	 *          choosers, a power of two
+	 * @param historyLength Number of bits of the local histories, 0 uses
+	 *          DEFAULT_LOCAL_HISTORY_LENGTH
+	 */
+	public TournamentBranchPredictor(int tableSize, int historyLength, BranchPredictorState initialState) throws BranchPredictionException
+	{
+		super(initialState);
+		global_bits = getIndexBits(tableSize, "tournament predictor tables");
+		int local_history_length = (historyLength == 0) ? DEFAULT_LOCAL_HISTORY_LENGTH : historyLength;
+		if(local_history_length < 0 || local_history_length > MAX_LOCAL_HISTORY_LENGTH)
+		{
+			throw new BranchPredictionException("The local history length of the tournament predictor has to be at most " + MAX_LOCAL_HISTORY_LENGTH + ": " + historyLength);
+		}
+		local_histories = new short[tableSize];
+		local_counters = new byte[1 << local_history_length];
+		global_counters = new byte[tableSize];
+		choosers = new byte[tableSize];
+		local_mask = tableSize - 1;
+		local_history_mask = (1 << local_history_length) - 1;
+		clear();
+	}
+
+	private int getLocalCounterIndex(int pc)
+	{
+		return local_histories[(pc >>> 2) & local_mask] & local_history_mask;
+	}
+
+	private int getGlobalIndex(long hist)
+	{
+		return (int)getHistoryBits(hist, global_bits);
+	}
+
+	private byte getCounter(int pc, long hist)
+	{
+		int g = getGlobalIndex(hist);
+		if(counterPredictsTaken(choosers[g]))
+		{
+			return global_counters[g];
+		}
+		return local_counters[getLocalCounterIndex(pc)];
+	}
+
+	protected boolean predict(int pc, long hist)
+	{
+		return counterPredictsTaken(getCounter(pc, hist));
+	}
+
+	protected BranchPredictorState getState(int pc, long hist)
+	{
+		return getStateForCounter(getCounter(pc, hist));
+	}
+
+	protected void train(int pc, long hist, boolean taken)
+	{
+		int g = getGlobalIndex(hist);
+		int l = getLocalCounterIndex(pc);
+		boolean global_correct = (counterPredictsTaken(global_counters[g]) == taken);
+		boolean local_correct = (counterPredictsTaken(local_counters[l]) == taken);
+		// the chooser only learns if exactly one of the predictors was right
+		if(global_correct != local_correct)
+		{
+			choosers[g] = updateCounter(choosers[g], global_correct);
+		}
+		global_counters[g] = updateCounter(global_counters[g], taken);
+		local_counters[l] = updateCounter(local_counters[l], taken);
+
+		int h = (pc >>> 2) & local_mask;
+		local_histories[h] = (short)(((local_histories[h] << 1) | (taken ? 1 : 0)) & local_history_mask);
+	}
+
+	protected void clear()
+	{
+		Arrays.fill(local_histories, (short)0);
+		Arrays.fill(local_counters, initial_counter);
+		Arrays.fill(global_counters, initial_counter);
+		// start with the local predictor, it learns faster
+		Arrays.fill(choosers, (byte)1);
+	}
+}
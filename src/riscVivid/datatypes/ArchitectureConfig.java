@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.datatypes;
+
+import java.util.Properties;
+
+/**
+ * Architecture configuration of a single simulation.
+ *
+ * The values are read from the configuration of the simulation once; keys
+ * that are not set fall back to the defaults of ArchCfg, which reflect the
+ * preferences of the GUI. Unlike ArchCfg the object is immutable, so several
+ * simulations with different configurations can run side by side.
+ */
+public class ArchitectureConfig
+{
+    private final ISAType isa_type;
+    private final boolean use_forwarding;
+    private final boolean use_load_stall_bubble;
+    private final boolean no_branch_delay_slot;
+    private final int num_branch_delay_slots;
+    private final BranchPredictorType branch_predictor_type;
+    private final BranchPredictorState branch_predictor_initial_state;
+    private final int branch_predictor_table_size;
+    private final int max_cycles;
+
+    public ArchitectureConfig(Properties config)
+    {
+        String isa = config.getProperty("isa_type");
+        isa_type = (isa != null) ? ArchCfg.stringToISAType(isa) : ArchCfg.getISAType();
+
+        use_forwarding = getBoolean(config, "use_forwarding");
+        use_load_stall_bubble = getBoolean(config, "use_load_stall_bubble");
+        if (!use_forwarding && use_load_stall_bubble)
+            throw new IllegalArgumentException("Error in config: forwarding must be enabled if use_load_stall_bubble is enabled");
+
+        no_branch_delay_slot = isTrue(config.getProperty("no_branch_delay_slot", "false"));
+
+        num_branch_delay_slots = Integer.decode(config.getProperty("num_branch_delay_slots", "3"));
+        if (num_branch_delay_slots != 2 && num_branch_delay_slots != 3)
+            throw new IllegalArgumentException("Error in config: num_branch_delay_slots must be either 2 or 3");
+
+        branch_predictor_type = ArchCfg.getBranchPredictorTypeFromString(config.getProperty("btb_predictor", ""));
+        branch_predictor_initial_state = ArchCfg.getBranchPredictorInitialStateFromString(
+                config.getProperty("btb_predictor_initial_state", ""));
+        branch_predictor_table_size = getInt(config, "btb_size", ArchCfg.getBranchPredictorTableSize());
+        max_cycles = getInt(config, "max_cycles", ArchCfg.getMaxCycles());
+    }
+
+    /*
+     * MIPS always uses forwarding and the load stall bubble, for DLX they
+     * are enabled in the configuration.
+     */
+    private boolean getBoolean(Properties config, String key)
+    {
+        if (isa_type == ISAType.DLX)
+            return isTrue(config.getProperty(key, "false"));
+        return true;
+    }
+
+    private static boolean isTrue(String value)
+    {
+        return value.equalsIgnoreCase("true") || value.equals("1");
+    }
+
+    private static int getInt(Properties config, String key, int default_value)
+    {
+        String str = config.getProperty(key);
+        try {
+            if (str != null && str.length() > 0)
+                return Integer.decode(str);
+        } catch (NumberFormatException e) { }
+
+        return default_value;
+    }
+
+    public ISAType getISAType() {
+        return isa_type;
+    }
+    public boolean useForwarding() {
+        return use_forwarding;
+    }
+    public boolean useLoadStallBubble() {
+        return use_load_stall_bubble;
+    }
+    public boolean ignoreBranchDelaySlots() {
+        return no_branch_delay_slot;
+    }
+    public int getNumBranchDelaySlots() {
+        return num_branch_delay_slots;
+    }
+    public BranchPredictorType getBranchPredictorType() {
+        return branch_predictor_type;
+    }
+    public BranchPredictorState getBranchPredictorInitialState() {
+        return branch_predictor_initial_state;
+    }
+    public int getBranchPredictorTableSize() {
+        return branch_predictor_table_size;
+    }
+    public int getMaxCycles() {
+        return max_cycles;
+    }
+}
@@ -24,14 +24,19 @@ public class BranchPredictionModuleExecuteData
 {
 
 	private boolean do_speculative_jump;
-	private uint32 branch_tgt;
-	private uint32 branch_pc;
+	private int branch_tgt;
+	private int branch_pc;
 	
-	public BranchPredictionModuleExecuteData(boolean doSpeculativeJump, uint32 branchPc, uint32 branchTgt)
+	public BranchPredictionModuleExecuteData(boolean doSpeculativeJump, int branchPc, int branchTgt)
+	{
+		set(doSpeculativeJump, branchPc, branchTgt);
+	}
+
+	public void set(boolean doSpeculativeJump, int branchPc, int branchTgt)
 	{
 		do_speculative_jump = doSpeculativeJump;
-		branch_tgt = new uint32(branchTgt);
-		branch_pc = new uint32(branchPc);
+		branch_tgt = branchTgt;
+		branch_pc = branchPc;
 	}
 
 	public boolean getDoSpeculativeJump()
@@ -39,12 +44,12 @@ public class BranchPredictionModuleExecuteData
 		return do_speculative_jump;
 	}
 
-	public uint32 getBranchTgt()
+	public int getBranchTgt()
 	{
 		return branch_tgt;
 	}
 	
-	public uint32 getPc()
+	public int getPc()
 	{
 		return branch_pc;
 	}
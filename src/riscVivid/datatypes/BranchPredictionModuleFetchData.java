@@ -24,14 +24,19 @@ public class BranchPredictionModuleFetchData
 {
 
 	private boolean do_speculative_jump;
-	private uint32 branch_tgt;
-	private uint32 pc;
+	private int branch_tgt;
+	private int pc;
 	
-	public BranchPredictionModuleFetchData(boolean doSpeculativeJump,  uint32 Pc, uint32 branchTgt)
+	public BranchPredictionModuleFetchData(boolean doSpeculativeJump, int Pc, int branchTgt)
+	{
+		set(doSpeculativeJump, Pc, branchTgt);
+	}
+
+	public void set(boolean doSpeculativeJump, int Pc, int branchTgt)
 	{
 		this.pc = Pc;
 		do_speculative_jump = doSpeculativeJump;
-		branch_tgt = new uint32(branchTgt);
+		branch_tgt = branchTgt;
 	}
 
 	public boolean getDoSpeculativeJump()
@@ -39,12 +44,12 @@ public class BranchPredictionModuleFetchData
 		return do_speculative_jump;
 	}
 
-	public uint32 getBranchTgt()
+	public int getBranchTgt()
 	{
 		return branch_tgt;
 	}
 
-	public uint32 getPc()
+	public int getPc()
 	{
 		return pc;
 	}
@@ -25,7 +25,16 @@ public class BranchPredictionModuleOutputData
 	private BranchPredictionModuleFetchData bpmfd;
 	private BranchPredictionModuleExecuteData bpmed;
 	
+	public BranchPredictionModuleOutputData()
+	{
+	}
+	
 	public BranchPredictionModuleOutputData(BranchPredictionModuleFetchData bpmfd, BranchPredictionModuleExecuteData bpmed)
+	{
+		set(bpmfd, bpmed);
+	}
+	
+	public void set(BranchPredictionModuleFetchData bpmfd, BranchPredictionModuleExecuteData bpmed)
 	{
 		this.bpmfd = bpmfd;
 		this.bpmed = bpmed;
@@ -33,6 +33,9 @@ public enum BranchPredictorType
 	D_1BIT,
 	D_2BIT_SATURATION,
 	D_2BIT_HYSTERESIS,
+	D_GSHARE,
+	D_TOURNAMENT,
+	D_TAGE,
 	UNKNOWN;
 	
 	public String toGuiString()
@@ -44,13 +47,19 @@ public enum BranchPredictorType
 		case S_ALWAYS_TAKEN:
 			return "Static, Always Taken";
 		case S_BACKWARD_TAKEN:
-			return "Static, Backward Always Taken";
+			return "Static, Backward Taken, Forward Not Taken";
 		case D_1BIT:
 			return "Dynamic 1-Bit Predictor";
 		case D_2BIT_SATURATION:
 			return "Dynamic 2-Bit Saturation Predictor";
 		case D_2BIT_HYSTERESIS:
 			return "Dynamic 2-Bit Hysteresis Predictor";
+		case D_GSHARE:
+			return "Dynamic Gshare Predictor";
+		case D_TOURNAMENT:
+			return "Dynamic Tournament Predictor";
+		case D_TAGE:
+			return "Dynamic TAGE Predictor";
 		case UNKNOWN:
 			return "None";
 		default:
@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.datatypes;
+
+/**
+ * What the branch target buffer did when it was updated with a resolved branch
+ */
+public enum BranchTargetBufferUpdateResult
+{
+	/// the branch was found with the same target
+	HIT,
+	/// the branch was stored in an unused entry
+	COLD_MISS,
+	/// the branch was found with another target, the target was replaced
+	TARGET_CHANGE,
+	/// the branch replaced the entry of another branch
+	CONFLICT_EVICTION
+}
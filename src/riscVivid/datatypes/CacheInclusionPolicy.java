@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.datatypes;
+
+/**
+ * The relation of the L2 cache to the caches above it.
+ */
+public enum CacheInclusionPolicy {
+	// neither inclusive nor exclusive: lines are loaded into both levels
+	// and the L2 cache replaces lines independently of the levels above
+	NON_INCLUSIVE,
+	// lines replaced in the L2 cache are invalidated in the levels above
+	INCLUSIVE,
+	// lines move up when they are loaded and are put back into the L2
+	// cache when they are replaced above
+	EXCLUSIVE,
+	UNKNOWN
+}
@@ -23,7 +23,13 @@ package riscVivid.datatypes;
 public enum CacheReplacementPolicy {
 	FIFO,
 	LRU,
-	PLRU,
+	// true LRU stored as bit matrix per set
+	LRU_MATRIX,
+	// tree pseudo LRU
+	TREE_PLRU,
+	// pseudo LRU with one MRU bit per way
+	BIT_PLRU,
+	RANDOM,
 	DIRECT_MAPPED,
 	UNKNOWN
 }
@@ -23,5 +23,6 @@ package riscVivid.datatypes;
 public enum CacheType {
 	ICACHE,
 	DCACHE,
+	L2CACHE,
 	UNKNOWN
 }
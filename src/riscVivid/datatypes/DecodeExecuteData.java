@@ -25,15 +25,23 @@ import riscVivid.PipelineConstants;
 public class DecodeExecuteData
 {
 
+	// shared by all flushed latches, never modified
+	private static final Instruction BUBBLE_INST = new Instruction(PipelineConstants.PIPELINE_BUBBLE_INSTR);
+
 	private Instruction inst;
-	private uint32 pc;
-	private uint32 alu_in_a;
-	private uint32 alu_in_b;
-	private uint32 branch_ctrl_in_a;
-	private uint32 branch_ctrl_in_b;
-	private uint32 store_value;
+	private int pc;
+	private int alu_in_a;
+	private int alu_in_b;
+	private int branch_ctrl_in_a;
+	private int branch_ctrl_in_b;
+	private int store_value;
+
+	public DecodeExecuteData(Instruction inst, int pc, int alu_in_a, int alu_in_b, int branch_ctrl_in_a, int branch_ctrl_in_b, int store_value)
+	{
+		set(inst, pc, alu_in_a, alu_in_b, branch_ctrl_in_a, branch_ctrl_in_b, store_value);
+	}
 
-	public DecodeExecuteData(Instruction inst, uint32 pc, uint32 alu_in_a, uint32 alu_in_b, uint32 branch_ctrl_in_a, uint32 branch_ctrl_in_b, uint32 store_value)
+	public void set(Instruction inst, int pc, int alu_in_a, int alu_in_b, int branch_ctrl_in_a, int branch_ctrl_in_b, int store_value)
 	{
 		this.inst = inst;
 		this.pc = pc;
@@ -49,42 +57,42 @@ public class DecodeExecuteData
 		return inst;
 	}
 
-	public uint32 getPc()
+	public int getPc()
 	{
 		return pc;
 	}
 	
-	public uint32 getAluInA()
+	public int getAluInA()
 	{
 		return alu_in_a;
 	}
 
-	public uint32 getAluInB()
+	public int getAluInB()
 	{
 		return alu_in_b;
 	}
 
-	public uint32 getBranchCtrlInA()
+	public int getBranchCtrlInA()
 	{
 		return branch_ctrl_in_a;
 	}
 
-	public uint32 getBranchCtrlInB()
+	public int getBranchCtrlInB()
 	{
 		return branch_ctrl_in_b;
 	}
 
-	public uint32 getStoreValue()
+	public int getStoreValue()
 	{
 		return store_value;
 	}
 
 	public void flush()
 	{
-		inst = new Instruction(PipelineConstants.PIPELINE_BUBBLE_INSTR);
-		pc = PipelineConstants.PIPELINE_BUBBLE_ADDR;
-		alu_in_a = new uint32(0);
-		alu_in_b = new uint32(0);
-		store_value = new uint32(0);
+		inst = BUBBLE_INST;
+		pc = PipelineConstants.PIPELINE_BUBBLE_ADDR.getValue();
+		alu_in_a = 0;
+		alu_in_b = 0;
+		store_value = 0;
 	}
 }
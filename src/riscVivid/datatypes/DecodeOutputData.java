@@ -29,6 +29,9 @@ public class DecodeOutputData {
 
 	// asynchronous output
 
+	public DecodeOutputData() {
+	}
+
 	public DecodeOutputData(DecodeExecuteData ded) {
 		this.ded = ded;
 	}
@@ -38,6 +41,11 @@ public class DecodeOutputData {
 		this.pe = idEx;
 	}
 
+	public void set(DecodeExecuteData ded, PipelineException idEx) {
+		this.ded = ded;
+		this.pe = idEx;
+	}
+
 	public DecodeExecuteData getDed() {
 		return ded;
 	}
@@ -23,16 +23,23 @@ package riscVivid.datatypes;
 public class ExecuteBranchPredictionData
 {
 	private Instruction inst;
-	private uint32 branch_pc;
-	private uint32 branch_tgt;
+	private int branch_pc;
+	private int branch_tgt;
 	private boolean jump_taken;
+	private boolean mispredicted_branch;
 
-	public ExecuteBranchPredictionData(Instruction inst, uint32 branchPc, uint32 branchTgt, boolean jumpTaken)
+	public ExecuteBranchPredictionData(Instruction inst, int branchPc, int branchTgt, boolean jumpTaken, boolean mispredictedBranch)
+	{
+		set(inst, branchPc, branchTgt, jumpTaken, mispredictedBranch);
+	}
+
+	public void set(Instruction inst, int branchPc, int branchTgt, boolean jumpTaken, boolean mispredictedBranch)
 	{
 		this.inst = inst;
 		this.branch_pc = branchPc;
 		this.branch_tgt = branchTgt;
 		this.jump_taken = jumpTaken;
+		this.mispredicted_branch = mispredictedBranch;
 	}
 
 	public Instruction getInst()
@@ -40,12 +47,12 @@ public class ExecuteBranchPredictionData
 		return inst;
 	}
 
-	public uint32 getBranchPc()
+	public int getBranchPc()
 	{
 		return branch_pc;
 	}
 
-	public uint32 getBranchTgt()
+	public int getBranchTgt()
 	{
 		return branch_tgt;
 	}
@@ -55,4 +62,9 @@ public class ExecuteBranchPredictionData
 		return jump_taken;
 	}
 
+	public boolean getMispredictedBranch()
+	{
+		return mispredicted_branch;
+	}
+
 }
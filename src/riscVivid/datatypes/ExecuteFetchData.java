@@ -24,13 +24,21 @@ package riscVivid.datatypes;
 public class ExecuteFetchData
 {
 
+	// shared by all flushed latches, never modified
+	private static final Instruction FLUSHED_INST = new Instruction(new uint32(0));
+
 	private Instruction inst;
-	private uint32 pc;
-	private uint32 new_pc;
+	private int pc;
+	private int new_pc;
 	private boolean jump;
 	private boolean mispredicted_branch;
 
-	public ExecuteFetchData(Instruction inst, uint32 pc, uint32 new_pc, boolean jump, boolean mispredictedBranch)
+	public ExecuteFetchData(Instruction inst, int pc, int new_pc, boolean jump, boolean mispredictedBranch)
+	{
+		set(inst, pc, new_pc, jump, mispredictedBranch);
+	}
+
+	public void set(Instruction inst, int pc, int new_pc, boolean jump, boolean mispredictedBranch)
 	{
 		this.inst = inst;
 		this.pc = pc;
@@ -39,12 +47,12 @@ public class ExecuteFetchData
 		this.mispredicted_branch = mispredictedBranch;
 	}
 
-	public uint32 getNewPc()
+	public int getNewPc()
 	{
 		return new_pc;
 	}
 
-	public uint32 getPc()
+	public int getPc()
 	{
 		return pc;
 	}
@@ -66,8 +74,8 @@ public class ExecuteFetchData
 	
 	public void flush()
 	{
-		inst = new Instruction(new uint32(0));
-		new_pc = new uint32(0);
+		inst = FLUSHED_INST;
+		new_pc = 0;
 		jump = false;
 		mispredicted_branch = false;
 	}
@@ -26,17 +26,27 @@ import riscVivid.PipelineConstants;
 public class ExecuteMemoryData
 {
 
+	// shared by all flushed latches, never modified
+	private static final Instruction BUBBLE_INST = new Instruction(PipelineConstants.PIPELINE_BUBBLE_INSTR);
+
 	private Instruction inst;
-	private uint32 pc;
-	private uint32[] alu_out;
-	private uint32 store_value;
+	private int pc;
+	private int alu_out_lo;
+	private int alu_out_hi;
+	private int store_value;
 	private boolean jump;
 
-	public ExecuteMemoryData(Instruction inst, uint32 pc, uint32[] alu_out, uint32 store_value, boolean jump)
+	public ExecuteMemoryData(Instruction inst, int pc, int alu_out_lo, int alu_out_hi, int store_value, boolean jump)
+	{
+		set(inst, pc, alu_out_lo, alu_out_hi, store_value, jump);
+	}
+
+	public void set(Instruction inst, int pc, int alu_out_lo, int alu_out_hi, int store_value, boolean jump)
 	{
 		this.inst = inst;
 		this.pc = pc;
-		this.alu_out = alu_out;
+		this.alu_out_lo = alu_out_lo;
+		this.alu_out_hi = alu_out_hi;
 		this.store_value = store_value;
 		this.jump = jump;
 	}
@@ -46,17 +56,22 @@ public class ExecuteMemoryData
 		return inst;
 	}
 	
-	public uint32 getPc()
+	public int getPc()
 	{
 		return pc;
 	}
 
-	public uint32[] getAluOut()
+	public int getAluOutLO()
+	{
+		return alu_out_lo;
+	}
+
+	public int getAluOutHI()
 	{
-		return alu_out;
+		return alu_out_hi;
 	}
 
-	public uint32 getStoreValue()
+	public int getStoreValue()
 	{
 		return store_value;
 	}
@@ -68,11 +83,11 @@ public class ExecuteMemoryData
 
 	public void flush()
 	{
-		inst = new Instruction(PipelineConstants.PIPELINE_BUBBLE_INSTR);
-		pc = PipelineConstants.PIPELINE_BUBBLE_ADDR;
-		alu_out[0] = new uint32(0);
-		alu_out[1] = new uint32(0);
-		store_value = new uint32(0);
+		inst = BUBBLE_INST;
+		pc = PipelineConstants.PIPELINE_BUBBLE_ADDR.getValue();
+		alu_out_lo = 0;
+		alu_out_hi = 0;
+		store_value = 0;
 		jump = false;
 	}
 
@@ -30,7 +30,16 @@ public class ExecuteOutputData
 	// asynchronous output
 	private boolean[] stall;
 	
+	public ExecuteOutputData()
+	{
+	}
+
 	public ExecuteOutputData(ExecuteMemoryData emd, ExecuteFetchData efd, ExecuteBranchPredictionData ebd, boolean[] stall)
+	{
+		set(emd, efd, ebd, stall);
+	}
+
+	public void set(ExecuteMemoryData emd, ExecuteFetchData efd, ExecuteBranchPredictionData ebd, boolean[] stall)
 	{
 		this.emd = emd;
 		this.efd = efd;
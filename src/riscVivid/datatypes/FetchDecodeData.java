@@ -24,33 +24,38 @@ import riscVivid.PipelineConstants;
 
 public class FetchDecodeData
 {
-	private uint32 instr;
-	private uint32 pc;
+	private int instr;
+	private int pc;
 
 	public FetchDecodeData()
 	{
 		flush();
 	}
 
-	public FetchDecodeData(uint32 instr, uint32 pc)
+	public FetchDecodeData(int instr, int pc)
+	{
+		set(instr, pc);
+	}
+
+	public void set(int instr, int pc)
 	{
 		this.instr = instr;
 		this.pc = pc;
 	}
 
-	public uint32 getInstr()
+	public int getInstr()
 	{
 		return instr;
 	}
 
-	public uint32 getPc()
+	public int getPc()
 	{
 		return pc;
 	}
 
 	public void flush()
 	{
-		instr = PipelineConstants.PIPELINE_BUBBLE_INSTR;
-		pc = PipelineConstants.PIPELINE_BUBBLE_ADDR;
+		instr = PipelineConstants.PIPELINE_BUBBLE_INSTR.getValue();
+		pc = PipelineConstants.PIPELINE_BUBBLE_ADDR.getValue();
 	}
 }
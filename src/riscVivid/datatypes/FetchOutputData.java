@@ -27,6 +27,12 @@ public class FetchOutputData
 	private FetchDecodeData fdd;
 	private boolean[] flush;
 	private PipelineException pe = null;
+	// set if no instruction was fetched because the instruction memory has not delivered it yet
+	private boolean stall = false;
+
+	public FetchOutputData()
+	{
+	}
 
 	public FetchOutputData(FetchDecodeData fdd, boolean[] flush)
 	{
@@ -40,6 +46,20 @@ public class FetchOutputData
         this.pe = ex;
     }
 
+	public FetchOutputData(FetchDecodeData fdd, boolean[] flush, PipelineException ex, boolean stall)
+	{
+		this(fdd, flush, ex);
+		this.stall = stall;
+	}
+
+	public void set(FetchDecodeData fdd, boolean[] flush, PipelineException ex, boolean stall)
+	{
+		this.fdd = fdd;
+		this.flush = flush;
+		this.pe = ex;
+		this.stall = stall;
+	}
+
 	public FetchDecodeData getFdd()
 	{
 		return fdd;
@@ -50,6 +70,11 @@ public class FetchOutputData
 		return flush;
 	}
 
+	public boolean getStall()
+	{
+		return stall;
+	}
+
 	public boolean hasExceptionOccured()
 	{
 		return pe != null;
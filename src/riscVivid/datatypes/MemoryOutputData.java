@@ -28,6 +28,10 @@ public class MemoryOutputData
 	private MemoryWritebackData mwd;
 	private PipelineException pe = null;
 	
+	public MemoryOutputData()
+	{
+	}
+	
 	public MemoryOutputData(MemoryWritebackData mwd)
 	{
 		this.mwd = mwd;
@@ -38,6 +42,12 @@ public class MemoryOutputData
 	    this.pe = memException;
 	}
 
+	public void set(MemoryWritebackData mwd, PipelineException memException)
+	{
+		this.mwd = mwd;
+		this.pe = memException;
+	}
+
 	public MemoryWritebackData getMwd()
 	{
 		return mwd;
@@ -24,17 +24,27 @@ package riscVivid.datatypes;
 public class MemoryWritebackData
 {
 
+	// shared by all flushed latches, never modified
+	private static final Instruction FLUSHED_INST = new Instruction(new uint32(0));
+
 	private Instruction inst;
-	private uint32 pc;
-	private uint32[] alu_out;
-	private uint32 ld_result;
+	private int pc;
+	private int alu_out_lo;
+	private int alu_out_hi;
+	private int ld_result;
 	private boolean jump;
 
-	public MemoryWritebackData(Instruction inst, uint32 pc, uint32[] alu_out, uint32 ld_result, boolean jump)
+	public MemoryWritebackData(Instruction inst, int pc, int alu_out_lo, int alu_out_hi, int ld_result, boolean jump)
+	{
+		set(inst, pc, alu_out_lo, alu_out_hi, ld_result, jump);
+	}
+
+	public void set(Instruction inst, int pc, int alu_out_lo, int alu_out_hi, int ld_result, boolean jump)
 	{
 		this.inst = inst;
 		this.pc = pc;
-		this.alu_out = alu_out;
+		this.alu_out_lo = alu_out_lo;
+		this.alu_out_hi = alu_out_hi;
 		this.ld_result = ld_result;
 		this.jump = jump;
 	}
@@ -44,17 +54,22 @@ public class MemoryWritebackData
 		return inst;
 	}
 	
-	public uint32 getPc()
+	public int getPc()
 	{
 		return pc;
 	}
 
-	public uint32[] getAluOut()
+	public int getAluOutLO()
+	{
+		return alu_out_lo;
+	}
+
+	public int getAluOutHI()
 	{
-		return alu_out;
+		return alu_out_hi;
 	}
 
-	public uint32 getLdResult()
+	public int getLdResult()
 	{
 		return ld_result;
 	}
@@ -66,11 +81,11 @@ public class MemoryWritebackData
 	
 	public void flush()
 	{
-		inst = new Instruction(new uint32(0));
-		pc = new uint32(0);
-		alu_out[0] = new uint32(0);
-		alu_out[1] = new uint32(0);
-		ld_result = new uint32(0);
+		inst = FLUSHED_INST;
+		pc = 0;
+		alu_out_lo = 0;
+		alu_out_hi = 0;
+		ld_result = 0;
 		jump = false;
 	}
 
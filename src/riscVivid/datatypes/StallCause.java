@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.datatypes;
+
+public enum StallCause {
+	// an instruction depends on the load directly preceding it
+	LOAD_USE,
+	// the instruction memory has not delivered the instruction yet
+	INSTRUCTION_FETCH,
+	// a load waits for the data memory
+	DATA_LOAD,
+	// a store waits for the data memory
+	DATA_STORE,
+	// a miss waits for a free miss status holding register of the data cache
+	MSHR_FULL
+}
@@ -30,6 +30,10 @@ public class WritebackOutputData
 	private boolean interrupt_occured;
 	private PipelineException pe = null;
 
+	public WritebackOutputData()
+	{
+	}
+
 	public WritebackOutputData(WriteBackData wbd, boolean caught_break, boolean interrupt_occured)
 	{
 		this.wbd = wbd; 
@@ -43,6 +47,14 @@ public class WritebackOutputData
 		this.pe = wbEx;
 	}
 
+	public void set(WriteBackData wbd, boolean caught_break, boolean interrupt_occured, PipelineException wbEx)
+	{
+		this.wbd = wbd;
+		this.caught_break = caught_break;
+		this.interrupt_occured = interrupt_occured;
+		this.pe = wbEx;
+	}
+
 	public WriteBackData getWbd()
 	{
 		return wbd;
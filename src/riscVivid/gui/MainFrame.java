@@ -66,6 +66,8 @@ public class MainFrame extends JFrame implements ActionListener, ItemListener
 
     public Output output;
     public Input input;
+    private TrapObservableDefault observableOutput;
+    private TrapObservableDefault observableInput;
 
     private RiscVividSimulator sim = null;
     private UndoManager undoMgr;
@@ -84,16 +86,11 @@ public class MainFrame extends JFrame implements ActionListener, ItemListener
         final ImageIcon icon = new ImageIcon(getClass().getResource("/img/riscVivid-quadrat128x128.png"), "riscVivid icon");
         setIconImage(icon.getImage());
 
-        // Register output for pipeline
-        TrapObservableDefault observableOutput = new TrapObservableDefault();
+        // Output and input for the pipeline, registered with every new simulator
+        observableOutput = new TrapObservableDefault();
         observableOutput.addObserver(output);
-        RISCVSyscallHandler.getInstance().setTrapObserverOutput(observableOutput);
-
-        // Register input for pipeline
-        TrapObservableDefault observableInput = new TrapObservableDefault();
+        observableInput = new TrapObservableDefault();
         observableInput.addObserver(input);
-        RISCVSyscallHandler.getInstance().setTrapObserverInput(observableInput);
-        RISCVSyscallHandler.getInstance().setInput(input);
     }
 
     //thus it has a static access method
@@ -182,6 +179,13 @@ public class MainFrame extends JFrame implements ActionListener, ItemListener
     {
         this.sim = sim;
         pexHandler.setSimulator(sim);
+        if (sim != null)
+        {
+            RISCVSyscallHandler syscallHandler = sim.getContext().getSyscallHandler();
+            syscallHandler.setTrapObserverOutput(observableOutput);
+            syscallHandler.setTrapObserverInput(observableInput);
+            syscallHandler.setInput(input);
+        }
     }
 
     public void setOpenDLXSimState(OpenDLXSimState s)
@@ -27,7 +27,6 @@ import riscVivid.gui.MainFrame;
 import riscVivid.gui.command.Command;
 import riscVivid.gui.internalframes.OpenDLXSimInternalFrame;
 import riscVivid.gui.util.DialogWrapper;
-import riscVivid.util.Statistics;
 
 public class CommandResetSimulator implements Command
 {
@@ -52,7 +51,6 @@ public class CommandResetSimulator implements Command
                 if (jif instanceof OpenDLXSimInternalFrame)
                     ((OpenDLXSimInternalFrame) jif).clean();
 
-            Statistics.getInstance().reset();
             mf.setOpenDLXSimState(GUI_CONST.OpenDLXSimState.IDLE);
         }
         catch (Exception e)
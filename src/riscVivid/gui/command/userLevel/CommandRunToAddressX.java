@@ -20,11 +20,9 @@
  ******************************************************************************/
 package riscVivid.gui.command.userLevel;
 
-import java.util.Queue;
-
+import riscVivid.PipelineLatch;
 import riscVivid.RiscVividSimulator;
 import riscVivid.datatypes.FetchDecodeData;
-import riscVivid.datatypes.uint32;
 import riscVivid.exception.PipelineException;
 import riscVivid.gui.MainFrame;
 import riscVivid.gui.Preference;
@@ -66,9 +64,9 @@ public class CommandRunToAddressX implements Command
                 {
                     // if value is valid, save it as new preference
                     Preference.pref.put(preferenceKey, "0x" + Integer.toHexString(value));
-                    uint32 target_address = new uint32(value);
-                    Queue<FetchDecodeData> fetch_decode_latch = openDLXSim.getPipeline().getFetchDecodeLatch();
-                    while (!fetch_decode_latch.element().getPc().equals(target_address) && !openDLXSim.isFinished())
+                    int target_address = value;
+                    PipelineLatch<FetchDecodeData> fetch_decode_latch = openDLXSim.getPipeline().getFetchDecodeLatch();
+                    while ((fetch_decode_latch.element().getPc() != target_address) && !openDLXSim.isFinished())
                     {
                         try
                         {
@@ -20,8 +20,7 @@
  ******************************************************************************/
 package riscVivid.gui.command.userLevel;
 
-import java.util.Queue;
-
+import riscVivid.PipelineLatch;
 import riscVivid.RiscVividSimulator;
 import riscVivid.datatypes.MemoryWritebackData;
 import riscVivid.datatypes.uint32;
@@ -57,7 +56,7 @@ public class CommandRunToNextBreakpoint implements Command
             try
             {
                 RiscVividSimulator openDLXSim = mf.getOpenDLXSim();
-                Queue<MemoryWritebackData> memory_writeback_latch = openDLXSim.getPipeline().getMemoryWriteBackLatch();
+                PipelineLatch<MemoryWritebackData> memory_writeback_latch = openDLXSim.getPipeline().getMemoryWriteBackLatch();
                 
                 try
                 {
@@ -65,7 +64,7 @@ public class CommandRunToNextBreakpoint implements Command
                     {
                         openDLXSim.step();
 
-                        uint32 writebackAddr = memory_writeback_latch.element().getPc();
+                        uint32 writebackAddr = new uint32(memory_writeback_latch.element().getPc());
                         if (bm.isBreakpoint(writebackAddr)) {
                             int line = bm.getCorrespondingLine(writebackAddr);
                             EditorFrame.getInstance(mf).scrollLineToVisible(line);
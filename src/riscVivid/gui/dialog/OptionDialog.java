@@ -393,6 +393,9 @@ public class OptionDialog extends JDialog implements ActionListener, ItemListene
 
             case D_2BIT_SATURATION:
             case D_2BIT_HYSTERESIS:
+            case D_GSHARE:
+            case D_TOURNAMENT:
+            case D_TAGE:
                 switch(branch_predictor_initial_state)
                 {
                 case PREDICT_NOT_TAKEN:
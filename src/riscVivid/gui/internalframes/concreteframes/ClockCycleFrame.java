@@ -279,8 +279,9 @@ public final class ClockCycleFrame extends OpenDLXSimInternalFrame implements GU
         model.setRowCount(0);
         DLXAssembler asm = new DLXAssembler();
 
+        ClockCycleLog clock_cycle_log = openDLXSim.getContext().getClockCycleLog();
         int i = 0;
-        for (uint32 addr : ClockCycleLog.code)
+        for (uint32 addr : clock_cycle_log.code)
         {
             try
             {
@@ -298,7 +299,7 @@ public final class ClockCycleFrame extends OpenDLXSimInternalFrame implements GU
                 model.addColumn(i);
                 model.addRow(new String[] { "" });
 
-                final ArrayList<Entry<String, uint32>> list = ClockCycleLog.log.get(i);
+                final ArrayList<Entry<String, uint32>> list = clock_cycle_log.log.get(i);
                 // go through the addresses of the instructions executed in Cycle i
                 for (Entry<String, uint32> entry : list)
                 {
@@ -35,6 +35,7 @@ import riscVivid.gui.internalframes.OpenDLXSimInternalFrame;
 import riscVivid.gui.internalframes.factories.tableFactories.CodeTableFactory;
 import riscVivid.gui.internalframes.util.TableSizeCalculator;
 import riscVivid.gui.util.MWheelFontSizeChanger;
+import riscVivid.util.CalculationHelper;
 
 @SuppressWarnings("serial")
 public final class CodeFrame extends OpenDLXSimInternalFrame
@@ -61,11 +62,11 @@ public final class CodeFrame extends OpenDLXSimInternalFrame
         int[] selectedRows = codeTable.getSelectedRows();
 
         final PipelineContainer pipeline = openDLXSim.getPipeline();
-        IFValue = pipeline.getFetchDecodeLatch().element().getPc().getValueAsHexString();
-        IDValue = pipeline.getDecodeExecuteLatch().element().getPc().getValueAsHexString();
-        EXValue = pipeline.getExecuteMemoryLatch().element().getPc().getValueAsHexString();
-        MEMValue = pipeline.getMemoryWriteBackLatch().element().getPc().getValueAsHexString();
-        WBValue = pipeline.getWriteBackLatch().element().getPc().getValueAsHexString();
+        IFValue = CalculationHelper.toHexString(pipeline.getFetchDecodeLatch().element().getPc());
+        IDValue = CalculationHelper.toHexString(pipeline.getDecodeExecuteLatch().element().getPc());
+        EXValue = CalculationHelper.toHexString(pipeline.getExecuteMemoryLatch().element().getPc());
+        MEMValue = CalculationHelper.toHexString(pipeline.getMemoryWriteBackLatch().element().getPc());
+        WBValue = CalculationHelper.toHexString(pipeline.getWriteBackLatch().element().getPc());
 
         TableModel model = codeTable.getModel();
         for (int row = 0; row < model.getRowCount(); ++row)
@@ -26,11 +26,11 @@ import java.awt.Font;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 
+import riscVivid.RiscVividSimulator;
 import riscVivid.gui.MainFrame;
 import riscVivid.gui.Preference;
 import riscVivid.gui.internalframes.OpenDLXSimInternalFrame;
 import riscVivid.gui.util.MWheelFontSizeChanger;
-import riscVivid.util.Statistics;
 
 @SuppressWarnings("serial")
 public final class StatisticsFrame extends OpenDLXSimInternalFrame
@@ -61,7 +61,8 @@ public final class StatisticsFrame extends OpenDLXSimInternalFrame
     @Override
     public void update()
     {
-        statArea.setText(Statistics.getInstance().toString());
+        RiscVividSimulator sim = MainFrame.getInstance().getOpenDLXSim();
+        statArea.setText((sim != null) ? sim.getContext().getStatistics().toString() : "");
     }
 
     @Override
@@ -261,7 +261,7 @@ public class TextNumberingPanel extends JPanel
         boolean drawStoppedOnLine = mf.isExecuting() && mf.getOpenDLXSim() != null && !mf.getOpenDLXSim().isFinished();
         int lineStoppedOn = -1;
         if (drawStoppedOnLine) {
-            uint32 addrStoppedOn = mf.getOpenDLXSim().getPipeline().getMemoryWriteBackLatch().element().getPc();
+            uint32 addrStoppedOn = new uint32(mf.getOpenDLXSim().getPipeline().getMemoryWriteBackLatch().element().getPc());
             if (addrStoppedOn.getValue() == 0 || !bm.isBreakpoint(addrStoppedOn))
                 drawStoppedOnLine = false;
             else
@@ -0,0 +1,414 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.main;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Level;
+
+import riscVivid.datatypes.CacheType;
+import riscVivid.datatypes.RequestType;
+import riscVivid.exception.MemoryException;
+import riscVivid.exception.PipelineException;
+import riscVivid.memory.AddressTraceWriter;
+import riscVivid.memory.Cache;
+import riscVivid.memory.MainMemory;
+import riscVivid.memory.MemoryInterface;
+import riscVivid.util.LoggerConfigurator;
+import riscVivid.util.Statistics;
+
+/**
+ * Replays an address trace recorded with address_trace_file through cache
+ * hierarchies built from the usual icache_*, dcache_* and l2cache_* keys,
+ * without running the pipeline. The trace is loaded once and every
+ * configuration is replayed on its own worker thread, so a design space
+ * sweep costs one pipeline run.
+ *
+ * The main memory is empty, the trace holds addresses only. Stores write
+ * zeros, which does not change the hit and miss behavior.
+ *
+ * The trace holds no timing either. Every access is replayed as one cycle
+ * of the prefetchers and miss status holding registers, and a data access
+ * waits for a free register like the memory stage does. Prefetch
+ * timeliness and MSHR occupancy are therefore only approximations of a
+ * pipeline run. Since the trace holds no PCs, the stride prefetcher and
+ * the miss analysis see all data accesses at PC 0.
+ */
+public class AddressTraceReplay
+{
+    private static final String CSV_HEADER =
+            "config,icache_accesses,icache_hits,icache_misses,dcache_accesses,dcache_hits,dcache_misses,"
+            + "dcache_words_stored,dcache_write_backs,l2cache_accesses,l2cache_hits,l2cache_misses,"
+            + "l2cache_words_stored,l2cache_write_backs,time_ms,message";
+
+    // record i: kind and width packed as in the file, and the address
+    private final byte[] kinds;
+    private final int[] addresses;
+
+    public AddressTraceReplay(String trace_file) throws IOException
+    {
+        File f = new File(trace_file);
+        long records = (f.length() - 8) / 5;
+        if (records > Integer.MAX_VALUE)
+        {
+            throw new IOException("Address trace " + trace_file + " is too large");
+        }
+        kinds = new byte[(int) records];
+        addresses = new int[(int) records];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f), 1 << 16)))
+        {
+            if (in.readInt() != AddressTraceWriter.MAGIC)
+            {
+                throw new IOException(trace_file + " is not an address trace");
+            }
+            int version = in.readInt();
+            if (version != AddressTraceWriter.VERSION)
+            {
+                throw new IOException("Unsupported address trace version " + version);
+            }
+            for (int i = 0; i < kinds.length; i++)
+            {
+                kinds[i] = in.readByte();
+                addresses[i] = in.readInt();
+            }
+        }
+    }
+
+    public int size()
+    {
+        return kinds.length;
+    }
+
+    /**
+     * The outcome of replaying the trace with one configuration.
+     */
+    public static class Result
+    {
+        public final String name;
+        public Statistics stat = null;
+        public long time_ms = 0;
+        public String message = "";
+
+        public Result(String name)
+        {
+            this.name = name;
+        }
+
+        public String toCSV()
+        {
+            String s = BatchRunner.Result.csvField(name);
+            if (stat != null)
+            {
+                s += "," + stat.getIcache_accesses() + "," + stat.getIcache_hits() + "," + stat.getIcache_misses()
+                        + "," + stat.getDcache_accesses() + "," + stat.getDcache_hits() + "," + stat.getDcache_misses()
+                        + "," + stat.getDcache_words_stored() + "," + stat.getDcache_write_backs()
+                        + "," + stat.getL2cache_accesses() + "," + stat.getL2cache_hits() + "," + stat.getL2cache_misses()
+                        + "," + stat.getL2cache_words_stored() + "," + stat.getL2cache_write_backs();
+            }
+            else
+            {
+                s += ",,,,,,,,,,,,,";
+            }
+            return s + "," + time_ms + "," + BatchRunner.Result.csvField(message);
+        }
+    }
+
+    /**
+     * Replays the whole trace through the hierarchy described by config.
+     * Never throws; errors are reported in the result.
+     */
+    public Result replay(String name, Properties config)
+    {
+        Result result = new Result(name);
+        long start_time = System.nanoTime();
+        try
+        {
+            Statistics stat = new Statistics();
+            MemoryInterface next_level = new MainMemory(Integer.decode(config.getProperty("memory_latency", "0")).shortValue());
+            if (Integer.decode(config.getProperty("l2cache_use", "0")) != 0)
+            {
+                next_level = Cache.createFromConfig(CacheType.L2CACHE, config, next_level, stat);
+            }
+            MemoryInterface imem = next_level;
+            Cache icache = null;
+            if (Integer.decode(config.getProperty("icache_use", "0")) != 0)
+            {
+                imem = icache = Cache.createFromConfig(CacheType.ICACHE, config, next_level, stat);
+            }
+            MemoryInterface dmem = next_level;
+            Cache dcache = null;
+            if (Integer.decode(config.getProperty("dcache_use", "0")) != 0)
+            {
+                dmem = dcache = Cache.createFromConfig(CacheType.DCACHE, config, next_level, stat);
+            }
+
+            for (int i = 0; i < kinds.length; i++)
+            {
+                int addr = addresses[i];
+                int width = kinds[i] & 0xF;
+                int kind = kinds[i] >> 4;
+                // the outstanding misses and prefetches proceed in every cycle
+                doCycle(icache, dcache);
+                if ((kind != AddressTraceWriter.FETCH) && (dcache != null))
+                {
+                    // like the memory stage, stall until a register is free
+                    RequestType type = (kind == AddressTraceWriter.LOAD) ? RequestType.DATA_RD : RequestType.DATA_WR;
+                    for (int wait = dcache.getMSHRWait(type, addr); wait > 0; wait--)
+                    {
+                        doCycle(icache, dcache);
+                    }
+                }
+                switch (kind)
+                {
+                case AddressTraceWriter.FETCH:
+                    imem.read_u32(addr, false);
+                    break;
+                case AddressTraceWriter.LOAD:
+                    switch (width)
+                    {
+                    case 1:
+                        dmem.read_u8(addr, false);
+                        break;
+                    case 2:
+                        dmem.read_u16(addr, false);
+                        break;
+                    case 4:
+                        dmem.read_u32(addr, false);
+                        break;
+                    default:
+                        dmem.read_u64(addr, false);
+                    }
+                    break;
+                default:
+                    switch (width)
+                    {
+                    case 1:
+                        dmem.write_u8(addr, (byte) 0);
+                        break;
+                    case 2:
+                        dmem.write_u16(addr, (short) 0);
+                        break;
+                    case 4:
+                        dmem.write_u32(addr, 0);
+                        break;
+                    default:
+                        dmem.write_u64(addr, 0);
+                    }
+                }
+            }
+
+            // count the write backs of the remaining dirty lines like at the
+            // end of a simulation
+            if (dmem instanceof Cache)
+            {
+                ((Cache) dmem).flush();
+            }
+            else if (next_level instanceof Cache)
+            {
+                ((Cache) next_level).flush();
+            }
+            result.stat = stat;
+        }
+        catch (PipelineException e)
+        {
+            result.message = e.toString();
+        }
+        catch (RuntimeException e)
+        {
+            result.message = e.toString();
+        }
+        result.time_ms = (System.nanoTime() - start_time) / 1000000;
+        return result;
+    }
+
+    private static void doCycle(Cache icache, Cache dcache) throws MemoryException
+    {
+        if (icache != null)
+        {
+            icache.doCycle();
+        }
+        if (dcache != null)
+        {
+            dcache.doCycle();
+        }
+    }
+
+    /**
+     * Replays the trace with all configurations and writes one CSV record
+     * per configuration, in the order of the configurations.
+     *
+     * @return the number of configurations that failed
+     */
+    public int run(final List<String> names, final List<Properties> configs, int threads, PrintWriter out)
+            throws InterruptedException
+    {
+        // reads from the empty main memory warn about unallocated pages
+        LoggerConfigurator.getInstance().configureLogger("/riscVivid/log4j_warn.properties", null);
+        LoggerConfigurator.getInstance().setLogLevel(Level.ERROR);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Result>> futures = new ArrayList<Future<Result>>(configs.size());
+        for (int i = 0; i < configs.size(); i++)
+        {
+            final String name = names.get(i);
+            final Properties config = configs.get(i);
+            futures.add(pool.submit(new Callable<Result>()
+            {
+                public Result call()
+                {
+                    return replay(name, config);
+                }
+            }));
+        }
+        pool.shutdown();
+
+        int failed = 0;
+        out.println(CSV_HEADER);
+        for (int i = 0; i < futures.size(); i++)
+        {
+            Result result;
+            try
+            {
+                result = futures.get(i).get();
+            }
+            catch (ExecutionException e)
+            {
+                result = new Result(names.get(i));
+                result.message = e.getCause().toString();
+            }
+            if (result.stat == null)
+            {
+                failed++;
+            }
+            out.println(result.toCSV());
+            out.flush();
+        }
+        return failed;
+    }
+
+    /**
+     * A configuration is either a properties file or a list of key=value
+     * pairs separated by commas, e.g. "dcache_use=1,dcache_line_size=16".
+     */
+    static Properties parseConfig(String spec) throws IOException
+    {
+        Properties config = new Properties();
+        File f = new File(spec);
+        if (f.isFile())
+        {
+            try (InputStream in = new FileInputStream(f))
+            {
+                config.load(in);
+            }
+            return config;
+        }
+        for (String pair : spec.split(","))
+        {
+            int eq = pair.indexOf('=');
+            if (eq < 0)
+            {
+                throw new IOException("Neither a file nor key=value pairs: " + spec);
+            }
+            config.setProperty(pair.substring(0, eq).trim(), pair.substring(eq + 1).trim());
+        }
+        return config;
+    }
+
+    /**
+     * Command line: [-j threads] [-o result.csv] trace_file config...
+     *
+     * @return the process exit code: 0 if all configurations were replayed
+     */
+    static int main_replay(String[] args)
+    {
+        int threads = Runtime.getRuntime().availableProcessors();
+        String result_file = null;
+        List<String> specs = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++)
+        {
+            if (args[i].equals("-j") && i + 1 < args.length)
+            {
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            }
+            else if (args[i].equals("-o") && i + 1 < args.length)
+            {
+                result_file = args[++i];
+            }
+            else
+            {
+                specs.add(args[i]);
+            }
+        }
+        if (specs.size() < 2)
+        {
+            System.err.println("An address trace and at least one configuration are needed.");
+            return 2;
+        }
+
+        try
+        {
+            AddressTraceReplay replay = new AddressTraceReplay(specs.get(0));
+            List<String> names = specs.subList(1, specs.size());
+            List<Properties> configs = new ArrayList<Properties>();
+            for (String spec : names)
+            {
+                configs.add(parseConfig(spec));
+            }
+
+            PrintWriter out = (result_file != null) ? new PrintWriter(new FileWriter(result_file))
+                    : new PrintWriter(new OutputStreamWriter(System.out));
+            int failed = replay.run(names, configs, threads, out);
+            if (result_file != null)
+            {
+                out.close();
+            }
+            System.err.println("Replayed " + replay.size() + " accesses with " + configs.size()
+                    + " configurations on " + threads + " threads, " + failed + " failed.");
+            return (failed == 0) ? 0 : 1;
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+            return 2;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return 2;
+        }
+    }
+}
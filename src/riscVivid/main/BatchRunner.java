@@ -0,0 +1,357 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Level;
+
+import riscVivid.RiscVividSimulator;
+import riscVivid.asm.AsmFileLoader;
+import riscVivid.exception.PipelineException;
+import riscVivid.util.LoggerConfigurator;
+import riscVivid.util.Statistics;
+
+/**
+ * Runs many simulations on a fixed size worker pool inside one JVM.
+ *
+ * The inputs are configuration files (.cfg) or assembler sources (.s);
+ * directories are searched (non-recursively) for both. The settings in a
+ * configuration file next to an assembler source with the same name (e.g.
+ * prog.cfg for prog.s) are added to the configuration generated for the
+ * source, so they may override its defaults and add assertions. Such a
+ * file is not an input of its own. Every simulation
+ * runs in fast run mode with its own SimulationContext. One CSV record per
+ * input is written in the order of the inputs, independent of the order in
+ * which the simulations finish. What the simulators and the simulated
+ * programs print is collected per run and written to a separate stream,
+ * also in the order of the inputs.
+ */
+public class BatchRunner
+{
+    private static final String CSV_HEADER =
+            "file,status,cycles,instructions,cpi,exit_code,assertions,failed_assertions,time_ms,message";
+
+    private final List<File> inputs;
+    private final int threads;
+    // receives the output of the simulated programs
+    private final PrintStream program_out;
+
+    public BatchRunner(List<File> inputs, int threads)
+    {
+        this(inputs, threads, System.err);
+    }
+
+    public BatchRunner(List<File> inputs, int threads, PrintStream program_out)
+    {
+        this.inputs = inputs;
+        this.threads = threads;
+        this.program_out = program_out;
+    }
+
+    /**
+     * The outcome of a single simulation.
+     */
+    public static class Result
+    {
+        public final File file;
+        // "exit" (program terminated), "max_cycles" or "error"
+        public String status = "error";
+        public int cycles = 0;
+        public int instructions = 0;
+        public Integer exit_code = null;
+        public int assertions = 0;
+        public int failed_assertions = 0;
+        public long time_ms = 0;
+        public String message = "";
+        // what the simulator and the simulated program printed
+        public byte[] output = new byte[0];
+
+        public Result(File file)
+        {
+            this.file = file;
+        }
+
+        public double getCPI()
+        {
+            return (instructions > 0) ? (double) cycles / instructions : 0.0;
+        }
+
+        /**
+         * @return true if the simulation ran without error and all
+         *          assertions of its configuration held
+         */
+        public boolean passed()
+        {
+            return !status.equals("error") && failed_assertions == 0;
+        }
+
+        public String toCSV()
+        {
+            return csvField(file.getPath()) + "," + status + "," + cycles + "," + instructions + ","
+                    + String.format(Locale.ROOT, "%.4f", getCPI()) + ","
+                    + ((exit_code != null) ? exit_code.toString() : "") + ","
+                    + assertions + "," + failed_assertions + "," + time_ms + "," + csvField(message);
+        }
+
+        static String csvField(String s)
+        {
+            if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0)
+            {
+                return s;
+            }
+            return "\"" + s.replace("\"", "\"\"").replace('\n', ' ') + "\"";
+        }
+    }
+
+    /**
+     * Runs all inputs and writes their results to out.
+     *
+     * @return the number of simulations that did not pass
+     */
+    public int run(PrintWriter out) throws InterruptedException
+    {
+        // the simulators do not configure log4j themselves in batch mode
+        LoggerConfigurator.getInstance().configureLogger("/riscVivid/log4j_warn.properties", null);
+        LoggerConfigurator.getInstance().setLogLevel(Level.WARN);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Result>> futures = new ArrayList<Future<Result>>(inputs.size());
+        for (final File input : inputs)
+        {
+            futures.add(pool.submit(new Callable<Result>()
+            {
+                public Result call()
+                {
+                    return simulate(input);
+                }
+            }));
+        }
+        pool.shutdown();
+
+        int failed = 0;
+        out.println(CSV_HEADER);
+        for (int i = 0; i < futures.size(); i++)
+        {
+            Result result;
+            try
+            {
+                result = futures.get(i).get();
+            }
+            catch (ExecutionException e)
+            {
+                result = new Result(inputs.get(i));
+                result.message = e.getCause().toString();
+            }
+            program_out.write(result.output, 0, result.output.length);
+            program_out.flush();
+            if (!result.passed())
+            {
+                failed++;
+            }
+            out.println(result.toCSV());
+            out.flush();
+        }
+        return failed;
+    }
+
+    /**
+     * Runs a single simulation to its end. Never throws; errors are reported
+     * in the result.
+     */
+    public static Result simulate(File input)
+    {
+        Result result = new Result(input);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long start_time = System.nanoTime();
+        RiscVividSimulator sim = null;
+        try
+        {
+            String configfile = input.getPath();
+            if (configfile.endsWith(".s"))
+            {
+                File generated = new AsmFileLoader(configfile, true).createConfigFile();
+                File settings = getSettingsFile(input);
+                if (settings.isFile())
+                {
+                    Files.write(generated.toPath(), Files.readAllBytes(settings.toPath()), StandardOpenOption.APPEND);
+                }
+                configfile = generated.getPath();
+            }
+            sim = new RiscVividSimulator(configfile, true, false, new PrintStream(output, true));
+            while (!sim.isFinished())
+            {
+                sim.step();
+            }
+            result.status = (sim.getExitCode() != null) ? "exit" : "max_cycles";
+        }
+        catch (PipelineException e)
+        {
+            result.message = e.toString();
+            if (sim != null)
+            {
+                sim.stopSimulation(true);
+            }
+        }
+        catch (Exception e)
+        {
+            result.message = e.toString();
+        }
+
+        if (sim != null)
+        {
+            Statistics stat = sim.getContext().getStatistics();
+            result.cycles = stat.getCycles();
+            result.instructions = stat.getInstructions();
+            result.exit_code = sim.getExitCode();
+            result.assertions = sim.getCheckedAssertions();
+            result.failed_assertions = sim.getFailedAssertions();
+        }
+        result.time_ms = (System.nanoTime() - start_time) / 1000000;
+        result.output = output.toByteArray();
+        return result;
+    }
+
+    /**
+     * @return the configuration file with the settings for an assembler
+     *          source, it need not exist
+     */
+    static File getSettingsFile(File source)
+    {
+        String path = source.getPath();
+        return new File(path.substring(0, path.length() - ".s".length()) + ".cfg");
+    }
+
+    /**
+     * Expands directories into the .cfg and .s files they contain, skipping
+     * the configuration files generated by AsmFileLoader for .s files and
+     * the settings files of .s files.
+     */
+    public static List<File> collectInputs(List<String> paths)
+    {
+        List<File> inputs = new ArrayList<File>();
+        for (String path : paths)
+        {
+            File f = new File(path);
+            if (f.isDirectory())
+            {
+                File[] files = f.listFiles();
+                if (files == null)
+                {
+                    continue;
+                }
+                Arrays.sort(files);
+                for (File g : files)
+                {
+                    String name = g.getName();
+                    if (g.isFile() && (name.endsWith(".s")
+                            || (name.endsWith(".cfg") && !name.endsWith(AsmFileLoader.CONFIG)
+                                    && !new File(f, name.substring(0, name.length() - ".cfg".length()) + ".s").isFile())))
+                    {
+                        inputs.add(g);
+                    }
+                }
+            }
+            else
+            {
+                inputs.add(f);
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * Command line: [-j threads] [-o result.csv] (file|directory)...
+     *
+     * @return the process exit code: 0 if all simulations passed
+     */
+    static int main_batch(String[] args)
+    {
+        int threads = Runtime.getRuntime().availableProcessors();
+        String result_file = null;
+        List<String> paths = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++)
+        {
+            if (args[i].equals("-j") && i + 1 < args.length)
+            {
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            }
+            else if (args[i].equals("-o") && i + 1 < args.length)
+            {
+                result_file = args[++i];
+            }
+            else
+            {
+                paths.add(args[i]);
+            }
+        }
+
+        List<File> inputs = collectInputs(paths);
+        if (inputs.isEmpty())
+        {
+            System.err.println("No .cfg or .s files given.");
+            return 2;
+        }
+
+        // the output of the simulated programs goes to stderr, so that only
+        // the CSV records are written to stdout
+        try
+        {
+            PrintWriter out = (result_file != null) ? new PrintWriter(new FileWriter(result_file))
+                    : new PrintWriter(new OutputStreamWriter(System.out));
+            int failed = new BatchRunner(inputs, threads, System.err).run(out);
+            if (result_file != null)
+            {
+                out.close();
+            }
+            System.err.println("Ran " + inputs.size() + " simulations on " + threads + " threads, "
+                    + failed + " failed.");
+            return (failed == 0) ? 0 : 1;
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+            return 2;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return 2;
+        }
+    }
+}
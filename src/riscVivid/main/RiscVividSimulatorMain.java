@@ -20,6 +20,8 @@
  ******************************************************************************/
 package riscVivid.main;
 
+import java.util.Arrays;
+
 import riscVivid.RiscVividSimulator;
 import riscVivid.config.GlobalConfig;
 import riscVivid.datatypes.ArchCfg;
@@ -43,10 +45,14 @@ public class RiscVividSimulatorMain
     	else
     	{
 
-    		System.out.println("Parameters: ");
-    		for (int i = 0; i < args.length; i++)
+    		// batch and replay mode write their CSV records to stdout
+    		if (args[0].compareTo("-b") != 0 && args[0].compareTo("-r") != 0)
     		{
-    			System.out.println(i + " " + args[i]);
+    			System.out.println("Parameters: ");
+    			for (int i = 0; i < args.length; i++)
+    			{
+    				System.out.println(i + " " + args[i]);
+    			}
     		}
 
     		if (args[0].compareTo("-c") == 0)
@@ -56,7 +62,24 @@ public class RiscVividSimulatorMain
     			{
     				cmd_args[i] = args[i+1];
     			}
-    			main_cmd(cmd_args);
+    			main_cmd(cmd_args, false);
+    		}
+    		else if (args[0].compareTo("-f") == 0)
+    		{
+    			String[] cmd_args = new String[args.length-1];
+    			for(int i = 0; i < args.length-1; i++)
+    			{
+    				cmd_args[i] = args[i+1];
+    			}
+    			main_cmd(cmd_args, true);
+    		}
+    		else if (args[0].compareTo("-b") == 0)
+    		{
+    			System.exit(BatchRunner.main_batch(Arrays.copyOfRange(args, 1, args.length)));
+    		}
+    		else if (args[0].compareTo("-r") == 0)
+    		{
+    			System.exit(AddressTraceReplay.main_replay(Arrays.copyOfRange(args, 1, args.length)));
     		}
     		else if (args[0].compareTo("-g") == 0)
     		{
@@ -91,6 +114,14 @@ public class RiscVividSimulatorMain
     	System.out.println("|   java -jar riscVivid.jar [-g]               |");
     	System.out.println("| For non interactive version:                 |");
     	System.out.println("|   java -jar riscVivid.jar -c config_file.cfg |");
+    	System.out.println("| Headless fast run (no logs, prints cycles/s):|");
+    	System.out.println("|   java -jar riscVivid.jar -f config_file.cfg |");
+    	System.out.println("| Parallel batch run, one CSV record per file: |");
+    	System.out.println("|   java -jar riscVivid.jar -b [-j threads]    |");
+    	System.out.println("|     [-o result.csv] (file.cfg|file.s|dir)... |");
+    	System.out.println("| Replay an address trace with cache configs:  |");
+    	System.out.println("|   java -jar riscVivid.jar -r [-j threads]    |");
+    	System.out.println("|     [-o out.csv] trace (file.cfg|k=v,...)... |");
     	System.out.println("| This help message:                           |");
     	System.out.println("|   java -jar riscVivid.jar -h                 |");
       	System.out.println("| About & license information:                 |");
@@ -111,11 +142,11 @@ public class RiscVividSimulatorMain
     	RiscVividSimGui.riscVividGui_main();
     }
     
-    static void main_cmd(String[] args)
+    static void main_cmd(String[] args, boolean fastRun)
     {
     	RiscVividSimulator cmdl;
 		try {
-			cmdl = new RiscVividSimulator(args[0]);
+			cmdl = new RiscVividSimulator(args[0], fastRun);
 		} catch (PipelineException e) {
 			e.printStackTrace();
 			cmdl = null;
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.memory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import riscVivid.exception.MemoryException;
+
+/**
+ * Records the address stream the pipeline sends to the instruction and data
+ * memory, i.e. the accesses seen by the L1 caches, for replaying it with
+ * AddressTraceReplay.
+ *
+ * The file starts with the magic "RVAT" and an int version. Each access is a
+ * big endian record of 5 bytes: byte (kind << 4 | width), int address.
+ */
+public class AddressTraceWriter
+{
+	public static final int MAGIC = 0x52564154; // "RVAT"
+	public static final int VERSION = 1;
+
+	public static final int FETCH = 0;
+	public static final int LOAD = 1;
+	public static final int STORE = 2;
+
+	private final DataOutputStream out;
+
+	public AddressTraceWriter(String file) throws MemoryException
+	{
+		try
+		{
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+		}
+		catch (IOException e)
+		{
+			throw new MemoryException("Cannot open address trace file " + file + ": " + e.getMessage());
+		}
+	}
+
+	public void record(int kind, int address, int width) throws MemoryException
+	{
+		try
+		{
+			out.writeByte((kind << 4) | width);
+			out.writeInt(address);
+		}
+		catch (IOException e)
+		{
+			throw new MemoryException("Writing the address trace failed: " + e.getMessage());
+		}
+	}
+
+	public void close()
+	{
+		try
+		{
+			out.close();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+}
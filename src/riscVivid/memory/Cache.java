@@ -20,21 +20,24 @@
  ******************************************************************************/
 package riscVivid.memory;
 
+import java.util.Arrays;
+import java.util.Properties;
+
 import org.apache.log4j.Logger;
 
 import riscVivid.PipelineConstants;
+import riscVivid.datatypes.CacheInclusionPolicy;
+import riscVivid.datatypes.CacheMissType;
 import riscVivid.datatypes.CacheReplacementPolicy;
 import riscVivid.datatypes.CacheType;
 import riscVivid.datatypes.DCacheWritePolicy;
+import riscVivid.datatypes.PrefetcherType;
 import riscVivid.datatypes.RequestType;
-import riscVivid.datatypes.uint16;
-import riscVivid.datatypes.uint32;
-import riscVivid.datatypes.uint64;
-import riscVivid.datatypes.uint8;
 import riscVivid.exception.CacheException;
 import riscVivid.exception.MemoryException;
 import riscVivid.exception.PipelineDataTypeException;
 import riscVivid.util.CacheAddressCalculator;
+import riscVivid.util.CacheMissTable;
 import riscVivid.util.CalculationHelper;
 import riscVivid.util.Statistics;
 
@@ -42,11 +45,12 @@ public abstract class Cache implements MemoryInterface {
 
 	private Logger logger; 
 	
-	protected Statistics stat = Statistics.getInstance();
+	protected Statistics stat;
 	
 	protected CacheType cache_type;
 	
-	protected MainMemory mem;
+	// the next level: another cache or the main memory
+	protected MemoryInterface mem;
 	/// Size of the cache line in bytes 
 	protected int line_size;
 	protected int words_per_line;
@@ -56,17 +60,44 @@ public abstract class Cache implements MemoryInterface {
 	
 	protected CacheReplacementPolicy policy;	
 	private DCacheWritePolicy write_policy;
+	// cycles for a hit, the delay of the next level is added on a miss
+	protected short hit_latency = 0;
+
+	// only set if the miss analysis is enabled
+	private CacheMissClassifier miss_classifier = null;
+	private CacheMissTable miss_table = null;
+	// PC of the instruction causing the current data access
+	private int access_pc = 0;
+	// null for a blocking cache
+	private MissStatusHoldingRegisters mshrs = null;
+	// null without prefetching; the lines being prefetched are tracked in
+	// prefetch_queue, which are the MSHRs of a non-blocking cache
+	private Prefetcher prefetcher = null;
+	private MissStatusHoldingRegisters prefetch_queue = null;
+	private static final int PREFETCH_QUEUE_SIZE = 8;
+	// null without a victim cache; a hit in it takes victim_latency cycles
+	// in addition to the hit latency
+	private VictimCache victim_cache = null;
+	private short victim_latency = 1;
+	// only used by the L2 cache: its relation to the caches above it
+	private CacheInclusionPolicy inclusion = CacheInclusionPolicy.NON_INCLUSIVE;
+	private Cache upper_levels[] = new Cache[0];
 
 	
 	protected int block_offset_size;
 	protected int tag_size;
 	protected int index_size;
 	
+	// address masks, derived from the sizes above
+	private int tag_mask;
+	private int index_mask;
+	private int block_offset_mask;
+	
 	protected CacheLine cache_memory[][];
 	
-	public Cache(CacheType type, int line_size, int line_no, int associativity, DCacheWritePolicy write_policy, MainMemory mem) throws CacheException, PipelineDataTypeException 
+	public Cache(CacheType type, int line_size, int line_no, int associativity, DCacheWritePolicy write_policy, MemoryInterface mem, Statistics stat) throws CacheException, PipelineDataTypeException 
 	{
-		if(type != CacheType.DCACHE)
+		if((type != CacheType.DCACHE) && (type != CacheType.L2CACHE))
 		{
 			throw new CacheException("Cache type: " + type + " is not by this constructor.");
 		}
@@ -76,12 +107,13 @@ public abstract class Cache implements MemoryInterface {
 		this.line_no = line_no;
 		this.associativity = associativity;
 		this.mem = mem;
+		this.stat = stat;
 		this.write_policy = write_policy;
 		
 		initialize();
 	}
 	
-	public Cache(CacheType type, int line_size, int line_no, int associativity, MainMemory mem) throws CacheException, PipelineDataTypeException 
+	public Cache(CacheType type, int line_size, int line_no, int associativity, MemoryInterface mem, Statistics stat) throws CacheException, PipelineDataTypeException 
 	{
 		if(type != CacheType.ICACHE)
 		{
@@ -93,6 +125,7 @@ public abstract class Cache implements MemoryInterface {
 		this.line_no = line_no;
 		this.associativity = associativity;
 		this.mem = mem;
+		this.stat = stat;
 		// ICACHE has no write policy
 		this.write_policy = DCacheWritePolicy.UNKNOWN;
 		
@@ -109,6 +142,10 @@ public abstract class Cache implements MemoryInterface {
 		{
 			logger = Logger.getLogger("DCache");
 		}
+		else if(cache_type == CacheType.L2CACHE)
+		{
+			logger = Logger.getLogger("L2Cache");
+		}
 		else
 		{
 			logger = Logger.getLogger("UNKNOWNCache");
@@ -150,6 +187,10 @@ public abstract class Cache implements MemoryInterface {
 		index_size = cac.getIndexSize();
 		block_offset_size = cac.getBlockOffsetSize();
 		
+		tag_mask = ~(CalculationHelper.generateBitStringOfOnes(index_size + block_offset_size));
+		index_mask = CalculationHelper.generateBitStringOfOnes(index_size);
+		block_offset_mask = CalculationHelper.generateBitStringOfOnes(block_offset_size);
+		
 		if(line_size % PipelineConstants.WORD_SIZE != 0)
 		{
 			throw new CacheException("The cache line size has to be a multiple of the word size (" + PipelineConstants.WORD_SIZE + "), but it is set to " + line_size);
@@ -169,89 +210,89 @@ public abstract class Cache implements MemoryInterface {
 		logger.info("Initialized " + cache_type + " with " + associativity + " ways, " + line_no + " lines, " + lines_per_set + " lines per set, " + words_per_line + " words per line, " + tag_size + " bits for tag, " + index_size + " bits for index, and " + block_offset_size + " bits for block offset. Cache is of type: " + this.getClass());
 	}
 
-	public uint8 read_u8(uint32 addr, boolean log_output) throws MemoryException 
+	public byte read_u8(int addr, boolean log_output) throws MemoryException 
 	{
-		if(cache_type != CacheType.DCACHE)
+		if(cache_type == CacheType.ICACHE)
 		{
 			throw new CacheException("Method read_u8() only supports data caches, but cache type is: " + cache_type); 
 		}
 		
-		uint8 value = new uint8();
+		byte value;
 		
 		if(log_output)
 		{
-			logger.debug("Read u8 from addr: " + addr.getValueAsHexString());
+			if (logger.isDebugEnabled())
+				logger.debug("Read u8 from addr: " + CalculationHelper.toHexString(addr));
 		}
 		
 		if(isHit(addr))
 		{
 			int index = getIndex(addr);
 			int way = getCacheWayForHit(addr);
-			value.setValue(cache_memory[way][index].getByte(getBlockOffset(addr)));
+			recordAccess(addr, true);
+			value = cache_memory[way][index].getByte(getBlockOffset(addr));
 			
 			if(log_output)
 			{
-				logger.debug("Hit in way " + way + " in cache line " + index + " for address " + addr.getValueAsHexString() + " value: " + value.getValueAsHexString() + " (read byte " + (getBlockOffset(addr)&0x3) + " from word " + cache_memory[way][index].getWord(getBlockOffset(addr)&(~0x3)) + ")");
+				if (logger.isDebugEnabled())
+					logger.debug("Hit in way " + way + " in cache line " + index + " for address " + CalculationHelper.toHexString(addr) + " value: " + CalculationHelper.toHexString(value & 0xFF) + " (read byte " + (getBlockOffset(addr)&0x3) + " from word " + cache_memory[way][index].getWord(getBlockOffset(addr)&(~0x3)) + ")");
 				dumpCacheLine(index);
 			}
 			
 			updateReplacementCountersOnAccess(way, index);
+			stat.countCacheHit(cache_type);
 		}
 		else
 		{
-			int cache_line_address = getCacheLineAddr(addr);
-			byte line[] = new byte[line_size];
-			for(int i = 0; i < line_size; i++)
-				line[i] = mem.read_u8(new uint32(cache_line_address + i), false).getValue();
-			value.setValue(mem.read_u8(addr, false));
 			int index = getIndex(addr);
-			int way = getCacheWayForReplacement(addr);
-			cache_memory[way][index].setLine(getTagFromAddress(addr), line);
+			int way = allocateLine(addr);
+			value = cache_memory[way][index].getByte(getBlockOffset(addr));
 			
 			if(log_output)
 			{
-				logger.debug("Miss in cache for address " + addr.getValueAsHexString() + " replaced cache line " + index + " in way " + way + " loaded value: " + value.getValueAsHexString() + " (read byte " + (getBlockOffset(addr)&0x3) + " from word " + cache_memory[way][index].getWord(getBlockOffset(addr)&(~0x3)) + ")");
+				if (logger.isDebugEnabled())
+					logger.debug("Miss in cache for address " + CalculationHelper.toHexString(addr) + " replaced cache line " + index + " in way " + way + " loaded value: " + CalculationHelper.toHexString(value & 0xFF) + " (read byte " + (getBlockOffset(addr)&0x3) + " from word " + cache_memory[way][index].getWord(getBlockOffset(addr)&(~0x3)) + ")");
 				dumpCacheLine(index);
 			}
 			updateReplacementCountersOnMiss(way, index);
+			stat.countCacheMiss(cache_type);
 		}
 		return value;
 	}
 
-	public uint16 read_u16(uint32 addr, boolean log_output) throws MemoryException 
+	public short read_u16(int addr, boolean log_output) throws MemoryException 
 	{
-		uint16 value = new uint16();
+		short value;
 		
 		if(log_output)
-			logger.debug("Read u16 from addr: " + addr.getValueAsHexString());
+			if (logger.isDebugEnabled())
+				logger.debug("Read u16 from addr: " + CalculationHelper.toHexString(addr));
 		if(isHit(addr)) {
 			int index = getIndex(addr);
 			int way = getCacheWayForHit(addr);
-			value.setValue(cache_memory[way][index].getHWord(getBlockOffset(addr)));
+			recordAccess(addr, true);
+			value = cache_memory[way][index].getHWord(getBlockOffset(addr));
 			
 			if(log_output)
 			{
-				logger.debug("Hit in way " + way + " in cache line " + index
-					+ " for address " + addr.getValueAsHexString() 
-					+ " value: " + value.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("Hit in way " + way + " in cache line " + index
+						+ " for address " + CalculationHelper.toHexString(addr) 
+						+ " value: " + CalculationHelper.toHexString(value & 0xFFFF));
 				dumpCacheLine(index);
 			}
 			updateReplacementCountersOnAccess(way, index);
 			stat.countCacheHit(cache_type);
 		} else {
-			int cache_line_address = getCacheLineAddr(addr);
-			byte line[] = new byte[line_size];
-
-			for(int i = 0; i < line_size; i++)
-				line[i] = mem.read_u8(new uint32(cache_line_address + i), false).getValue();
-			value.setValue(mem.read_u16(addr, false));
 			int index = getIndex(addr);
-			int way = getCacheWayForReplacement(addr);
-			cache_memory[way][index].setLine(getTagFromAddress(addr), line);
+			int way = allocateLine(addr);
+			value = cache_memory[way][index].getHWord(getBlockOffset(addr));
 			
-			logger.debug("Accessing way: " + way + " index: " + index);
+			if (logger.isDebugEnabled())
+				logger.debug("Accessing way: " + way + " index: " + index);
 			if(log_output){
-				logger.debug("Miss in cache for address " + addr.getValueAsHexString() + " replaced cache line " + index + " in way " + way + " loaded value: " + value.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("Miss in cache for address " + CalculationHelper.toHexString(addr) + " replaced cache line " + index + " in way " + way + " loaded value: " + CalculationHelper.toHexString(value & 0xFFFF));
 				dumpCacheLine(index);
 			}
 			updateReplacementCountersOnMiss(way, index);
@@ -260,31 +301,34 @@ public abstract class Cache implements MemoryInterface {
 		return value;
 	}
 
-	public uint32 read_u32(uint32 addr) throws MemoryException 
+	public int read_u32(int addr) throws MemoryException 
 	{
 		return read_u32(addr, false);
 	}
 
 
-	public uint32 read_u32(uint32 addr, boolean log_output) throws MemoryException 
+	public int read_u32(int addr, boolean log_output) throws MemoryException 
 	{
 		
-		uint32 value = new uint32();
+		int value;
 		
 		if(log_output)
 		{
-			logger.debug("Read u32 from addr: " + addr.getValueAsHexString());
+			if (logger.isDebugEnabled())
+				logger.debug("Read u32 from addr: " + CalculationHelper.toHexString(addr));
 		}
 		
 		if(isHit(addr))
 		{
 			int index = getIndex(addr);
 			int way = getCacheWayForHit(addr);
-			value.setValue(cache_memory[way][index].getWord(getBlockOffset(addr)));
+			recordAccess(addr, true);
+			value = cache_memory[way][index].getWord(getBlockOffset(addr));
 			
 			if(log_output)
 			{
-				logger.debug("Hit in way " + way + " in cache line " + index + " for address " + addr.getValueAsHexString() + " value: " + value.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("Hit in way " + way + " in cache line " + index + " for address " + CalculationHelper.toHexString(addr) + " value: " + CalculationHelper.toHexString(value));
 				dumpCacheLine(index);
 			}
 			updateReplacementCountersOnAccess(way, index);
@@ -292,18 +336,15 @@ public abstract class Cache implements MemoryInterface {
 		}
 		else
 		{
-			int cache_line_address = getCacheLineAddr(addr);
-			byte line[] = new byte[line_size];
-			for(int i = 0; i < line_size; i++)
-				line[i] = mem.read_u8(new uint32(cache_line_address + i), false).getValue();
-			value.setValue(mem.read_u32(addr, false));
 			int index = getIndex(addr);
-			int way = getCacheWayForReplacement(addr);
-			logger.debug("Accessing way: " + way + " index: " + index);
-			cache_memory[way][index].setLine(getTagFromAddress(addr), line);
+			int way = allocateLine(addr);
+			if (logger.isDebugEnabled())
+				logger.debug("Accessing way: " + way + " index: " + index);
+			value = cache_memory[way][index].getWord(getBlockOffset(addr));
 			if(log_output)
 			{
-				logger.debug("Miss in cache for address " + addr.getValueAsHexString() + " replaced cache line " + index + " in way " + way + " loaded value: " + value.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("Miss in cache for address " + CalculationHelper.toHexString(addr) + " replaced cache line " + index + " in way " + way + " loaded value: " + CalculationHelper.toHexString(value));
 				dumpCacheLine(index);
 			}
 			updateReplacementCountersOnMiss(way, index);
@@ -312,43 +353,42 @@ public abstract class Cache implements MemoryInterface {
 		return value;
 	}
 
-	public uint64 read_u64(uint32 addr, boolean log_output) throws MemoryException 
+	public long read_u64(int addr, boolean log_output) throws MemoryException 
 	{
 		
-		uint64 value = new uint64();
+		long value;
 		
 		if(log_output)
-			logger.debug("Read u64 from addr: " + addr.getValueAsHexString());
+			if (logger.isDebugEnabled())
+				logger.debug("Read u64 from addr: " + CalculationHelper.toHexString(addr));
 		
 		if(isHit(addr)) 
 		{
 			int index = getIndex(addr);
 			int way = getCacheWayForHit(addr);
-			value.setValue(cache_memory[way][index].getDWord(getBlockOffset(addr)));
+			recordAccess(addr, true);
+			value = cache_memory[way][index].getDWord(getBlockOffset(addr));
 			
 			if(log_output)
 			{
-				logger.debug("Hit in way " + way + " in cache line " + index
-					+ " for address " + addr.getValueAsHexString() 
-					+ " value: " + value.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("Hit in way " + way + " in cache line " + index
+						+ " for address " + CalculationHelper.toHexString(addr) 
+						+ " value: " + CalculationHelper.toHexString(value));
 				dumpCacheLine(index);
 			}
 			updateReplacementCountersOnAccess(way, index);
 			stat.countCacheHit(cache_type);
 		} else {
-			int cache_line_address = getCacheLineAddr(addr);
-			byte line[] = new byte[line_size];
-
-			for(int i = 0; i < line_size; i++)
-				line[i] = mem.read_u8(new uint32(cache_line_address + i), false).getValue();
-			value.setValue(mem.read_u64(addr, false));
 			int index = getIndex(addr);
-			int way = getCacheWayForReplacement(addr);
-			cache_memory[way][index].setLine(getTagFromAddress(addr), line);
+			int way = allocateLine(addr);
+			value = cache_memory[way][index].getDWord(getBlockOffset(addr));
 			
-			logger.debug("Accessing way: " + way + " index: " + index);
+			if (logger.isDebugEnabled())
+				logger.debug("Accessing way: " + way + " index: " + index);
 			if(log_output){
-				logger.debug("Miss in cache for address " + addr.getValueAsHexString() + " replaced cache line " + index + " in way " + way + " loaded value: " + value.getValueAsHexString());
+				if (logger.isDebugEnabled())
+					logger.debug("Miss in cache for address " + CalculationHelper.toHexString(addr) + " replaced cache line " + index + " in way " + way + " loaded value: " + CalculationHelper.toHexString(value));
 				dumpCacheLine(index);
 			}
 			updateReplacementCountersOnMiss(way, index);
@@ -357,284 +397,846 @@ public abstract class Cache implements MemoryInterface {
 		return value;
 	}
 	
-	public void write_u8(uint32 addr, uint32 value) throws MemoryException 
+	public void write_u8(int addr, byte value) throws MemoryException 
 	{
-		write_u8(addr, new uint8(value.getValue()));
-	}
-
-	public void write_u8(uint32 addr, uint8 value) throws MemoryException 
-	{
-		if(cache_type != CacheType.DCACHE)
+		if(cache_type == CacheType.ICACHE)
 		{
 			throw new CacheException("Method write_u32() only supports data caches, but cache type is: " + cache_type); 
 		}
 		
-		if(write_policy != DCacheWritePolicy.WRITE_THROUGH)
+		if((write_policy != DCacheWritePolicy.WRITE_THROUGH) && (write_policy != DCacheWritePolicy.WRITE_BACK))
 		{
-			throw new CacheException("Currently only write through caches are supported, but cache write policy is: " + write_policy);
+			throw new CacheException("Unsupported cache write policy: " + write_policy);
 		}
 	
 		
-		logger.debug("Write u8 to addr: " + addr.getValueAsHexString() + " value: " + value.getValueAsHexString());
+		if (logger.isDebugEnabled())
+			logger.debug("Write u8 to addr: " + CalculationHelper.toHexString(addr) + " value: " + CalculationHelper.toHexString(value & 0xFF));
 		
 		
 		if(isHit(addr))
 		{
 			int index = getIndex(addr);
 			int way = getCacheWayForHit(addr);
-			uint8 old_value = cache_memory[way][index].getByte(getBlockOffset(addr));
+			recordAccess(addr, true);
+			byte old_value = cache_memory[way][index].getByte(getBlockOffset(addr));
 			
 			cache_memory[way][index].setByte(getBlockOffset(addr), value);
+			markWritten(way, index);
 			
 			
-			logger.debug("Hit in way " + way + " in cache line " + index + " for address " + addr.getValueAsHexString() + " old value: " + old_value.getValueAsHexString() + " new value: " + cache_memory[way][index].getByte(getBlockOffset(addr)) + " (written byte " + (getBlockOffset(addr)&0x3) + " of word " + cache_memory[way][index].getWord(getBlockOffset(addr)&(~0x3)) + ")");
+			if (logger.isDebugEnabled())
+				logger.debug("Hit in way " + way + " in cache line " + index + " for address " + CalculationHelper.toHexString(addr) + " old value: " + CalculationHelper.toHexString(old_value & 0xFF) + " new value: " + cache_memory[way][index].getByte(getBlockOffset(addr)) + " (written byte " + (getBlockOffset(addr)&0x3) + " of word " + cache_memory[way][index].getWord(getBlockOffset(addr)&(~0x3)) + ")");
 			dumpCacheLine(index);
 			
 			updateReplacementCountersOnAccess(way, index);
+			stat.countCacheHit(cache_type);
 			
 		}
 		else
 		{
-			int cache_line_address = getCacheLineAddr(addr);
-			uint32 old_value = new uint32();
-			byte line[] = new byte[line_size];
-			for(int i = 0; i < line_size; i++)
-				line[i] = mem.read_u8(new uint32(cache_line_address + i), false).getValue();
-			old_value.setValue(mem.read_u32(addr, false));
 			int index = getIndex(addr);
-			int way = getCacheWayForReplacement(addr);
 
 			// load cache line from memory
-			cache_memory[way][index].setLine(getTagFromAddress(addr), line);
+			int way = allocateLineForStore(addr);
+			byte old_value = cache_memory[way][index].getByte(getBlockOffset(addr));
 			
 			// write word into cache
 			cache_memory[way][index].setByte(getBlockOffset(addr), value);
+			markWritten(way, index);
 			
-			logger.debug("Miss in cache for address " + addr.getValueAsHexString() + " replaced cache line " + index + " in way " + way + " old_value: " + old_value.getValueAsHexString() + " new value: " + cache_memory[way][index].getByte(getBlockOffset(addr)) + " (written byte " + (getBlockOffset(addr)&0x3) + " of word " + cache_memory[way][index].getWord(getBlockOffset(addr)&(~0x3)) + ")");
+			if (logger.isDebugEnabled())
+				logger.debug("Miss in cache for address " + CalculationHelper.toHexString(addr) + " replaced cache line " + index + " in way " + way + " old_value: " + CalculationHelper.toHexString(old_value & 0xFF) + " new value: " + cache_memory[way][index].getByte(getBlockOffset(addr)) + " (written byte " + (getBlockOffset(addr)&0x3) + " of word " + cache_memory[way][index].getWord(getBlockOffset(addr)&(~0x3)) + ")");
 			dumpCacheLine(index);
 			updateReplacementCountersOnMiss(way, index);
+			stat.countCacheMiss(cache_type);
 		}
 
 		if(write_policy == DCacheWritePolicy.WRITE_THROUGH)
 		{
 			// also always write value into memory
 			mem.write_u8(addr, value);
+			stat.countCacheWordsStored(cache_type, 1);
 		}
 		
 	}
 
-	public void write_u16(uint32 addr, uint16 value) throws MemoryException 
+	public void write_u16(int addr, short value) throws MemoryException 
 	{
-		if(cache_type != CacheType.DCACHE)
+		if(cache_type == CacheType.ICACHE)
 			throw new CacheException("Method write_u16() only supports data caches, but cache type is: " + cache_type); 
-		if(write_policy != DCacheWritePolicy.WRITE_THROUGH)
-			throw new CacheException("Currently only write through caches are supported, but cache write policy is: " + write_policy);
-		if((addr.getValue()&1) != 0)	{
-			logger.error("Write u16 to unaligned addr: " + addr.getValueAsHexString());
-			throw new CacheException("Write u16 to unaligned addr: " + addr.getValueAsHexString());
+		if((write_policy != DCacheWritePolicy.WRITE_THROUGH) && (write_policy != DCacheWritePolicy.WRITE_BACK))
+			throw new CacheException("Unsupported cache write policy: " + write_policy);
+		if((addr&1) != 0)	{
+			logger.error("Write u16 to unaligned addr: " + CalculationHelper.toHexString(addr));
+			throw new CacheException("Write u16 to unaligned addr: " + CalculationHelper.toHexString(addr));
 		}
-		logger.debug("Write u16 to addr: " + addr.getValueAsHexString() + " value: " + value.getValueAsHexString());
+		if (logger.isDebugEnabled())
+			logger.debug("Write u16 to addr: " + CalculationHelper.toHexString(addr) + " value: " + CalculationHelper.toHexString(value & 0xFFFF));
 		
 		if(isHit(addr)) {
 			int index = getIndex(addr);
 			int way = getCacheWayForHit(addr);
-			uint16 old_value = cache_memory[way][index].getHWord(getBlockOffset(addr));
+			recordAccess(addr, true);
+			short old_value = cache_memory[way][index].getHWord(getBlockOffset(addr));
 			cache_memory[way][index].setHWord(getBlockOffset(addr), value);
-			logger.debug("Hit in way " + way + " in cache line " + index
-				+ " for address " + addr.getValueAsHexString() 
-				+ " old value: " + old_value.getValueAsHexString() 
-				+ " new value: " + cache_memory[way][index].getWord(getBlockOffset(addr)));
+			markWritten(way, index);
+			if (logger.isDebugEnabled())
+				logger.debug("Hit in way " + way + " in cache line " + index
+					+ " for address " + CalculationHelper.toHexString(addr) 
+					+ " old value: " + CalculationHelper.toHexString(old_value & 0xFFFF) 
+					+ " new value: " + cache_memory[way][index].getWord(getBlockOffset(addr)));
 			dumpCacheLine(index);
 			updateReplacementCountersOnAccess(way, index);
+			stat.countCacheHit(cache_type);
 		} else {
-			int cache_line_address = getCacheLineAddr(addr);
-			uint16 old_value = new uint16();
-			byte line[] = new byte[line_size];
-			for(int i = 0; i < line_size; i++)
-				line[i] = mem.read_u8(new uint32(cache_line_address + i), false).getValue();
-			old_value.setValue(mem.read_u16(addr, false));
 			int index = getIndex(addr);
-			int way = getCacheWayForReplacement(addr);
 
 			// load cache line from memory
-			cache_memory[way][index].setLine(getTagFromAddress(addr), line);
+			int way = allocateLineForStore(addr);
+			short old_value = cache_memory[way][index].getHWord(getBlockOffset(addr));
 			
 			// write word into cache
 			cache_memory[way][index].setHWord(getBlockOffset(addr), value);
+			markWritten(way, index);
 			
-			logger.debug("Miss in cache for address " + addr.getValueAsHexString()
-				+ " replaced cache line " + index + " in way " + way 
-				+ " old_value: " + old_value.getValueAsHexString() 
-				+ " new value: " + cache_memory[way][index].getWord(getBlockOffset(addr)));
+			if (logger.isDebugEnabled())
+				logger.debug("Miss in cache for address " + CalculationHelper.toHexString(addr)
+					+ " replaced cache line " + index + " in way " + way 
+					+ " old_value: " + CalculationHelper.toHexString(old_value & 0xFFFF) 
+					+ " new value: " + cache_memory[way][index].getWord(getBlockOffset(addr)));
 			dumpCacheLine(index);
 			updateReplacementCountersOnMiss(way, index);
+			stat.countCacheMiss(cache_type);
 		}
 
 		// also always write value into memory
 		if(write_policy == DCacheWritePolicy.WRITE_THROUGH)
+		{
 			mem.write_u16(addr, value);
+			stat.countCacheWordsStored(cache_type, 1);
+		}
 	}
 
-	public void write_u32(uint32 addr, uint32 value) throws MemoryException 
+	public void write_u32(int addr, int value) throws MemoryException 
 	{
-		if(cache_type != CacheType.DCACHE)
+		if(cache_type == CacheType.ICACHE)
 		{
 			throw new CacheException("Method write_u32() only supports data caches, but cache type is: " + cache_type); 
 		}
 		
-		if(write_policy != DCacheWritePolicy.WRITE_THROUGH)
+		if((write_policy != DCacheWritePolicy.WRITE_THROUGH) && (write_policy != DCacheWritePolicy.WRITE_BACK))
 		{
-			throw new CacheException("Currently only write through caches are supported, but cache write policy is: " + write_policy);
+			throw new CacheException("Unsupported cache write policy: " + write_policy);
 		}
 		
 		
-		if((addr.getValue()&0x3 ) != 0)
+		if((addr&0x3 ) != 0)
 		{
-			logger.error("Write u32 to unaligned addr: " + addr.getValueAsHexString());
-			throw new CacheException("Write u32 to unaligned addr: " + addr.getValueAsHexString());
+			logger.error("Write u32 to unaligned addr: " + CalculationHelper.toHexString(addr));
+			throw new CacheException("Write u32 to unaligned addr: " + CalculationHelper.toHexString(addr));
 		}
 		
-		logger.debug("Write u32 to addr: " + addr.getValueAsHexString() + " value: " + value.getValueAsHexString());
+		if (logger.isDebugEnabled())
+			logger.debug("Write u32 to addr: " + CalculationHelper.toHexString(addr) + " value: " + CalculationHelper.toHexString(value));
 		
 		
 		if(isHit(addr))
 		{
 			int index = getIndex(addr);
 			int way = getCacheWayForHit(addr);
-			uint32 old_value = cache_memory[way][index].getWord(getBlockOffset(addr));
+			recordAccess(addr, true);
+			int old_value = cache_memory[way][index].getWord(getBlockOffset(addr));
 			
 			cache_memory[way][index].setWord(getBlockOffset(addr), value);
+			markWritten(way, index);
 			
 			
-			logger.debug("Hit in way " + way + " in cache line " + index + " for address " + addr.getValueAsHexString() + " old value: " + old_value.getValueAsHexString() + " new value: " + cache_memory[way][index].getWord(getBlockOffset(addr)));
+			if (logger.isDebugEnabled())
+				logger.debug("Hit in way " + way + " in cache line " + index + " for address " + CalculationHelper.toHexString(addr) + " old value: " + CalculationHelper.toHexString(old_value) + " new value: " + cache_memory[way][index].getWord(getBlockOffset(addr)));
 			dumpCacheLine(index);
 			
 			updateReplacementCountersOnAccess(way, index);
+			stat.countCacheHit(cache_type);
 			
 		}
 		else
 		{
-			int cache_line_address = getCacheLineAddr(addr);
-			uint32 old_value = new uint32();
-			
-			byte line[] = new byte[line_size];
-			
-			for(int i = 0; i < line_size; i++)
-			{
-				line[i] = mem.read_u8(new uint32(cache_line_address + i), false).getValue();
-			}
-			
-			old_value.setValue(mem.read_u32(addr, false));
 			int index = getIndex(addr);
-			int way = getCacheWayForReplacement(addr);
 
 			// load cache line from memory
-			cache_memory[way][index].setLine(getTagFromAddress(addr), line);
+			int way = allocateLineForStore(addr);
+			int old_value = cache_memory[way][index].getWord(getBlockOffset(addr));
 			
 			// write word into cache
 			cache_memory[way][index].setWord(getBlockOffset(addr), value);
+			markWritten(way, index);
 			
-			logger.debug("Miss in cache for address " + addr.getValueAsHexString() + " replaced cache line " + index + " in way " + way + " old_value: " + old_value.getValueAsHexString() + " new value: " + cache_memory[way][index].getWord(getBlockOffset(addr)));
+			if (logger.isDebugEnabled())
+				logger.debug("Miss in cache for address " + CalculationHelper.toHexString(addr) + " replaced cache line " + index + " in way " + way + " old_value: " + CalculationHelper.toHexString(old_value) + " new value: " + cache_memory[way][index].getWord(getBlockOffset(addr)));
 			dumpCacheLine(index);
 
 			updateReplacementCountersOnMiss(way, index);
+			stat.countCacheMiss(cache_type);
 		}
 
 		if(write_policy == DCacheWritePolicy.WRITE_THROUGH)
 		{
 			// also always write value into memory
 			mem.write_u32(addr, value);
+			stat.countCacheWordsStored(cache_type, 1);
 		}
 
 	}
 
-	public void write_u64(uint32 addr, uint64 value) throws MemoryException 
+	public void write_u64(int addr, long value) throws MemoryException 
 	{
-		if(cache_type != CacheType.DCACHE)
+		if(cache_type == CacheType.ICACHE)
 			throw new CacheException("Method write_u64() only supports data caches, but cache type is: " + cache_type); 
-		if(write_policy != DCacheWritePolicy.WRITE_THROUGH)
-			throw new CacheException("Currently only write through caches are supported, but cache write policy is: " + write_policy);
-		if((addr.getValue()&7) != 0)	{
-			logger.error("Write u64 to unaligned addr: " + addr.getValueAsHexString());
-			throw new CacheException("Write u64 to unaligned addr: " + addr.getValueAsHexString());
+		if((write_policy != DCacheWritePolicy.WRITE_THROUGH) && (write_policy != DCacheWritePolicy.WRITE_BACK))
+			throw new CacheException("Unsupported cache write policy: " + write_policy);
+		if((addr&7) != 0)	{
+			logger.error("Write u64 to unaligned addr: " + CalculationHelper.toHexString(addr));
+			throw new CacheException("Write u64 to unaligned addr: " + CalculationHelper.toHexString(addr));
 		}
-		logger.debug("Write u64 to addr: " + addr.getValueAsHexString() + " value: " + value.getValueAsHexString());
+		if (logger.isDebugEnabled())
+			logger.debug("Write u64 to addr: " + CalculationHelper.toHexString(addr) + " value: " + CalculationHelper.toHexString(value));
 		
 		if(isHit(addr)) {
 			int index = getIndex(addr);
 			int way = getCacheWayForHit(addr);
-			uint64 old_value = cache_memory[way][index].getDWord(getBlockOffset(addr));
+			recordAccess(addr, true);
+			long old_value = cache_memory[way][index].getDWord(getBlockOffset(addr));
 			cache_memory[way][index].setDWord(getBlockOffset(addr), value);
-			logger.debug("Hit in way " + way + " in cache line " + index
-				+ " for address " + addr.getValueAsHexString() 
-				+ " old value: " + old_value.getValueAsHexString() 
-				+ " new value: " + cache_memory[way][index].getWord(getBlockOffset(addr)));
+			markWritten(way, index);
+			if (logger.isDebugEnabled())
+				logger.debug("Hit in way " + way + " in cache line " + index
+					+ " for address " + CalculationHelper.toHexString(addr) 
+					+ " old value: " + CalculationHelper.toHexString(old_value) 
+					+ " new value: " + cache_memory[way][index].getWord(getBlockOffset(addr)));
 			dumpCacheLine(index);
 			updateReplacementCountersOnAccess(way, index);
+			stat.countCacheHit(cache_type);
 		} else {
-			int cache_line_address = getCacheLineAddr(addr);
-			uint64 old_value = new uint64();
-			byte line[] = new byte[line_size];
-			for(int i = 0; i < line_size; i++)
-				line[i] = mem.read_u8(new uint32(cache_line_address + i), false).getValue();
-			old_value.setValue(mem.read_u64(addr, false));
 			int index = getIndex(addr);
-			int way = getCacheWayForReplacement(addr);
 
 			// load cache line from memory
-			cache_memory[way][index].setLine(getTagFromAddress(addr), line);
+			int way = allocateLineForStore(addr);
+			long old_value = cache_memory[way][index].getDWord(getBlockOffset(addr));
 			
 			// write word into cache
 			cache_memory[way][index].setDWord(getBlockOffset(addr), value);
+			markWritten(way, index);
 			
-			logger.debug("Miss in cache for address " + addr.getValueAsHexString()
-				+ " replaced cache line " + index + " in way " + way 
-				+ " old_value: " + old_value.getValueAsHexString() 
-				+ " new value: " + cache_memory[way][index].getWord(getBlockOffset(addr)));
+			if (logger.isDebugEnabled())
+				logger.debug("Miss in cache for address " + CalculationHelper.toHexString(addr)
+					+ " replaced cache line " + index + " in way " + way 
+					+ " old_value: " + CalculationHelper.toHexString(old_value) 
+					+ " new value: " + cache_memory[way][index].getWord(getBlockOffset(addr)));
 			dumpCacheLine(index);
 			updateReplacementCountersOnMiss(way, index);
+			stat.countCacheMiss(cache_type);
 		}
 
 		// also always write value into memory
 		if(write_policy == DCacheWritePolicy.WRITE_THROUGH)
+		{
 			mem.write_u64(addr, value);
+			stat.countCacheWordsStored(cache_type, 2);
+		}
 	}
 	
-	protected uint32 getTagFromAddress(uint32 addr)
+	/**
+	 * Allocates the line for a store miss. A store to a non-blocking write
+	 * back cache does not wait for the line, a miss status holding register
+	 * tracks the outstanding load instead.
+	 */
+	private int allocateLineForStore(int addr) throws MemoryException
 	{
-		int mask = ~(CalculationHelper.generateBitStringOfOnes(index_size + block_offset_size));
-		
-		int tag = addr.getValue() & mask;
-		
-		return new uint32(tag);
+		if((mshrs != null) && (write_policy == DCacheWritePolicy.WRITE_BACK))
+		{
+			mshrs.allocate(getCacheLineAddr(addr), getReadDelay(RequestType.DATA_RD, addr) - hit_latency);
+		}
+		return allocateLine(addr);
+	}
+
+	/**
+	 * Loads the line containing addr into the way chosen by the replacement
+	 * policy. A dirty line in that way is written back first.
+	 *
+	 * @return the way the line was loaded into
+	 */
+	private int allocateLine(int addr) throws MemoryException
+	{
+		recordAccess(addr, false);
+		if(mem instanceof Cache)
+		{
+			((Cache) mem).setAccessPC(getAccessPC(addr));
+		}
+		return fillLine(addr, true);
+	}
+
+	/**
+	 * Puts the line containing addr into the way chosen by the replacement
+	 * policy. The line in that way is evicted, into the victim cache if there
+	 * is one. If the victim cache holds the requested line, the two lines are
+	 * swapped instead.
+	 *
+	 * @param load true to load the line from the next level, false if the
+	 *          caller writes the whole line
+	 * @return the way of the line
+	 */
+	private int fillLine(int addr, boolean load) throws MemoryException
+	{
+		int index = getIndex(addr);
+		int way = getCacheWayForReplacement(addr);
+		CacheLine line = cache_memory[way][index];
+		int line_addr = getLineAddr(line, index);
+		if(victim_cache == null)
+		{
+			evictLine(line, line_addr);
+		}
+		else
+		{
+			int entry = victim_cache.find(getCacheLineAddr(addr));
+			if(entry >= 0)
+			{
+				if (logger.isDebugEnabled())
+					logger.debug("Swapped line " + CalculationHelper.toHexString(getCacheLineAddr(addr)) + " from the victim cache into cache line " + index + " in way " + way);
+				cache_memory[way][index] = victim_cache.replace(entry, line, line_addr);
+				stat.countVictimAccess(cache_type, true);
+				return way;
+			}
+			if(load)
+			{
+				stat.countVictimAccess(cache_type, false);
+			}
+			if(line.isValid())
+			{
+				entry = victim_cache.getReplacementEntry();
+				evictLine(victim_cache.getLine(entry), victim_cache.getLineAddr(entry));
+				line = victim_cache.replace(entry, line, line_addr);
+				cache_memory[way][index] = line;
+			}
+		}
+		if(load)
+		{
+			line.load(getTagFromAddress(addr), getCacheLineAddr(addr), mem);
+		}
+		else
+		{
+			line.allocate(getTagFromAddress(addr));
+		}
+		return way;
+	}
+
+	/**
+	 * Removes a line from this level. An exclusive next level takes every
+	 * line, otherwise only dirty lines are written back. If this is an
+	 * inclusive cache, the copies of the line in the levels above are
+	 * invalidated first.
+	 */
+	private void evictLine(CacheLine line, int line_addr) throws MemoryException
+	{
+		if(!line.isValid())
+		{
+			return;
+		}
+		if(inclusion == CacheInclusionPolicy.INCLUSIVE)
+		{
+			for(Cache upper : upper_levels)
+			{
+				upper.invalidateLines(line_addr, line);
+			}
+		}
+		if((mem instanceof Cache) && (((Cache) mem).inclusion == CacheInclusionPolicy.EXCLUSIVE))
+		{
+			((Cache) mem).insertLine(line_addr, line.getData(), line.isDirty());
+			if(line.isDirty())
+			{
+				line.setDirty(false);
+				stat.countCacheWriteBack(cache_type, words_per_line);
+			}
+			return;
+		}
+		writeBackLine(line, line_addr);
+	}
+
+	/**
+	 * Writes the line back to the main memory if it is dirty.
+	 */
+	private void writeBackLine(CacheLine line, int line_addr) throws MemoryException
+	{
+		if(line.isValid() && line.isDirty())
+		{
+			if (logger.isDebugEnabled())
+				logger.debug("Writing back dirty line to address " + CalculationHelper.toHexString(line_addr));
+			mem.writeBlock(line_addr, line.getData());
+			line.setDirty(false);
+			stat.countCacheWriteBack(cache_type, words_per_line);
+		}
+	}
+
+	private int getLineAddr(CacheLine line, int index)
+	{
+		return line.getTag() | (index << block_offset_size);
+	}
+
+	/**
+	 * @return the line containing addr in the cache or in the victim cache,
+	 *          null if this level does not hold it
+	 */
+	private CacheLine findLine(int addr) throws CacheException
+	{
+		if(isHit(addr))
+		{
+			return cache_memory[getCacheWayForHit(addr)][getIndex(addr)];
+		}
+		if(victim_cache != null)
+		{
+			int entry = victim_cache.find(getCacheLineAddr(addr));
+			if(entry >= 0)
+			{
+				return victim_cache.getLine(entry);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Back invalidation of an inclusive L2 cache: invalidates the lines of
+	 * this cache within the L2 line at line_addr. Dirty data is merged into
+	 * the L2 line, which is written back by the caller.
+	 */
+	private void invalidateLines(int line_addr, CacheLine lower) throws CacheException
+	{
+		for(int offset = 0; offset < lower.getData().length; offset += line_size)
+		{
+			CacheLine line = findLine(line_addr + offset);
+			if(line != null)
+			{
+				if(line.isDirty())
+				{
+					lower.setBlock(offset, line.getData());
+					lower.setDirty(true);
+				}
+				line.invalidate();
+				stat.countBackInvalidation();
+			}
+		}
+	}
+
+	/**
+	 * Puts a line replaced in a level above into this exclusive cache.
+	 */
+	private void insertLine(int line_addr, byte[] data, boolean dirty) throws MemoryException
+	{
+		int index = getIndex(line_addr);
+		CacheLine line = findLine(line_addr);
+		if(line == null)
+		{
+			int way = fillLine(line_addr, false);
+			updateReplacementCountersOnMiss(way, index);
+			line = cache_memory[way][index];
+		}
+		line.setBlock(0, data);
+		if(dirty)
+		{
+			line.setDirty(true);
+		}
+		stat.countInsertedLine();
+	}
+
+	/**
+	 * Hands the line containing addr to the level above and removes it from
+	 * this exclusive cache. A dirty line is written back before. On a miss the
+	 * line is read from the next level without allocating it here.
+	 */
+	private void moveLineUp(int addr, byte[] data) throws MemoryException
+	{
+		CacheLine line = findLine(addr);
+		if(line == null)
+		{
+			recordAccess(addr, false);
+			stat.countCacheMiss(cache_type);
+			mem.readBlock(addr, data);
+			return;
+		}
+		recordAccess(addr, true);
+		stat.countCacheHit(cache_type);
+		line.getBlock(getBlockOffset(addr), data);
+		writeBackLine(line, getCacheLineAddr(addr));
+		line.invalidate();
+	}
+
+	private void markWritten(int way, int index)
+	{
+		if(write_policy == DCacheWritePolicy.WRITE_BACK)
+		{
+			cache_memory[way][index].setDirty(true);
+		}
+	}
+
+	/**
+	 * Writes all dirty lines back to the main memory, the lines stay valid.
+	 * With a write back cache the main memory only holds the final values of
+	 * a simulation after this was called.
+	 */
+	public void flush() throws MemoryException
+	{
+		for(int j = 0; j < associativity; j++)
+		{
+			for(int i = 0; i < lines_per_set; i++)
+			{
+				writeBackLine(cache_memory[j][i], getLineAddr(cache_memory[j][i], i));
+			}
+		}
+		if(victim_cache != null)
+		{
+			for(int i = 0; i < victim_cache.size(); i++)
+			{
+				writeBackLine(victim_cache.getLine(i), victim_cache.getLineAddr(i));
+			}
+		}
+		if(mem instanceof Cache)
+		{
+			((Cache) mem).flush();
+		}
+	}
+
+	/**
+	 * @return true if a miss on addr replaces a dirty line, i.e. causes a
+	 *          write back. With a victim cache the replaced line moves into
+	 *          it and the line replaced there leaves the cache.
+	 */
+	private boolean isVictimDirty(int addr) throws CacheException
+	{
+		CacheLine victim = cache_memory[getCacheWayForReplacement(addr)][getIndex(addr)];
+		if((victim_cache != null) && victim.isValid())
+		{
+			victim = victim_cache.getLine(victim_cache.getReplacementEntry());
+		}
+		return victim.isValid() && victim.isDirty();
+	}
+
+	/**
+	 * Reads a block that lies within one cache line. Used by the level above
+	 * to fill its lines, so the block is at most one line of that level.
+	 */
+	public void readBlock(int addr, byte[] data) throws MemoryException
+	{
+		checkBlock(addr, data.length);
+		if(inclusion == CacheInclusionPolicy.EXCLUSIVE)
+		{
+			moveLineUp(addr, data);
+			return;
+		}
+		int index = getIndex(addr);
+		int way;
+		if(isHit(addr))
+		{
+			way = getCacheWayForHit(addr);
+			recordAccess(addr, true);
+			updateReplacementCountersOnAccess(way, index);
+			stat.countCacheHit(cache_type);
+		}
+		else
+		{
+			way = allocateLine(addr);
+			updateReplacementCountersOnMiss(way, index);
+			stat.countCacheMiss(cache_type);
+		}
+		cache_memory[way][index].getBlock(getBlockOffset(addr), data);
+	}
+
+	/**
+	 * Writes a block that lies within one cache line, e.g. a dirty line
+	 * written back by the level above. Allocates the line on a miss.
+	 */
+	public void writeBlock(int addr, byte[] data) throws MemoryException
+	{
+		if(cache_type == CacheType.ICACHE)
+		{
+			throw new CacheException("Method writeBlock() only supports data caches, but cache type is: " + cache_type);
+		}
+		if((write_policy != DCacheWritePolicy.WRITE_THROUGH) && (write_policy != DCacheWritePolicy.WRITE_BACK))
+		{
+			throw new CacheException("Unsupported cache write policy: " + write_policy);
+		}
+		checkBlock(addr, data.length);
+		int index = getIndex(addr);
+		int way;
+		if(isHit(addr))
+		{
+			way = getCacheWayForHit(addr);
+			recordAccess(addr, true);
+			updateReplacementCountersOnAccess(way, index);
+			stat.countCacheHit(cache_type);
+		}
+		else
+		{
+			way = allocateLine(addr);
+			updateReplacementCountersOnMiss(way, index);
+			stat.countCacheMiss(cache_type);
+		}
+		cache_memory[way][index].setBlock(getBlockOffset(addr), data);
+		markWritten(way, index);
+
+		if(write_policy == DCacheWritePolicy.WRITE_THROUGH)
+		{
+			mem.writeBlock(addr, data);
+			stat.countCacheWordsStored(cache_type, data.length / PipelineConstants.WORD_SIZE);
+		}
+	}
+
+	private void checkBlock(int addr, int length) throws CacheException
+	{
+		if(getBlockOffset(addr) + length > line_size)
+		{
+			throw new CacheException("Block of " + length + " bytes at " + CalculationHelper.toHexString(addr) + " crosses a cache line of " + line_size + " bytes.");
+		}
+	}
+
+	/**
+	 * Enables the classification of misses into compulsory, capacity and
+	 * conflict misses and their attribution to the PC of the access.
+	 */
+	public void enableMissAnalysis() throws CacheException
+	{
+		miss_classifier = new CacheMissClassifier(line_no);
+		miss_table = stat.enableMissAnalysis(cache_type);
+	}
+
+	/**
+	 * Sets the PC the following data accesses are attributed to. For the
+	 * instruction cache the address is the PC.
+	 */
+	public void setAccessPC(int pc)
+	{
+		access_pc = pc;
+	}
+
+	private int getAccessPC(int addr)
+	{
+		return (cache_type == CacheType.ICACHE) ? addr : access_pc;
+	}
+
+	private void recordAccess(int addr, boolean hit) throws CacheException
+	{
+		if(hit && (mshrs != null) && (mshrs.getRemainingCycles(getCacheLineAddr(addr)) > 0))
+		{
+			// secondary miss to a line that is still being loaded
+			stat.countMSHRMerge();
+		}
+		if(prefetcher != null)
+		{
+			if(hit)
+			{
+				countPrefetchUse(addr);
+			}
+			prefetcher.access(getAccessPC(addr), addr, hit);
+		}
+		if(miss_classifier != null)
+		{
+			CacheMissType type = miss_classifier.access(getCacheLineAddr(addr), hit);
+			if(type != null)
+			{
+				miss_table.count(getAccessPC(addr), type);
+			}
+		}
+	}
+
+	/**
+	 * Makes the cache non-blocking: stores that miss hand the load of the
+	 * line to one of the given number of miss status holding registers and
+	 * the following accesses are served while it is outstanding.
+	 */
+	public void enableNonBlocking(int registers) throws CacheException
+	{
+		if(cache_type != CacheType.DCACHE)
+		{
+			throw new CacheException("Only the data cache can be non-blocking, but cache type is: " + cache_type);
+		}
+		mshrs = new MissStatusHoldingRegisters(registers);
+		if(prefetcher != null)
+		{
+			prefetch_queue = mshrs;
+		}
+		stat.setMSHRNumber(registers);
+	}
+
+	/**
+	 * Advances the outstanding line loads of a non-blocking cache or of the
+	 * prefetcher by one cycle and issues the prefetches of the last cycle.
+	 */
+	public void doCycle() throws MemoryException
+	{
+		if(mshrs != null)
+		{
+			mshrs.doCycle();
+			stat.countMSHROccupancy(mshrs.getOccupied());
+		}
+		if(prefetcher != null)
+		{
+			if(prefetch_queue != mshrs)
+			{
+				prefetch_queue.doCycle();
+			}
+			issuePrefetches();
+		}
+	}
+
+	/**
+	 * @return the cycles a miss has to wait for a free miss status holding
+	 *          register before it can be served, 0 for a blocking cache
+	 */
+	public int getMSHRWait(RequestType type, int addr) throws MemoryException
+	{
+		if((mshrs == null) || ((type == RequestType.DATA_WR) && (write_policy == DCacheWritePolicy.WRITE_THROUGH)))
+		{
+			return 0;
+		}
+		if((mshrs.getRemainingCycles(getCacheLineAddr(addr)) > 0) || isHit(addr))
+		{
+			return 0;
+		}
+		return mshrs.getCyclesUntilFree();
+	}
+
+	/**
+	 * Counts the first demand access to a prefetched line as useful, and as
+	 * late if the line is still being loaded or has just arrived, i.e. the
+	 * access waited for it.
+	 */
+	private void countPrefetchUse(int addr) throws CacheException
+	{
+		CacheLine line = cache_memory[getCacheWayForHit(addr)][getIndex(addr)];
+		if(line.isPrefetched())
+		{
+			int line_addr = getCacheLineAddr(addr);
+			line.setPrefetched(false);
+			stat.countUsefulPrefetch(cache_type, (prefetch_queue.getRemainingCycles(line_addr) > 0) || prefetch_queue.hasArrived(line_addr));
+		}
+	}
+
+	/**
+	 * Loads the lines proposed by the prefetcher in the last cycle that are
+	 * not present yet, as long as a register is free to track them.
+	 */
+	private void issuePrefetches() throws MemoryException
+	{
+		RequestType type = (cache_type == CacheType.ICACHE) ? RequestType.INSTR_RD : RequestType.DATA_RD;
+		for(int i = 0; i < prefetcher.getCandidateCount(); i++)
+		{
+			int addr = prefetcher.getCandidate(i);
+			if(isHit(addr) || (prefetch_queue.getCyclesUntilFree() > 0))
+			{
+				continue;
+			}
+			int delay = getReadDelay(type, addr) - hit_latency;
+			int index = getIndex(addr);
+			int way = fillLine(addr, true);
+			cache_memory[way][index].setPrefetched(true);
+			updateReplacementCountersOnMiss(way, index);
+			prefetch_queue.allocate(addr, delay);
+			stat.countPrefetch(cache_type);
+			if (logger.isDebugEnabled())
+				logger.debug("Prefetched line " + CalculationHelper.toHexString(addr) + " into cache line " + index + " in way " + way);
+		}
+		prefetcher.clearCandidates();
+	}
+
+	/**
+	 * Puts a prefetcher in front of the instruction or data cache.
+	 */
+	public void enablePrefetching(Prefetcher prefetcher) throws CacheException
+	{
+		if(cache_type == CacheType.L2CACHE)
+		{
+			throw new CacheException("Prefetching is only supported for the instruction and the data cache");
+		}
+		this.prefetcher = prefetcher;
+		prefetch_queue = (mshrs != null) ? mshrs : new MissStatusHoldingRegisters(PREFETCH_QUEUE_SIZE);
+	}
+
+	/**
+	 * Attaches a fully associative victim cache with the given number of
+	 * lines, which holds the lines replaced in this cache.
+	 */
+	public void enableVictimCache(int lines, short latency) throws CacheException
+	{
+		victim_cache = new VictimCache(lines, line_size, tag_size);
+		victim_latency = latency;
+		stat.setVictimCacheSize(cache_type, lines);
+	}
+
+	/**
+	 * Sets the relation of the L2 cache to the caches above it, which
+	 * register themselves with addUpperLevel().
+	 */
+	public void setInclusionPolicy(CacheInclusionPolicy inclusion) throws CacheException
+	{
+		if(cache_type != CacheType.L2CACHE)
+		{
+			throw new CacheException("The inclusion policy can only be set for the L2 cache, but cache type is: " + cache_type);
+		}
+		this.inclusion = inclusion;
+		stat.setInclusionPolicy(inclusion);
+	}
+
+	public void addUpperLevel(Cache upper) throws CacheException
+	{
+		if((inclusion == CacheInclusionPolicy.EXCLUSIVE) && (upper.getLineSize() != line_size))
+		{
+			throw new CacheException("An exclusive " + cache_type + " needs the line size of the caches above it, but it is " + line_size + " instead of " + upper.getLineSize());
+		}
+		upper_levels = Arrays.copyOf(upper_levels, upper_levels.length + 1);
+		upper_levels[upper_levels.length - 1] = upper;
+	}
+
+	public int getLineSize()
+	{
+		return line_size;
+	}
+
+	public void setHitLatency(short latency)
+	{
+		hit_latency = latency;
+	}
+
+	public short getHitLatency()
+	{
+		return hit_latency;
+	}
+
+	protected int getTagFromAddress(int addr)
+	{
+		return addr & tag_mask;
 	}
 	
-	protected int getIndex(uint32 addr)
+	protected int getIndex(int addr)
 	{
-		int mask = (CalculationHelper.generateBitStringOfOnes(index_size));
-		
-		logger.debug("idx: " + Integer.toHexString(CalculationHelper.generateBitStringOfOnes(index_size)) + " index mask: 0x"  + Integer.toHexString(mask) + " value: " + addr.getValueAsHexString() + " result: 0x" + Integer.toHexString((addr.getValue()>> block_offset_size) & mask));
+		if (logger.isDebugEnabled())
+			logger.debug("idx: " + Integer.toHexString(index_mask) + " index mask: 0x"  + Integer.toHexString(index_mask) + " value: " + CalculationHelper.toHexString(addr) + " result: 0x" + Integer.toHexString((addr >> block_offset_size) & index_mask));
 		
-		int index = (addr.getValue()>> (block_offset_size)) & mask;
+		int index = (addr >> (block_offset_size)) & index_mask;
 		
 		return index;
 	}
 	
-	protected int getBlockOffset(uint32 addr)
+	protected int getBlockOffset(int addr)
 	{
-		return addr.getValue() & (CalculationHelper.generateBitStringOfOnes(block_offset_size));
+		return addr & block_offset_mask;
 	}
 	
-	protected int getCacheLineAddr(uint32 addr)
+	protected int getCacheLineAddr(int addr)
 	{
-		return addr.getValue() & ~(CalculationHelper.generateBitStringOfOnes(block_offset_size));
+		return addr & ~block_offset_mask;
 	}
 	
 	
-	public short getRequestDelay(RequestType type, uint32 addr) throws MemoryException 
+	public short getRequestDelay(RequestType type, int addr) throws MemoryException 
 	{
-		short latency = 0;
-		
 		switch(this.cache_type)
 		{
 		case ICACHE:
@@ -643,68 +1245,105 @@ public abstract class Cache implements MemoryInterface {
 			{
 				throw new CacheException("Unsupported request type for instruction cache: " + type);
 			}
-
-			if(isHit(addr))
-			{
-				latency = 0;
-			}
-			else
-			{
-				latency = mem.getRequestDelay(type, addr);
-			}
-			break;
+			return getReadDelay(type, addr);
 		}
 		case DCACHE:
+		case L2CACHE:
 		{
-			if((type != RequestType.DATA_RD) && (type != RequestType.DATA_WR))
+			if((type != RequestType.DATA_RD) && (type != RequestType.DATA_WR) && (cache_type == CacheType.DCACHE))
 			{
 				throw new CacheException("Unsupported request type for data cache: " + type);
 			}
 
-			if(type == RequestType.DATA_RD)
+			if(mshrs != null)
 			{
-				if(isHit(addr))
-				{
-					latency = 0;
-				}
-				else
-				{
-					latency = mem.getRequestDelay(type, addr);
-				}
+				return getNonBlockingDelay(type, addr);
 			}
-			else if(type == RequestType.DATA_WR)
+
+			if(type != RequestType.DATA_WR)
 			{
-				switch(write_policy)
-				{
-				// TODO to be done.
-//				case WRITE_BACK:
-//					latency = 0;
-//					break;
-				case WRITE_THROUGH:
-					latency = mem.getRequestDelay(type, addr);
-					break;
-				default:
-					throw new CacheException("Currently only write through caches are supported, but cache write policy is: " + write_policy);
-				}
+				return getReadDelay(type, addr);
+			}
+
+			switch(write_policy)
+			{
+			case WRITE_BACK:
+				// write allocate: on a miss the line is loaded like for a read
+				return getReadDelay(RequestType.DATA_RD, addr);
+			case WRITE_THROUGH:
+				return (short) (hit_latency + mem.getRequestDelay(type, addr));
+			default:
+				throw new CacheException("Unsupported cache write policy: " + write_policy);
 			}
-			break;
 		}
 
 		default:
 			throw new CacheException("Unknown cache type: " + cache_type);
 		}
-		return latency;
+	}
 
+	/**
+	 * @return the hit latency on a hit, on a miss additionally the delay of
+	 *          the next level for loading the line and for writing back a
+	 *          dirty victim
+	 */
+	private short getReadDelay(RequestType type, int addr) throws MemoryException
+	{
+		if(isHit(addr))
+		{
+			// a line that is still being prefetched has not arrived yet
+			return (short) (hit_latency + ((prefetch_queue != null) ? prefetch_queue.getRemainingCycles(getCacheLineAddr(addr)) : 0));
+		}
+		if((victim_cache != null) && (victim_cache.find(getCacheLineAddr(addr)) >= 0))
+		{
+			return (short) (hit_latency + victim_latency);
+		}
+		int latency = hit_latency + mem.getRequestDelay(type, addr);
+		// an exclusive cache does not allocate the line on a miss
+		if((inclusion != CacheInclusionPolicy.EXCLUSIVE) && isVictimDirty(addr))
+		{
+			latency += mem.getRequestDelay(RequestType.DATA_WR, addr);
+		}
+		return (short) latency;
 	}
+
 	
-	
-	public boolean isHit(uint32 addr) throws CacheException
+	/**
+	 * @return the delay in a non-blocking cache: a load of a line that is
+	 *          still being loaded waits until it arrives, a store is merged
+	 *          into the register of the line; a store that misses only waits
+	 *          for a free register, a load that misses also for the line.
+	 *          Write through stores wait for the next level as in a blocking
+	 *          cache.
+	 */
+	private short getNonBlockingDelay(RequestType type, int addr) throws MemoryException
 	{
-		uint32 tag = getTagFromAddress(addr);
+		boolean store = (type == RequestType.DATA_WR);
+		if(store && (write_policy == DCacheWritePolicy.WRITE_THROUGH))
+		{
+			return (short) (hit_latency + mem.getRequestDelay(type, addr));
+		}
+		int pending = mshrs.getRemainingCycles(getCacheLineAddr(addr));
+		if(pending > 0)
+		{
+			return (short) (hit_latency + (store ? 0 : pending));
+		}
+		if(isHit(addr))
+		{
+			return hit_latency;
+		}
+		int wait = mshrs.getCyclesUntilFree();
+		return (short) (wait + (store ? hit_latency : getReadDelay(RequestType.DATA_RD, addr)));
+	}
+
+	public boolean isHit(int addr) throws CacheException
+	{
+		int tag = getTagFromAddress(addr);
 		int index = getIndex(addr);
 		boolean hit = false;
 		
-		logger.debug("Accessing index: " + index);
+		if (logger.isDebugEnabled())
+			logger.debug("Accessing index: " + index);
 		
 		for(int i = 0; i < associativity; i++)
 		{
@@ -712,7 +1351,7 @@ public abstract class Cache implements MemoryInterface {
 			{
 				if(hit != false)
 				{
-					throw new CacheException("Error: multiple hits for " + addr.getValueAsHexString() + " in cache.");
+					throw new CacheException("Error: multiple hits for " + CalculationHelper.toHexString(addr) + " in cache.");
 				}
 				hit = true;
 			}
@@ -721,9 +1360,9 @@ public abstract class Cache implements MemoryInterface {
 		return hit;
 	}
 
-	protected int getCacheWayForHit(uint32 addr) throws CacheException
+	protected int getCacheWayForHit(int addr) throws CacheException
 	{
-		uint32 tag = getTagFromAddress(addr);
+		int tag = getTagFromAddress(addr);
 		int index = getIndex(addr);
 		int hit_way = associativity;
 		
@@ -733,7 +1372,7 @@ public abstract class Cache implements MemoryInterface {
 			{
 				if(hit_way != associativity)
 				{
-					throw new CacheException("Error: multiple hits for " + addr.getValueAsHexString() + " in cache.");
+					throw new CacheException("Error: multiple hits for " + CalculationHelper.toHexString(addr) + " in cache.");
 				}
 				hit_way = i;
 			}
@@ -744,17 +1383,206 @@ public abstract class Cache implements MemoryInterface {
 	
 	protected void dumpCacheLine(int index)
 	{
-		logger.debug("Dumping cache content for index: 0x" + Integer.toHexString(index));
+		if (logger.isDebugEnabled())
+			logger.debug("Dumping cache content for index: 0x" + Integer.toHexString(index));
 		for(int i = 0; i < associativity; i++)
 		{
-			logger.debug("Way: " + i + " " + cache_memory[i][index].dumpLine());
+			if (logger.isDebugEnabled())
+				logger.debug("Way: " + i + " " + cache_memory[i][index].dumpLine());
 		}
 	}
 	
-	protected abstract int getCacheWayForReplacement(uint32 addr) throws CacheException;
+	/**
+	 * @return the way replaced by a miss on addr. Must not change the
+	 *          replacement state, it is also asked before the fill, e.g. to
+	 *          charge the write-back of a dirty victim.
+	 */
+	protected abstract int getCacheWayForReplacement(int addr) throws CacheException;
 	protected abstract void updateReplacementCountersOnAccess(int way, int index);
 	protected abstract void updateReplacementCountersOnMiss(int way, int index);
 
+	/**
+	 * Creates a cache from the configuration keys with the prefix of its type
+	 * (icache_, dcache_ or l2cache_) and registers its parameters in stat.
+	 *
+	 * @param mem the next level
+	 */
+	public static Cache createFromConfig(CacheType type, Properties config, MemoryInterface mem, Statistics stat) throws MemoryException, PipelineDataTypeException
+	{
+		String prefix;
+		// defaults, the L2 cache is larger and set associative by default
+		int lineSize = 8;
+		int lineNo = 32;
+		int associativity = 1;
+		switch(type)
+		{
+		case ICACHE:
+			prefix = "icache";
+			break;
+		case DCACHE:
+			prefix = "dcache";
+			break;
+		case L2CACHE:
+			prefix = "l2cache";
+			lineSize = 32;
+			lineNo = 256;
+			associativity = 4;
+			break;
+		default:
+			throw new CacheException("Unknown cache type: " + type);
+		}
+
+		if(config.getProperty(prefix + "_line_size")!=null)
+		{
+			lineSize = Integer.decode(config.getProperty(prefix + "_line_size"));
+		}
+
+		if(config.getProperty(prefix + "_line_number")!=null)
+		{
+			lineNo = Integer.decode(config.getProperty(prefix + "_line_number"));
+		}
+
+		if(config.getProperty(prefix + "_associativity")!=null)
+		{
+			associativity = Integer.decode(config.getProperty(prefix + "_associativity"));
+		}
+
+		CacheReplacementPolicy rpol = CacheReplacementPolicy.UNKNOWN;
+		if(config.getProperty(prefix + "_replacement_policy")!=null)
+		{
+			rpol = getCacheReplacementPolicyFromString(config.getProperty(prefix + "_replacement_policy"));
+		}
+		else if((type == CacheType.L2CACHE) && (associativity > 1))
+		{
+			rpol = CacheReplacementPolicy.LRU;
+		}
+
+		// the instruction cache has no write policy
+		DCacheWritePolicy wpol = DCacheWritePolicy.UNKNOWN;
+		if(type != CacheType.ICACHE)
+		{
+			// write through is the default for the dcache, write back for the L2 cache
+			wpol = (type == CacheType.L2CACHE) ? DCacheWritePolicy.WRITE_BACK : DCacheWritePolicy.WRITE_THROUGH;
+			if(config.getProperty(prefix + "_write_policy")!=null)
+			{
+				wpol = getCacheWritePolicyFromString(config.getProperty(prefix + "_write_policy"));
+				if(wpol == DCacheWritePolicy.UNKNOWN)
+				{
+					throw new CacheException("Unknown " + prefix + " write policy: " + config.getProperty(prefix + "_write_policy"));
+				}
+			}
+		}
+
+		Cache cache;
+		if(associativity == 1)
+		{
+			if((rpol != CacheReplacementPolicy.DIRECT_MAPPED) && (rpol != CacheReplacementPolicy.UNKNOWN))
+			{
+				throw new CacheException("Wrong replacement policy for cache with associativity of 1. Replacement policy: " + rpol);
+			}
+			rpol = CacheReplacementPolicy.DIRECT_MAPPED;
+		}
+		boolean icache = (type == CacheType.ICACHE);
+		switch(rpol)
+		{
+		case DIRECT_MAPPED:
+			cache = icache ? new CacheDirectMapped(type, lineSize, lineNo, associativity, mem, stat)
+					: new CacheDirectMapped(type, lineSize, lineNo, associativity, wpol, mem, stat);
+			break;
+		case FIFO:
+			cache = icache ? new CacheFIFO(type, lineSize, lineNo, associativity, mem, stat)
+					: new CacheFIFO(type, lineSize, lineNo, associativity, wpol, mem, stat);
+			break;
+		case LRU:
+			cache = icache ? new CacheLRU(type, lineSize, lineNo, associativity, mem, stat)
+					: new CacheLRU(type, lineSize, lineNo, associativity, wpol, mem, stat);
+			break;
+		case LRU_MATRIX:
+			cache = icache ? new CacheLRUMatrix(type, lineSize, lineNo, associativity, mem, stat)
+					: new CacheLRUMatrix(type, lineSize, lineNo, associativity, wpol, mem, stat);
+			break;
+		case TREE_PLRU:
+			cache = icache ? new CacheTreePLRU(type, lineSize, lineNo, associativity, mem, stat)
+					: new CacheTreePLRU(type, lineSize, lineNo, associativity, wpol, mem, stat);
+			break;
+		case BIT_PLRU:
+			cache = icache ? new CacheBitPLRU(type, lineSize, lineNo, associativity, mem, stat)
+					: new CacheBitPLRU(type, lineSize, lineNo, associativity, wpol, mem, stat);
+			break;
+		case RANDOM:
+			CacheRandom random_cache = icache ? new CacheRandom(type, lineSize, lineNo, associativity, mem, stat)
+					: new CacheRandom(type, lineSize, lineNo, associativity, wpol, mem, stat);
+			if(config.getProperty(prefix + "_random_seed")!=null)
+			{
+				random_cache.setSeed(Long.decode(config.getProperty(prefix + "_random_seed")));
+			}
+			cache = random_cache;
+			break;
+		default:
+			throw new CacheException("Unknown cache replacement policy: " + rpol);
+		}
+
+		if((mem instanceof Cache) && (lineSize > ((Cache) mem).getLineSize()))
+		{
+			throw new CacheException(prefix + " line size " + lineSize + " is larger than the line size of the next level " + ((Cache) mem).getLineSize());
+		}
+		if(config.getProperty(prefix + "_latency")!=null)
+		{
+			cache.setHitLatency(Short.decode(config.getProperty(prefix + "_latency")));
+		}
+		if(config.getProperty(prefix + "_mshr_number")!=null)
+		{
+			int mshrNo = Integer.decode(config.getProperty(prefix + "_mshr_number"));
+			if(mshrNo > 0)
+			{
+				cache.enableNonBlocking(mshrNo);
+			}
+		}
+		if(config.getProperty(prefix + "_prefetch")!=null)
+		{
+			PrefetcherType prefetch = getPrefetcherTypeFromString(config.getProperty(prefix + "_prefetch"));
+			if(prefetch == PrefetcherType.UNKNOWN)
+			{
+				throw new CacheException("Unknown " + prefix + " prefetcher: " + config.getProperty(prefix + "_prefetch"));
+			}
+			if(prefetch != PrefetcherType.NONE)
+			{
+				int degree = Integer.decode(config.getProperty(prefix + "_prefetch_degree", "1"));
+				int tableSize = Integer.decode(config.getProperty(prefix + "_prefetch_table_size", "64"));
+				if((prefetch == PrefetcherType.STRIDE) && (type == CacheType.ICACHE))
+				{
+					throw new CacheException("The stride prefetcher needs the PC of loads and stores, it cannot be used for the icache");
+				}
+				cache.enablePrefetching(Prefetcher.create(prefetch, lineSize, degree, tableSize));
+				stat.setPrefetcher(type, prefetch, degree);
+			}
+		}
+		int victimLines = Integer.decode(config.getProperty(prefix + "_victim_line_number", "0"));
+		if(victimLines > 0)
+		{
+			cache.enableVictimCache(victimLines, Short.decode(config.getProperty(prefix + "_victim_latency", "1")));
+		}
+		if(config.getProperty(prefix + "_inclusion")!=null)
+		{
+			CacheInclusionPolicy inclusion = getCacheInclusionPolicyFromString(config.getProperty(prefix + "_inclusion"));
+			if(inclusion == CacheInclusionPolicy.UNKNOWN)
+			{
+				throw new CacheException("Unknown " + prefix + " inclusion policy: " + config.getProperty(prefix + "_inclusion"));
+			}
+			cache.setInclusionPolicy(inclusion);
+		}
+		if(mem instanceof Cache)
+		{
+			((Cache) mem).addUpperLevel(cache);
+		}
+		if(Integer.decode(config.getProperty("cache_miss_analysis", "0")) != 0)
+		{
+			cache.enableMissAnalysis();
+		}
+		stat.setCacheParameters(type, rpol, lineSize, lineNo, associativity, wpol);
+		return cache;
+	}
+
 	public static CacheReplacementPolicy getCacheReplacementPolicyFromString(String rpol) 
 	{
 		if(rpol.compareTo(CacheReplacementPolicy.FIFO.toString())==0)
@@ -765,10 +1593,50 @@ public abstract class Cache implements MemoryInterface {
 		{
 			return CacheReplacementPolicy.LRU;
 		}
+		else if(rpol.compareTo(CacheReplacementPolicy.LRU_MATRIX.toString())==0)
+		{
+			return CacheReplacementPolicy.LRU_MATRIX;
+		}
+		else if((rpol.compareTo(CacheReplacementPolicy.TREE_PLRU.toString())==0) || (rpol.compareTo("PLRU")==0))
+		{
+			return CacheReplacementPolicy.TREE_PLRU;
+		}
+		else if(rpol.compareTo(CacheReplacementPolicy.BIT_PLRU.toString())==0)
+		{
+			return CacheReplacementPolicy.BIT_PLRU;
+		}
+		else if(rpol.compareTo(CacheReplacementPolicy.RANDOM.toString())==0)
+		{
+			return CacheReplacementPolicy.RANDOM;
+		}
 		
 		return CacheReplacementPolicy.UNKNOWN;
 	}
 
+	public static PrefetcherType getPrefetcherTypeFromString(String prefetch)
+	{
+		for(PrefetcherType type : PrefetcherType.values())
+		{
+			if(prefetch.compareTo(type.toString())==0)
+			{
+				return type;
+			}
+		}
+		return PrefetcherType.UNKNOWN;
+	}
+
+	public static CacheInclusionPolicy getCacheInclusionPolicyFromString(String inclusion)
+	{
+		for(CacheInclusionPolicy policy : CacheInclusionPolicy.values())
+		{
+			if(inclusion.compareTo(policy.toString())==0)
+			{
+				return policy;
+			}
+		}
+		return CacheInclusionPolicy.UNKNOWN;
+	}
+
 	public static DCacheWritePolicy getCacheWritePolicyFromString(String wpol) 
 	{
 		if(wpol.compareTo(DCacheWritePolicy.WRITE_THROUGH.toString())==0)
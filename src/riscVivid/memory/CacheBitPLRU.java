@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.memory;
+
+import riscVivid.datatypes.CacheType;
+import riscVivid.datatypes.DCacheWritePolicy;
+import riscVivid.exception.CacheException;
+import riscVivid.exception.PipelineDataTypeException;
+import riscVivid.util.Statistics;
+
+/**
+ * Bit pseudo LRU (MRU bits): one bit per way packed into a long per set. An
+ * access sets the bit of the way, when all bits are set the others are
+ * cleared. The first way with a cleared bit is replaced.
+ */
+public class CacheBitPLRU extends Cache
+{
+	private long mru_bits[];
+	private long all_ways;
+
+	public CacheBitPLRU(CacheType type, int line_size, int line_no, int associativity, DCacheWritePolicy write_policy, MemoryInterface mem, Statistics stat) throws CacheException, PipelineDataTypeException
+	{
+		super(type, line_size, line_no, associativity, write_policy, mem, stat);
+
+		initializeRPolCounters();
+	}
+
+	public CacheBitPLRU(CacheType type, int line_size, int line_no, int associativity, MemoryInterface mem, Statistics stat) throws CacheException, PipelineDataTypeException
+	{
+		super(type, line_size, line_no, associativity, mem, stat);
+
+		initializeRPolCounters();
+	}
+
+	private void initializeRPolCounters() throws CacheException
+	{
+		if(associativity > Long.SIZE)
+		{
+			throw new CacheException("Bit PLRU supports at most " + Long.SIZE + " ways, associativity: " + associativity);
+		}
+		mru_bits = new long[lines_per_set];
+		all_ways = (associativity == Long.SIZE) ? -1L : ((1L << associativity) - 1);
+	}
+
+	protected int getCacheWayForReplacement(int addr)
+	{
+		return Long.numberOfTrailingZeros(~mru_bits[getIndex(addr)]);
+	}
+
+	protected void updateReplacementCountersOnAccess(int way, int index)
+	{
+		long bits = mru_bits[index] | (1L << way);
+		if(bits == all_ways)
+		{
+			bits = 1L << way;
+		}
+		mru_bits[index] = bits;
+	}
+
+	protected void updateReplacementCountersOnMiss(int way, int index)
+	{
+		updateReplacementCountersOnAccess(way, index);
+	}
+
+}
@@ -22,25 +22,25 @@ package riscVivid.memory;
 
 import riscVivid.datatypes.CacheType;
 import riscVivid.datatypes.DCacheWritePolicy;
-import riscVivid.datatypes.uint32;
 import riscVivid.exception.CacheException;
 import riscVivid.exception.PipelineDataTypeException;
+import riscVivid.util.Statistics;
 
 public class CacheDirectMapped extends Cache 
 {
 
 	
-	public CacheDirectMapped(CacheType type, int line_size, int line_no, int associativity, DCacheWritePolicy write_policy, MainMemory mem) throws CacheException, PipelineDataTypeException 
+	public CacheDirectMapped(CacheType type, int line_size, int line_no, int associativity, DCacheWritePolicy write_policy, MemoryInterface mem, Statistics stat) throws CacheException, PipelineDataTypeException 
 	{
-		super(type, line_size, line_no, associativity, write_policy, mem);
+		super(type, line_size, line_no, associativity, write_policy, mem, stat);
 	}
 	
-	public CacheDirectMapped(CacheType type, int line_size, int line_no, int associativity, MainMemory mem) throws CacheException, PipelineDataTypeException 
+	public CacheDirectMapped(CacheType type, int line_size, int line_no, int associativity, MemoryInterface mem, Statistics stat) throws CacheException, PipelineDataTypeException 
 	{
-		super(type, line_size, line_no, associativity, mem);
+		super(type, line_size, line_no, associativity, mem, stat);
 	}
 
-	protected int getCacheWayForReplacement(uint32 addr) 
+	protected int getCacheWayForReplacement(int addr) 
 	{
 		return 0;
 	}
@@ -22,24 +22,24 @@ package riscVivid.memory;
 
 import riscVivid.datatypes.CacheType;
 import riscVivid.datatypes.DCacheWritePolicy;
-import riscVivid.datatypes.uint32;
 import riscVivid.exception.CacheException;
 import riscVivid.exception.PipelineDataTypeException;
+import riscVivid.util.Statistics;
 
 public class CacheFIFO extends Cache 
 {
 	private int fifo_way_counter[];
 
-	public CacheFIFO(CacheType type, int line_size, int line_no, int associativity, DCacheWritePolicy write_policy, MainMemory mem) throws CacheException, PipelineDataTypeException 
+	public CacheFIFO(CacheType type, int line_size, int line_no, int associativity, DCacheWritePolicy write_policy, MemoryInterface mem, Statistics stat) throws CacheException, PipelineDataTypeException 
 	{
-		super(type, line_size, line_no, associativity, write_policy, mem);
+		super(type, line_size, line_no, associativity, write_policy, mem, stat);
 		
 		initializeRPolCounters();
 	}
 
-	public CacheFIFO(CacheType type, int line_size, int line_no, int associativity, MainMemory mem) throws CacheException, PipelineDataTypeException 
+	public CacheFIFO(CacheType type, int line_size, int line_no, int associativity, MemoryInterface mem, Statistics stat) throws CacheException, PipelineDataTypeException 
 	{
-		super(type, line_size, line_no, associativity, mem);
+		super(type, line_size, line_no, associativity, mem, stat);
 		
 		initializeRPolCounters();
 	}
@@ -49,7 +49,7 @@ public class CacheFIFO extends Cache
 		fifo_way_counter = new int[lines_per_set];
 	}
 
-	protected int getCacheWayForReplacement(uint32 addr) 
+	protected int getCacheWayForReplacement(int addr) 
 	{
 		int index = getIndex(addr);
 		
@@ -22,25 +22,25 @@ package riscVivid.memory;
 
 import riscVivid.datatypes.CacheType;
 import riscVivid.datatypes.DCacheWritePolicy;
-import riscVivid.datatypes.uint32;
 import riscVivid.exception.CacheException;
 import riscVivid.exception.PipelineDataTypeException;
+import riscVivid.util.Statistics;
 
 public class CacheLRU extends Cache {
 	
 	private int lru_replacement_counters[][];
 
 
-	public CacheLRU(CacheType type, int line_size, int line_no,	int associativity, MainMemory mem) throws CacheException, PipelineDataTypeException 
+	public CacheLRU(CacheType type, int line_size, int line_no,	int associativity, MemoryInterface mem, Statistics stat) throws CacheException, PipelineDataTypeException 
 	{
-		super(type, line_size, line_no, associativity, mem);
+		super(type, line_size, line_no, associativity, mem, stat);
 		
 		initializeRPolCounters();
 	}
 	
-	public CacheLRU(CacheType type, int line_size, int line_no,	int associativity, DCacheWritePolicy write_policy, MainMemory mem) throws CacheException, PipelineDataTypeException 
+	public CacheLRU(CacheType type, int line_size, int line_no,	int associativity, DCacheWritePolicy write_policy, MemoryInterface mem, Statistics stat) throws CacheException, PipelineDataTypeException 
 	{
-		super(type, line_size, line_no, associativity, write_policy, mem);
+		super(type, line_size, line_no, associativity, write_policy, mem, stat);
 		
 		initializeRPolCounters();
 	}
@@ -57,7 +57,7 @@ public class CacheLRU extends Cache {
 		}
 	}
 
-	protected int getCacheWayForReplacement(uint32 addr) throws CacheException 
+	protected int getCacheWayForReplacement(int addr) throws CacheException 
 	{
 		int way = associativity;
 		int lru_counter = 0;
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.memory;
+
+import riscVivid.datatypes.CacheType;
+import riscVivid.datatypes.DCacheWritePolicy;
+import riscVivid.exception.CacheException;
+import riscVivid.exception.PipelineDataTypeException;
+import riscVivid.util.Statistics;
+
+/**
+ * True LRU with a bit matrix per set. An access of way w sets row w and
+ * clears column w, the least recently used way is the one with an empty row.
+ *
+ * Up to 8 ways the whole matrix of a set fits into one long (row w is byte
+ * w), so an update and the search for the victim take a constant number of
+ * operations. Larger sets use one long per row, stored set-major.
+ */
+public class CacheLRUMatrix extends Cache
+{
+	private static final long BYTE_LSBS = 0x0101010101010101L;
+	private static final long BYTE_MSBS = 0x8080808080808080L;
+
+	private long lru_matrix[];
+	private long row_mask;
+	private boolean packed;
+
+	public CacheLRUMatrix(CacheType type, int line_size, int line_no, int associativity, DCacheWritePolicy write_policy, MemoryInterface mem, Statistics stat) throws CacheException, PipelineDataTypeException
+	{
+		super(type, line_size, line_no, associativity, write_policy, mem, stat);
+
+		initializeRPolCounters();
+	}
+
+	public CacheLRUMatrix(CacheType type, int line_size, int line_no, int associativity, MemoryInterface mem, Statistics stat) throws CacheException, PipelineDataTypeException
+	{
+		super(type, line_size, line_no, associativity, mem, stat);
+
+		initializeRPolCounters();
+	}
+
+	private void initializeRPolCounters() throws CacheException
+	{
+		if(associativity > Long.SIZE)
+		{
+			throw new CacheException("Bit matrix LRU supports at most " + Long.SIZE + " ways, associativity: " + associativity);
+		}
+		packed = (associativity <= 8);
+		if(packed)
+		{
+			lru_matrix = new long[lines_per_set];
+			row_mask = (1L << associativity) - 1;
+		}
+		else
+		{
+			lru_matrix = new long[lines_per_set * associativity];
+			row_mask = (associativity == Long.SIZE) ? -1L : ((1L << associativity) - 1);
+		}
+	}
+
+	protected int getCacheWayForReplacement(int addr) throws CacheException
+	{
+		int index = getIndex(addr);
+		if(packed)
+		{
+			// the rows of unused ways are empty as well, only consider real ways
+			long m = lru_matrix[index] | ~((associativity == 8) ? -1L : ((1L << (associativity * 8)) - 1));
+			// a byte is zero iff its bit 7 stays clear in both terms
+			long zero_rows = ~(((m & ~BYTE_MSBS) + ~BYTE_MSBS) | m) & BYTE_MSBS;
+			if(zero_rows == 0)
+			{
+				throw new CacheException("Cache way could not be found for replacement.");
+			}
+			return Long.numberOfTrailingZeros(zero_rows) >>> 3;
+		}
+
+		int base = index * associativity;
+		for(int i = 0; i < associativity; i++)
+		{
+			if(lru_matrix[base + i] == 0)
+			{
+				return i;
+			}
+		}
+		throw new CacheException("Cache way could not be found for replacement.");
+	}
+
+	protected void updateReplacementCountersOnAccess(int way, int index)
+	{
+		if(packed)
+		{
+			long m = lru_matrix[index];
+			m &= ~(BYTE_LSBS << way);
+			m = (m & ~(0xFFL << (way * 8))) | ((row_mask & ~(1L << way)) << (way * 8));
+			lru_matrix[index] = m;
+			return;
+		}
+
+		int base = index * associativity;
+		long column = ~(1L << way);
+		for(int i = 0; i < associativity; i++)
+		{
+			lru_matrix[base + i] &= column;
+		}
+		lru_matrix[base + way] = row_mask & column;
+	}
+
+	protected void updateReplacementCountersOnMiss(int way, int index)
+	{
+		updateReplacementCountersOnAccess(way, index);
+	}
+
+}
@@ -21,19 +21,19 @@
 package riscVivid.memory;
 
 import riscVivid.PipelineConstants;
-import riscVivid.datatypes.uint16;
-import riscVivid.datatypes.uint32;
-import riscVivid.datatypes.uint64;
-import riscVivid.datatypes.uint8;
 import riscVivid.exception.CacheException;
+import riscVivid.exception.MemoryException;
+import riscVivid.util.CalculationHelper;
 
 public class CacheLine {
 
-	private uint32 tag;
+	private int tag;
 	private byte line[];
 	private int bytes_per_line;
 	private boolean dirty;
 	private boolean valid;
+	// loaded by the prefetcher and not accessed since
+	private boolean prefetched;
 	
 	public CacheLine(int line_size, int tag_size) throws CacheException
 	{
@@ -43,7 +43,7 @@ public class CacheLine {
 		}
 		
 		bytes_per_line = line_size;
-		tag = new uint32(0);
+		tag = 0;
 		line = new byte[line_size];
 		
 		for(int i = 0; i < line_size; i++)
@@ -55,69 +55,69 @@ public class CacheLine {
 		valid = false;
 	}	
 	
-	public boolean compareTag(uint32 tag)
+	public boolean compareTag(int tag)
 	{
-		return (this.tag.getValue() == tag.getValue());
+		return valid && (this.tag == tag);
 	}
 	
-	public uint8 getByte(int block_offset) throws CacheException
+	public byte getByte(int block_offset) throws CacheException
 	{
 		if(!valid)
 		{
-			throw new CacheException("Cannot read from cache line, it is not valid. tag: " + tag.getValueAsHexString());
+			throw new CacheException("Cannot read from cache line, it is not valid. tag: " + CalculationHelper.toHexString(tag));
 		}
 		if(block_offset >= bytes_per_line)
 		{
 			throw new CacheException("Block offset out of range: " + block_offset + "/" + bytes_per_line);
 		}
 		
-		return new uint8(line[block_offset]);
+		return line[block_offset];
 	}
 	
-	public void setByte(int block_offset, uint8 value) throws CacheException
+	public void setByte(int block_offset, byte value) throws CacheException
 	{
 		if(!valid)
 		{
-			throw new CacheException("Cannot write to cache line, it is not valid. tag: " + tag.getValueAsHexString());
+			throw new CacheException("Cannot write to cache line, it is not valid. tag: " + CalculationHelper.toHexString(tag));
 		}
 		if(block_offset >= bytes_per_line)
 		{
 			throw new CacheException("Block offset out of range: " + block_offset + "/" + bytes_per_line);
 		}
 		
-		line[block_offset]= value.getValue();
+		line[block_offset]= value;
 		
 	}
 	
-	public uint16 getHWord(int block_offset) throws CacheException
+	public short getHWord(int block_offset) throws CacheException
 	{
 		if(!valid)
-			throw new CacheException("Cannot read from cache line, invalid tag: " + tag.getValueAsHexString());
+			throw new CacheException("Cannot read from cache line, invalid tag: " + CalculationHelper.toHexString(tag));
 		if((block_offset&1) != 0)
 			throw new CacheException("Block offset not aligned to half word size (" + block_offset + ")");
 		if(block_offset >= bytes_per_line)
 			throw new CacheException("Block offset out of range: " + block_offset + "/" + bytes_per_line);
-		return new uint16((line[block_offset] & 0xFF) | ((line[block_offset+1] & 0xFF) << 8));
+		return (short) ((line[block_offset] & 0xFF) | ((line[block_offset+1] & 0xFF) << 8));
 	}
 	
-	public void setHWord(int block_offset, uint16 value) throws CacheException 
+	public void setHWord(int block_offset, short value) throws CacheException 
 	{
 		if(!valid)
-			throw new CacheException("Cannot write to cache line, invalid tag: " + tag.getValueAsHexString());
+			throw new CacheException("Cannot write to cache line, invalid tag: " + CalculationHelper.toHexString(tag));
 		if((block_offset&1) != 0)
 			throw new CacheException("Block offset not aligned to half word size (" + block_offset + ")");
 		if(block_offset >= bytes_per_line)
 			throw new CacheException("Block offset out of range: " + block_offset + "/" + bytes_per_line);
 		
-		line[block_offset] = (byte) (value.getValue() & 0xFF);
-		line[block_offset + 1] = (byte) ((value.getValue() >> 8) & 0xFF);
+		line[block_offset] = (byte) (value & 0xFF);
+		line[block_offset + 1] = (byte) ((value >> 8) & 0xFF);
 	}
 	
-	public uint32 getWord(int block_offset) throws CacheException
+	public int getWord(int block_offset) throws CacheException
 	{
 		if(!valid)
 		{
-			throw new CacheException("Cannot read from cache line, it is not valid. tag: " + tag.getValueAsHexString());
+			throw new CacheException("Cannot read from cache line, it is not valid. tag: " + CalculationHelper.toHexString(tag));
 		}
 		if(block_offset % PipelineConstants.WORD_SIZE != 0)
 		{
@@ -128,14 +128,14 @@ public class CacheLine {
 			throw new CacheException("Block offset out of range: " + block_offset + "/" + bytes_per_line);
 		}
 		
-		return new uint32((line[block_offset] & 0xFF) | ((line[block_offset+1] & 0xFF) << 8) | ((line[block_offset+2] & 0xFF) << 16) | ((line[block_offset+3] & 0xFF) << 24));
+		return (line[block_offset] & 0xFF) | ((line[block_offset+1] & 0xFF) << 8) | ((line[block_offset+2] & 0xFF) << 16) | ((line[block_offset+3] & 0xFF) << 24);
 	}
 	
-	public void setWord(int block_offset, uint32 value) throws CacheException 
+	public void setWord(int block_offset, int value) throws CacheException 
 	{
 		if(!valid)
 		{
-			throw new CacheException("Cannot write to cache line, it is not valid. tag: " + tag.getValueAsHexString());
+			throw new CacheException("Cannot write to cache line, it is not valid. tag: " + CalculationHelper.toHexString(tag));
 		}
 		if(block_offset % PipelineConstants.WORD_SIZE != 0)
 		{
@@ -147,62 +147,103 @@ public class CacheLine {
 		}
 		
 		
-		line[block_offset] = (byte) (value.getValue() & 0xFF);
-		line[block_offset + 1] = (byte) ((value.getValue() >> 8) & 0xFF);
-		line[block_offset + 2] = (byte) ((value.getValue() >> 16) & 0xFF);
-		line[block_offset + 3] = (byte) ((value.getValue() >> 24) & 0xFF);
+		line[block_offset] = (byte) (value & 0xFF);
+		line[block_offset + 1] = (byte) ((value >> 8) & 0xFF);
+		line[block_offset + 2] = (byte) ((value >> 16) & 0xFF);
+		line[block_offset + 3] = (byte) ((value >> 24) & 0xFF);
 	}
 	
-	public uint64 getDWord(int block_offset) throws CacheException
+	public long getDWord(int block_offset) throws CacheException
 	{
 		if(!valid)
-			throw new CacheException("Cannot read from cache line, invalid tag: " + tag.getValueAsHexString());
+			throw new CacheException("Cannot read from cache line, invalid tag: " + CalculationHelper.toHexString(tag));
 		if((block_offset&7) != 0)
 			throw new CacheException("Block offset not aligned to double word size (" + block_offset + ")");
 		if(block_offset >= bytes_per_line)
 			throw new CacheException("Block offset out of range: " + block_offset + "/" + bytes_per_line);
-		return new uint64((line[block_offset] & 0xFF) 
+		return (line[block_offset] & 0xFF) 
 			| ((long)(line[block_offset+1] & 0xFF) << 8)
 			| ((long)(line[block_offset+2] & 0xFF) << 16)
 			| ((long)(line[block_offset+3] & 0xFF) << 24)
 			| ((long)(line[block_offset+4] & 0xFF) << 32)
 			| ((long)(line[block_offset+5] & 0xFF) << 40)
 			| ((long)(line[block_offset+6] & 0xFF) << 48)
-			| ((long)(line[block_offset+7] & 0xFF) << 56));
+			| ((long)(line[block_offset+7] & 0xFF) << 56);
 	}
 	
-	public void setDWord(int block_offset, uint64 value) throws CacheException 
+	public void setDWord(int block_offset, long value) throws CacheException 
 	{
 		if(!valid)
-			throw new CacheException("Cannot write to cache line, invalid tag: " + tag.getValueAsHexString());
+			throw new CacheException("Cannot write to cache line, invalid tag: " + CalculationHelper.toHexString(tag));
 		if((block_offset&1) != 0)
 			throw new CacheException("Block offset not aligned to half word size (" + block_offset + ")");
 		if(block_offset >= bytes_per_line)
 			throw new CacheException("Block offset out of range: " + block_offset + "/" + bytes_per_line);
 		
-		long v = value.getValue();
-		line[block_offset] = (byte) (v & 0xFF);
-		line[block_offset + 1] = (byte) ((v >> 8) & 0xFF);
-		line[block_offset + 2] = (byte) ((v >> 16) & 0xFF);
-		line[block_offset + 3] = (byte) ((v >> 24) & 0xFF);
-		line[block_offset + 4] = (byte) ((v >> 32) & 0xFF);
-		line[block_offset + 5] = (byte) ((v >> 40) & 0xFF);
-		line[block_offset + 6] = (byte) ((v >> 48) & 0xFF);
-		line[block_offset + 7] = (byte) ((v >> 56) & 0xFF);
+		line[block_offset] = (byte) (value & 0xFF);
+		line[block_offset + 1] = (byte) ((value >> 8) & 0xFF);
+		line[block_offset + 2] = (byte) ((value >> 16) & 0xFF);
+		line[block_offset + 3] = (byte) ((value >> 24) & 0xFF);
+		line[block_offset + 4] = (byte) ((value >> 32) & 0xFF);
+		line[block_offset + 5] = (byte) ((value >> 40) & 0xFF);
+		line[block_offset + 6] = (byte) ((value >> 48) & 0xFF);
+		line[block_offset + 7] = (byte) ((value >> 56) & 0xFF);
 	}
 	
-	public void setLine(uint32 tag, byte line[])
+	/**
+	 * Loads the line at line_addr from the next level directly into the
+	 * buffer of this line.
+	 */
+	public void load(int tag, int line_addr, MemoryInterface mem) throws MemoryException
 	{
-		this.tag.setValue(tag);
-		
-		for(int i = 0; i < bytes_per_line; i++)
-		{
-			this.line[i] = line[i];
-		}
-		
+		valid = false;
+		mem.readBlock(line_addr, line);
+		this.tag = tag;
 		valid = true;
+		dirty = false;
+		prefetched = false;
 	}
-	
+
+	/**
+	 * Takes over the line with the given tag without loading it, the caller
+	 * writes the whole line.
+	 */
+	public void allocate(int tag)
+	{
+		this.tag = tag;
+		valid = true;
+		dirty = false;
+		prefetched = false;
+	}
+
+	public void invalidate()
+	{
+		valid = false;
+		dirty = false;
+		prefetched = false;
+	}
+
+	/**
+	 * Copies data.length bytes starting at block_offset into data.
+	 */
+	public void getBlock(int block_offset, byte[] data) throws CacheException
+	{
+		if(!valid)
+			throw new CacheException("Cannot read from cache line, it is not valid. tag: " + CalculationHelper.toHexString(tag));
+		if(block_offset + data.length > bytes_per_line)
+			throw new CacheException("Block out of range: " + block_offset + "+" + data.length + "/" + bytes_per_line);
+		System.arraycopy(line, block_offset, data, 0, data.length);
+	}
+
+	public void setBlock(int block_offset, byte[] data) throws CacheException
+	{
+		if(!valid)
+			throw new CacheException("Cannot write to cache line, it is not valid. tag: " + CalculationHelper.toHexString(tag));
+		if(block_offset + data.length > bytes_per_line)
+			throw new CacheException("Block out of range: " + block_offset + "+" + data.length + "/" + bytes_per_line);
+		System.arraycopy(data, 0, line, block_offset, data.length);
+	}
+
 	public void setDirty(boolean dirty)
 	{
 		this.dirty = dirty;
@@ -213,10 +254,38 @@ public class CacheLine {
 		return dirty;
 	}
 
+	public void setPrefetched(boolean prefetched)
+	{
+		this.prefetched = prefetched;
+	}
+
+	public boolean isPrefetched()
+	{
+		return prefetched;
+	}
+
+	public boolean isValid()
+	{
+		return valid;
+	}
+
+	public int getTag()
+	{
+		return tag;
+	}
+
+	/**
+	 * @return the content of the line, not a copy
+	 */
+	public byte[] getData()
+	{
+		return line;
+	}
+
 	public String dumpLine() 
 	{
 		String s;
-		s = tag.getValueAsHexString() + " ";
+		s = CalculationHelper.toHexString(tag) + " ";
 		for(int i = 0; i < bytes_per_line; i++)
 		{
 			s += "0x" + Integer.toHexString(line[i]) + " "; 
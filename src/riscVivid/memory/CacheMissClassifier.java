@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.memory;
+
+import java.util.Arrays;
+
+import riscVivid.datatypes.CacheMissType;
+
+/**
+ * Classifies cache misses by shadowing every access in a fully associative
+ * LRU cache with the same number of lines and in the set of all lines ever
+ * accessed.
+ *
+ * Both are open addressing hash tables over line addresses. Since line
+ * addresses are aligned to at least a word, the odd value EMPTY never
+ * occurs as key.
+ */
+public class CacheMissClassifier
+{
+	private static final int EMPTY = 1;
+
+	// lines accessed so far
+	private int seen[];
+	private int seen_count = 0;
+
+	// fully associative LRU: slot i holds line lru_addr[i], the slots form
+	// a doubly linked list from the most (head) to the least (tail)
+	// recently used line; lru_map maps line address -> slot + 1
+	private final int capacity;
+	private int lru_addr[];
+	private int lru_prev[];
+	private int lru_next[];
+	private int lru_keys[];
+	private int lru_map[];
+	private int lru_size = 0;
+	private int head = -1;
+	private int tail = -1;
+
+	public CacheMissClassifier(int line_no)
+	{
+		capacity = line_no;
+		seen = newTable(1024);
+		lru_addr = new int[capacity];
+		lru_prev = new int[capacity];
+		lru_next = new int[capacity];
+		lru_keys = newTable(Integer.highestOneBit(capacity) * 4);
+		lru_map = new int[lru_keys.length];
+	}
+
+	/**
+	 * Records an access of the line at line_addr.
+	 *
+	 * @param hit whether the access hit in the real cache
+	 * @return the type of the miss or null for a hit
+	 */
+	public CacheMissType access(int line_addr, boolean hit)
+	{
+		boolean first = addSeen(line_addr);
+		boolean fa_hit = touch(line_addr);
+		if(hit)
+		{
+			return null;
+		}
+		if(first)
+		{
+			return CacheMissType.COMPULSORY;
+		}
+		return fa_hit ? CacheMissType.CONFLICT : CacheMissType.CAPACITY;
+	}
+
+	private static int[] newTable(int size)
+	{
+		int table[] = new int[size];
+		Arrays.fill(table, EMPTY);
+		return table;
+	}
+
+	private static int hash(int key, int mask)
+	{
+		return (key * 0x9E3779B9 >>> 7) & mask;
+	}
+
+	/**
+	 * @return true if line_addr has not been seen before
+	 */
+	private boolean addSeen(int line_addr)
+	{
+		int mask = seen.length - 1;
+		int i = hash(line_addr, mask);
+		while(seen[i] != EMPTY)
+		{
+			if(seen[i] == line_addr)
+			{
+				return false;
+			}
+			i = (i + 1) & mask;
+		}
+		seen[i] = line_addr;
+		if(++seen_count * 2 > seen.length)
+		{
+			int old[] = seen;
+			seen = newTable(old.length * 2);
+			mask = seen.length - 1;
+			for(int key : old)
+			{
+				if(key != EMPTY)
+				{
+					int j = hash(key, mask);
+					while(seen[j] != EMPTY)
+					{
+						j = (j + 1) & mask;
+					}
+					seen[j] = key;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Accesses line_addr in the fully associative LRU model.
+	 *
+	 * @return true on a hit
+	 */
+	private boolean touch(int line_addr)
+	{
+		int mask = lru_keys.length - 1;
+		int i = hash(line_addr, mask);
+		while(lru_keys[i] != EMPTY)
+		{
+			if(lru_keys[i] == line_addr)
+			{
+				int slot = lru_map[i] - 1;
+				unlink(slot);
+				pushFront(slot);
+				return true;
+			}
+			i = (i + 1) & mask;
+		}
+
+		int slot;
+		if(lru_size < capacity)
+		{
+			slot = lru_size++;
+		}
+		else
+		{
+			slot = tail;
+			unlink(slot);
+			remove(lru_addr[slot]);
+			// the table may have been shifted by the removal
+			i = hash(line_addr, mask);
+			while(lru_keys[i] != EMPTY)
+			{
+				i = (i + 1) & mask;
+			}
+		}
+		lru_addr[slot] = line_addr;
+		lru_keys[i] = line_addr;
+		lru_map[i] = slot + 1;
+		pushFront(slot);
+		return false;
+	}
+
+	/**
+	 * Removes a key with backward shift deletion, so no tombstones are needed.
+	 */
+	private void remove(int line_addr)
+	{
+		int mask = lru_keys.length - 1;
+		int i = hash(line_addr, mask);
+		while(lru_keys[i] != line_addr)
+		{
+			i = (i + 1) & mask;
+		}
+		int j = i;
+		while(true)
+		{
+			j = (j + 1) & mask;
+			if(lru_keys[j] == EMPTY)
+			{
+				break;
+			}
+			int home = hash(lru_keys[j], mask);
+			// move entry j to the hole at i if i lies on its probe path
+			if(((j - home) & mask) >= ((j - i) & mask))
+			{
+				lru_keys[i] = lru_keys[j];
+				lru_map[i] = lru_map[j];
+				i = j;
+			}
+		}
+		lru_keys[i] = EMPTY;
+		lru_map[i] = 0;
+	}
+
+	private void unlink(int slot)
+	{
+		int p = lru_prev[slot];
+		int n = lru_next[slot];
+		if(p >= 0)
+		{
+			lru_next[p] = n;
+		}
+		else
+		{
+			head = n;
+		}
+		if(n >= 0)
+		{
+			lru_prev[n] = p;
+		}
+		else
+		{
+			tail = p;
+		}
+	}
+
+	private void pushFront(int slot)
+	{
+		lru_prev[slot] = -1;
+		lru_next[slot] = head;
+		if(head >= 0)
+		{
+			lru_prev[head] = slot;
+		}
+		head = slot;
+		if(tail < 0)
+		{
+			tail = slot;
+		}
+	}
+}
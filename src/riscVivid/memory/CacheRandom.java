@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.memory;
+
+import java.util.Random;
+
+import riscVivid.datatypes.CacheType;
+import riscVivid.datatypes.DCacheWritePolicy;
+import riscVivid.exception.CacheException;
+import riscVivid.exception.PipelineDataTypeException;
+import riscVivid.util.Statistics;
+
+/**
+ * Random replacement. Invalid ways of a set are filled first, afterwards a
+ * random way is replaced. The generator is seeded, so runs are reproducible.
+ *
+ * The victim of a set is drawn once when the set is filled and kept until
+ * the next fill, so asking for the victim (e.g. to check whether it is
+ * dirty) does not change the random sequence.
+ */
+public class CacheRandom extends Cache
+{
+	public static final long DEFAULT_SEED = 0;
+
+	private Random random;
+	// one bit per way that has been filled, packed into a long per set
+	private long filled_ways[];
+	private long all_ways;
+	// the way replaced by the next miss in a full set
+	private int next_victim[];
+
+	public CacheRandom(CacheType type, int line_size, int line_no, int associativity, DCacheWritePolicy write_policy, MemoryInterface mem, Statistics stat) throws CacheException, PipelineDataTypeException
+	{
+		super(type, line_size, line_no, associativity, write_policy, mem, stat);
+
+		initializeRPolCounters();
+	}
+
+	public CacheRandom(CacheType type, int line_size, int line_no, int associativity, MemoryInterface mem, Statistics stat) throws CacheException, PipelineDataTypeException
+	{
+		super(type, line_size, line_no, associativity, mem, stat);
+
+		initializeRPolCounters();
+	}
+
+	private void initializeRPolCounters() throws CacheException
+	{
+		if(associativity > Long.SIZE)
+		{
+			throw new CacheException("Random replacement supports at most " + Long.SIZE + " ways, associativity: " + associativity);
+		}
+		random = new Random(DEFAULT_SEED);
+		filled_ways = new long[lines_per_set];
+		all_ways = (associativity == Long.SIZE) ? -1L : ((1L << associativity) - 1);
+		next_victim = new int[lines_per_set];
+		drawVictims();
+	}
+
+	private void drawVictims()
+	{
+		for(int index = 0; index < lines_per_set; index++)
+		{
+			next_victim[index] = random.nextInt(associativity);
+		}
+	}
+
+	public void setSeed(long seed)
+	{
+		random.setSeed(seed);
+		drawVictims();
+	}
+
+	protected int getCacheWayForReplacement(int addr)
+	{
+		int index = getIndex(addr);
+		long filled = filled_ways[index];
+		if(filled != all_ways)
+		{
+			return Long.numberOfTrailingZeros(~filled);
+		}
+		return next_victim[index];
+	}
+
+	protected void updateReplacementCountersOnAccess(int way, int index)
+	{
+		// nothing to do
+	}
+
+	protected void updateReplacementCountersOnMiss(int way, int index)
+	{
+		filled_ways[index] |= 1L << way;
+		next_victim[index] = random.nextInt(associativity);
+	}
+
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.memory;
+
+import riscVivid.datatypes.CacheType;
+import riscVivid.datatypes.DCacheWritePolicy;
+import riscVivid.exception.CacheException;
+import riscVivid.exception.PipelineDataTypeException;
+import riscVivid.util.Statistics;
+
+/**
+ * Tree pseudo LRU: the associativity-1 nodes of a binary tree over the ways
+ * of a set are packed into one long per set. Node n has the children 2n and
+ * 2n+1, the root is node 1 and the leaves associativity..2*associativity-1
+ * are the ways. A node bit points to the half that is replaced next.
+ */
+public class CacheTreePLRU extends Cache
+{
+	private long plru_tree[];
+	private int levels;
+
+	public CacheTreePLRU(CacheType type, int line_size, int line_no, int associativity, DCacheWritePolicy write_policy, MemoryInterface mem, Statistics stat) throws CacheException, PipelineDataTypeException
+	{
+		super(type, line_size, line_no, associativity, write_policy, mem, stat);
+
+		initializeRPolCounters();
+	}
+
+	public CacheTreePLRU(CacheType type, int line_size, int line_no, int associativity, MemoryInterface mem, Statistics stat) throws CacheException, PipelineDataTypeException
+	{
+		super(type, line_size, line_no, associativity, mem, stat);
+
+		initializeRPolCounters();
+	}
+
+	private void initializeRPolCounters() throws CacheException
+	{
+		if(associativity > Long.SIZE)
+		{
+			throw new CacheException("Tree PLRU supports at most " + Long.SIZE + " ways, associativity: " + associativity);
+		}
+		plru_tree = new long[lines_per_set];
+		levels = Integer.numberOfTrailingZeros(associativity);
+	}
+
+	protected int getCacheWayForReplacement(int addr)
+	{
+		long tree = plru_tree[getIndex(addr)];
+		int node = 1;
+		for(int i = 0; i < levels; i++)
+		{
+			node = (node << 1) | (int)((tree >>> node) & 1);
+		}
+		return node - associativity;
+	}
+
+	protected void updateReplacementCountersOnAccess(int way, int index)
+	{
+		long tree = plru_tree[index];
+		// let every node on the path point away from the accessed way
+		for(int node = way + associativity; node > 1; node >>>= 1)
+		{
+			int parent = node >>> 1;
+			if((node & 1) == 0)
+			{
+				tree |= 1L << parent;
+			}
+			else
+			{
+				tree &= ~(1L << parent);
+			}
+		}
+		plru_tree[index] = tree;
+	}
+
+	protected void updateReplacementCountersOnMiss(int way, int index)
+	{
+		updateReplacementCountersOnAccess(way, index);
+	}
+
+}
@@ -22,15 +22,11 @@ package riscVivid.memory;
 
 import java.util.Properties;
 
-import riscVivid.datatypes.CacheReplacementPolicy;
+import org.apache.log4j.Logger;
+
 import riscVivid.datatypes.CacheType;
-import riscVivid.datatypes.DCacheWritePolicy;
 import riscVivid.datatypes.RequestType;
-import riscVivid.datatypes.uint16;
 import riscVivid.datatypes.uint32;
-import riscVivid.datatypes.uint64;
-import riscVivid.datatypes.uint8;
-import riscVivid.exception.CacheException;
 import riscVivid.exception.MemoryException;
 import riscVivid.exception.PipelineDataTypeException;
 import riscVivid.gui.internalframes.util.ValueInput;
@@ -41,13 +37,21 @@ import riscVivid.util.Statistics;
  */
 public class DataMemory
 {
+	private static Logger logger = Logger.getLogger("DataMemory");
 	private MemoryInterface mem;
 	
-	private Statistics stat = Statistics.getInstance();
+	private Statistics stat;
 	private MemoryLogger reservedMemLogger = null;
+	// null if the address stream is not recorded
+	private AddressTraceWriter trace = null;
 	
-	public DataMemory(MainMemory mem, Properties config) throws MemoryException, PipelineDataTypeException
+	/**
+	 * @param mem the next level below the data cache, i.e. the L2 cache or
+	 *          the main memory
+	 */
+	public DataMemory(MemoryInterface mem, Properties config, Statistics stat) throws MemoryException, PipelineDataTypeException
 	{
+		this.stat = stat;
 
 		boolean useDcache;
 
@@ -66,61 +70,7 @@ public class DataMemory
 		}
 		else
 		{
-
-			int lineSize = 8;
-			if(config.getProperty("dcache_line_size")!=null)
-			{
-				lineSize = Integer.decode(config.getProperty("dcache_line_size"));
-			}
-
-			int lineNo = 32;
-			if(config.getProperty("dcache_line_number")!=null)
-			{
-				lineNo = Integer.decode(config.getProperty("dcache_line_number"));
-			}
-
-			int associativity = 1;
-			if(config.getProperty("dcache_associativity")!=null)
-			{
-				associativity = Integer.decode(config.getProperty("dcache_associativity"));
-			}
-
-			CacheReplacementPolicy rpol = CacheReplacementPolicy.UNKNOWN;
-			if(config.getProperty("dcache_replacement_policy")!=null)
-			{
-				rpol = Cache.getCacheReplacementPolicyFromString(config.getProperty("dcache_replacement_policy"));
-			}
-
-			DCacheWritePolicy wpol = DCacheWritePolicy.WRITE_THROUGH; // write through is the default
-			if(config.getProperty("dcache_write_policy")!=null)
-			{
-				wpol = Cache.getCacheWritePolicyFromString(config.getProperty("dcache_write_policy"));
-			}
-
-			if(associativity == 1)
-			{
-				this.mem = new CacheDirectMapped(CacheType.DCACHE, lineSize, lineNo, associativity, wpol, mem);
-				if((rpol != CacheReplacementPolicy.DIRECT_MAPPED) && (rpol != CacheReplacementPolicy.UNKNOWN))
-				{
-					throw new CacheException("Wrong replacement policy for cache with associativity of 1. Replacement policy: " + rpol);
-				}
-				rpol = CacheReplacementPolicy.DIRECT_MAPPED;
-			}
-			else
-			{
-				switch(rpol)
-				{
-				case FIFO:
-					this.mem = new CacheFIFO(CacheType.DCACHE, lineSize, lineNo, associativity, wpol, mem);
-					break;
-				case LRU:
-					this.mem = new CacheLRU(CacheType.DCACHE, lineSize, lineNo, associativity, wpol, mem);
-					break;
-				default:
-					throw new CacheException("Unknown cache replacement policy: " + rpol);
-				}
-			}
-			stat.setCacheParameters(CacheType.DCACHE, rpol, lineSize, lineNo, associativity, wpol);
+			this.mem = Cache.createFromConfig(CacheType.DCACHE, config, mem, stat);
 		}
         
 		// init memory log
@@ -130,59 +80,147 @@ public class DataMemory
 		    reservedMemLogger.add(ValueInput.strToInt(config.getProperty("data_begin_"+i)),
 		        ValueInput.strToInt(config.getProperty("data_end_"+i)));
 		}
-		System.out.println("Data segments: " + reservedMemLogger);
+		logger.info("Data segments: " + reservedMemLogger);
 	}
 	
 	public boolean isReserved(uint32 addr, int bytes) {
 	    return reservedMemLogger.checkBytes(addr, bytes);
 	}
+	public boolean isReserved(int addr, int bytes) {
+	    return reservedMemLogger.checkBytes(addr, bytes);
+	}
 	public MemoryLogger getReservedMemLogger() {
 	    return reservedMemLogger;
 	}
 
-	public int getRequestDelay(RequestType type, uint32 addr) throws MemoryException
+	public int getRequestDelay(RequestType type, int addr) throws MemoryException
 	{
 		return mem.getRequestDelay(type, addr);
 	}
 
-	public uint8 read_u8(uint32 addr, boolean log_output) throws MemoryException
+	/**
+	 * @return the cycles a miss waits for a free miss status holding register
+	 *          of a non-blocking data cache
+	 */
+	public int getMSHRWait(RequestType type, int addr) throws MemoryException
+	{
+		if(mem instanceof Cache)
+		{
+			return ((Cache) mem).getMSHRWait(type, addr);
+		}
+		return 0;
+	}
+
+	/**
+	 * Advances the outstanding misses and the prefetches of the data cache by
+	 * one cycle.
+	 */
+	public void doCycle() throws MemoryException
+	{
+		if(mem instanceof Cache)
+		{
+			((Cache) mem).doCycle();
+		}
+	}
+
+	/**
+	 * Sets the PC the following accesses are attributed to by the miss
+	 * analysis.
+	 */
+	public void setAccessPC(int pc)
+	{
+		if(mem instanceof Cache)
+		{
+			((Cache) mem).setAccessPC(pc);
+		}
+	}
+
+	public void setAddressTrace(AddressTraceWriter trace)
+	{
+		this.trace = trace;
+	}
+
+	public byte read_u8(int addr, boolean log_output) throws MemoryException
 	{
+		if(trace != null)
+		{
+			trace.record(AddressTraceWriter.LOAD, addr, 1);
+		}
 		return mem.read_u8(addr, log_output);
 	}
 
-	public uint16 read_u16(uint32 addr, boolean log_output) throws MemoryException
+	public short read_u16(int addr, boolean log_output) throws MemoryException
 	{
+		if(trace != null)
+		{
+			trace.record(AddressTraceWriter.LOAD, addr, 2);
+		}
 		return mem.read_u16(addr, log_output);
 	}
 
-	public uint32 read_u32(uint32 addr, boolean log_output) throws MemoryException
+	public int read_u32(int addr, boolean log_output) throws MemoryException
 	{
+		if(trace != null)
+		{
+			trace.record(AddressTraceWriter.LOAD, addr, 4);
+		}
 		return mem.read_u32(addr, log_output);
 	}
 
-	public uint64 read_u64(uint32 addr, boolean log_output) throws MemoryException
+	public long read_u64(int addr, boolean log_output) throws MemoryException
 	{
+		if(trace != null)
+		{
+			trace.record(AddressTraceWriter.LOAD, addr, 8);
+		}
 		return mem.read_u64(addr, log_output);
 	}
 	
-	public void write_u8(uint32 addr, uint8 value) throws MemoryException
+	public void write_u8(int addr, byte value) throws MemoryException
 	{
+		if(trace != null)
+		{
+			trace.record(AddressTraceWriter.STORE, addr, 1);
+		}
 		mem.write_u8(addr, value);
 	}
 	
-	public void write_u16(uint32 addr, uint16 value) throws MemoryException
+	public void write_u16(int addr, short value) throws MemoryException
 	{
+		if(trace != null)
+		{
+			trace.record(AddressTraceWriter.STORE, addr, 2);
+		}
 		mem.write_u16(addr, value);
 	}
 	
-	public void write_u32(uint32 addr, uint32 value) throws MemoryException
+	public void write_u32(int addr, int value) throws MemoryException
 	{
+		if(trace != null)
+		{
+			trace.record(AddressTraceWriter.STORE, addr, 4);
+		}
 		mem.write_u32(addr, value);
 	}
 
-	public void write_u64(uint32 addr, uint64 value) throws MemoryException
+	public void write_u64(int addr, long value) throws MemoryException
 	{
+		if(trace != null)
+		{
+			trace.record(AddressTraceWriter.STORE, addr, 8);
+		}
 		mem.write_u64(addr, value);
 	}
+
+	/**
+	 * Writes the dirty lines of the write back caches to the main memory.
+	 */
+	public void flush() throws MemoryException
+	{
+		if(mem instanceof Cache)
+		{
+			((Cache) mem).flush();
+		}
+	}
 	
 }
@@ -22,12 +22,11 @@ package riscVivid.memory;
 
 import java.util.Properties;
 
-import riscVivid.datatypes.CacheReplacementPolicy;
+import org.apache.log4j.Logger;
+
 import riscVivid.datatypes.CacheType;
-import riscVivid.datatypes.DCacheWritePolicy;
 import riscVivid.datatypes.RequestType;
 import riscVivid.datatypes.uint32;
-import riscVivid.exception.CacheException;
 import riscVivid.exception.MemoryException;
 import riscVivid.exception.PipelineDataTypeException;
 import riscVivid.gui.internalframes.util.ValueInput;
@@ -38,13 +37,21 @@ import riscVivid.util.Statistics;
  */
 public class InstructionMemory
 {
+	private static Logger logger = Logger.getLogger("InstructionMemory");
 	private MemoryInterface mem;	
 	
-	private Statistics stat = Statistics.getInstance();
+	private Statistics stat;
 	private MemoryLogger reservedMemLogger = null;
+	// null if the address stream is not recorded
+	private AddressTraceWriter trace = null;
 
-	public InstructionMemory(MainMemory mem, Properties config) throws MemoryException, PipelineDataTypeException
+	/**
+	 * @param mem the next level below the instruction cache, i.e. the L2
+	 *          cache or the main memory
+	 */
+	public InstructionMemory(MemoryInterface mem, Properties config, Statistics stat) throws MemoryException, PipelineDataTypeException
 	{
+		this.stat = stat;
 		boolean useIcache;
 		
 		if(Integer.decode(config.getProperty("icache_use"))==0)
@@ -62,56 +69,7 @@ public class InstructionMemory
 		}
 		else
 		{
-
-			int lineSize = 8;
-			if(config.getProperty("icache_line_size")!=null)
-			{
-				lineSize = Integer.decode(config.getProperty("icache_line_size"));
-			}
-
-			int lineNo = 32;
-			if(config.getProperty("icache_line_number")!=null)
-			{
-				lineNo = Integer.decode(config.getProperty("icache_line_number"));
-			}
-
-			int associativity = 1;
-			if(config.getProperty("icache_associativity")!=null)
-			{
-				associativity = Integer.decode(config.getProperty("icache_associativity"));
-			}
-
-			CacheReplacementPolicy rpol = CacheReplacementPolicy.UNKNOWN;
-			if(config.getProperty("icache_replacement_policy")!=null)
-			{
-				rpol = Cache.getCacheReplacementPolicyFromString(config.getProperty("icache_replacement_policy"));
-			}
-
-			if(associativity == 1)
-			{
-				this.mem = new CacheDirectMapped(CacheType.ICACHE, lineSize, lineNo, associativity, mem);
-				if((rpol != CacheReplacementPolicy.DIRECT_MAPPED) && (rpol != CacheReplacementPolicy.UNKNOWN))
-				{
-					throw new CacheException("Wrong replacement policy for cache with associativity of 1. Replacement policy: " + rpol);
-				}
-				rpol = CacheReplacementPolicy.DIRECT_MAPPED;
-				
-			}
-			else
-			{
-				switch(rpol)
-				{
-				case FIFO:
-					this.mem = new CacheFIFO(CacheType.ICACHE, lineSize, lineNo, associativity, mem);
-					break;
-				case LRU:
-					this.mem = new CacheLRU(CacheType.ICACHE, lineSize, lineNo, associativity, mem);
-					break;
-				default:
-					throw new CacheException("Unknown cache replacement policy: " + rpol);
-				}
-			}
-			stat.setCacheParameters(CacheType.ICACHE, rpol, lineSize, lineNo, associativity, DCacheWritePolicy.UNKNOWN);
+			this.mem = Cache.createFromConfig(CacheType.ICACHE, config, mem, stat);
 		}
 
 		// init memory logger
@@ -121,23 +79,51 @@ public class InstructionMemory
 			reservedMemLogger.add(ValueInput.strToInt(config.getProperty("text_begin_"+i)),
 					ValueInput.strToInt(config.getProperty("text_end_"+i)));
 		}
-		System.out.println("Text segments: " + reservedMemLogger);
+		logger.info("Text segments: " + reservedMemLogger);
 	}
 
 	public boolean isReserved(uint32 addr, int bytes) {
 		return reservedMemLogger.checkBytes(addr, bytes);
 	}
+	public boolean isReserved(int addr, int bytes) {
+		return reservedMemLogger.checkBytes(addr, bytes);
+	}
 	public MemoryLogger getReservedMemLogger() {
 		return reservedMemLogger;
 	}
 
-	public int getRequestDelay(uint32 addr) throws MemoryException
+	public int getRequestDelay(int addr) throws MemoryException
 	{
 		return mem.getRequestDelay(RequestType.INSTR_RD, addr);
 	}
 	
- 	public uint32 read_u32(uint32 addr) throws MemoryException
+	/**
+	 * Advances the prefetches of the instruction cache by one cycle.
+	 */
+	public void doCycle() throws MemoryException
 	{
+		if(mem instanceof Cache)
+		{
+			((Cache) mem).doCycle();
+		}
+	}
+
+	public void setAddressTrace(AddressTraceWriter trace)
+	{
+		this.trace = trace;
+	}
+
+	public int read_u32(int addr) throws MemoryException
+	{
+		if(trace != null)
+		{
+			trace.record(AddressTraceWriter.FETCH, addr, 4);
+		}
 		return mem.read_u32(addr, false);
 	}
+
+ 	public uint32 read_u32(uint32 addr) throws MemoryException
+	{
+		return new uint32(read_u32(addr.getValue()));
+	}
 }
@@ -20,14 +20,17 @@
  ******************************************************************************/
 package riscVivid.memory;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 import org.apache.log4j.Logger;
 
 import riscVivid.datatypes.*;
 import riscVivid.exception.MemoryException;
+import riscVivid.util.CalculationHelper;
 import riscVivid.util.PagedMemory;
 
 public class MainMemory implements MemoryInterface
@@ -35,237 +38,298 @@ public class MainMemory implements MemoryInterface
     private static Logger logger = Logger.getLogger("MainMemory");
     private PagedMemory memory;
     private short memory_latency;
+    // null if the accesses are not traced
+    private MemoryTracer tracer = null;
 
-    public MainMemory(String raw_file, int raw_file_code_start_address, short memory_latency) throws MemoryException
+    /**
+     * Creates an empty memory without program image, e.g. for replaying
+     * address traces.
+     */
+    public MainMemory(short memory_latency)
     {
         this.memory_latency = memory_latency;
         memory = new PagedMemory();
+    }
 
-        try
-        {
-            FileInputStream fileinputstream = new FileInputStream(raw_file);
-
-            int raw_file_size = fileinputstream.available();
-
-            byte bytearray[] = new byte[raw_file_size];
+    public MainMemory(String raw_file, int raw_file_code_start_address, short memory_latency) throws MemoryException
+    {
+        this(memory_latency);
 
-            fileinputstream.read(bytearray);
+        // map the program image instead of reading it into a temporary
+        // array, the pages are filled directly from the mapping
+        try (FileChannel channel = FileChannel.open(Paths.get(raw_file), StandardOpenOption.READ))
+        {
+            MappedByteBuffer image = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
 
-            int i;
             // write memory code dump into memory, with base address and start
             // offset
-            for (i = 0; i < raw_file_size; i++)
-            {
-                memory.writeByte(raw_file_code_start_address + i, bytearray[i]);
-            }
-
-            fileinputstream.close();
-        }
-        catch (FileNotFoundException e)
-        {
-            e.printStackTrace();
-            System.exit(1);
+            memory.writeBlock(raw_file_code_start_address, image);
         }
         catch (IOException e)
         {
-            e.printStackTrace();
-            System.exit(1);
+            logger.error("Could not load program image " + raw_file + ": " + e);
+            throw new MemoryException("Could not load program image " + raw_file + ": " + e);
         }
     }
 
-    public uint8 read_u8(uint32 address, boolean log_output) throws MemoryException
+    public byte read_u8(int address, boolean log_output) throws MemoryException
     {
         if (log_output)
         {
-            dumpMemory(new uint32(address.getValue() - 4), new uint32(address.getValue() + 4));
+            dumpMemory(address - 4, address + 4);
+        }
+        byte value = memory.readByte(address);
+        if (tracer != null)
+        {
+            tracer.record(MemoryTracer.READ, address, 1, value & 0xFF);
         }
-        return new uint8(memory.readByte(address));
+        return value;
     }
 
-/*
-    public uint8 read_u8(uint32 address) throws MemoryException
-    {
-        return read_u8(address, false);
-    }
-*/
-    
-    public uint16 read_u16(uint32 address, boolean log_output) throws MemoryException
+    public short read_u16(int address, boolean log_output) throws MemoryException
     {
-        if((address.getValue()&0x1 ) != 0) {
-            logger.error("Read u16 from unaligned addr: " + address.getValueAsHexString());
-            throw new MemoryException("Read u16 from unaligned addr: " + address.getValueAsHexString());
+        if((address&0x1 ) != 0) {
+            logger.error("Read u16 from unaligned addr: " + CalculationHelper.toHexString(address));
+            throw new MemoryException("Read u16 from unaligned addr: " + CalculationHelper.toHexString(address));
         }
         if(log_output)
-            dumpMemory(new uint32(address.getValue() - 4), new uint32(address.getValue() + 4));
-        return  new uint16((memory.readByte(address.getValue()) & 0xFF)
-        		+ ((memory.readByte(address.getValue() + 1) & 0xFF) << 8));
+            dumpMemory(address - 4, address + 4);
+        short value = memory.readHWord(address);
+        if (tracer != null)
+        {
+            tracer.record(MemoryTracer.READ, address, 2, value & 0xFFFF);
+        }
+        return value;
     }
 
-/*
-    public uint16 read_u16(uint32 address) throws MemoryException
+    public int read_u32(int address, boolean log_output) throws MemoryException
     {
-        return read_u16(address, false);
-    }
-*/
-    
-    public uint32 read_u32(uint32 address, boolean log_output) throws MemoryException
-    {
-        if((address.getValue()&0x3) != 0)
+        if((address&0x3) != 0)
         {
-            logger.error("Read u32 from unaligned addr: " + address.getValueAsHexString());
-            throw new MemoryException("Read u32 from unaligned addr: " + address.getValueAsHexString());
+            logger.error("Read u32 from unaligned addr: " + CalculationHelper.toHexString(address));
+            throw new MemoryException("Read u32 from unaligned addr: " + CalculationHelper.toHexString(address));
         }
 
-        uint32 value = new uint32((memory.readByte(address.getValue()) & 0xFF) 
-        		+ ((memory.readByte(address.getValue() + 1) & 0xFF) << 8)
-        		+ ((memory.readByte(address.getValue() + 2) & 0xFF) << 16)
-        		+ ((memory.readByte(address.getValue() + 3) & 0xFF) << 24));
+        int value = memory.readWord(address);
         if (log_output)
         {
-            //logger.trace("Read u32 from addr: " + address.getHex());
-            //logger.trace("Read: " + Integer.toHexString(memory.readByte(address.getValue())) + " " + Integer.toHexString(memory.readByte(address.getValue() + 1)) + " "
-            //	+ Integer.toHexString(memory.readByte(address.getValue() + 2)) + " " + Integer.toHexString(memory.readByte(address.getValue() + 3)) + " -> " + value.getHex());
-            dumpMemory(new uint32(address.getValue() - 4), new uint32(address.getValue() + 4));
+            dumpMemory(address - 4, address + 4);
+        }
+        if (tracer != null)
+        {
+            tracer.record(MemoryTracer.READ, address, 4, value & 0xFFFFFFFFL);
         }
         return value;
     }
 
-/*
-    public uint32 read_u32(uint32 address) throws MemoryException
+    public long read_u64(int address, boolean log_output) throws MemoryException
     {
-        return read_u32(address, false);
+        if((address&7) != 0) {
+            logger.error("Read u64 from unaligned addr: " + CalculationHelper.toHexString(address));
+            throw new MemoryException("Read u64 from unaligned addr: " + CalculationHelper.toHexString(address));
+        }
+        if(log_output)
+            dumpMemory(address - 4, address + 4);
+
+        long value = memory.readDWord(address);
+        if (tracer != null)
+        {
+            tracer.record(MemoryTracer.READ, address, 8, value);
+        }
+        return value;
     }
-*/
-    
-    public uint64 read_u64(uint32 address, boolean log_output) throws MemoryException
+
+    /**
+     * Reads data.length bytes starting at address, used to fill cache lines.
+     */
+    public void readBlock(int address, byte[] data) throws MemoryException
     {
-        if((address.getValue()&7) != 0) {
-            logger.error("Read u64 from unaligned addr: " + address.getValueAsHexString());
-            throw new MemoryException("Read u64 from unaligned addr: " + address.getValueAsHexString());
+        memory.readBlock(address, data, 0, data.length);
+        if (tracer != null)
+        {
+            tracer.record(MemoryTracer.READ, address, data.length, 0);
         }
-        if(log_output)
-            dumpMemory(new uint32(address.getValue() - 4), new uint32(address.getValue() + 4));
-
-        return new uint64((memory.readByte(address.getValue()) & 0xFF)
-        	+ ((memory.readByte(address.getValue() + 1) & 0xFF) << 8)
-        	+ ((memory.readByte(address.getValue() + 2) & 0xFF) << 16)
-        	+ ((memory.readByte(address.getValue() + 3) & 0xFF) << 24)
-        	+ ((memory.readByte(address.getValue() + 4) & 0xFF) << 32)
-        	+ ((memory.readByte(address.getValue() + 5) & 0xFF) << 40)
-        	+ ((memory.readByte(address.getValue() + 6) & 0xFF) << 48)
-        	+ ((memory.readByte(address.getValue() + 7) & 0xFF) << 56));
     }
 
+    /**
+     * Writes all bytes of data to the memory starting at address.
+     */
+    public void writeBlock(int address, byte[] data) throws MemoryException
+    {
+        memory.writeBlock(address, data, 0, data.length);
+        if (tracer != null)
+        {
+            tracer.record(MemoryTracer.WRITE, address, data.length, 0);
+        }
+    }
 
     /**
      * TODO ...
      * @throws MemoryException 
      */
-    private uint32 read_u32_dump(uint32 address) throws MemoryException
+    private int read_u32_dump(int address) throws MemoryException
     {
-        return new uint32((memory.readByteDump(address.getValue()) & 0xFF) + ((memory.readByteDump(address.getValue() + 1) & 0xFF) << 8) + ((memory.readByteDump(address.getValue() + 2) & 0xFF) << 16) + ((memory.readByteDump(address.getValue() + 3) & 0xFF) << 24));
+        return (memory.readByteDump(address) & 0xFF) + ((memory.readByteDump(address + 1) & 0xFF) << 8) + ((memory.readByteDump(address + 2) & 0xFF) << 16) + ((memory.readByteDump(address + 3) & 0xFF) << 24);
     }
 
-    public void write_u8(uint32 address, uint8 value) throws MemoryException
+    public void write_u8(int address, byte value) throws MemoryException
     {
-        logger.debug("Write u8 to addr: " + address.getValueAsHexString() + " value: " + value.getValueAsHexString());
+        memory.writeByte(address, value);
+
+        if (tracer != null)
+        {
+            tracer.record(MemoryTracer.WRITE, address, 1, value & 0xFF);
+        }
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Write u8 to addr: " + CalculationHelper.toHexString(address) + " value: " + CalculationHelper.toHexString(value & 0xFF));
+            dumpMemory(address - 4, address + 4);
+        }
+    }
 
-        memory.writeByte(address.getValue(), value.getValue());
+    public void write_u16(int address, short value) throws MemoryException
+    {
+        if((address&0x1 ) != 0)
+        {
+            logger.error("Write u16 to unaligned addr: " + CalculationHelper.toHexString(address));
+            throw new MemoryException("Write u16 to unaligned addr: " + CalculationHelper.toHexString(address));
+        }
 
-        logger.debug("Written: " + value.getValueAsHexString() + " -> " + memory.readByteAsString(address.getValue()));
-        dumpMemory(new uint32(address.getValue() - 4), new uint32(address.getValue() + 4));
+        memory.writeHWord(address, value);
+
+        if (tracer != null)
+        {
+            tracer.record(MemoryTracer.WRITE, address, 2, value & 0xFFFF);
+        }
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Write u16 to addr: " + CalculationHelper.toHexString(address) + " value: " + CalculationHelper.toHexString(value & 0xFFFF));
+            dumpMemory(address - 4, address + 4);
+        }
     }
 
-/*
-    public void write_u8(uint32 address, uint32 value) throws MemoryException
+    public void write_u32(int address, int value) throws MemoryException
     {
-    	write_u8(address, new uint8(value.getValue()));
+        if((address&0x3 ) != 0)
+        {
+            logger.error("Write u32 to unaligned addr: " + CalculationHelper.toHexString(address));
+            throw new MemoryException("Write u32 to unaligned addr: " + CalculationHelper.toHexString(address));
+        }
+
+        memory.writeWord(address, value);
+
+        if (tracer != null)
+        {
+            tracer.record(MemoryTracer.WRITE, address, 4, value & 0xFFFFFFFFL);
+        }
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Write u32 to addr: " + CalculationHelper.toHexString(address) + " value: " + CalculationHelper.toHexString(value));
+            dumpMemory(address - 4, address + 4);
+        }
     }
-*/
 
-    public void write_u16(uint32 address, uint16 value) throws MemoryException
+    public void write_u64(int address, long value) throws MemoryException
     {
-        if((address.getValue()&0x1 ) != 0)
+        if((address&7) != 0)
         {
-            logger.error("Write u16 to unaligned addr: " + address.getValueAsHexString());
-            throw new MemoryException("Write u16 to unaligned addr: " + address.getValueAsHexString());
+            logger.error("Write u64 to unaligned addr: " + CalculationHelper.toHexString(address));
+            throw new MemoryException("Write u64 to unaligned addr: " + CalculationHelper.toHexString(address));
         }
-        logger.debug("Write u16 to addr: " + address.getValueAsHexString() + " value: " + value.getValueAsHexString());
 
-        memory.writeByte(address.getValue(), (byte) (value.getValue() & 0xFF));
-        memory.writeByte(address.getValue() + 1, (byte) ((value.getValue() >> 8) & 0xFF));
+        memory.writeDWord(address, value);
 
-        logger.debug("Written: " + value.getValueAsHexString() + " -> " 
-                + memory.readByteAsString(address.getValue() + 1) + " " + memory.readByteAsString(address.getValue() + 0));
-        dumpMemory(new uint32(address.getValue() - 4), new uint32(address.getValue() + 4));
+        if (tracer != null)
+        {
+            tracer.record(MemoryTracer.WRITE, address, 8, value);
+        }
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Write u64 to addr: " + CalculationHelper.toHexString(address) + " value: " + CalculationHelper.toHexString(value));
+            dumpMemory(address - 4, address + 4);
+        }
     }
 
-/*
-    public void write_u16(uint32 address, uint32 value) throws MemoryException
+    /**
+     * Enables tracing of all accesses to the main memory, null disables it.
+     */
+    public void setTracer(MemoryTracer tracer)
     {
-    	write_u8(address, new uint16(value.getValue()));
+        this.tracer = tracer;
     }
-*/
-    
-    public void write_u32(uint32 address, uint32 value) throws MemoryException
+
+    public MemoryTracer getTracer()
     {
-        if((address.getValue()&0x3 ) != 0)
-        {
-            logger.error("Write u32 to unaligned addr: " + address.getValueAsHexString());
-            throw new MemoryException("Write u32 to unaligned addr: " + address.getValueAsHexString());
-        }
+        return tracer;
+    }
 
-        logger.debug("Write u32 to addr: " + address.getValueAsHexString() + " value: " + value.getValueAsHexString());
+    /*
+     * Wrappers with the unsigned data types, used by the GUI and the trap handlers.
+     */
 
-        memory.writeByte(address.getValue(), (byte) (value.getValue() & 0xFF));
-        memory.writeByte(address.getValue() + 1, (byte) ((value.getValue() >> 8) & 0xFF));
-        memory.writeByte(address.getValue() + 2, (byte) ((value.getValue() >> 16) & 0xFF));
-        memory.writeByte(address.getValue() + 3, (byte) ((value.getValue() >> 24) & 0xFF));
+    public uint8 read_u8(uint32 address, boolean log_output) throws MemoryException
+    {
+        return new uint8(read_u8(address.getValue(), log_output));
+    }
 
-        logger.debug("Written: " + value.getValueAsHexString() + " -> " + memory.readByteAsString(address.getValue() + 3) + " " + memory.readByteAsString(address.getValue() + 2) + " "
-                + memory.readByteAsString(address.getValue() + 1) + " " + memory.readByteAsString(address.getValue() + 0));
-        dumpMemory(new uint32(address.getValue() - 4), new uint32(address.getValue() + 4));
+    public uint16 read_u16(uint32 address, boolean log_output) throws MemoryException
+    {
+        return new uint16(read_u16(address.getValue(), log_output));
+    }
+
+    public uint32 read_u32(uint32 address, boolean log_output) throws MemoryException
+    {
+        return new uint32(read_u32(address.getValue(), log_output));
+    }
+
+    public uint64 read_u64(uint32 address, boolean log_output) throws MemoryException
+    {
+        return new uint64(read_u64(address.getValue(), log_output));
+    }
+
+    public void write_u8(uint32 address, uint8 value) throws MemoryException
+    {
+        write_u8(address.getValue(), value.getValue());
+    }
+
+    public void write_u16(uint32 address, uint16 value) throws MemoryException
+    {
+        write_u16(address.getValue(), value.getValue());
+    }
+
+    public void write_u32(uint32 address, uint32 value) throws MemoryException
+    {
+        write_u32(address.getValue(), value.getValue());
     }
 
     public void write_u64(uint32 address, uint64 value) throws MemoryException
     {
-        if((address.getValue()&7) != 0)
-        {
-            logger.error("Write u64 to unaligned addr: " + address.getValueAsHexString());
-            throw new MemoryException("Write u64 to unaligned addr: " + address.getValueAsHexString());
-        }
-        logger.debug("Write u16 to addr: " + address.getValueAsHexString() + " value: " + value.getValueAsHexString());
-
-        long v = value.getValue();
-        memory.writeByte(address.getValue(), (byte) (v & 0xFF));
-        memory.writeByte(address.getValue() + 1, (byte) ((v >> 8) & 0xFF));
-        memory.writeByte(address.getValue() + 2, (byte) ((v >> 16) & 0xFF));
-        memory.writeByte(address.getValue() + 3, (byte) ((v >> 24) & 0xFF));
-        memory.writeByte(address.getValue() + 4, (byte) ((v >> 32) & 0xFF));
-        memory.writeByte(address.getValue() + 5, (byte) ((v >> 40) & 0xFF));
-        memory.writeByte(address.getValue() + 6, (byte) ((v >> 48) & 0xFF));
-        memory.writeByte(address.getValue() + 7, (byte) ((v >> 56) & 0xFF));
-
-        logger.debug("Written: " + value.getValueAsHexString() + " -> " 
-                + memory.readByteAsString(address.getValue() + 1) + " " + memory.readByteAsString(address.getValue() + 0));
-        dumpMemory(new uint32(address.getValue() - 4), new uint32(address.getValue() + 4));
+        write_u64(address.getValue(), value.getValue());
     }
 
+    public void dumpMemory(uint32 start, uint32 end) throws MemoryException
+    {
+        dumpMemory(start.getValue(), end.getValue());
+    }
 
-   public void dumpMemory(uint32 start, uint32 end) throws MemoryException
+    private void dumpMemory(int start, int end) throws MemoryException
     {
-        uint32 start_aligned = new uint32(start.getValue() & 0xFFFFFFE0);
+        if (!logger.isDebugEnabled())
+        {
+            return;
+        }
+        int start_aligned = start & 0xFFFFFFE0;
 
         logger.debug("             | 0          4          8          c          10         14         18         1c         |");
         logger.debug("-------------+-----------------------------------------------------------------------------------------+");
 
-        for (uint32 addr = start_aligned; addr.getValue() <= end.getValue(); addr.setValue(addr.getValue() + 32))
+        for (int addr = start_aligned; addr <= end; addr += 32)
         {
-            String s = " " + addr.getValueAsHexString() + "  | ";
+            String s = " " + CalculationHelper.toHexString(addr) + "  | ";
 
             for (int i = 0; i <= 28; i += 4)
             {
-                s = s + read_u32_dump(new uint32(addr.getValue() + i)).getValueAsHexString() + " ";
+                s = s + CalculationHelper.toHexString(read_u32_dump(addr + i)) + " ";
             }
             s = s + "|";
 
@@ -280,7 +344,7 @@ public class MainMemory implements MemoryInterface
         return new uint32(-1);
     }
 
-    public short getRequestDelay(RequestType type, uint32 address) throws MemoryException
+    public short getRequestDelay(RequestType type, int address) throws MemoryException
     {
         switch (type)
         {
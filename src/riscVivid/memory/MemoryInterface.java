@@ -21,28 +21,37 @@
 package riscVivid.memory;
 
 import riscVivid.datatypes.RequestType;
-import riscVivid.datatypes.uint16;
-import riscVivid.datatypes.uint32;
-import riscVivid.datatypes.uint64;
-import riscVivid.datatypes.uint8;
 import riscVivid.exception.MemoryException;
 
+/**
+ * Memory hierarchy interface used by the pipeline. Addresses and values are
+ * passed as primitives, the unsigned wrapper types are only used by the
+ * facades towards the GUI (see MainMemory, DataMemory, InstructionMemory).
+ */
 public interface MemoryInterface {
 
-	short getRequestDelay(RequestType instrRd, uint32 addr) throws MemoryException;
-
-	uint8 read_u8(uint32 addr, boolean log_output) throws MemoryException;
-	uint16 read_u16(uint32 addr, boolean log_output) throws MemoryException;
-	uint32 read_u32(uint32 addr, boolean log_output) throws MemoryException;
-	uint64 read_u64(uint32 addr, boolean log_output) throws MemoryException;
-
-//	uint32 read_u32(uint32 addr) throws MemoryException;
-
-	void write_u8(uint32 addr, uint8 value) throws MemoryException;
-//	void write_u8(uint32 addr, uint32 value) throws MemoryException;
-	void write_u16(uint32 addr, uint16 value) throws MemoryException;
-	void write_u32(uint32 addr, uint32 value) throws MemoryException;
-	void write_u64(uint32 addr, uint64 value) throws MemoryException;
-
+	short getRequestDelay(RequestType type, int addr) throws MemoryException;
+
+	byte read_u8(int addr, boolean log_output) throws MemoryException;
+	short read_u16(int addr, boolean log_output) throws MemoryException;
+	int read_u32(int addr, boolean log_output) throws MemoryException;
+	long read_u64(int addr, boolean log_output) throws MemoryException;
+
+	void write_u8(int addr, byte value) throws MemoryException;
+	void write_u16(int addr, short value) throws MemoryException;
+	void write_u32(int addr, int value) throws MemoryException;
+	void write_u64(int addr, long value) throws MemoryException;
+
+	/**
+	 * Reads data.length bytes starting at addr. Used by caches to load whole
+	 * lines from the next level.
+	 */
+	void readBlock(int addr, byte[] data) throws MemoryException;
+
+	/**
+	 * Writes data.length bytes starting at addr. Used by caches to write back
+	 * whole lines to the next level.
+	 */
+	void writeBlock(int addr, byte[] data) throws MemoryException;
 
 }
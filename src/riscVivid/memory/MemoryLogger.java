@@ -1,30 +1,47 @@
 package riscVivid.memory;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import riscVivid.datatypes.uint32;
 
+/**
+ * The reserved memory segments, e.g. the text and data segments of the
+ * program. The fetch stage checks every fetch against them, so the segments
+ * are kept as sorted primitive arrays of start and end addresses and the
+ * segment of the last successful check is tried first.
+ */
 public class MemoryLogger {
-	private ArrayList<DataSegment> segments;
+	private static final int INITIAL_CAPACITY = 8;
+
+	// segment i covers the addresses starts[i] (inclusive) to ends[i]
+	// (exclusive); the segments are sorted, disjoint and not adjacent
+	private int[] starts;
+	private int[] ends;
+	private int size = 0;
+	// index of the segment that contained the last checked range
+	private int lastSegment = 0;
 
 	public MemoryLogger() {
-	    this.segments = new ArrayList<DataSegment>();
+	    this.starts = new int[INITIAL_CAPACITY];
+	    this.ends = new int[INITIAL_CAPACITY];
 	}
-	
+
 	public MemoryLogger(MemoryLogger ml) {
-	    this.segments = new ArrayList<DataSegment>(ml.segments);
+	    this.starts = Arrays.copyOf(ml.starts, ml.starts.length);
+	    this.ends = Arrays.copyOf(ml.ends, ml.ends.length);
+	    this.size = ml.size;
 	}
 	/**
 	 * init segments from a string "segment1.begin-segment1.end,segment2.begin-segment2.end"
 	 */
 	public void initFromCfgString(String cfg) {
-		segments.clear();
+		size = 0;
+		lastSegment = 0;
 		String[] segmentsStr = cfg.split(",");
 		for (String segStr : segmentsStr) {
 			String[] startEndStr = segStr.split("-");
 			if (startEndStr.length == 2)
-				segments.add(new DataSegment(Integer.parseInt(startEndStr[0]),
-						Integer.parseInt(startEndStr[1])));
+				add(Integer.parseInt(startEndStr[0]), Integer.parseInt(startEndStr[1]));
 		}
 	}
 
@@ -33,72 +50,57 @@ public class MemoryLogger {
 	 */
 	public String toCfgString() {
 		StringBuilder s = new StringBuilder();
-		for (int i = 0; i < segments.size(); ++i) {
-			DataSegment seg = segments.get(i);
-			s.append("0x"+Integer.toHexString(seg.getStart()) + "-0x" + Integer.toHexString(seg.getEnd()));
-			if (i < segments.size() - 1)
+		for (int i = 0; i < size; ++i) {
+			s.append("0x"+Integer.toHexString(starts[i]) + "-0x" + Integer.toHexString(ends[i]));
+			if (i < size - 1)
 				s.append(", ");
 		}
 		return s.toString();
 	}
-	
+
 	public boolean isEmpty() {
-	    return segments.isEmpty();
+	    return size == 0;
 	}
 
 	/**
+	 * Adds a segment and merges it with all segments it overlaps or touches.
+	 *
 	 * @param startAddress is inclusive
 	 * @param endAddress is exclusive
 	 */
 	public void add(int startAddress, int endAddress) {
 		if (startAddress >= endAddress) // segment is empty
 			return;
-		if (segments.size() == 0) {
-			segments.add(new DataSegment(startAddress, endAddress));
-		} else {
-			int idx = findSubsequentSegment(startAddress);
-			DataSegment prev = null;
-			boolean appended = false;
-			// if previous DataSegment exists, check if new segment can be appended to previous segment
-			if (idx - 1 >= 0) {
-				prev = segments.get(idx-1);   //prev.start <= startAddress
-				if (startAddress <= prev.end) {
-					if (endAddress <= prev.end) {
-						// prev fully contains the new DataSegment, nothing to do
-					    return;
-					} else {
-						// prev.end < endAddress: merge previous segment with new segment
-						prev.setEnd(endAddress);
-					}
-					appended = true;
-				}
-			}
-			// if subsequent DataSegment exists, check if new segment can be appended to subsequent segment
-			if (idx < segments.size()) {
-				DataSegment subsequent = segments.get(idx);
-				// if subsequent segment is adjacent or overlapping, merge the segments
-				if (endAddress >= subsequent.start) {
-					subsequent.setStart(startAddress);
-					if (endAddress > subsequent.getEnd())
-						subsequent.setEnd(endAddress);
-					// Test if previous segment can be merged with the subsequent segment
-					if (prev != null) {
-						if (prev.end >= subsequent.start) {
-							// prev.getEnd() <= next.getEnd()) is true here
-							prev.setEnd(subsequent.end);
-							segments.remove(subsequent);
-						}
-					}
-					appended = true;
-				}
-			}
-			// if Segment couldn't be appended to any other segment: insert a new segment
-			if (!appended) {
-				segments.add(idx, new DataSegment(startAddress, endAddress));
+		// the segments first to last - 1 are merged with the new segment
+		int first = findSubsequentSegment(startAddress);
+		int last = first;
+		if (first > 0 && startAddress <= ends[first - 1])
+			first--;
+		while (last < size && endAddress >= starts[last])
+			last++;
+		if (first < last) {
+			startAddress = Math.min(startAddress, starts[first]);
+			endAddress = Math.max(endAddress, ends[last - 1]);
+		}
+		int merged = last - first;
+		if (merged == 0) {
+			if (size == starts.length) {
+				starts = Arrays.copyOf(starts, 2 * size);
+				ends = Arrays.copyOf(ends, 2 * size);
 			}
+			System.arraycopy(starts, first, starts, first + 1, size - first);
+			System.arraycopy(ends, first, ends, first + 1, size - first);
+			size++;
+		} else if (merged > 1) {
+			System.arraycopy(starts, last, starts, first + 1, size - last);
+			System.arraycopy(ends, last, ends, first + 1, size - last);
+			size -= merged - 1;
 		}
+		starts[first] = startAddress;
+		ends[first] = endAddress;
+		lastSegment = first;
 	}
-	
+
 	   public void addBytes(uint32 address, int numBytes) {
 	        add(address.getValue(), address.getValue() + numBytes);
 	    }
@@ -106,86 +108,48 @@ public class MemoryLogger {
 	/**
 	 * @param startAddress is inclusive
 	 * @param endAddress is exclusive
-	 * @return if specified memory segment is in the log 
+	 * @return if specified memory segment is in the log
 	 */
 	public boolean check(int startAddress, int endAddress) {
-		int idx = findSubsequentSegment(startAddress);
-		idx -= 1;
-	    // idx is now always < segments.size()
-		// test if segments.get(idx) exists; in that case, test if it contains the segment
-		if (idx >= 0) {
-			if (segments.get(idx).getStart() <= startAddress && 
-					segments.get(idx).getEnd() >= endAddress)
-				return true;
+		// consecutive checks mostly fall into the same segment
+		if (lastSegment < size && starts[lastSegment] <= startAddress && ends[lastSegment] >= endAddress)
+			return true;
+		// the last segment starting at or before startAddress is the only
+		// one that can contain the range
+		int idx = findSubsequentSegment(startAddress) - 1;
+		if (idx >= 0 && ends[idx] >= endAddress) {
+			lastSegment = idx;
+			return true;
 		}
 		return false;
 	}
-	
+
 	public boolean checkBytes(uint32 address, int numBytes) {
-		return check(address.getValue(), address.getValue() + numBytes);
+		return checkBytes(address.getValue(), numBytes);
+	}
+
+	public boolean checkBytes(int address, int numBytes) {
+		return check(address, address + numBytes);
 	}
 
 	/**
-	 * @return the idx with address < segment[idx].start and address >= segment[i-1].start;
-	 *  if no such segments exists, it returns segments.size()
-	 *  if no segments exist, it returns -1
+	 * @return the index of the first segment with address < starts[idx], size
+	 *  if there is no such segment
 	 */
 	private int findSubsequentSegment(int address) {
-		int upper = segments.size() - 1, lower = 0;
-		if (segments.size() == 0)
-			return -1;
-		// should always terminate
-		while (true) {
-			int idx = (upper + lower) / 2;
-
-			if (address >= segments.get(idx).getStart()) {
-				lower = idx+1;
-				// if last element reached and it is still smaller than the address:
-				if (lower >= segments.size())
-					return segments.size();
-			} else { // (address < segments.get(idx).getStart())
-				upper = idx - 1;
-				// if first element reached or nextlower segment is lower than address
-				if (idx == 0 || address >= segments.get(idx - 1).getStart())
-					return idx;
-			}
+		int lower = 0, upper = size;
+		while (lower < upper) {
+			int idx = (lower + upper) >>> 1;
+			if (address >= starts[idx])
+				lower = idx + 1;
+			else
+				upper = idx;
 		}
+		return lower;
 	}
 
 	@Override
 	public String toString() {
 		return toCfgString();
 	}
-
-	private static class DataSegment {
-		// DataSegment include the start address and the end address and all addresses inbetween.
-		private int start, end;
-		public DataSegment(int start, int end) {
-			if (end < start)
-				throw new RuntimeException("start must be lower or equal to end");
-			this.start = start;
-			this.end = end;
-		}
-
-		public int getStart() {
-			return start;
-		}
-		public void setStart(int start) {
-			if (end < start)
-				throw new RuntimeException("start must be lower or equal to end");
-			this.start = start;
-		}
-		public int getEnd() {
-			return end;
-		}
-		public void setEnd(int end) {
-			if (end < start)
-				throw new RuntimeException("end must be bigger or equal to start");
-			this.end = end;
-		}
-
-		public boolean contains(int address) {
-			return start <= address && address <= end;
-		}
-	}
 }
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.memory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import riscVivid.datatypes.MemoryTraceFormat;
+import riscVivid.exception.MemoryException;
+import riscVivid.util.Statistics;
+
+/**
+ * Records the accesses that reach the main memory.
+ *
+ * Each access is written as one record with the clock cycle, the kind of the
+ * access, the address, the width in bytes and the value. Block transfers
+ * (cache line fills) have the line size as width and no value.
+ *
+ * CSV: one line per access, e.g. "1234,W,0x10000040,4,0x0000002a".
+ * BINARY: big endian records of 18 bytes: int cycle, byte kind ('R' or
+ * 'W'), byte width, int address, long value.
+ */
+public class MemoryTracer
+{
+	public static final byte READ = 'R';
+	public static final byte WRITE = 'W';
+
+	private final MemoryTraceFormat format;
+	private final DataOutputStream out;
+	private final Statistics stat;
+
+	public MemoryTracer(String file, MemoryTraceFormat format, Statistics stat) throws MemoryException
+	{
+		if ((format != MemoryTraceFormat.CSV) && (format != MemoryTraceFormat.BINARY))
+		{
+			throw new MemoryException("Unknown memory trace format: " + format);
+		}
+		this.format = format;
+		this.stat = stat;
+		try
+		{
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+			if (format == MemoryTraceFormat.CSV)
+			{
+				out.writeBytes("cycle,type,address,width,value\n");
+			}
+		}
+		catch (IOException e)
+		{
+			throw new MemoryException("Cannot open memory trace file " + file + ": " + e.getMessage());
+		}
+	}
+
+	public void record(byte kind, int address, int width, long value) throws MemoryException
+	{
+		try
+		{
+			if (format == MemoryTraceFormat.BINARY)
+			{
+				out.writeInt(stat.getCycles());
+				out.writeByte(kind);
+				out.writeByte(width);
+				out.writeInt(address);
+				out.writeLong(value);
+			}
+			else
+			{
+				StringBuilder sb = new StringBuilder(48);
+				sb.append(stat.getCycles()).append(',').append((char) kind).append(',')
+					.append("0x").append(Integer.toHexString(address)).append(',')
+					.append(width).append(',');
+				if (width <= 8)
+				{
+					sb.append("0x").append(Long.toHexString(value));
+				}
+				sb.append('\n');
+				out.writeBytes(sb.toString());
+			}
+		}
+		catch (IOException e)
+		{
+			throw new MemoryException("Writing the memory trace failed: " + e.getMessage());
+		}
+	}
+
+	public void close()
+	{
+		try
+		{
+			out.close();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	public static MemoryTraceFormat getMemoryTraceFormatFromString(String format)
+	{
+		if (format.equalsIgnoreCase(MemoryTraceFormat.CSV.toString()))
+		{
+			return MemoryTraceFormat.CSV;
+		}
+		else if (format.equalsIgnoreCase(MemoryTraceFormat.BINARY.toString()))
+		{
+			return MemoryTraceFormat.BINARY;
+		}
+		return MemoryTraceFormat.UNKNOWN;
+	}
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.memory;
+
+import riscVivid.exception.CacheException;
+import riscVivid.util.CalculationHelper;
+
+/**
+ * The miss status holding registers of a non-blocking cache. Every busy
+ * register holds a line that is still being loaded from the next level and
+ * the cycles until it arrives.
+ *
+ * There are only a few registers, so they are searched linearly. A register
+ * with no remaining cycles is free.
+ */
+public class MissStatusHoldingRegisters
+{
+	private final int line_addrs[];
+	private final int remaining[];
+	// set for the registers whose line arrived in the current cycle
+	private final boolean arrived[];
+	private int occupied = 0;
+
+	public MissStatusHoldingRegisters(int size) throws CacheException
+	{
+		if(size <= 0)
+		{
+			throw new CacheException("The number of miss status holding registers has to be positive, but it is: " + size);
+		}
+		line_addrs = new int[size];
+		remaining = new int[size];
+		arrived = new boolean[size];
+	}
+
+	public int size()
+	{
+		return line_addrs.length;
+	}
+
+	public int getOccupied()
+	{
+		return occupied;
+	}
+
+	/**
+	 * @return the cycles until the line arrives, 0 if it is not being loaded
+	 */
+	public int getRemainingCycles(int line_addr)
+	{
+		for(int i = 0; i < line_addrs.length; i++)
+		{
+			if((remaining[i] > 0) && (line_addrs[i] == line_addr))
+			{
+				return remaining[i];
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return true if the line arrived in the current cycle, i.e. an access to
+	 *          it in this cycle had to wait for it
+	 */
+	public boolean hasArrived(int line_addr)
+	{
+		for(int i = 0; i < line_addrs.length; i++)
+		{
+			if(arrived[i] && (line_addrs[i] == line_addr))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the cycles until a register is free, 0 if one is free now
+	 */
+	public int getCyclesUntilFree()
+	{
+		if(occupied < line_addrs.length)
+		{
+			return 0;
+		}
+		int min = Integer.MAX_VALUE;
+		for(int r : remaining)
+		{
+			min = Math.min(min, r);
+		}
+		return min;
+	}
+
+	/**
+	 * Records that the line is loaded for the given number of cycles. A line
+	 * that is already being loaded keeps its register.
+	 */
+	public void allocate(int line_addr, int cycles) throws CacheException
+	{
+		if(cycles <= 0)
+		{
+			return;
+		}
+		int free = -1;
+		for(int i = 0; i < line_addrs.length; i++)
+		{
+			if(remaining[i] == 0)
+			{
+				free = (free < 0) ? i : free;
+			}
+			else if(line_addrs[i] == line_addr)
+			{
+				remaining[i] = Math.max(remaining[i], cycles);
+				return;
+			}
+		}
+		if(free < 0)
+		{
+			throw new CacheException("No free miss status holding register for line " + CalculationHelper.toHexString(line_addr));
+		}
+		line_addrs[free] = line_addr;
+		remaining[free] = cycles;
+		arrived[free] = false;
+		occupied++;
+	}
+
+	/**
+	 * Advances all outstanding loads by one cycle and frees the registers of
+	 * the lines that arrived.
+	 */
+	public void doCycle()
+	{
+		for(int i = 0; i < remaining.length; i++)
+		{
+			arrived[i] = false;
+			if(remaining[i] > 0)
+			{
+				remaining[i]--;
+				if(remaining[i] == 0)
+				{
+					arrived[i] = true;
+					occupied--;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.memory;
+
+import riscVivid.exception.CacheException;
+
+/**
+ * Proposes the next degree lines whenever an access enters a new line.
+ */
+public class NextLinePrefetcher extends Prefetcher
+{
+	private int last_line = 1;
+
+	public NextLinePrefetcher(int line_size, int degree) throws CacheException
+	{
+		super(line_size, degree);
+	}
+
+	@Override
+	public void access(int pc, int addr, boolean hit)
+	{
+		int line = addr & ~(line_size - 1);
+		if(line == last_line)
+		{
+			return;
+		}
+		last_line = line;
+		for(int i = 1; i <= degree; i++)
+		{
+			propose(addr, line + i * line_size);
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.memory;
+
+import riscVivid.datatypes.PrefetcherType;
+import riscVivid.exception.CacheException;
+import riscVivid.util.Page;
+
+/**
+ * A hardware prefetcher in front of a cache. It observes the demand accesses
+ * and proposes lines to load before they are accessed; the cache issues them
+ * in the following cycle.
+ *
+ * Like real prefetchers they do not cross the page of the triggering access,
+ * the next page need not be mapped.
+ */
+public abstract class Prefetcher
+{
+	protected final int line_size;
+	protected final int degree;
+	// line addresses proposed by the last access
+	private final int candidates[];
+	private int candidate_count = 0;
+
+	protected Prefetcher(int line_size, int degree) throws CacheException
+	{
+		if(degree <= 0)
+		{
+			throw new CacheException("The prefetch degree has to be positive, but it is: " + degree);
+		}
+		this.line_size = line_size;
+		this.degree = degree;
+		candidates = new int[degree];
+	}
+
+	/**
+	 * Observes a demand access.
+	 *
+	 * @param pc the PC of the load, store or fetch
+	 * @param addr the accessed address
+	 * @param hit true if the line was present
+	 */
+	public abstract void access(int pc, int addr, boolean hit);
+
+	/**
+	 * Proposes the line containing addr unless it is on another page than
+	 * the triggering access.
+	 */
+	protected void propose(int trigger_addr, int addr)
+	{
+		if(((trigger_addr ^ addr) & ~(Page.page_size - 1)) != 0)
+		{
+			return;
+		}
+		if(candidate_count < candidates.length)
+		{
+			candidates[candidate_count++] = addr & ~(line_size - 1);
+		}
+	}
+
+	public int getCandidateCount()
+	{
+		return candidate_count;
+	}
+
+	public int getCandidate(int i)
+	{
+		return candidates[i];
+	}
+
+	public void clearCandidates()
+	{
+		candidate_count = 0;
+	}
+
+	public int getDegree()
+	{
+		return degree;
+	}
+
+	public static Prefetcher create(PrefetcherType type, int line_size, int degree, int table_size) throws CacheException
+	{
+		switch(type)
+		{
+		case NEXT_LINE:
+			return new NextLinePrefetcher(line_size, degree);
+		case STRIDE:
+			return new StridePrefetcher(line_size, degree, table_size);
+		default:
+			throw new CacheException("Unknown prefetcher: " + type);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.memory;
+
+import java.util.Arrays;
+
+import riscVivid.exception.CacheException;
+
+/**
+ * Reference prediction table indexed by the PC of the load or store. Every
+ * entry holds the last address and stride of its instruction and a 2 bit
+ * confidence counter. A stride that is seen again raises the confidence, a
+ * different one lowers it and replaces the stride once the confidence is
+ * gone. While the confidence is set the next degree addresses along the
+ * stride are proposed.
+ */
+public class StridePrefetcher extends Prefetcher
+{
+	// PCs are word aligned, so an odd value is never a tag
+	private static final int EMPTY = 1;
+	private static final int MAX_CONFIDENCE = 3;
+
+	private final int pcs[];
+	private final int last_addrs[];
+	private final int strides[];
+	private final byte confidence[];
+
+	public StridePrefetcher(int line_size, int degree, int table_size) throws CacheException
+	{
+		super(line_size, degree);
+		if(Integer.bitCount(table_size) != 1)
+		{
+			throw new CacheException("The size of the stride table has to be a power of two, but it is: " + table_size);
+		}
+		pcs = new int[table_size];
+		Arrays.fill(pcs, EMPTY);
+		last_addrs = new int[table_size];
+		strides = new int[table_size];
+		confidence = new byte[table_size];
+	}
+
+	@Override
+	public void access(int pc, int addr, boolean hit)
+	{
+		int i = (pc >>> 2) & (pcs.length - 1);
+		if(pcs[i] != pc)
+		{
+			pcs[i] = pc;
+			last_addrs[i] = addr;
+			strides[i] = 0;
+			confidence[i] = 0;
+			return;
+		}
+		int stride = addr - last_addrs[i];
+		if(stride == 0)
+		{
+			// the same address again, e.g. the other half of a double word access
+			return;
+		}
+		if(stride == strides[i])
+		{
+			confidence[i] = (byte) Math.min(confidence[i] + 1, MAX_CONFIDENCE);
+		}
+		else if(confidence[i] > 0)
+		{
+			confidence[i]--;
+		}
+		else
+		{
+			strides[i] = stride;
+		}
+		last_addrs[i] = addr;
+		if(confidence[i] > 0)
+		{
+			stride = strides[i];
+			int last_line = addr & ~(line_size - 1);
+			for(int k = 1; k <= degree; k++)
+			{
+				int target = addr + k * stride;
+				// small strides walk through the same line several times
+				if((target & ~(line_size - 1)) != last_line)
+				{
+					last_line = target & ~(line_size - 1);
+					propose(addr, target);
+				}
+			}
+		}
+	}
+}
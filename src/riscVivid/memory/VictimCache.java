@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.memory;
+
+import riscVivid.exception.CacheException;
+
+/**
+ * A small fully associative buffer for the lines replaced in a cache. A miss
+ * in the cache that hits in the victim cache swaps the two lines instead of
+ * loading the line from the next level, which removes many conflict misses
+ * of caches with a low associativity.
+ *
+ * The lines are replaced in LRU order. The entries hold the line objects of
+ * the cache, so a swap only exchanges references.
+ */
+public class VictimCache
+{
+	private final CacheLine lines[];
+	private final int line_addrs[];
+	// time of the last insertion per entry, the smallest one is replaced
+	private final long last_used[];
+	private long time = 0;
+
+	public VictimCache(int size, int line_size, int tag_size) throws CacheException
+	{
+		if(size <= 0)
+		{
+			throw new CacheException("The number of victim cache lines has to be positive, but it is: " + size);
+		}
+		lines = new CacheLine[size];
+		line_addrs = new int[size];
+		last_used = new long[size];
+		for(int i = 0; i < size; i++)
+		{
+			lines[i] = new CacheLine(line_size, tag_size);
+		}
+	}
+
+	public int size()
+	{
+		return lines.length;
+	}
+
+	/**
+	 * @return the entry holding the line, -1 if it is not in the victim cache
+	 */
+	public int find(int line_addr)
+	{
+		for(int i = 0; i < lines.length; i++)
+		{
+			if(lines[i].isValid() && (line_addrs[i] == line_addr))
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the entry replaced by the next insertion: an invalid one or the
+	 *          least recently inserted one
+	 */
+	public int getReplacementEntry()
+	{
+		int entry = 0;
+		for(int i = 0; i < lines.length; i++)
+		{
+			if(!lines[i].isValid())
+			{
+				return i;
+			}
+			if(last_used[i] < last_used[entry])
+			{
+				entry = i;
+			}
+		}
+		return entry;
+	}
+
+	public CacheLine getLine(int entry)
+	{
+		return lines[entry];
+	}
+
+	public int getLineAddr(int entry)
+	{
+		return line_addrs[entry];
+	}
+
+	/**
+	 * Puts the line into the entry.
+	 *
+	 * @return the line that was in the entry before, the cache reuses it
+	 */
+	public CacheLine replace(int entry, CacheLine line, int line_addr)
+	{
+		CacheLine old = lines[entry];
+		lines[entry] = line;
+		line_addrs[entry] = line_addr;
+		last_used[entry] = ++time;
+		return old;
+	}
+}
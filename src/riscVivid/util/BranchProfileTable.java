@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.util;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Per branch profile of the resolved branches: accesses, directions,
+ * prediction outcomes and targets.
+ *
+ * Like CacheMissTable, the branch PCs are kept in an open addressing table
+ * with the counters in parallel arrays, so counting a branch does not
+ * allocate. At most TARGETS distinct targets are recorded per branch.
+ */
+public class BranchProfileTable
+{
+	/// Number of distinct targets recorded per branch
+	public static final int TARGETS = 4;
+	// PCs are word aligned, so an odd value is never a key
+	private static final int EMPTY = 1;
+
+	private static final String CSV_HEADER =
+			"pc,btb_index,accesses,taken,not_taken,taken_ratio,mispredicted,mispredict_rate,distinct_targets,targets";
+
+	private int pcs[];
+	private int btb_indices[];
+	private int accesses[];
+	private int taken[];
+	private int mispredicted[];
+	private int targets[];
+	// number of recorded targets, TARGETS + 1 if there were more
+	private byte target_counts[];
+	private int size = 0;
+
+	public BranchProfileTable()
+	{
+		allocate(256);
+	}
+
+	/**
+	 * @param btb_idx the btb entry of the branch, only recorded on the first access
+	 */
+	public void count(int pc, int btb_idx, int target, boolean branching, boolean correct_prediction)
+	{
+		int i = find(pc, btb_idx);
+		accesses[i]++;
+		if(branching)
+		{
+			taken[i]++;
+		}
+		if(!correct_prediction)
+		{
+			mispredicted[i]++;
+		}
+		int n = Math.min(target_counts[i], TARGETS);
+		for(int t = 0; t < n; t++)
+		{
+			if(targets[i * TARGETS + t] == target)
+			{
+				return;
+			}
+		}
+		if(n < TARGETS)
+		{
+			targets[i * TARGETS + n] = target;
+		}
+		target_counts[i] = (byte) (n + 1);
+	}
+
+	/**
+	 * @return the number of distinct branch PCs
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @return the most frequently executed branches first, equal counts by ascending PC
+	 */
+	private Integer[] getSortedSlots()
+	{
+		Integer[] slots = new Integer[size];
+		int n = 0;
+		for(int i = 0; i < pcs.length; i++)
+		{
+			if(pcs[i] != EMPTY)
+			{
+				slots[n++] = i;
+			}
+		}
+		Arrays.sort(slots, (a, b) -> (accesses[a] != accesses[b]) ? Integer.compare(accesses[b], accesses[a]) : Integer.compare(pcs[a], pcs[b]));
+		return slots;
+	}
+
+	private String targetsToString(int slot, String separator)
+	{
+		String s = "";
+		int n = Math.min(target_counts[slot], TARGETS);
+		for(int t = 0; t < n; t++)
+		{
+			s += ((t > 0) ? separator : "") + CalculationHelper.toHexString(targets[slot * TARGETS + t]);
+		}
+		if(target_counts[slot] > TARGETS)
+		{
+			s += separator + "...";
+		}
+		return s;
+	}
+
+	/**
+	 * @return one line per branch, the most frequently executed first, at most max_entries
+	 */
+	public String toString(int max_entries)
+	{
+		DecimalFormat f = new DecimalFormat("###.##");
+		Integer[] slots = getSortedSlots();
+		StringBuilder s = new StringBuilder();
+		for(int j = 0; j < Math.min(size, max_entries); j++)
+		{
+			int i = slots[j];
+			s.append("bpc: " + CalculationHelper.toHexString(pcs[i]) + " [" + btb_indices[i] + "] tgts: [" + targetsToString(i, ", ")
+					+ "] a:" + accesses[i] + " t/nt: " + taken[i] + "/" + (accesses[i] - taken[i])
+					+ " mp/cp: " + mispredicted[i] + "/" + (accesses[i] - mispredicted[i])
+					+ " mp-ratio: " + f.format((double)mispredicted[i]/((double)accesses[i])) + "\n");
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Writes one CSV record per branch, the most frequently executed first.
+	 */
+	public void writeCSV(String file) throws IOException
+	{
+		try (PrintWriter out = new PrintWriter(new FileWriter(file)))
+		{
+			out.println(CSV_HEADER);
+			for(int i : getSortedSlots())
+			{
+				out.println(CalculationHelper.toHexString(pcs[i]) + "," + btb_indices[i] + "," + accesses[i] + ","
+						+ taken[i] + "," + (accesses[i] - taken[i]) + ","
+						+ String.format(Locale.ROOT, "%.4f", (double)taken[i]/accesses[i]) + ","
+						+ mispredicted[i] + ","
+						+ String.format(Locale.ROOT, "%.4f", (double)mispredicted[i]/accesses[i]) + ","
+						+ Math.min(target_counts[i], TARGETS) + "," + targetsToString(i, " "));
+			}
+		}
+	}
+
+	private static int hash(int pc, int mask)
+	{
+		return ((pc >>> 2) * 0x9E3779B9 >>> 8) & mask;
+	}
+
+	/**
+	 * @return the slot of pc, which is inserted if necessary
+	 */
+	private int find(int pc, int btb_idx)
+	{
+		int mask = pcs.length - 1;
+		int i = hash(pc, mask);
+		while(pcs[i] != EMPTY)
+		{
+			if(pcs[i] == pc)
+			{
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		if((size + 1) * 2 > pcs.length)
+		{
+			grow();
+			return find(pc, btb_idx);
+		}
+		pcs[i] = pc;
+		btb_indices[i] = btb_idx;
+		size++;
+		return i;
+	}
+
+	private void allocate(int slots)
+	{
+		pcs = new int[slots];
+		Arrays.fill(pcs, EMPTY);
+		btb_indices = new int[slots];
+		accesses = new int[slots];
+		taken = new int[slots];
+		mispredicted = new int[slots];
+		targets = new int[slots * TARGETS];
+		target_counts = new byte[slots];
+	}
+
+	private void grow()
+	{
+		int[] old_pcs = pcs;
+		int[] old_btb_indices = btb_indices;
+		int[] old_accesses = accesses;
+		int[] old_taken = taken;
+		int[] old_mispredicted = mispredicted;
+		int[] old_targets = targets;
+		byte[] old_target_counts = target_counts;
+		allocate(old_pcs.length * 2);
+		int mask = pcs.length - 1;
+		for(int j = 0; j < old_pcs.length; j++)
+		{
+			if(old_pcs[j] != EMPTY)
+			{
+				int i = hash(old_pcs[j], mask);
+				while(pcs[i] != EMPTY)
+				{
+					i = (i + 1) & mask;
+				}
+				pcs[i] = old_pcs[j];
+				btb_indices[i] = old_btb_indices[j];
+				accesses[i] = old_accesses[j];
+				taken[i] = old_taken[j];
+				mispredicted[i] = old_mispredicted[j];
+				System.arraycopy(old_targets, j * TARGETS, targets, i * TARGETS, TARGETS);
+				target_counts[i] = old_target_counts[j];
+			}
+		}
+	}
+}
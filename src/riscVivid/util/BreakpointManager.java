@@ -31,7 +31,7 @@ public class BreakpointManager implements ItemSelectable {
     private BreakpointManager() {
     }
     
-    public static BreakpointManager getInstance() {
+    public static synchronized BreakpointManager getInstance() {
         if (instance == null)
            instance = new BreakpointManager();
         return instance;
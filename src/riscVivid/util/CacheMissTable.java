@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * riscVivid - A RISC-V processor simulator.
+ * (C)opyright 2013-2016 The riscVivid project, University of Augsburg, Germany
+ * https://github.com/unia-sik/riscVivid
+ *
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program, see <LICENSE>. If not, see
+ * <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package riscVivid.util;
+
+import java.util.Arrays;
+
+import riscVivid.datatypes.CacheMissType;
+
+/**
+ * Cache misses per type and per PC of the instruction that caused them.
+ *
+ * The PCs are kept in an open addressing table with the counters of all miss
+ * types stored next to each other, so counting a miss does not allocate.
+ */
+public class CacheMissTable
+{
+	private static final int TYPES = CacheMissType.values().length;
+	// PCs are word aligned, so an odd value is never a key
+	private static final int EMPTY = 1;
+
+	private int totals[] = new int[TYPES];
+	private int pcs[];
+	private int counts[];
+	private int size = 0;
+
+	public CacheMissTable()
+	{
+		pcs = new int[256];
+		Arrays.fill(pcs, EMPTY);
+		counts = new int[pcs.length * TYPES];
+	}
+
+	public void count(int pc, CacheMissType type)
+	{
+		totals[type.ordinal()]++;
+		counts[find(pc) * TYPES + type.ordinal()]++;
+	}
+
+	public int getMisses(CacheMissType type)
+	{
+		return totals[type.ordinal()];
+	}
+
+	public int getMisses()
+	{
+		int sum = 0;
+		for(int t : totals)
+		{
+			sum += t;
+		}
+		return sum;
+	}
+
+	/**
+	 * @return the number of distinct PCs that caused misses
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @return the PCs with the most misses, at most max_entries
+	 */
+	public int[] getTopPCs(int max_entries)
+	{
+		Integer[] slots = new Integer[size];
+		int n = 0;
+		for(int i = 0; i < pcs.length; i++)
+		{
+			if(pcs[i] != EMPTY)
+			{
+				slots[n++] = i;
+			}
+		}
+		// most misses first, equal counts by ascending PC
+		Arrays.sort(slots, (a, b) -> (slotMisses(a) != slotMisses(b)) ? Integer.compare(slotMisses(b), slotMisses(a)) : Integer.compareUnsigned(pcs[a], pcs[b]));
+		int[] top = new int[Math.min(size, max_entries)];
+		for(int i = 0; i < top.length; i++)
+		{
+			top[i] = pcs[slots[i]];
+		}
+		return top;
+	}
+
+	public int getMisses(int pc, CacheMissType type)
+	{
+		int slot = lookup(pc);
+		return (slot < 0) ? 0 : counts[slot * TYPES + type.ordinal()];
+	}
+
+	public int getMisses(int pc)
+	{
+		int slot = lookup(pc);
+		return (slot < 0) ? 0 : slotMisses(slot);
+	}
+
+	public String toString(int max_entries)
+	{
+		String s = "compulsory: " + getMisses(CacheMissType.COMPULSORY)
+				+ " capacity: " + getMisses(CacheMissType.CAPACITY)
+				+ " conflict: " + getMisses(CacheMissType.CONFLICT) + "\n";
+		for(int pc : getTopPCs(max_entries))
+		{
+			s += "  PC " + CalculationHelper.toHexString(pc) + ": " + getMisses(pc)
+					+ " (compulsory: " + getMisses(pc, CacheMissType.COMPULSORY)
+					+ " capacity: " + getMisses(pc, CacheMissType.CAPACITY)
+					+ " conflict: " + getMisses(pc, CacheMissType.CONFLICT) + ")\n";
+		}
+		return s;
+	}
+
+	private int slotMisses(int slot)
+	{
+		int sum = 0;
+		for(int t = 0; t < TYPES; t++)
+		{
+			sum += counts[slot * TYPES + t];
+		}
+		return sum;
+	}
+
+	private static int hash(int pc, int mask)
+	{
+		return ((pc >>> 2) * 0x9E3779B9 >>> 8) & mask;
+	}
+
+	private int lookup(int pc)
+	{
+		int mask = pcs.length - 1;
+		int i = hash(pc, mask);
+		while(pcs[i] != EMPTY)
+		{
+			if(pcs[i] == pc)
+			{
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the slot of pc, which is inserted if necessary
+	 */
+	private int find(int pc)
+	{
+		int mask = pcs.length - 1;
+		int i = hash(pc, mask);
+		while(pcs[i] != EMPTY)
+		{
+			if(pcs[i] == pc)
+			{
+				return i;
+			}
+			i = (i + 1) & mask;
+		}
+		if((size + 1) * 2 > pcs.length)
+		{
+			grow();
+			return find(pc);
+		}
+		pcs[i] = pc;
+		size++;
+		return i;
+	}
+
+	private void grow()
+	{
+		int[] old_pcs = pcs;
+		int[] old_counts = counts;
+		pcs = new int[old_pcs.length * 2];
+		Arrays.fill(pcs, EMPTY);
+		counts = new int[pcs.length * TYPES];
+		int mask = pcs.length - 1;
+		for(int j = 0; j < old_pcs.length; j++)
+		{
+			if(old_pcs[j] != EMPTY)
+			{
+				int i = hash(old_pcs[j], mask);
+				while(pcs[i] != EMPTY)
+				{
+					i = (i + 1) & mask;
+				}
+				pcs[i] = old_pcs[j];
+				System.arraycopy(old_counts, j * TYPES, counts, i * TYPES, TYPES);
+			}
+		}
+	}
+}
@@ -24,6 +24,7 @@ import riscVivid.exception.PipelineDataTypeException;
 
 public class CalculationHelper
 {
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 
 	public static int generateBitStringOfOnes(int bit_vector_length)
 	{
@@ -45,4 +46,36 @@ public class CalculationHelper
 		return (Integer.numberOfTrailingZeros(value));
 	}
 
+	/**
+	 * Same format as uint32.getValueAsHexString(), but without wrapping the value.
+	 */
+	public static String toHexString(int value)
+	{
+		char[] s = new char[10];
+		s[0] = '0';
+		s[1] = 'x';
+		for(int i = 9; i >= 2; i--)
+		{
+			s[i] = HEX_DIGITS[value & 0xF];
+			value >>>= 4;
+		}
+		return new String(s);
+	}
+
+	/**
+	 * Same format as uint64.getValueAsHexString(), but without wrapping the value.
+	 */
+	public static String toHexString(long value)
+	{
+		char[] s = new char[18];
+		s[0] = '0';
+		s[1] = 'x';
+		for(int i = 17; i >= 2; i--)
+		{
+			s[i] = HEX_DIGITS[(int) (value & 0xF)];
+			value >>>= 4;
+		}
+		return new String(s);
+	}
+
 }
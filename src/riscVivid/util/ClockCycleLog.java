@@ -25,8 +25,18 @@ import java.util.Map.Entry;
 
 import riscVivid.datatypes.uint32;
 
+/**
+ * Pipeline occupation of every simulated cycle, shown in the clock cycle
+ * diagram of the GUI. Each simulation has its own log.
+ */
 public class ClockCycleLog
 {
-    public static ArrayList<ArrayList<Entry<String, uint32>>> log = new ArrayList<>();
-    public static ArrayList<uint32> code = new ArrayList<>();
+    public final ArrayList<ArrayList<Entry<String, uint32>>> log = new ArrayList<>();
+    public final ArrayList<uint32> code = new ArrayList<>();
+
+    public void clear()
+    {
+        log.clear();
+        code.clear();
+    }
 }
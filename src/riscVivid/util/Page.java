@@ -20,12 +20,22 @@
  ******************************************************************************/
 package riscVivid.util;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 import riscVivid.exception.MemoryException;
 
 public class Page
 {
 	private byte[] page_memory;
 	public static final int page_size = 16384; // has to be the power of two!!
+
+	// little endian views on the page memory for the multi-byte accesses
+	private static final VarHandle HWORD = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle WORD = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle DWORD = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
 	
 	public Page() throws MemoryException
 	{
@@ -52,4 +62,56 @@ public class Page
 		return page_memory[address];
 	}
 
+	/*
+	 * The multi-byte accessors expect the access to lie completely within
+	 * the page.
+	 */
+	public short readHWord(int address)
+	{
+		return (short) HWORD.get(page_memory, address);
+	}
+
+	public int readWord(int address)
+	{
+		return (int) WORD.get(page_memory, address);
+	}
+
+	public long readDWord(int address)
+	{
+		return (long) DWORD.get(page_memory, address);
+	}
+
+	public void writeHWord(int address, short data)
+	{
+		HWORD.set(page_memory, address, data);
+	}
+
+	public void writeWord(int address, int data)
+	{
+		WORD.set(page_memory, address, data);
+	}
+
+	public void writeDWord(int address, long data)
+	{
+		DWORD.set(page_memory, address, data);
+	}
+
+	public void readBlock(int address, byte[] data, int offset, int length)
+	{
+		System.arraycopy(page_memory, address, data, offset, length);
+	}
+
+	public void writeBlock(int address, byte[] data, int offset, int length)
+	{
+		System.arraycopy(data, offset, page_memory, address, length);
+	}
+
+	/**
+	 * Fills length bytes of the page from the current position of data.
+	 */
+	public void writeBlock(int address, ByteBuffer data, int length)
+	{
+		data.get(page_memory, address, length);
+	}
+
 }
@@ -21,6 +21,8 @@
 package riscVivid.util;
 
 
+import java.nio.ByteBuffer;
+
 import org.apache.log4j.Logger;
 
 import riscVivid.datatypes.uint32;
@@ -49,6 +51,142 @@ public class PagedMemory
 	}
 	
 	public void writeByte(int address, byte data) throws MemoryException
+	{
+		// determine the lower 13 bit for addressing within the 16k pages
+		// and write data to page
+		getPageForWrite(address).writeByte((address&(Page.page_size-1)), data);
+	}
+
+	/*
+	 * The multi-byte accessors use little endian byte order. An access that
+	 * crosses a page boundary is split into single bytes.
+	 */
+	public void writeHWord(int address, short data) throws MemoryException
+	{
+		int offset = address&(Page.page_size-1);
+		if(offset > Page.page_size - 2)
+		{
+			writeByte(address, (byte) data);
+			writeByte(address + 1, (byte) (data >> 8));
+			return;
+		}
+		getPageForWrite(address).writeHWord(offset, data);
+	}
+
+	public void writeWord(int address, int data) throws MemoryException
+	{
+		int offset = address&(Page.page_size-1);
+		if(offset > Page.page_size - 4)
+		{
+			writeHWord(address, (short) data);
+			writeHWord(address + 2, (short) (data >> 16));
+			return;
+		}
+		getPageForWrite(address).writeWord(offset, data);
+	}
+
+	public void writeDWord(int address, long data) throws MemoryException
+	{
+		int offset = address&(Page.page_size-1);
+		if(offset > Page.page_size - 8)
+		{
+			writeWord(address, (int) data);
+			writeWord(address + 4, (int) (data >> 32));
+			return;
+		}
+		getPageForWrite(address).writeDWord(offset, data);
+	}
+
+	/**
+	 * Copies length bytes from data, starting at offset, into the memory.
+	 */
+	public void writeBlock(int address, byte[] data, int offset, int length) throws MemoryException
+	{
+		while(length > 0)
+		{
+			int page_offset = address&(Page.page_size-1);
+			int chunk = Math.min(length, Page.page_size - page_offset);
+			getPageForWrite(address).writeBlock(page_offset, data, offset, chunk);
+			address += chunk;
+			offset += chunk;
+			length -= chunk;
+		}
+	}
+	
+	/**
+	 * Copies the remaining bytes of data into the memory, the pages are
+	 * filled directly from the buffer.
+	 */
+	public void writeBlock(int address, ByteBuffer data) throws MemoryException
+	{
+		while(data.hasRemaining())
+		{
+			int page_offset = address&(Page.page_size-1);
+			int chunk = Math.min(data.remaining(), Page.page_size - page_offset);
+			getPageForWrite(address).writeBlock(page_offset, data, chunk);
+			address += chunk;
+		}
+	}
+	
+	public byte readByte(uint32 address) throws MemoryException
+	{
+		return readByte(address.getValue());
+	}
+	
+	public byte readByte(int address) throws MemoryException
+	{
+		// determine the lower 13 bit for addressing within the 16k pages
+		// and write data to page
+		return getPageForRead(address).readByte((address&(Page.page_size-1)));
+	}
+
+	public short readHWord(int address) throws MemoryException
+	{
+		int offset = address&(Page.page_size-1);
+		if(offset > Page.page_size - 2)
+		{
+			return (short) ((readByte(address) & 0xFF) | (readByte(address + 1) << 8));
+		}
+		return getPageForRead(address).readHWord(offset);
+	}
+
+	public int readWord(int address) throws MemoryException
+	{
+		int offset = address&(Page.page_size-1);
+		if(offset > Page.page_size - 4)
+		{
+			return (readHWord(address) & 0xFFFF) | (readHWord(address + 2) << 16);
+		}
+		return getPageForRead(address).readWord(offset);
+	}
+
+	public long readDWord(int address) throws MemoryException
+	{
+		int offset = address&(Page.page_size-1);
+		if(offset > Page.page_size - 8)
+		{
+			return (readWord(address) & 0xFFFFFFFFL) | ((long) readWord(address + 4) << 32);
+		}
+		return getPageForRead(address).readDWord(offset);
+	}
+
+	/**
+	 * Copies length bytes starting at address into data, starting at offset.
+	 */
+	public void readBlock(int address, byte[] data, int offset, int length) throws MemoryException
+	{
+		while(length > 0)
+		{
+			int page_offset = address&(Page.page_size-1);
+			int chunk = Math.min(length, Page.page_size - page_offset);
+			getPageForRead(address).readBlock(page_offset, data, offset, chunk);
+			address += chunk;
+			offset += chunk;
+			length -= chunk;
+		}
+	}
+
+	private Page getPageForWrite(int address) throws MemoryException
 	{
 		// determine the page by the upper 18 bit
 		int page_number = address >>> (32-page_addr_bits);
@@ -64,18 +202,10 @@ public class PagedMemory
 		{
 			pages[page_number] = new Page();
 		}
-		
-		// determine the lower 13 bit for addressing within the 16k pages
-		// and write data to page
-		pages[page_number].writeByte((address&(Page.page_size-1)), data);
-	}
-	
-	public byte readByte(uint32 address) throws MemoryException
-	{
-		return readByte(address.getValue());
+		return pages[page_number];
 	}
-	
-	public byte readByte(int address) throws MemoryException
+
+	private Page getPageForRead(int address) throws MemoryException
 	{
 		// determine the page by the upper 18 bit
 		int page_number = address >>> (32-page_addr_bits);
@@ -92,10 +222,7 @@ public class PagedMemory
 			logger.warn("Reading from unallocated page!");
 			pages[page_number] = new Page();
 		}
-		
-		// determine the lower 13 bit for addressing within the 16k pages
-		// and write data to page
-		return pages[page_number].readByte((address&(Page.page_size-1)));
+		return pages[page_number];
 	}
 	
 	public String readByteAsString(uint32 address) throws MemoryException
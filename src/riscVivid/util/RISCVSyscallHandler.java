@@ -22,6 +22,8 @@ package riscVivid.util;
 
 
 
+import java.io.PrintStream;
+
 import org.apache.log4j.Logger;
 
 import riscVivid.RegisterSet;
@@ -46,22 +48,24 @@ public class RISCVSyscallHandler {
     private final uint8 A7 = new uint8(Registers.instance().getInteger("a7"));
     
 	private static Logger logger = Logger.getLogger("SCALL");
-	private static final RISCVSyscallHandler instance = new RISCVSyscallHandler();
 	private TrapObservable oOutput = null;
 	private TrapObservable oInput = null;
 	private Input input = null;
 	private DataMemory mem=null;
+	// the stdout of the simulated program
+	private final PrintStream out;
 
 	private int lastExitCode = 0;
 	
 	
-	private RISCVSyscallHandler()
+	public RISCVSyscallHandler()
 	{
+		this(System.out);
 	}
-	
-	public static RISCVSyscallHandler getInstance()
+
+	public RISCVSyscallHandler(PrintStream out)
 	{
-		return instance;
+		this.out = out;
 	}
 	
 	public void setTrapObserverOutput(TrapObservable to)
@@ -94,7 +98,7 @@ public class RISCVSyscallHandler {
 		int i;
 		try {
 			for (i=0; i<len; i++) {
-				s[i] = mem.read_u8(new uint32(addr+i), false).getValue();
+				s[i] = mem.read_u8(addr+i, false);
 			}
 		} catch (MemoryException e) {
 		}
@@ -136,19 +140,19 @@ public class RISCVSyscallHandler {
 			addr = a1;
 			len = a2;
 			if(user_input != null) {
-				System.out.println("Input: \"" + user_input + "\"");
+				out.println("Input: \"" + user_input + "\"");
 				logger.info("Input: \"" + user_input + "\" @" + String.format("0x%08x", addr));
 				byte[] raw = user_input.getBytes();
 				i = raw.length;
 				if (i<len) len=i;
 				for(i=0; i<len; i++)
-					mem.write_u8(new uint32(addr+i), new uint8(raw[i]));
+					mem.write_u8(addr+i, raw[i]);
 				reg_set.write(A0, new uint32(len));
 			}
-			if (!mem.isReserved(new uint32(addr), len)) {
+			if (!mem.isReserved(addr, len)) {
 				// find first unreserved byte
 				int unreservedAddr = addr;
-				while (mem.isReserved(new uint32(unreservedAddr), 1))
+				while (mem.isReserved(unreservedAddr, 1))
 					unreservedAddr++;
 				DialogWrapper.showWarningDialog("The user input is " + (unreservedAddr > addr ? "partially " : "") +
 						"written into unreserved memory at " + new uint32(unreservedAddr).getValueAsHexString(),
@@ -167,7 +171,7 @@ public class RISCVSyscallHandler {
 			}
 			
 			String msg = stringFromMemory(a1, a2);
-			System.out.println(msg);
+			out.println(msg);
 			logger.info("Printf out: \"" + msg + "\" from address "+ String.format("0x%08x", a1));
 			
 			if (oOutput != null)
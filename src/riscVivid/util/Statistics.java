@@ -21,12 +21,6 @@
 package riscVivid.util;
 
 import java.text.DecimalFormat;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.Properties;
 
 
@@ -35,19 +29,21 @@ import org.apache.log4j.Logger;
 import riscVivid.PipelineConstants;
 import riscVivid.datatypes.BranchPredictorType;
 import riscVivid.datatypes.BranchTargetBufferLookupResult;
+import riscVivid.datatypes.BranchTargetBufferUpdateResult;
+import riscVivid.datatypes.CacheInclusionPolicy;
 import riscVivid.datatypes.CacheReplacementPolicy;
 import riscVivid.datatypes.CacheType;
 import riscVivid.datatypes.DCacheWritePolicy;
-import riscVivid.datatypes.uint32;
+import riscVivid.datatypes.PrefetcherType;
+import riscVivid.datatypes.StallCause;
 import riscVivid.exception.CacheException;
 
 public class Statistics
 {
 	// Logger
 	private static Logger logger = Logger.getLogger("riscVivid");
-	
-	// Singleton
-	private static final Statistics instance = new Statistics();
+	// number of PCs listed per cache in the miss analysis
+	private static final int MISS_TABLE_ENTRIES = 10;
 	
 	private int cycles;
 	private int instructions;
@@ -70,9 +66,24 @@ public class Statistics
 	private int store_forward_from_mem;
 	private int store_forward_from_ex;
 	private int btb_size;
+	private int btb_associativity;
 	private BranchPredictorType btb_predictor;
 	private int btb_hits;
 	private int btb_misses;
+	// how the btb entries of the resolved branches were allocated
+	private int btb_cold_misses;
+	private int btb_target_changes;
+	private int btb_conflict_evictions;
+	// return address stack, only printed if ras_size is set
+	private int ras_size;
+	private int ras_hits;
+	private int ras_misses;
+	// cycles in which the pipeline or the fetch was stalled, a cycle can have several causes
+	private int stalls_load_use;
+	private int stalls_instruction_fetch;
+	private int stalls_data_load;
+	private int stalls_data_store;
+	private int stalls_mshr_full;
 	private boolean icache = false;
 	private int icache_accesses;
 	private int icache_hits;
@@ -94,24 +105,80 @@ public class Statistics
 	private CacheReplacementPolicy dcache_replacement_policy = CacheReplacementPolicy.UNKNOWN;
 	private DCacheWritePolicy dcache_write_policy = DCacheWritePolicy.UNKNOWN;
 	private int dcache_size;
+	// words written from the dcache to the main memory: every store with
+	// write through, whole dirty lines with write back
+	private int dcache_words_stored;
+	private int dcache_write_backs;
+	// miss status holding registers of a non-blocking dcache, only printed if dcache_mshr_number is set
+	private int dcache_mshr_number;
+	private long dcache_mshr_occupancy;
+	private int dcache_mshr_cycles;
+	private int dcache_mshr_max_occupancy;
+	private int dcache_mshr_merges;
+	// prefetchers, only printed if set; useful prefetches were accessed before
+	// they were replaced, late ones were accessed before they arrived
+	private PrefetcherType icache_prefetcher = PrefetcherType.NONE;
+	private int icache_prefetch_degree;
+	private int icache_prefetches;
+	private int icache_prefetches_useful;
+	private int icache_prefetches_late;
+	private PrefetcherType dcache_prefetcher = PrefetcherType.NONE;
+	private int dcache_prefetch_degree;
+	private int dcache_prefetches;
+	private int dcache_prefetches_useful;
+	private int dcache_prefetches_late;
+	// victim caches, only printed if the number of lines is set; every line
+	// loaded into the cache is looked up, a hit in the victim cache is also
+	// counted as a miss of its cache
+	private int icache_victim_lines;
+	private int icache_victim_hits;
+	private int icache_victim_misses;
+	private int dcache_victim_lines;
+	private int dcache_victim_hits;
+	private int dcache_victim_misses;
+	private int l2cache_victim_lines;
+	private int l2cache_victim_hits;
+	private int l2cache_victim_misses;
+	private boolean l2cache = false;
+	private int l2cache_accesses;
+	private int l2cache_hits;
+	private int l2cache_misses;
+	private int l2cache_words_loaded;
+	private int l2cache_line_size;
+	private int l2cache_line_no;
+	private int l2cache_associativity;
+	private CacheReplacementPolicy l2cache_replacement_policy = CacheReplacementPolicy.UNKNOWN;
+	private DCacheWritePolicy l2cache_write_policy = DCacheWritePolicy.UNKNOWN;
+	private int l2cache_size;
+	private int l2cache_words_stored;
+	private int l2cache_write_backs;
+	private CacheInclusionPolicy l2cache_inclusion = CacheInclusionPolicy.NON_INCLUSIVE;
+	// lines invalidated above an inclusive L2 cache and lines put into an
+	// exclusive L2 cache when they were replaced above
+	private int l2cache_back_invalidations;
+	private int l2cache_inserted_lines;
+	// only set if the miss analysis is enabled for the cache
+	private CacheMissTable icache_miss_table;
+	private CacheMissTable dcache_miss_table;
+	private CacheMissTable l2cache_miss_table;
+	private int decode_cache_size;
+	private int decode_cache_hits;
+	private int decode_cache_misses;
 	
-	private Map<uint32,BranchStat>branches_map;
+	private BranchProfileTable branch_profile;
 
 	private Properties config;
-	
-	private Statistics()
-	{
-		config = null;
-		setBranches_map(new HashMap<uint32,BranchStat>());
-	}
+	// statistic_count_also_masked_forwardings=1, read once because the
+	// forwardings are counted in every cycle
+	private boolean count_masked_forwardings = false;
 	
 	/*
-	 * obtain a reference to the object anywhere using:
-	 * Statistics stat = Statistics.getInstance();
+	 * Each simulation has its own statistics, see SimulationContext.
 	 */
-	public static Statistics getInstance()
+	public Statistics()
 	{
-		return instance;
+		config = null;
+		branch_profile = new BranchProfileTable();
 	}
 	
 	public int getCycles()
@@ -216,6 +283,225 @@ public class Statistics
 		return store_forward_from_ex;
 	}
 
+	public int getDecodeCache_hits()
+	{
+		return decode_cache_hits;
+	}
+
+	public int getDecodeCache_misses()
+	{
+		return decode_cache_misses;
+	}
+
+	public int getBtb_conflict_evictions()
+	{
+		return btb_conflict_evictions;
+	}
+
+	public int getRAS_hits()
+	{
+		return ras_hits;
+	}
+
+	public int getRAS_misses()
+	{
+		return ras_misses;
+	}
+
+	public int getStall_cycles(StallCause cause)
+	{
+		switch(cause)
+		{
+		case LOAD_USE:
+			return stalls_load_use;
+		case INSTRUCTION_FETCH:
+			return stalls_instruction_fetch;
+		case DATA_LOAD:
+			return stalls_data_load;
+		case DATA_STORE:
+			return stalls_data_store;
+		case MSHR_FULL:
+			return stalls_mshr_full;
+		default:
+			return 0;
+		}
+	}
+
+	public int getIcache_accesses()
+	{
+		return icache_accesses;
+	}
+
+	public int getIcache_hits()
+	{
+		return icache_hits;
+	}
+
+	public int getIcache_misses()
+	{
+		return icache_misses;
+	}
+
+	public int getDcache_accesses()
+	{
+		return dcache_accesses;
+	}
+
+	public int getDcache_hits()
+	{
+		return dcache_hits;
+	}
+
+	public int getDcache_misses()
+	{
+		return dcache_misses;
+	}
+
+	public int getDcache_words_stored()
+	{
+		return dcache_words_stored;
+	}
+
+	public int getPrefetches(CacheType type)
+	{
+		return (type == CacheType.ICACHE) ? icache_prefetches : ((type == CacheType.DCACHE) ? dcache_prefetches : 0);
+	}
+
+	public int getUseful_prefetches(CacheType type)
+	{
+		return (type == CacheType.ICACHE) ? icache_prefetches_useful : ((type == CacheType.DCACHE) ? dcache_prefetches_useful : 0);
+	}
+
+	public int getVictim_hits(CacheType type)
+	{
+		switch(type)
+		{
+		case ICACHE:
+			return icache_victim_hits;
+		case DCACHE:
+			return dcache_victim_hits;
+		case L2CACHE:
+			return l2cache_victim_hits;
+		default:
+			return 0;
+		}
+	}
+
+	public int getL2cache_back_invalidations()
+	{
+		return l2cache_back_invalidations;
+	}
+
+	public int getDcache_mshr_merges()
+	{
+		return dcache_mshr_merges;
+	}
+
+	public int getDcache_write_backs()
+	{
+		return dcache_write_backs;
+	}
+
+	public boolean isL2cache()
+	{
+		return l2cache;
+	}
+
+	public int getL2cache_accesses()
+	{
+		return l2cache_accesses;
+	}
+
+	public int getL2cache_hits()
+	{
+		return l2cache_hits;
+	}
+
+	public int getL2cache_misses()
+	{
+		return l2cache_misses;
+	}
+
+	public int getL2cache_words_loaded()
+	{
+		return l2cache_words_loaded;
+	}
+
+	public int getL2cache_words_stored()
+	{
+		return l2cache_words_stored;
+	}
+
+	public int getL2cache_write_backs()
+	{
+		return l2cache_write_backs;
+	}
+
+	/**
+	 * Looks up a counter by name, for the assert_stat_&lt;name&gt;_value keys
+	 * of the configuration file that pin the timing of regression programs.
+	 *
+	 * @return the value of the counter or null if the name is unknown
+	 */
+	public Integer getCounter(String name)
+	{
+		switch(name)
+		{
+		case "cycles":
+			return cycles;
+		case "instructions":
+			return instructions;
+		case "jumps_mispredicted":
+			return jumps_mispredicted;
+		case "stalls_instruction_fetch":
+			return stalls_instruction_fetch;
+		case "stalls_data_load":
+			return stalls_data_load;
+		case "stalls_data_store":
+			return stalls_data_store;
+		case "stalls_mshr_full":
+			return stalls_mshr_full;
+		case "icache_hits":
+			return icache_hits;
+		case "icache_misses":
+			return icache_misses;
+		case "icache_prefetches":
+			return icache_prefetches;
+		case "icache_prefetches_useful":
+			return icache_prefetches_useful;
+		case "icache_victim_hits":
+			return icache_victim_hits;
+		case "dcache_hits":
+			return dcache_hits;
+		case "dcache_misses":
+			return dcache_misses;
+		case "dcache_write_backs":
+			return dcache_write_backs;
+		case "dcache_mshr_merges":
+			return dcache_mshr_merges;
+		case "dcache_prefetches":
+			return dcache_prefetches;
+		case "dcache_prefetches_useful":
+			return dcache_prefetches_useful;
+		case "dcache_victim_hits":
+			return dcache_victim_hits;
+		case "l2cache_hits":
+			return l2cache_hits;
+		case "l2cache_misses":
+			return l2cache_misses;
+		case "l2cache_write_backs":
+			return l2cache_write_backs;
+		case "l2cache_victim_hits":
+			return l2cache_victim_hits;
+		case "l2cache_back_invalidations":
+			return l2cache_back_invalidations;
+		case "l2cache_inserted_lines":
+			return l2cache_inserted_lines;
+		default:
+			return null;
+		}
+	}
+
 	/* 
 	 * Implement count functions.
 	 */
@@ -263,6 +549,16 @@ public class Statistics
 	{
 		memory_writes++;
 	}
+
+	public void countDecodeCacheHit()
+	{
+		decode_cache_hits++;
+	}
+
+	public void countDecodeCacheMiss()
+	{
+		decode_cache_misses++;
+	}
 	
 	private void countALUForwardFromEX()
 	{
@@ -281,7 +577,7 @@ public class Statistics
 	
 	public void countALUForward(boolean forwarded_ex, boolean forwared_mem, boolean forwarded_wb)
 	{
-		if ((config != null) && (config.containsKey("statistic_count_also_masked_forwardings")) && (Integer.decode(config.getProperty("statistic_count_also_masked_forwardings")) == 1))
+		if (count_masked_forwardings)
 		{
 			if(forwarded_ex)
 			{
@@ -332,7 +628,7 @@ public class Statistics
 	
 	public void countBCRTLForward(boolean forwarded_ex, boolean forwared_mem, boolean forwarded_wb)
 	{
-		if ((config != null) && (config.containsKey("statistic_count_also_masked_forwardings")) && (Integer.decode(config.getProperty("statistic_count_also_masked_forwardings")) == 1))
+		if (count_masked_forwardings)
 		{
 			if (forwarded_ex)
 			{
@@ -382,7 +678,7 @@ public class Statistics
 	
 	public void countSTOREForward(boolean forwarded_ex, boolean forwared_mem, boolean forwarded_wb)
 	{
-		if ((config != null) && (config.containsKey("statistic_count_also_masked_forwardings")) && (Integer.decode(config.getProperty("statistic_count_also_masked_forwardings")) == 1))
+		if (count_masked_forwardings)
 		{
 			if (forwarded_ex)
 			{
@@ -437,7 +733,7 @@ public class Statistics
 		stats += "Cycles: " + getCycles() + "\n";
 		stats += "Executed instructions: " + getInstructions() + "\n";
 		stats += "Performed fetches: " + getFetches() + "\n";
-		if(icache || dcache)
+		if(icache || dcache || l2cache)
 		{
 			stats += "Cache statistics:\n";
 			stats += "Icache: " + ((icache)?("used"):("not used")) + " rpol: " + icache_replacement_policy + " lines: " + icache_line_no + " associativity: " + icache_associativity + " line_size: " + icache_line_size + " total size: " + icache_size + "\n";
@@ -449,6 +745,7 @@ public class Statistics
 					stats += " hit rate: " + f.format((double)icache_hits/(double)icache_accesses * (double)100) + "%";
 				}
 				stats += " loaded words: " + icache_words_loaded + "\n";
+				stats += printVictimCache("Icache", icache_victim_lines, icache_victim_hits, icache_victim_misses, f);
 			}
 			stats += "Dcache: " + ((dcache)?("used"):("not used")) + " rpol: " + dcache_replacement_policy + " wpol: " + dcache_write_policy + " lines: " + dcache_line_no + " associativity: " + dcache_associativity + " line_size: " + dcache_line_size + " total size: " + dcache_size + "\n";
 			if(dcache)
@@ -459,18 +756,89 @@ public class Statistics
 					stats += " hit rate: " + f.format((double)dcache_hits/(double)dcache_accesses * (double)100) + "%";
 				}
 				stats += " loaded words: " + dcache_words_loaded + "\n";
+				stats += "Dcache stores to memory: words: " + dcache_words_stored + " write backs: " + dcache_write_backs + "\n";
+				stats += printVictimCache("Dcache", dcache_victim_lines, dcache_victim_hits, dcache_victim_misses, f);
+				if(dcache_mshr_number > 0)
+				{
+					stats += "Dcache MSHRs (" + dcache_mshr_number + "): merged misses: " + dcache_mshr_merges + " max occupancy: " + dcache_mshr_max_occupancy;
+					if(dcache_mshr_cycles > 0)
+					{
+						stats += " average occupancy: " + f.format((double)dcache_mshr_occupancy/(double)dcache_mshr_cycles);
+					}
+					stats += "\n";
+				}
+			}
+			if(icache_prefetcher != PrefetcherType.NONE)
+			{
+				stats += printPrefetcher("Icache", icache_prefetcher, icache_prefetch_degree, icache_prefetches, icache_prefetches_useful, icache_prefetches_late, icache_misses, f);
+			}
+			if(dcache_prefetcher != PrefetcherType.NONE)
+			{
+				stats += printPrefetcher("Dcache", dcache_prefetcher, dcache_prefetch_degree, dcache_prefetches, dcache_prefetches_useful, dcache_prefetches_late, dcache_misses, f);
 			}
+			if(l2cache)
+			{
+				stats += "L2cache: rpol: " + l2cache_replacement_policy + " wpol: " + l2cache_write_policy + " lines: " + l2cache_line_no + " associativity: " + l2cache_associativity + " line_size: " + l2cache_line_size + " total size: " + l2cache_size + "\n";
+				stats += "Accesses: " + l2cache_accesses + " hits: " + l2cache_hits + " misses: " + l2cache_misses;
+				if(l2cache_accesses > 0)
+				{
+					stats += " hit rate: " + f.format((double)l2cache_hits/(double)l2cache_accesses * (double)100) + "%";
+				}
+				stats += " loaded words: " + l2cache_words_loaded + "\n";
+				stats += "L2cache stores to memory: words: " + l2cache_words_stored + " write backs: " + l2cache_write_backs + "\n";
+				stats += printVictimCache("L2cache", l2cache_victim_lines, l2cache_victim_hits, l2cache_victim_misses, f);
+				if(l2cache_inclusion == CacheInclusionPolicy.INCLUSIVE)
+				{
+					stats += "L2cache inclusion: " + l2cache_inclusion + " back invalidations: " + l2cache_back_invalidations + "\n";
+				}
+				else if(l2cache_inclusion == CacheInclusionPolicy.EXCLUSIVE)
+				{
+					stats += "L2cache inclusion: " + l2cache_inclusion + " inserted lines: " + l2cache_inserted_lines + "\n";
+				}
+			}
+			if(icache_miss_table != null)
+			{
+				stats += "Icache misses by type: " + icache_miss_table.toString(MISS_TABLE_ENTRIES);
+			}
+			if(dcache_miss_table != null)
+			{
+				stats += "Dcache misses by type: " + dcache_miss_table.toString(MISS_TABLE_ENTRIES);
+			}
+			if(l2cache_miss_table != null)
+			{
+				stats += "L2cache misses by type: " + l2cache_miss_table.toString(MISS_TABLE_ENTRIES);
+			}
+		}
+		if(decode_cache_size > 0)
+		{
+			stats += "Decode cache (" + decode_cache_size + " entries): hits: " + decode_cache_hits + " misses: " + decode_cache_misses;
+			if(decode_cache_hits + decode_cache_misses > 0)
+			{
+				stats += " hit rate: " + f.format((double)decode_cache_hits/(double)(decode_cache_hits + decode_cache_misses) * (double)100) + "%";
+			}
+			stats += "\n";
 		}
 		stats += "Jumps: " + (getJumps_taken()+getJumps_nottaken()) + " (taken: " + getJumps_taken() + ", not taken: " + getJumps_nottaken() + ") branches_likely: " + getJumps_likely() +  " branches_and_link: " + getJumps_link() + "\n";
-		stats += "Branch Target Buffer (" + getBtb_size() + ", " + getBtb_predictor() + "): hits: " + getBtb_hits() + " misses: " + getBtb_misses() + "\n";
+		stats += "Branch Target Buffer (" + getBtb_size() + ", " + ((btb_associativity > 1) ? (btb_associativity + "-way, ") : "") + getBtb_predictor() + "): hits: " + getBtb_hits() + " misses: " + getBtb_misses() + "\n";
+		stats += "BTB misses by type: cold: " + btb_cold_misses + " target changes: " + btb_target_changes + " conflict evictions: " + btb_conflict_evictions + "\n";
+		if(ras_size > 0)
+		{
+			stats += "Return address stack (" + ras_size + " entries): hits: " + ras_hits + " misses: " + ras_misses;
+			if(ras_hits + ras_misses > 0)
+			{
+				stats += " hit rate: " + f.format((double)ras_hits/(double)(ras_hits + ras_misses) * (double)100) + "%";
+			}
+			stats += "\n";
+		}
 		stats += "Jumps correctly predicted: " + getJumps_correctly_predicted() + " mispredicted: " + getJumps_mispredicted();
 		if(getJumps_correctly_predicted()+getJumps_mispredicted()>0)
 		{
 			stats += " misprediction rate: " + f.format(((double)getJumps_mispredicted())/((double)(getJumps_correctly_predicted()+getJumps_mispredicted()))*100) + "%";
 		}
 		stats += "\n";
-		stats += "Number of unique jumps: " + getBranches_map().size() + "\n";
+		stats += "Number of unique jumps: " + branch_profile.size() + "\n";
 		stats += printBranchInformation(0);
+		stats += "Stall cycles: load use: " + stalls_load_use + " instruction fetch: " + stalls_instruction_fetch + " data load: " + stalls_data_load + " data store: " + stalls_data_store + " mshr full: " + stalls_mshr_full + "\n";
 		stats += "Memory accesses: " + (getMemory_reads() + getMemory_writes()) + " (reads: " + getMemory_reads() + ", writes: " + getMemory_writes() + ")\n";
 		stats += "ALU forwarded values: " + (getAlu_forward_from_ex() + getAlu_forward_from_mem() + getAlu_forward_from_wb()) + " (from execute: " + getAlu_forward_from_ex() + ", memory stage: " + getAlu_forward_from_mem() + ", write back: " + getAlu_forward_from_wb() + ")\n";
 		stats += "BCRTL forwarded values: " + (getBcrtl_forward_from_ex() + getBcrtl_forward_from_mem() + getBcrtl_forward_from_wb()) + " (from execute: " + getBcrtl_forward_from_ex() + ", memory stage: " + getBcrtl_forward_from_mem() + ", write back: " + getBcrtl_forward_from_wb() + ")\n";
@@ -481,14 +849,58 @@ public class Statistics
 		return stats;
 	}
 
+	/**
+	 * The hit rate of a victim cache is the share of the lines loaded into its
+	 * cache that did not have to be loaded from the next level.
+	 */
+	private String printVictimCache(String cache, int lines, int hits, int misses, DecimalFormat f)
+	{
+		if(lines == 0)
+		{
+			return "";
+		}
+		String stats = cache + " victim cache (" + lines + " lines): hits: " + hits + " misses: " + misses;
+		if(hits + misses > 0)
+		{
+			stats += " hit rate: " + f.format((double)hits/(double)(hits + misses) * (double)100) + "%";
+		}
+		return stats + "\n";
+	}
+
+	/**
+	 * Accuracy: useful prefetches per issued prefetch. Coverage: misses
+	 * avoided by useful prefetches per miss without prefetching. On time:
+	 * useful prefetches that arrived before they were accessed.
+	 */
+	private String printPrefetcher(String cache, PrefetcherType type, int degree, int issued, int useful, int late, int misses, DecimalFormat f)
+	{
+		String stats = cache + " prefetcher: " + type + " degree: " + degree + " issued: " + issued + " useful: " + useful + " late: " + late;
+		if(issued > 0)
+		{
+			stats += " accuracy: " + f.format((double)useful/(double)issued * (double)100) + "%";
+		}
+		if(useful + misses > 0)
+		{
+			stats += " coverage: " + f.format((double)useful/(double)(useful + misses) * (double)100) + "%";
+		}
+		if(useful > 0)
+		{
+			stats += " on time: " + f.format((double)(useful - late)/(double)useful * (double)100) + "%";
+		}
+		return stats + "\n";
+	}
+
 	public void setConfig(Properties config)
 	{
 		this.config = config;
+		count_masked_forwardings = (config != null)
+				&& (Integer.decode(config.getProperty("statistic_count_also_masked_forwardings", "0")) == 1);
 	}
 	
-	public void setBTBConfig(int size, BranchPredictorType predictor)
+	public void setBTBConfig(int size, int associativity, BranchPredictorType predictor)
 	{
 		setBtb_size(size);
+		btb_associativity = associativity;
 		setBtb_predictor(predictor);
 	}
 	
@@ -504,6 +916,40 @@ public class Statistics
 		}
 	}
 
+	public void countBTBUpdate(BranchTargetBufferUpdateResult btb_result)
+	{
+		switch(btb_result)
+		{
+		case COLD_MISS:
+			btb_cold_misses++;
+			break;
+		case TARGET_CHANGE:
+			btb_target_changes++;
+			break;
+		case CONFLICT_EVICTION:
+			btb_conflict_evictions++;
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * @param correctPrediction True if the target of a return was predicted
+	 * correctly, a return with an empty stack counts as miss
+	 */
+	public void countRASPrediction(boolean correctPrediction)
+	{
+		if(correctPrediction)
+		{
+			ras_hits++;
+		}
+		else
+		{
+			ras_misses++;
+		}
+	}
+
 	public void countPredictions(boolean correctPrediction)
 	{
 		if(correctPrediction)
@@ -516,55 +962,120 @@ public class Statistics
 		}
 	}
 
-	public void countBranchInformation(uint32 branch_addr, int btbIdx, uint32 branch_tgt, boolean branching, BranchTargetBufferLookupResult btb_result, boolean correctPrediction)
+	public void countBranchInformation(int branch_addr, int btbIdx, int branch_tgt, boolean branching, boolean correctPrediction)
 	{
-	    if(!getBranches_map().containsKey(branch_addr))
-	    {
-	    	getBranches_map().put(new uint32(branch_addr), new BranchStat(branch_addr, btbIdx, branch_tgt, branching, correctPrediction));
-	    }
-	    else
-	    {
-	    	getBranches_map().get(branch_addr).update(branch_tgt, branching, correctPrediction);
-	    }
+		branch_profile.count(branch_addr, btbIdx, branch_tgt, branching, correctPrediction);
 	}
 	
+	/**
+	 * @param number the number of branches to list, 0 lists all
+	 */
 	public String printBranchInformation(int number)
 	{
-		List<BranchStat> list_branches = new ArrayList<BranchStat>();
-		list_branches.addAll(getBranches_map().values());
-		
-		Comparator<BranchStat> c = new Comparator<BranchStat>()
-                {
-            		public int compare(BranchStat a, BranchStat b)
-            		{
-            			if(b.getAccesses() - a.getAccesses() != 0)
-            			{
-            				return (b.getAccesses() - a.getAccesses());
-            			}
-            			else
-            			{
-            				return (a.getBranchAddr().getValue() - b.getBranchAddr().getValue());
-            			}
-            		}
-                };
-		
-		Collections.sort(list_branches, c);
-		
 		if(number == 0)
 		{
-			number = getBranches_map().size();
+			number = branch_profile.size();
 		}
-		
-		String tempString="";
-		String retString="";
-		for(int i = 0; i < number; i ++)
+		return branch_profile.toString(number);
+	}
+
+	public void countStall(StallCause cause)
+	{
+		switch(cause)
 		{
-			tempString=list_branches.get(i).toString();
-			retString+=tempString + "\n";
-			
+		case LOAD_USE:
+			stalls_load_use++;
+			break;
+		case INSTRUCTION_FETCH:
+			stalls_instruction_fetch++;
+			break;
+		case DATA_LOAD:
+			stalls_data_load++;
+			break;
+		case DATA_STORE:
+			stalls_data_store++;
+			break;
+		case MSHR_FULL:
+			stalls_mshr_full++;
+			break;
+		default:
+			break;
 		}
-		
-		return retString;
+	}
+
+	public void countMSHROccupancy(int occupied)
+	{
+		dcache_mshr_occupancy += occupied;
+		dcache_mshr_cycles++;
+		dcache_mshr_max_occupancy = Math.max(dcache_mshr_max_occupancy, occupied);
+	}
+
+	public void countMSHRMerge()
+	{
+		dcache_mshr_merges++;
+	}
+
+	public void countPrefetch(CacheType type) throws CacheException
+	{
+		switch(type)
+		{
+		case ICACHE:
+			icache_prefetches++;
+			break;
+		case DCACHE:
+			dcache_prefetches++;
+			break;
+		default:
+			throw new CacheException("No prefetcher for cache type: " + type);
+		}
+	}
+
+	public void countUsefulPrefetch(CacheType type, boolean late) throws CacheException
+	{
+		switch(type)
+		{
+		case ICACHE:
+			icache_prefetches_useful++;
+			icache_prefetches_late += late ? 1 : 0;
+			break;
+		case DCACHE:
+			dcache_prefetches_useful++;
+			dcache_prefetches_late += late ? 1 : 0;
+			break;
+		default:
+			throw new CacheException("No prefetcher for cache type: " + type);
+		}
+	}
+
+	public void countVictimAccess(CacheType type, boolean hit) throws CacheException
+	{
+		switch(type)
+		{
+		case ICACHE:
+			icache_victim_hits += hit ? 1 : 0;
+			icache_victim_misses += hit ? 0 : 1;
+			break;
+		case DCACHE:
+			dcache_victim_hits += hit ? 1 : 0;
+			dcache_victim_misses += hit ? 0 : 1;
+			break;
+		case L2CACHE:
+			l2cache_victim_hits += hit ? 1 : 0;
+			l2cache_victim_misses += hit ? 0 : 1;
+			break;
+		default:
+			throw new CacheException("Unknown cache type: " + type);
+		}
+	}
+
+	public void countBackInvalidation()
+	{
+		l2cache_back_invalidations++;
+	}
+
+	public void countInsertedLine()
+	{
+		l2cache_inserted_lines++;
 	}
 
 	public void countCacheHit(CacheType type) throws CacheException 
@@ -579,6 +1090,10 @@ public class Statistics
 			dcache_hits++;
 			dcache_accesses++;
 			break;
+		case L2CACHE:
+			l2cache_hits++;
+			l2cache_accesses++;
+			break;
 		default:
 			throw new CacheException("Unknown cache replacement policy: " + type);
 		}
@@ -598,11 +1113,87 @@ public class Statistics
 			dcache_accesses++;
 			dcache_words_loaded += dcache_line_size / PipelineConstants.WORD_SIZE;
 			break;
+		case L2CACHE:
+			l2cache_misses++;
+			l2cache_accesses++;
+			l2cache_words_loaded += l2cache_line_size / PipelineConstants.WORD_SIZE;
+			break;
 		default:
 			throw new CacheException("Unknown cache replacement policy: " + type);
 		}
 	}
 
+	public CacheMissTable enableMissAnalysis(CacheType type) throws CacheException
+	{
+		CacheMissTable table = new CacheMissTable();
+		switch(type)
+		{
+		case ICACHE:
+			icache_miss_table = table;
+			break;
+		case DCACHE:
+			dcache_miss_table = table;
+			break;
+		case L2CACHE:
+			l2cache_miss_table = table;
+			break;
+		default:
+			throw new CacheException("Unknown cache type: " + type);
+		}
+		return table;
+	}
+
+	/**
+	 * @return the miss table of the cache or null if the miss analysis is
+	 *          not enabled for it
+	 */
+	public CacheMissTable getMissTable(CacheType type)
+	{
+		switch(type)
+		{
+		case ICACHE:
+			return icache_miss_table;
+		case DCACHE:
+			return dcache_miss_table;
+		case L2CACHE:
+			return l2cache_miss_table;
+		default:
+			return null;
+		}
+	}
+
+	public void countCacheWordsStored(CacheType type, int words) throws CacheException
+	{
+		switch(type)
+		{
+		case DCACHE:
+			dcache_words_stored += words;
+			break;
+		case L2CACHE:
+			l2cache_words_stored += words;
+			break;
+		default:
+			throw new CacheException("Cache type does not store to memory: " + type);
+		}
+	}
+
+	public void countCacheWriteBack(CacheType type, int words) throws CacheException
+	{
+		switch(type)
+		{
+		case DCACHE:
+			dcache_write_backs++;
+			dcache_words_stored += words;
+			break;
+		case L2CACHE:
+			l2cache_write_backs++;
+			l2cache_words_stored += words;
+			break;
+		default:
+			throw new CacheException("Cache type does not write back: " + type);
+		}
+	}
+
 	public void setCacheParameters(CacheType type, CacheReplacementPolicy rpol, int lineSize, int lineNo, int associativity, DCacheWritePolicy wpol) throws CacheException 
 	{
 		switch(type)
@@ -624,11 +1215,75 @@ public class Statistics
 			dcache_write_policy = wpol;
 			dcache_size = dcache_line_no * dcache_line_size;
 			break;
+		case L2CACHE:
+			l2cache = true;
+			l2cache_line_size = lineSize;
+			l2cache_line_no = lineNo;
+			l2cache_associativity = associativity;
+			l2cache_replacement_policy = rpol;
+			l2cache_write_policy = wpol;
+			l2cache_size = l2cache_line_no * l2cache_line_size;
+			break;
 		default:
 			throw new CacheException("Unknown cache replacement policy: " + type);
 		}
 	}
 
+	public void setDecodeCacheSize(int size)
+	{
+		decode_cache_size = size;
+	}
+
+	public void setRASSize(int size)
+	{
+		ras_size = size;
+	}
+
+	public void setPrefetcher(CacheType type, PrefetcherType prefetcher, int degree) throws CacheException
+	{
+		switch(type)
+		{
+		case ICACHE:
+			icache_prefetcher = prefetcher;
+			icache_prefetch_degree = degree;
+			break;
+		case DCACHE:
+			dcache_prefetcher = prefetcher;
+			dcache_prefetch_degree = degree;
+			break;
+		default:
+			throw new CacheException("No prefetcher for cache type: " + type);
+		}
+	}
+
+	public void setVictimCacheSize(CacheType type, int lines) throws CacheException
+	{
+		switch(type)
+		{
+		case ICACHE:
+			icache_victim_lines = lines;
+			break;
+		case DCACHE:
+			dcache_victim_lines = lines;
+			break;
+		case L2CACHE:
+			l2cache_victim_lines = lines;
+			break;
+		default:
+			throw new CacheException("Unknown cache type: " + type);
+		}
+	}
+
+	public void setInclusionPolicy(CacheInclusionPolicy inclusion)
+	{
+		l2cache_inclusion = inclusion;
+	}
+
+	public void setMSHRNumber(int number)
+	{
+		dcache_mshr_number = number;
+	}
+
 	public int getBtb_size() {
 		return btb_size;
 	}
@@ -661,12 +1316,8 @@ public class Statistics
 		this.btb_misses = btb_misses;
 	}
 
-	public Map<uint32,BranchStat> getBranches_map() {
-		return branches_map;
-	}
-
-	public void setBranches_map(Map<uint32,BranchStat> branches_map) {
-		this.branches_map = branches_map;
+	public BranchProfileTable getBranchProfile() {
+		return branch_profile;
 	}
 
 	public void reset() 
@@ -692,9 +1343,21 @@ public class Statistics
 		store_forward_from_mem = 0;
 		store_forward_from_ex = 0;
 		btb_size = 0;
+		btb_associativity = 0;
 		btb_predictor = BranchPredictorType.UNKNOWN;
 		btb_hits = 0;
 		btb_misses = 0;
+		btb_cold_misses = 0;
+		btb_target_changes = 0;
+		btb_conflict_evictions = 0;
+		ras_size = 0;
+		ras_hits = 0;
+		ras_misses = 0;
+		stalls_load_use = 0;
+		stalls_instruction_fetch = 0;
+		stalls_data_load = 0;
+		stalls_data_store = 0;
+		stalls_mshr_full = 0;
 		icache = false;
 		icache_accesses = 0;
 		icache_hits = 0;
@@ -716,7 +1379,55 @@ public class Statistics
 		dcache_replacement_policy = CacheReplacementPolicy.UNKNOWN;
 		dcache_write_policy = DCacheWritePolicy.UNKNOWN;
 		dcache_size = 0;
-		setBranches_map(new HashMap<uint32,BranchStat>());
+		dcache_words_stored = 0;
+		dcache_write_backs = 0;
+		dcache_mshr_number = 0;
+		dcache_mshr_occupancy = 0;
+		dcache_mshr_cycles = 0;
+		dcache_mshr_max_occupancy = 0;
+		dcache_mshr_merges = 0;
+		icache_prefetcher = PrefetcherType.NONE;
+		icache_prefetch_degree = 0;
+		icache_prefetches = 0;
+		icache_prefetches_useful = 0;
+		icache_prefetches_late = 0;
+		dcache_prefetcher = PrefetcherType.NONE;
+		dcache_prefetch_degree = 0;
+		dcache_prefetches = 0;
+		dcache_prefetches_useful = 0;
+		dcache_prefetches_late = 0;
+		icache_victim_lines = 0;
+		icache_victim_hits = 0;
+		icache_victim_misses = 0;
+		dcache_victim_lines = 0;
+		dcache_victim_hits = 0;
+		dcache_victim_misses = 0;
+		l2cache_victim_lines = 0;
+		l2cache_victim_hits = 0;
+		l2cache_victim_misses = 0;
+		l2cache = false;
+		l2cache_accesses = 0;
+		l2cache_hits = 0;
+		l2cache_misses = 0;
+		l2cache_words_loaded = 0;
+		l2cache_line_size = 0;
+		l2cache_line_no = 0;
+		l2cache_associativity = 0;
+		l2cache_replacement_policy = CacheReplacementPolicy.UNKNOWN;
+		l2cache_write_policy = DCacheWritePolicy.UNKNOWN;
+		l2cache_size = 0;
+		l2cache_words_stored = 0;
+		l2cache_write_backs = 0;
+		l2cache_inclusion = CacheInclusionPolicy.NON_INCLUSIVE;
+		l2cache_back_invalidations = 0;
+		l2cache_inserted_lines = 0;
+		icache_miss_table = null;
+		dcache_miss_table = null;
+		l2cache_miss_table = null;
+		decode_cache_size = 0;
+		decode_cache_hits = 0;
+		decode_cache_misses = 0;
+		branch_profile = new BranchProfileTable();
 	}
 
 }